@@ -0,0 +1,82 @@
+package org.logx.log4j;
+
+import org.apache.log4j.EnhancedPatternLayout;
+import org.apache.log4j.Layout;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * 可被多个线程同时调用的Log4j 1.x Layout格式化器
+ * <p>
+ * PatternLayout、SimpleLayout在实例字段中复用StringBuffer，日期转换器也不是线程安全的，
+ * 原本依赖AppenderSkeleton.doAppend的锁串行调用：
+ * <ul>
+ * <li>PatternLayout、SimpleLayout：每个线程使用各自的副本，格式化不加锁</li>
+ * <li>EnhancedPatternLayout：每次格式化使用新的缓冲区，日期转换器自带同步，直接共享</li>
+ * <li>其他Layout：无法安全复制，只在格式化期间对该Layout实例加锁</li>
+ * </ul>
+ * 异常堆栈在锁外追加，Layout不处理异常时与原有输出一致。
+ */
+final class LayoutFormatter {
+
+    private final Layout layout;
+    private final ThreadLocal<Layout> threadLayouts;
+    private final boolean threadSafe;
+    private final boolean ignoresThrowable;
+
+    LayoutFormatter(Layout layout) {
+        this.layout = layout;
+        this.ignoresThrowable = layout.ignoresThrowable();
+        Class<?> type = layout.getClass();
+        if (type == PatternLayout.class) {
+            String pattern = ((PatternLayout) layout).getConversionPattern();
+            this.threadLayouts = ThreadLocal.withInitial(() -> new PatternLayout(pattern));
+            this.threadSafe = true;
+        } else if (type == SimpleLayout.class) {
+            this.threadLayouts = ThreadLocal.withInitial(SimpleLayout::new);
+            this.threadSafe = true;
+        } else {
+            this.threadLayouts = null;
+            this.threadSafe = type == EnhancedPatternLayout.class;
+        }
+    }
+
+    /**
+     * 格式化事件，Layout不处理异常时追加异常堆栈
+     *
+     * @param event 日志事件
+     * @return 格式化后的日志行
+     */
+    String format(LoggingEvent event) {
+        String text = formatLayout(event);
+        if (!ignoresThrowable || event.getThrowableInformation() == null) {
+            return text;
+        }
+        String[] stackTrace = event.getThrowableStrRep();
+        if (stackTrace == null) {
+            return text;
+        }
+        int length = text.length();
+        for (String line : stackTrace) {
+            length += line.length() + Layout.LINE_SEP_LEN;
+        }
+        StringBuilder sb = new StringBuilder(length).append(text);
+        for (String line : stackTrace) {
+            sb.append(line).append(Layout.LINE_SEP);
+        }
+        return sb.toString();
+    }
+
+    private String formatLayout(LoggingEvent event) {
+        if (threadLayouts != null) {
+            return threadLayouts.get().format(event);
+        }
+        if (threadSafe) {
+            return layout.format(event);
+        }
+        synchronized (layout) {
+            return layout.format(event);
+        }
+    }
+}
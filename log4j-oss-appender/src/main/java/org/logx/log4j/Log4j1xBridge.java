@@ -4,13 +4,14 @@ import org.apache.log4j.Layout;
 import org.apache.log4j.spi.LoggingEvent;
 import org.logx.adapter.AbstractUniversalAdapter;
 import org.logx.storage.StorageConfig;
-import org.logx.storage.StorageService;
-import org.logx.storage.StorageServiceFactory;
-import org.logx.core.AsyncEngine;
+import org.logx.core.AsyncEngineRegistry;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.core.DeferredFormatStage;
 import org.logx.core.LogPayloadSanitizer;
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Log4j 1.x 桥接器
@@ -18,36 +19,27 @@ import org.apache.log4j.Logger;
  */
 public class Log4j1xBridge extends AbstractUniversalAdapter {
     private static final Logger logger = Logger.getLogger(Log4j1xBridge.class);
-    private Layout layout;
+    private volatile LayoutFormatter formatter;
     private AsyncEngineConfig engineConfig;
+    private volatile DeferredFormatStage<LoggingEvent> deferredFormat;
     
     public Log4j1xBridge(StorageConfig config) {
         this(config, null);
     }
     
     public Log4j1xBridge(StorageConfig config, AsyncEngineConfig engineConfig) {
-        // 使用存储服务工厂创建存储服务
-        StorageService storageService = StorageServiceFactory.createStorageService(config);
-
-        // 从存储服务获取存储接口
-        this.s3Storage = storageService;
-
         // 保存引擎配置
         this.engineConfig = engineConfig;
 
-        // 设置StorageConfig到引擎配置
-        if (engineConfig != null) {
-            engineConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, engineConfig);
-        } else {
-            AsyncEngineConfig defaultConfig = AsyncEngineConfig.defaultConfig();
-            defaultConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, defaultConfig);
-        }
+        // 从注册表获取引擎：配置相同的Appender共享引擎，存储端点相同的引擎共享存储客户端
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config,
+                engineConfig != null ? engineConfig : AsyncEngineConfig.defaultConfig());
+        this.s3Storage = lease.getStorageService();
+        this.asyncEngine = lease;
     }
     
     public void setLayout(Layout layout) {
-        this.layout = layout;
+        this.formatter = layout != null ? new LayoutFormatter(layout) : null;
     }
     
     public void setEngineConfig(AsyncEngineConfig engineConfig) {
@@ -60,6 +52,44 @@ public class Log4j1xBridge extends AbstractUniversalAdapter {
         return engineConfig;
     }
     
+    @Override
+    public void start() {
+        super.start();
+        if (deferredFormat == null && engineConfig != null && engineConfig.isDeferredFormatEnabled()) {
+            DeferredFormatStage<LoggingEvent> stage = new DeferredFormatStage<>("log4j", engineConfig, asyncEngine,
+                    new DeferredFormatStage.Renderer<LoggingEvent>() {
+                        @Override
+                        public LogPayloadSanitizer.SanitizedPayload render(LoggingEvent event) {
+                            return Log4j1xBridge.this.render(event);
+                        }
+
+                        @Override
+                        public String routeKey(LoggingEvent event) {
+                            return routeKeyOf(event);
+                        }
+                    });
+            stage.start();
+            deferredFormat = stage;
+        }
+    }
+
+    @Override
+    public void stop() {
+        DeferredFormatStage<LoggingEvent> stage = deferredFormat;
+        if (stage != null) {
+            // 先排空格式化积压再停止引擎
+            stage.close(5, TimeUnit.SECONDS);
+            deferredFormat = null;
+        }
+        super.stop();
+    }
+
+    /**
+     * 写入日志事件
+     * <p>
+     * 开启延迟格式化时按Log4j 1.x AsyncAppender的方式在调用线程上冻结事件（NDC、线程名、MDC、消息和异常堆栈），
+     * 格式化交给格式化工作线程；不提取位置信息，%L、%M等转换符输出"?"。
+     */
     @Override
     public void append(Object event) {
         if (!isStarted() || asyncEngine == null) {
@@ -67,23 +97,55 @@ public class Log4j1xBridge extends AbstractUniversalAdapter {
         }
         
         try {
-            String logLine = convertEvent(event);
-            if (logLine != null) {
-                int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
-                LogPayloadSanitizer.SanitizedPayload sanitized = LogPayloadSanitizer.sanitize(logLine, maxBytes);
-                if (sanitized.sanitized || sanitized.truncated) {
-                    logger.warn(String.format("Log4j1x payload sanitized=%s, truncated=%s, originalBytes=%d",
-                            sanitized.sanitized, sanitized.truncated, sanitized.originalBytes));
-                }
-                asyncEngine.put(sanitized.bytes);
+            DeferredFormatStage<LoggingEvent> stage = deferredFormat;
+            if (stage != null && event instanceof LoggingEvent) {
+                LoggingEvent loggingEvent = (LoggingEvent) event;
+                loggingEvent.getNDC();
+                loggingEvent.getThreadName();
+                loggingEvent.getMDCCopy();
+                loggingEvent.getRenderedMessage();
+                loggingEvent.getThrowableStrRep();
+                stage.submit(loggingEvent);
+                return;
+            }
+            LogPayloadSanitizer.SanitizedPayload sanitized = render(event);
+            if (sanitized != null) {
+                asyncEngine.put(sanitized.bytes, routeKeyOf(event));
             }
         } catch (Exception e) {
             throw new RuntimeException("Failed to process log event", e);
         }
     }
+
+    private LogPayloadSanitizer.SanitizedPayload render(Object event) {
+        String logLine = convertEvent(event);
+        if (logLine == null) {
+            return null;
+        }
+        int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
+        LogPayloadSanitizer.SanitizedPayload sanitized = LogPayloadSanitizer.sanitize(logLine, maxBytes);
+        if (sanitized.sanitized || sanitized.truncated) {
+            logger.warn(String.format("Log4j1x payload sanitized=%s, truncated=%s, originalBytes=%d",
+                    sanitized.sanitized, sanitized.truncated, sanitized.originalBytes));
+        }
+        return sanitized;
+    }
     
+    private String routeKeyOf(Object event) {
+        if (!(event instanceof LoggingEvent)) {
+            return null;
+        }
+        LoggingEvent loggingEvent = (LoggingEvent) event;
+        return resolveRouteKey(String.valueOf(loggingEvent.getLevel()), loggingEvent.getLoggerName(), key -> {
+            Object value = loggingEvent.getMDC(key);
+            return value != null ? value.toString() : null;
+        });
+    }
+
     /**
      * 将Log4j 1.x事件转换为字符串
+     * <p>
+     * 在调用线程上格式化，不持有Appender级别的锁，见{@link LayoutFormatter}。
      */
     private String convertEvent(Object event) {
         if (!(event instanceof LoggingEvent)) {
@@ -91,22 +153,11 @@ public class Log4j1xBridge extends AbstractUniversalAdapter {
         }
         
         LoggingEvent loggingEvent = (LoggingEvent) event;
+        LayoutFormatter current = formatter;
         
         // 使用Layout格式化日志
-        if (layout != null) {
-            StringBuilder sb = new StringBuilder(layout.format(loggingEvent));
-            
-            // 如果Layout要求异常信息且事件包含异常
-            if (layout.ignoresThrowable() && loggingEvent.getThrowableInformation() != null) {
-                String[] stackTrace = loggingEvent.getThrowableStrRep();
-                if (stackTrace != null) {
-                    for (String line : stackTrace) {
-                        sb.append(line).append(Layout.LINE_SEP);
-                    }
-                }
-            }
-            
-            return sb.toString();
+        if (current != null) {
+            return current.format(loggingEvent);
         } else {
             // 默认格式
             return loggingEvent.getRenderedMessage() + Layout.LINE_SEP;
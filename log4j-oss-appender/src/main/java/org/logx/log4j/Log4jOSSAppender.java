@@ -1,26 +1,33 @@
 package org.logx.log4j;
 
 import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Layout;
 import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.Filter;
 import org.apache.log4j.spi.LoggingEvent;
 import org.logx.config.ConfigManager;
 import org.logx.config.properties.LogxOssProperties;
 import org.logx.config.validation.ConfigValidationUtils;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.core.AsyncEngineConfigBuilder;
 import org.logx.storage.StorageConfig;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Log4j 1.x OSS Appender
+ * <p>
+ * 覆盖AppenderSkeleton的synchronized doAppend，阈值和过滤器链的语义保持不变，
+ * 但日志调用不再在Appender上串行化：Layout格式化和异常堆栈渲染在调用线程上完成（见{@link LayoutFormatter}），
+ * 随后直接写入引擎的多生产者RingBuffer。
+ */
 public class Log4jOSSAppender extends AppenderSkeleton {
 
     private static final Logger logger = Logger.getLogger(Log4jOSSAppender.class);
 
-    private Log4j1xBridge adapter;
-
-    // 全局初始化标志，防止重复初始化
-    private static final AtomicBoolean alreadyInitialized = new AtomicBoolean(false);
+    private volatile Log4j1xBridge adapter;
 
     // XML配置字段
     private final Map<String, String> xmlConfig = new HashMap<>();
@@ -29,15 +36,8 @@ public class Log4jOSSAppender extends AppenderSkeleton {
     public void activateOptions() {
         super.activateOptions();
 
-        // 检查是否已经初始化过
-        if (alreadyInitialized.get()) {
-            logger.info("Log4jOSSAppender already initialized, skipping initialization");
-            return;
-        }
-
-        // 尝试设置为已初始化状态
-        if (!alreadyInitialized.compareAndSet(false, true)) {
-            logger.info("Log4jOSSAppender already initialized by another thread, skipping initialization");
+        // 同一实例重复激活时不再创建引擎，不同实例各自从引擎注册表获取引擎
+        if (adapter != null) {
             return;
         }
 
@@ -61,23 +61,12 @@ public class Log4jOSSAppender extends AppenderSkeleton {
 
             StorageConfig storageConfig = new StorageConfig(properties);
 
-            AsyncEngineConfig engineConfig = AsyncEngineConfig.defaultConfig();
-            engineConfig.enabled(properties.isEnabled());
-            engineConfig.queueCapacity(properties.getEngine().getQueue().getCapacity());
-            engineConfig.batchMaxMessages(properties.getEngine().getBatch().getCount());
-            engineConfig.batchMaxBytes(properties.getEngine().getBatch().getBytes());
-            engineConfig.maxMessageAgeMs(properties.getEngine().getBatch().getMaxAgeMs());
-            engineConfig.blockOnFull(!properties.getEngine().getQueue().isDropWhenFull());
-            engineConfig.uploadTimeoutMs(properties.getStorage().getUploadTimeoutMs());
-            engineConfig.payloadMaxBytes(properties.getEngine().getPayloadMaxBytes());
-
-            engineConfig.fallbackRetentionDays(properties.getEngine().getFallback().getRetentionDays());
-            engineConfig.fallbackScanIntervalSeconds(properties.getEngine().getFallback().getScanIntervalSeconds());
-            engineConfig.fallbackMaxRetryFileBytes(properties.getEngine().getFallback().getMaxRetryFileBytes());
-            engineConfig.fallbackMaxRetryFilesPerRound(properties.getEngine().getFallback().getMaxRetryFilesPerRound());
-            engineConfig.fallbackMaxRetryBytesPerRound(properties.getEngine().getFallback().getMaxRetryBytesPerRound());
-            engineConfig.oversizePayloadPolicy(properties.getEngine().getOversizePayloadPolicy());
-            engineConfig.oversizeFallbackMaxBytes(properties.getEngine().getOversizeFallbackMaxBytes());
+            AsyncEngineConfig engineConfig = AsyncEngineConfigBuilder.buildConfig(properties);
+            // doAppend不经过AppenderSkeleton的锁，引擎也可能被多个Appender共享，必须按多生产者发布
+            if (!properties.getEngine().isMultiProducer()) {
+                logger.warn("logx.oss.engine.multiProducer=false is ignored, Log4jOSSAppender always publishes from multiple threads");
+            }
+            engineConfig.multiProducer(true);
 
             this.adapter = new Log4j1xBridge(storageConfig, engineConfig);
             this.adapter.setLayout(layout);
@@ -113,6 +102,18 @@ public class Log4jOSSAppender extends AppenderSkeleton {
         if (xmlConfig.containsKey("logx.oss.storage.keyPrefix")) {
             properties.getStorage().setKeyPrefix(xmlConfig.get("logx.oss.storage.keyPrefix"));
         }
+        if (xmlConfig.containsKey("logx.oss.storage.keyTemplate")) {
+            properties.getStorage().setKeyTemplate(xmlConfig.get("logx.oss.storage.keyTemplate"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.keyAttributes")) {
+            properties.getStorage().setKeyAttributes(xmlConfig.get("logx.oss.storage.keyAttributes"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.failover.targets")) {
+            properties.getStorage().setFailoverTargets(xmlConfig.get("logx.oss.storage.failover.targets"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.fanout.targets")) {
+            properties.getStorage().setFanoutTargets(xmlConfig.get("logx.oss.storage.fanout.targets"));
+        }
         if (xmlConfig.containsKey("logx.oss.storage.ossType")) {
             properties.getStorage().setOssType(xmlConfig.get("logx.oss.storage.ossType"));
         }
@@ -169,21 +170,62 @@ public class Log4jOSSAppender extends AppenderSkeleton {
         }
     }
 
+    /**
+     * 不加锁的doAppend，与AppenderSkeleton的实现语义一致：关闭后拒绝、先判阈值、再走过滤器链
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed) {
+            LogLog.error("Attempted to append to closed appender named [" + name + "].");
+            return;
+        }
+
+        if (!isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+
+        Filter f = this.headFilter;
+        FILTER_LOOP:
+        while (f != null) {
+            switch (f.decide(event)) {
+                case Filter.DENY:
+                    return;
+                case Filter.ACCEPT:
+                    break FILTER_LOOP;
+                case Filter.NEUTRAL:
+                default:
+                    f = f.getNext();
+            }
+        }
+
+        append(event);
+    }
+
     @Override
     protected void append(LoggingEvent event) {
-        if (!isAsSevereAsThreshold(event.getLevel()) || adapter == null) {
+        Log4j1xBridge current = adapter;
+        if (!isAsSevereAsThreshold(event.getLevel()) || current == null) {
             return;
         }
 
         try {
-            adapter.append(event);
+            current.append(event);
         } catch (Exception e) {
             getErrorHandler().error("Failed to append log event", e, 1, event);
         }
     }
 
     @Override
-    public void close() {
+    public void setLayout(Layout layout) {
+        super.setLayout(layout);
+        Log4j1xBridge current = adapter;
+        if (current != null) {
+            current.setLayout(layout);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
         if (closed) {
             return;
         }
@@ -229,6 +271,22 @@ public class Log4jOSSAppender extends AppenderSkeleton {
         xmlConfig.put("logx.oss.storage.keyPrefix", keyPrefix);
     }
 
+    public void setKeyTemplate(String keyTemplate) {
+        xmlConfig.put("logx.oss.storage.keyTemplate", keyTemplate);
+    }
+
+    public void setKeyAttributes(String keyAttributes) {
+        xmlConfig.put("logx.oss.storage.keyAttributes", keyAttributes);
+    }
+
+    public void setFailoverTargets(String failoverTargets) {
+        xmlConfig.put("logx.oss.storage.failover.targets", failoverTargets);
+    }
+
+    public void setFanoutTargets(String fanoutTargets) {
+        xmlConfig.put("logx.oss.storage.fanout.targets", fanoutTargets);
+    }
+
     public void setOssType(String ossType) {
         xmlConfig.put("logx.oss.storage.ossType", ossType);
     }
@@ -0,0 +1,107 @@
+package org.logx.log4j;
+
+import org.apache.log4j.Layout;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayoutFormatterTest {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss,SSS} %-5p [%t] %c{1} - %m%n";
+
+    private final Logger logger = Logger.getLogger(LayoutFormatterTest.class);
+
+    @Test
+    @DisplayName("各线程的PatternLayout副本应与共享Layout的输出一致")
+    void shouldFormatSameAsSharedPatternLayout() throws Exception {
+        PatternLayout shared = new PatternLayout(PATTERN);
+        LayoutFormatter formatter = new LayoutFormatter(shared);
+        List<LoggingEvent> events = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LoggingEvent event = event("message " + i + " 中文", null, System.currentTimeMillis() - i * 1000L);
+            events.add(event);
+            expected.add(shared.format(event));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> lines = new ArrayList<>();
+                    for (LoggingEvent event : events) {
+                        lines.add(formatter.format(event));
+                    }
+                    return lines;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Layout不处理异常时应在格式化结果后逐行追加异常堆栈")
+    void shouldAppendThrowableWhenLayoutIgnoresIt() {
+        PatternLayout layout = new PatternLayout(PATTERN);
+        assertTrue(layout.ignoresThrowable());
+        LoggingEvent event = event("failed", new IllegalStateException("boom"), System.currentTimeMillis());
+
+        StringBuilder expected = new StringBuilder(layout.format(event));
+        for (String line : event.getThrowableStrRep()) {
+            expected.append(line).append(Layout.LINE_SEP);
+        }
+
+        String formatted = new LayoutFormatter(layout).format(event);
+        assertEquals(expected.toString(), formatted);
+        assertTrue(formatted.contains("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    @DisplayName("Layout自行处理异常时不应重复追加异常堆栈")
+    void shouldNotAppendThrowableWhenLayoutHandlesIt() {
+        Layout layout = new Layout() {
+            @Override
+            public String format(LoggingEvent event) {
+                return event.getRenderedMessage() + " with throwable" + LINE_SEP;
+            }
+
+            @Override
+            public boolean ignoresThrowable() {
+                return false;
+            }
+
+            @Override
+            public void activateOptions() {
+            }
+        };
+        LoggingEvent event = event("failed", new IllegalStateException("boom"), System.currentTimeMillis());
+
+        assertEquals("failed with throwable" + Layout.LINE_SEP, new LayoutFormatter(layout).format(event));
+    }
+
+    private LoggingEvent event(String message, Throwable throwable, long timestamp) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, timestamp, Level.INFO, message,
+                throwable);
+        // 线程名在首次读取时确定，先在创建线程上固定下来
+        event.getThreadName();
+        return event;
+    }
+}
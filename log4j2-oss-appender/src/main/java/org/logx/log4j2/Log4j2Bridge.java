@@ -2,17 +2,20 @@ package org.logx.log4j2;
 
 import org.logx.adapter.AbstractUniversalAdapter;
 import org.logx.storage.StorageConfig;
-import org.logx.storage.StorageService;
-import org.logx.storage.StorageServiceFactory;
-import org.logx.core.AsyncEngine;
+import org.logx.core.AsyncEngineRegistry;
 import org.logx.core.AsyncEngineConfig;
 import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.async.InternalAsyncUtil;
+import org.apache.logging.log4j.core.impl.LocationAware;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.logx.core.DeferredFormatStage;
 import org.logx.core.LogPayloadSanitizer;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Log4j2 桥接器
@@ -22,30 +25,21 @@ public class Log4j2Bridge extends AbstractUniversalAdapter {
     private static final Logger logger = LogManager.getLogger(Log4j2Bridge.class);
     private Layout<? extends Serializable> layout;
     private AsyncEngineConfig engineConfig;
+    private volatile DeferredFormatStage<LogEvent> deferredFormat;
     
     public Log4j2Bridge(StorageConfig config) {
         this(config, null);
     }
     
     public Log4j2Bridge(StorageConfig config, AsyncEngineConfig engineConfig) {
-        // 使用存储服务工厂创建存储服务
-        StorageService storageService = StorageServiceFactory.createStorageService(config);
-
-        // 从存储服务获取存储接口
-        this.s3Storage = storageService;
-
         // 保存引擎配置
         this.engineConfig = engineConfig;
 
-        // 设置StorageConfig到引擎配置
-        if (engineConfig != null) {
-            engineConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, engineConfig);
-        } else {
-            AsyncEngineConfig defaultConfig = AsyncEngineConfig.defaultConfig();
-            defaultConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, defaultConfig);
-        }
+        // 从注册表获取引擎：配置相同的Appender共享引擎，存储端点相同的引擎共享存储客户端
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config,
+                engineConfig != null ? engineConfig : AsyncEngineConfig.defaultConfig());
+        this.s3Storage = lease.getStorageService();
+        this.asyncEngine = lease;
     }
     
     public void setLayout(Layout<? extends Serializable> layout) {
@@ -62,6 +56,44 @@ public class Log4j2Bridge extends AbstractUniversalAdapter {
         return engineConfig;
     }
     
+    @Override
+    public void start() {
+        super.start();
+        if (deferredFormat == null && engineConfig != null && engineConfig.isDeferredFormatEnabled()) {
+            DeferredFormatStage<LogEvent> stage = new DeferredFormatStage<>("log4j2", engineConfig, asyncEngine,
+                    new DeferredFormatStage.Renderer<LogEvent>() {
+                        @Override
+                        public LogPayloadSanitizer.SanitizedPayload render(LogEvent event) {
+                            return Log4j2Bridge.this.render(event);
+                        }
+
+                        @Override
+                        public String routeKey(LogEvent event) {
+                            return routeKeyOf(event);
+                        }
+                    });
+            stage.start();
+            deferredFormat = stage;
+        }
+    }
+
+    @Override
+    public void stop() {
+        DeferredFormatStage<LogEvent> stage = deferredFormat;
+        if (stage != null) {
+            // 先排空格式化积压再停止引擎
+            stage.close(5, TimeUnit.SECONDS);
+            deferredFormat = null;
+        }
+        super.stop();
+    }
+
+    /**
+     * 写入日志事件
+     * <p>
+     * 开启延迟格式化时在调用线程上生成不可变快照（与Log4j2 AsyncAppender相同：复制可复用的事件并冻结消息，
+     * Layout需要位置信息时一并提取），编码交给格式化工作线程。
+     */
     @Override
     public void append(Object event) {
         if (!isStarted() || asyncEngine == null) {
@@ -69,38 +101,67 @@ public class Log4j2Bridge extends AbstractUniversalAdapter {
         }
         
         try {
-            String logLine = convertEvent(event);
-            if (logLine != null) {
-                int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
-                LogPayloadSanitizer.SanitizedPayload sanitized = LogPayloadSanitizer.sanitize(logLine, maxBytes);
-                if (sanitized.sanitized || sanitized.truncated) {
-                    logger.warn("Log4j2 payload sanitized={}, truncated={}, originalBytes={}",
-                            sanitized.sanitized, sanitized.truncated, sanitized.originalBytes);
-                }
-                asyncEngine.put(sanitized.bytes);
+            DeferredFormatStage<LogEvent> stage = deferredFormat;
+            if (stage != null && event instanceof LogEvent) {
+                stage.submit(snapshotOf((LogEvent) event));
+                return;
+            }
+            LogPayloadSanitizer.SanitizedPayload sanitized = render(event);
+            if (sanitized != null) {
+                asyncEngine.put(sanitized.bytes, routeKeyOf(event));
             }
         } catch (Exception e) {
             throw new RuntimeException("Failed to process log event", e);
         }
     }
+
+    private LogEvent snapshotOf(LogEvent event) {
+        Layout<? extends Serializable> current = layout;
+        boolean includeLocation = current instanceof LocationAware && ((LocationAware) current).requiresLocation();
+        Log4jLogEvent snapshot = Log4jLogEvent.createMemento(event, includeLocation);
+        InternalAsyncUtil.makeMessageImmutable(snapshot.getMessage());
+        return snapshot;
+    }
+
+    private LogPayloadSanitizer.SanitizedPayload render(Object event) {
+        int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
+        LogPayloadSanitizer.SanitizedPayload sanitized = encodeEvent(event, maxBytes);
+        if (sanitized != null && (sanitized.sanitized || sanitized.truncated)) {
+            logger.warn("Log4j2 payload sanitized={}, truncated={}, originalBytes={}",
+                    sanitized.sanitized, sanitized.truncated, sanitized.originalBytes);
+        }
+        return sanitized;
+    }
     
+    private String routeKeyOf(Object event) {
+        if (!(event instanceof LogEvent)) {
+            return null;
+        }
+        LogEvent logEvent = (LogEvent) event;
+        return resolveRouteKey(logEvent.getLevel() != null ? logEvent.getLevel().name() : null,
+                logEvent.getLoggerName(), key -> logEvent.getContextData().getValue(key));
+    }
+
     /**
-     * 将Log4j2事件转换为字符串
+     * 将Log4j2事件编码为清洗后的字节
+     * <p>
+     * 有Layout时通过{@code Layout.encode}写入线程自有的缓冲区，不经过toByteArray和String中转，
+     * 启用log4j2.enableThreadlocals时PatternLayout等Layout的编码过程本身也不产生垃圾。
      */
-    private String convertEvent(Object event) {
+    private LogPayloadSanitizer.SanitizedPayload encodeEvent(Object event, int maxBytes) {
         if (!(event instanceof LogEvent)) {
             return null;
         }
         
         LogEvent logEvent = (LogEvent) event;
         
-        // 使用Layout格式化日志
         if (layout != null) {
-            byte[] bytes = layout.toByteArray(logEvent);
-            return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+            ReusableByteBufferDestination destination = ReusableByteBufferDestination.current();
+            layout.encode(logEvent, destination);
+            return destination.toPayload(maxBytes);
         } else {
             // 默认格式
-            return logEvent.getMessage().getFormattedMessage() + "\n";
+            return LogPayloadSanitizer.sanitize(logEvent.getMessage().getFormattedMessage() + "\n", maxBytes);
         }
     }
 }
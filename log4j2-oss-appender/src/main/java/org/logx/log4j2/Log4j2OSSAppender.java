@@ -14,13 +14,13 @@ import org.logx.config.ConfigManager;
 import org.logx.config.properties.LogxOssProperties;
 import org.logx.config.validation.ConfigValidationUtils;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.core.AsyncEngineConfigBuilder;
 import org.logx.storage.StorageConfig;
 
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @Plugin(name = "Log4j2OSSAppender", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
 public final class Log4j2OSSAppender extends AbstractAppender {
@@ -28,9 +28,6 @@ public final class Log4j2OSSAppender extends AbstractAppender {
     private Log4j2Bridge adapter;
     private final Map<String, String> xmlConfig = new HashMap<>();
 
-    // 全局初始化标志，防止重复初始化
-    private static final AtomicBoolean alreadyInitialized = new AtomicBoolean(false);
-
     public Log4j2OSSAppender(final String name, final Filter filter, final Layout<? extends Serializable> layout) {
         super(name, filter, layout != null ? layout : createDefaultLayout(), true, null);
     }
@@ -52,15 +49,8 @@ public final class Log4j2OSSAppender extends AbstractAppender {
 
     @Override
     public void start() {
-        // 检查是否已经初始化过
-        if (alreadyInitialized.get()) {
-            LOGGER.info("Log4j2OSSAppender already initialized, skipping initialization");
-            return;
-        }
-
-        // 尝试设置为已初始化状态
-        if (!alreadyInitialized.compareAndSet(false, true)) {
-            LOGGER.info("Log4j2OSSAppender already initialized by another thread, skipping initialization");
+        // 同一实例重复启动时不再创建引擎，不同实例各自从引擎注册表获取引擎
+        if (isStarted()) {
             return;
         }
 
@@ -85,23 +75,12 @@ public final class Log4j2OSSAppender extends AbstractAppender {
 
             StorageConfig storageConfig = new StorageConfig(properties);
 
-            AsyncEngineConfig engineConfig = AsyncEngineConfig.defaultConfig();
-            engineConfig.enabled(properties.isEnabled());
-            engineConfig.queueCapacity(properties.getEngine().getQueue().getCapacity());
-            engineConfig.batchMaxMessages(properties.getEngine().getBatch().getCount());
-            engineConfig.batchMaxBytes(properties.getEngine().getBatch().getBytes());
-            engineConfig.maxMessageAgeMs(properties.getEngine().getBatch().getMaxAgeMs());
-            engineConfig.blockOnFull(!properties.getEngine().getQueue().isDropWhenFull());
-            engineConfig.uploadTimeoutMs(properties.getStorage().getUploadTimeoutMs());
-            engineConfig.payloadMaxBytes(properties.getEngine().getPayloadMaxBytes());
-
-            engineConfig.fallbackRetentionDays(properties.getEngine().getFallback().getRetentionDays());
-            engineConfig.fallbackScanIntervalSeconds(properties.getEngine().getFallback().getScanIntervalSeconds());
-            engineConfig.fallbackMaxRetryFileBytes(properties.getEngine().getFallback().getMaxRetryFileBytes());
-            engineConfig.fallbackMaxRetryFilesPerRound(properties.getEngine().getFallback().getMaxRetryFilesPerRound());
-            engineConfig.fallbackMaxRetryBytesPerRound(properties.getEngine().getFallback().getMaxRetryBytesPerRound());
-            engineConfig.oversizePayloadPolicy(properties.getEngine().getOversizePayloadPolicy());
-            engineConfig.oversizeFallbackMaxBytes(properties.getEngine().getOversizeFallbackMaxBytes());
+            AsyncEngineConfig engineConfig = AsyncEngineConfigBuilder.buildConfig(properties);
+            // append不加锁，引擎也可能被多个Appender共享，必须按多生产者发布
+            if (!properties.getEngine().isMultiProducer()) {
+                LOGGER.warn("logx.oss.engine.multiProducer=false is ignored, Log4j2OSSAppender always publishes from multiple threads");
+            }
+            engineConfig.multiProducer(true);
 
             this.adapter = new Log4j2Bridge(storageConfig, engineConfig);
             this.adapter.setLayout(getLayout());
@@ -124,6 +103,10 @@ public final class Log4j2OSSAppender extends AbstractAppender {
         xmlConfig.computeIfPresent("logx.oss.storage.accessKeySecret", (k, v) -> { properties.getStorage().setAccessKeySecret(v); return v; });
         xmlConfig.computeIfPresent("logx.oss.storage.bucket", (k, v) -> { properties.getStorage().setBucket(v); return v; });
         xmlConfig.computeIfPresent("logx.oss.storage.keyPrefix", (k, v) -> { properties.getStorage().setKeyPrefix(v); return v; });
+        xmlConfig.computeIfPresent("logx.oss.storage.keyTemplate", (k, v) -> { properties.getStorage().setKeyTemplate(v); return v; });
+        xmlConfig.computeIfPresent("logx.oss.storage.keyAttributes", (k, v) -> { properties.getStorage().setKeyAttributes(v); return v; });
+        xmlConfig.computeIfPresent("logx.oss.storage.failover.targets", (k, v) -> { properties.getStorage().setFailoverTargets(v); return v; });
+        xmlConfig.computeIfPresent("logx.oss.storage.fanout.targets", (k, v) -> { properties.getStorage().setFanoutTargets(v); return v; });
         xmlConfig.computeIfPresent("logx.oss.storage.ossType", (k, v) -> { properties.getStorage().setOssType(v); return v; });
         xmlConfig.computeIfPresent("logx.oss.storage.pathStyleAccess", (k, v) -> { properties.getStorage().setPathStyleAccess(Boolean.parseBoolean(v)); return v; });
         xmlConfig.computeIfPresent("logx.oss.storage.uploadTimeoutMs", (k, v) -> { properties.getStorage().setUploadTimeoutMs(Long.parseLong(v)); return v; });
@@ -177,6 +160,10 @@ public final class Log4j2OSSAppender extends AbstractAppender {
     public void setAccessKeySecret(String accessKeySecret) { xmlConfig.put("logx.oss.storage.accessKeySecret", accessKeySecret); }
     public void setBucket(String bucket) { xmlConfig.put("logx.oss.storage.bucket", bucket); }
     public void setKeyPrefix(String keyPrefix) { xmlConfig.put("logx.oss.storage.keyPrefix", keyPrefix); }
+    public void setKeyTemplate(String keyTemplate) { xmlConfig.put("logx.oss.storage.keyTemplate", keyTemplate); }
+    public void setKeyAttributes(String keyAttributes) { xmlConfig.put("logx.oss.storage.keyAttributes", keyAttributes); }
+    public void setFailoverTargets(String failoverTargets) { xmlConfig.put("logx.oss.storage.failover.targets", failoverTargets); }
+    public void setFanoutTargets(String fanoutTargets) { xmlConfig.put("logx.oss.storage.fanout.targets", fanoutTargets); }
     public void setOssType(String ossType) { xmlConfig.put("logx.oss.storage.ossType", ossType); }
     public void setPathStyleAccess(String pathStyleAccess) { xmlConfig.put("logx.oss.storage.pathStyleAccess", pathStyleAccess); }
     public void setQueueCapacity(String queueCapacity) { xmlConfig.put("logx.oss.engine.queue.capacity", queueCapacity); }
@@ -0,0 +1,85 @@
+package org.logx.log4j2;
+
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.logx.core.LogPayloadSanitizer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 可复用的Layout编码目标
+ * <p>
+ * 每个日志线程持有一个实例，{@code Layout.encode(event, destination)}直接把事件编码到线程自有的堆缓冲区，
+ * 避免{@code toByteArray}和String中转。编码完成后按字节清洗并复制出一份精确长度的载荷交给引擎，
+ * 这是队列持有事件所必需的唯一一次分配。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class ReusableByteBufferDestination implements ByteBufferDestination {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    // 偶发的超大事件结束后不再保留大缓冲区
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<ReusableByteBufferDestination> CURRENT =
+            ThreadLocal.withInitial(ReusableByteBufferDestination::new);
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    static ReusableByteBufferDestination current() {
+        ReusableByteBufferDestination destination = CURRENT.get();
+        destination.buffer.clear();
+        return destination;
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public ByteBuffer drain(ByteBuffer buf) {
+        // 缓冲区写满时扩容而不是输出，事件必须完整保留到编码结束
+        ensureCapacity(buf.capacity());
+        return buffer;
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer data) {
+        ensureCapacity(data.remaining());
+        buffer.put(data);
+    }
+
+    @Override
+    public void writeBytes(byte[] data, int offset, int length) {
+        ensureCapacity(length);
+        buffer.put(data, offset, length);
+    }
+
+    /**
+     * 清洗已编码的内容并复制为独立的载荷，之后缓冲区可立即复用
+     *
+     * @param maxBytes 最大字节数
+     * @return 清洗结果
+     */
+    LogPayloadSanitizer.SanitizedPayload toPayload(int maxBytes) {
+        LogPayloadSanitizer.SanitizedPayload payload =
+                LogPayloadSanitizer.sanitize(buffer.array(), buffer.arrayOffset(), buffer.position(), maxBytes);
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        }
+        return payload;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (buffer.remaining() >= additional) {
+            return;
+        }
+        int required = buffer.position() + additional;
+        int newCapacity = Math.max(buffer.capacity() * 2, required);
+        ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -2,16 +2,17 @@ package org.logx.logback;
 
 import org.logx.adapter.AbstractUniversalAdapter;
 import org.logx.storage.StorageConfig;
-import org.logx.storage.StorageService;
-import org.logx.storage.StorageServiceFactory;
-import org.logx.core.AsyncEngine;
+import org.logx.core.AsyncEngineRegistry;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.core.DeferredFormatStage;
 import org.logx.core.LogPayloadSanitizer;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.encoder.Encoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Logback 桥接器
@@ -21,30 +22,21 @@ public class LogbackBridge extends AbstractUniversalAdapter {
     private static final Logger logger = LoggerFactory.getLogger(LogbackBridge.class);
     private Encoder<ILoggingEvent> encoder;
     private AsyncEngineConfig engineConfig;
+    private volatile DeferredFormatStage<ILoggingEvent> deferredFormat;
     
     public LogbackBridge(StorageConfig config) {
         this(config, null);
     }
     
     public LogbackBridge(StorageConfig config, AsyncEngineConfig engineConfig) {
-        // 使用存储服务工厂创建存储服务
-        StorageService storageService = StorageServiceFactory.createStorageService(config);
-
-        // 从存储服务获取存储接口
-        this.s3Storage = storageService;
-
         // 保存引擎配置
         this.engineConfig = engineConfig;
 
-        // 设置StorageConfig到引擎配置
-        if (engineConfig != null) {
-            engineConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, engineConfig);
-        } else {
-            AsyncEngineConfig defaultConfig = AsyncEngineConfig.defaultConfig();
-            defaultConfig.setStorageConfig(config);
-            this.asyncEngine = AsyncEngine.create(storageService, defaultConfig);
-        }
+        // 从注册表获取引擎：配置相同的Appender共享引擎，存储端点相同的引擎共享存储客户端
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config,
+                engineConfig != null ? engineConfig : AsyncEngineConfig.defaultConfig());
+        this.s3Storage = lease.getStorageService();
+        this.asyncEngine = lease;
     }
     
     public void setEncoder(Encoder<ILoggingEvent> encoder) {
@@ -61,6 +53,44 @@ public class LogbackBridge extends AbstractUniversalAdapter {
         return engineConfig;
     }
     
+    @Override
+    public void start() {
+        super.start();
+        if (deferredFormat == null && engineConfig != null && engineConfig.isDeferredFormatEnabled()) {
+            DeferredFormatStage<ILoggingEvent> stage = new DeferredFormatStage<>("logback", engineConfig, asyncEngine,
+                    new DeferredFormatStage.Renderer<ILoggingEvent>() {
+                        @Override
+                        public LogPayloadSanitizer.SanitizedPayload render(ILoggingEvent event) {
+                            return LogbackBridge.this.render(event);
+                        }
+
+                        @Override
+                        public String routeKey(ILoggingEvent event) {
+                            return routeKeyOf(event);
+                        }
+                    });
+            stage.start();
+            deferredFormat = stage;
+        }
+    }
+
+    @Override
+    public void stop() {
+        DeferredFormatStage<ILoggingEvent> stage = deferredFormat;
+        if (stage != null) {
+            // 先排空格式化积压再停止引擎
+            stage.close(5, TimeUnit.SECONDS);
+            deferredFormat = null;
+        }
+        super.stop();
+    }
+
+    /**
+     * 写入日志事件
+     * <p>
+     * 开启延迟格式化时只在调用线程上冻结事件（格式化后的消息、线程名、MDC），编码交给格式化工作线程；
+     * 与Logback的AsyncAppender一样不提取调用者位置信息，%line、%method等转换符输出"?"。
+     */
     @Override
     public void append(Object event) {
         if (!isStarted() || asyncEngine == null) {
@@ -68,26 +98,58 @@ public class LogbackBridge extends AbstractUniversalAdapter {
         }
         
         try {
-            String logLine = convertEvent(event);
-            if (logLine != null) {
-                int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
-                LogPayloadSanitizer.SanitizedPayload sanitized =
-                        LogPayloadSanitizer.sanitize(logLine, maxBytes);
-                if (sanitized.sanitized || sanitized.truncated) {
-                    logger.warn("Logback payload sanitized={}, truncated={}, originalBytes={}",
-                            sanitized.sanitized, sanitized.truncated, sanitized.originalBytes);
-                }
-                asyncEngine.put(sanitized.bytes);
+            DeferredFormatStage<ILoggingEvent> stage = deferredFormat;
+            if (stage != null && event instanceof ILoggingEvent && prepareForDeferredProcessing((ILoggingEvent) event)) {
+                stage.submit((ILoggingEvent) event);
+                return;
+            }
+            LogPayloadSanitizer.SanitizedPayload sanitized = render(event);
+            if (sanitized != null) {
+                asyncEngine.put(sanitized.bytes, routeKeyOf(event));
             }
         } catch (Exception e) {
             throw new RuntimeException("Failed to process log event", e);
         }
     }
+
+    /**
+     * 冻结事件，失败时（例如LoggerContext没有MDC适配器）返回false，由调用线程直接编码
+     */
+    private boolean prepareForDeferredProcessing(ILoggingEvent event) {
+        try {
+            event.prepareForDeferredProcessing();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private LogPayloadSanitizer.SanitizedPayload render(Object event) {
+        int maxBytes = engineConfig != null ? engineConfig.getPayloadMaxBytes() : 512 * 1024;
+        LogPayloadSanitizer.SanitizedPayload sanitized = encodeEvent(event, maxBytes);
+        if (sanitized != null && (sanitized.sanitized || sanitized.truncated)) {
+            logger.warn("Logback payload sanitized={}, truncated={}, originalBytes={}",
+                    sanitized.sanitized, sanitized.truncated, sanitized.originalBytes);
+        }
+        return sanitized;
+    }
     
+    private String routeKeyOf(Object event) {
+        if (!(event instanceof ILoggingEvent)) {
+            return null;
+        }
+        ILoggingEvent loggingEvent = (ILoggingEvent) event;
+        return resolveRouteKey(String.valueOf(loggingEvent.getLevel()), loggingEvent.getLoggerName(),
+                key -> loggingEvent.getMDCPropertyMap().get(key));
+    }
+
     /**
-     * 将Logback事件转换为字符串
+     * 将Logback事件编码为清洗后的字节
+     * <p>
+     * Encoder输出本身就是UTF-8字节，直接按字节清洗，干净且未超长时不再复制；
+     * 使用{@link ReusableBufferEncoder}时转换器直接写入线程本地缓冲区，省去中间String和数组。
      */
-    private String convertEvent(Object event) {
+    private LogPayloadSanitizer.SanitizedPayload encodeEvent(Object event, int maxBytes) {
         if (!(event instanceof ILoggingEvent)) {
             return null;
         }
@@ -96,12 +158,14 @@ public class LogbackBridge extends AbstractUniversalAdapter {
         
         if (encoder != null) {
             try {
-                byte[] encoded = encoder.encode(loggingEvent);
-                return new String(encoded, java.nio.charset.StandardCharsets.UTF_8);
+                if (encoder instanceof ReusableBufferEncoder) {
+                    return ((ReusableBufferEncoder) encoder).encodeSanitized(loggingEvent, maxBytes);
+                }
+                return LogPayloadSanitizer.sanitize(encoder.encode(loggingEvent), maxBytes);
             } catch (Exception e) {
-                return loggingEvent.getFormattedMessage() + "\n";
+                return LogPayloadSanitizer.sanitize(loggingEvent.getFormattedMessage() + "\n", maxBytes);
             }
         }
-        return loggingEvent.getFormattedMessage() + "\n";
+        return LogPayloadSanitizer.sanitize(loggingEvent.getFormattedMessage() + "\n", maxBytes);
     }
 }
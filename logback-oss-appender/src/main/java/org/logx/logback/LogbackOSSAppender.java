@@ -1,40 +1,38 @@
 package org.logx.logback;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.encoder.Encoder;
 import org.logx.config.ConfigManager;
 import org.logx.config.properties.LogxOssProperties;
 import org.logx.config.validation.ConfigValidationUtils;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.core.AsyncEngineConfigBuilder;
 import org.logx.storage.StorageConfig;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
+/**
+ * Logback OSS Appender
+ * <p>
+ * 基于{@link UnsynchronizedAppenderBase}实现，日志调用不再在Appender监视器上串行化，
+ * 各线程并发编码后直接写入引擎的多生产者RingBuffer。编码器被多个线程同时调用，
+ * 与Logback自带的OutputStreamAppender一致：PatternLayoutEncoder本身是线程安全的，
+ * {@link ReusableBufferEncoder}只使用线程本地缓冲区，自定义编码器需要保证线程安全。
+ */
+public final class LogbackOSSAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
 
     private Encoder<ILoggingEvent> encoder;
-    private LogbackBridge adapter;
-
-    // 全局初始化标志，防止重复初始化
-    private static final AtomicBoolean alreadyInitialized = new AtomicBoolean(false);
+    private volatile LogbackBridge adapter;
 
     // XML配置字段
     private final Map<String, String> xmlConfig = new HashMap<>();
 
     @Override
     public void start() {
-        // 检查是否已经初始化过
-        if (alreadyInitialized.get()) {
-            addInfo("LogbackOSSAppender already initialized, skipping initialization");
-            return;
-        }
-
-        // 尝试设置为已初始化状态
-        if (!alreadyInitialized.compareAndSet(false, true)) {
-            addInfo("LogbackOSSAppender already initialized by another thread, skipping initialization");
+        // 同一实例重复启动时不再创建引擎，不同实例各自从引擎注册表获取引擎
+        if (isStarted()) {
             return;
         }
 
@@ -76,22 +74,7 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
 
             StorageConfig storageConfig = new StorageConfig(properties);
 
-            AsyncEngineConfig engineConfig = AsyncEngineConfig.defaultConfig();
-            engineConfig.enabled(properties.isEnabled());
-            engineConfig.queueCapacity(properties.getEngine().getQueue().getCapacity());
-            engineConfig.batchMaxMessages(properties.getEngine().getBatch().getCount());
-            engineConfig.batchMaxBytes(properties.getEngine().getBatch().getBytes());
-            engineConfig.maxMessageAgeMs(properties.getEngine().getBatch().getMaxAgeMs());
-            engineConfig.blockOnFull(!properties.getEngine().getQueue().isDropWhenFull());
-            engineConfig.uploadTimeoutMs(properties.getStorage().getUploadTimeoutMs());
-            engineConfig.payloadMaxBytes(properties.getEngine().getPayloadMaxBytes());
-            engineConfig.fallbackRetentionDays(properties.getEngine().getFallback().getRetentionDays());
-            engineConfig.fallbackScanIntervalSeconds(properties.getEngine().getFallback().getScanIntervalSeconds());
-            engineConfig.fallbackMaxRetryFileBytes(properties.getEngine().getFallback().getMaxRetryFileBytes());
-            engineConfig.fallbackMaxRetryFilesPerRound(properties.getEngine().getFallback().getMaxRetryFilesPerRound());
-            engineConfig.fallbackMaxRetryBytesPerRound(properties.getEngine().getFallback().getMaxRetryBytesPerRound());
-            engineConfig.oversizePayloadPolicy(properties.getEngine().getOversizePayloadPolicy());
-            engineConfig.oversizeFallbackMaxBytes(properties.getEngine().getOversizeFallbackMaxBytes());
+            AsyncEngineConfig engineConfig = createEngineConfig(properties);
 
             this.adapter = new LogbackBridge(storageConfig, engineConfig);
             this.adapter.setEncoder(encoder);
@@ -103,6 +86,19 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
         }
     }
 
+    /**
+     * 按最终配置创建引擎配置
+     */
+    AsyncEngineConfig createEngineConfig(LogxOssProperties properties) {
+        AsyncEngineConfig engineConfig = AsyncEngineConfigBuilder.buildConfig(properties);
+        // 日志线程不经过Appender监视器并发写入，引擎也可能被多个Appender共享，必须按多生产者发布
+        if (!properties.getEngine().isMultiProducer()) {
+            addWarn("logx.oss.engine.multiProducer=false is ignored, LogbackOSSAppender always publishes from multiple threads");
+        }
+        engineConfig.multiProducer(true);
+        return engineConfig;
+    }
+
     private void applyXmlConfig(LogxOssProperties properties) {
         // 全局配置 - enabled开关
         if (xmlConfig.containsKey("logx.oss.enabled")) {
@@ -128,6 +124,18 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
         if (xmlConfig.containsKey("logx.oss.storage.keyPrefix")) {
             properties.getStorage().setKeyPrefix(xmlConfig.get("logx.oss.storage.keyPrefix"));
         }
+        if (xmlConfig.containsKey("logx.oss.storage.keyTemplate")) {
+            properties.getStorage().setKeyTemplate(xmlConfig.get("logx.oss.storage.keyTemplate"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.keyAttributes")) {
+            properties.getStorage().setKeyAttributes(xmlConfig.get("logx.oss.storage.keyAttributes"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.failover.targets")) {
+            properties.getStorage().setFailoverTargets(xmlConfig.get("logx.oss.storage.failover.targets"));
+        }
+        if (xmlConfig.containsKey("logx.oss.storage.fanout.targets")) {
+            properties.getStorage().setFanoutTargets(xmlConfig.get("logx.oss.storage.fanout.targets"));
+        }
         if (xmlConfig.containsKey("logx.oss.storage.ossType")) {
             properties.getStorage().setOssType(xmlConfig.get("logx.oss.storage.ossType"));
         }
@@ -198,6 +206,8 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
 
     @Override
     public void stop() {
+        // 先停止接收事件，再关闭引擎
+        super.stop();
         if (adapter != null) {
             try {
                 adapter.stop();
@@ -205,7 +215,6 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
                 addError("Failed to gracefully close adapter", e);
             }
         }
-        super.stop();
     }
 
     public void setEncoder(Encoder<ILoggingEvent> encoder) {
@@ -237,6 +246,22 @@ public final class LogbackOSSAppender extends AppenderBase<ILoggingEvent> {
         xmlConfig.put("logx.oss.storage.keyPrefix", keyPrefix);
     }
 
+    public void setKeyTemplate(String keyTemplate) {
+        xmlConfig.put("logx.oss.storage.keyTemplate", keyTemplate);
+    }
+
+    public void setKeyAttributes(String keyAttributes) {
+        xmlConfig.put("logx.oss.storage.keyAttributes", keyAttributes);
+    }
+
+    public void setFailoverTargets(String failoverTargets) {
+        xmlConfig.put("logx.oss.storage.failover.targets", failoverTargets);
+    }
+
+    public void setFanoutTargets(String fanoutTargets) {
+        xmlConfig.put("logx.oss.storage.fanout.targets", fanoutTargets);
+    }
+
     public void setOssType(String ossType) {
         xmlConfig.put("logx.oss.storage.ossType", ossType);
     }
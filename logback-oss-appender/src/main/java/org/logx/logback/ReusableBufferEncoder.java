@@ -0,0 +1,156 @@
+package org.logx.logback;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.pattern.EnsureExceptionHandling;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.pattern.Converter;
+import org.logx.core.LogPayloadSanitizer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * 带线程本地复用缓冲区的PatternLayoutEncoder
+ * <p>
+ * 配置方式与PatternLayoutEncoder相同，可直接替换：
+ * <pre>
+ * &lt;encoder class="org.logx.logback.ReusableBufferEncoder"&gt;
+ *     &lt;pattern&gt;%d %level %logger - %msg%n&lt;/pattern&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ * OSS Appender使用该Encoder时，Pattern的各个转换器直接写入线程自有的StringBuilder，
+ * 再按Encoder配置的字符集编码到线程自有的字节缓冲区并按字节清洗，不生成中间String和字节数组，
+ * 每个事件只分配一次精确长度的载荷交给引擎。缓冲区按需倍增，偶发的超大事件结束后缩回初始大小。
+ * 用于其他Appender时行为与PatternLayoutEncoder一致。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class ReusableBufferEncoder extends PatternLayoutEncoder {
+
+    private static final int INITIAL_CAPACITY = 512;
+    // 偶发的超大事件结束后不再保留大缓冲区
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final ThreadLocal<EncodeBuffer> buffers = ThreadLocal.withInitial(EncodeBuffer::new);
+    private volatile Converter<ILoggingEvent> head;
+
+    @Override
+    public void start() {
+        super.start();
+        if (!isStarted()) {
+            return;
+        }
+        // 另建一份转换器链用于直接写入StringBuilder，异常补全与PatternLayout默认行为一致
+        PatternLayout patternLayout = new PatternLayout();
+        patternLayout.setContext(getContext());
+        patternLayout.setPattern(getPattern());
+        EnsureExceptionHandling exceptionHandling = new EnsureExceptionHandling();
+        patternLayout.setPostCompileProcessor((context, converter) -> {
+            exceptionHandling.process(context, converter);
+            head = converter;
+        });
+        patternLayout.start();
+        if (!patternLayout.isStarted()) {
+            head = null;
+        }
+    }
+
+    @Override
+    public void stop() {
+        head = null;
+        super.stop();
+    }
+
+    /**
+     * 将事件编码到线程本地缓冲区并清洗
+     *
+     * @param event 日志事件
+     * @param maxBytes 最大字节数
+     * @return 清洗结果，载荷与缓冲区相互独立
+     */
+    LogPayloadSanitizer.SanitizedPayload encodeSanitized(ILoggingEvent event, int maxBytes) {
+        Converter<ILoggingEvent> chain = head;
+        if (chain == null) {
+            return LogPayloadSanitizer.sanitize(encode(event), maxBytes);
+        }
+        EncodeBuffer buffer = buffers.get();
+        LogPayloadSanitizer.SanitizedPayload payload = buffer.encode(chain, event, maxBytes);
+        return payload != null ? payload : LogPayloadSanitizer.sanitize(encode(event), maxBytes);
+    }
+
+    private final class EncodeBuffer {
+        private final StringBuilder text = new StringBuilder(INITIAL_CAPACITY);
+        private final CharsetEncoder charsetEncoder;
+        private char[] chars = new char[INITIAL_CAPACITY];
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+        EncodeBuffer() {
+            // 与LayoutWrappingEncoder一致，未配置字符集时使用平台默认字符集
+            Charset charset = getCharset() != null ? getCharset() : Charset.defaultCharset();
+            this.charsetEncoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        /**
+         * @return 清洗结果，编码出错时返回null，由调用方退回常规路径
+         */
+        LogPayloadSanitizer.SanitizedPayload encode(Converter<ILoggingEvent> chain, ILoggingEvent event,
+                                                    int maxBytes) {
+            text.setLength(0);
+            for (Converter<ILoggingEvent> c = chain; c != null; c = c.getNext()) {
+                c.write(text, event);
+            }
+            int length = text.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            text.getChars(0, length, chars, 0);
+
+            CharBuffer in = CharBuffer.wrap(chars, 0, length);
+            ByteBuffer out = ByteBuffer.wrap(bytes);
+            charsetEncoder.reset();
+            boolean flushing = false;
+            while (true) {
+                CoderResult result = flushing ? charsetEncoder.flush(out) : charsetEncoder.encode(in, out, true);
+                if (result.isOverflow()) {
+                    int position = out.position();
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    out = ByteBuffer.wrap(bytes, position, bytes.length - position);
+                } else if (!result.isUnderflow()) {
+                    return null;
+                } else if (flushing) {
+                    break;
+                } else {
+                    flushing = true;
+                }
+            }
+
+            LogPayloadSanitizer.SanitizedPayload payload =
+                    LogPayloadSanitizer.sanitize(bytes, 0, out.position(), maxBytes);
+            shrink();
+            return payload;
+        }
+
+        private void shrink() {
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+            if (chars.length > MAX_RETAINED_CAPACITY) {
+                chars = new char[INITIAL_CAPACITY];
+            }
+            if (text.capacity() > MAX_RETAINED_CAPACITY) {
+                text.setLength(0);
+                text.trimToSize();
+                text.ensureCapacity(INITIAL_CAPACITY);
+            }
+        }
+    }
+}
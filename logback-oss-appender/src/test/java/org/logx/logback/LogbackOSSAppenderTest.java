@@ -0,0 +1,30 @@
+package org.logx.logback;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.status.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.logx.config.properties.LogxOssProperties;
+import org.logx.core.AsyncEngineConfig;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogbackOSSAppenderTest {
+
+    @Test
+    @DisplayName("配置关闭多生产者时仍应按多生产者创建引擎并给出警告")
+    void shouldAlwaysUseMultiProducer() {
+        LoggerContext context = new LoggerContext();
+        LogbackOSSAppender appender = new LogbackOSSAppender();
+        appender.setContext(context);
+        LogxOssProperties properties = new LogxOssProperties();
+        properties.getEngine().setMultiProducer(false);
+
+        AsyncEngineConfig engineConfig = appender.createEngineConfig(properties);
+
+        assertTrue(engineConfig.isMultiProducer());
+        assertTrue(context.getStatusManager().getCopyOfStatusList().stream()
+                .anyMatch(status -> status.getLevel() == Status.WARN
+                        && status.getMessage().contains("multiProducer")));
+    }
+}
@@ -0,0 +1,73 @@
+package org.logx.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.logx.core.LogPayloadSanitizer;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ReusableBufferEncoderTest {
+
+    private static final String PATTERN = "%level [%thread] %logger{20} - %msg%n";
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("org.logx.logback.ReusableBufferEncoderTest");
+
+    @Test
+    @DisplayName("编码结果应与PatternLayoutEncoder逐字节一致，包括异常堆栈、多字节字符和超过初始缓冲区的事件")
+    void shouldEncodeSameBytesAsPatternLayoutEncoder() {
+        PatternLayoutEncoder expected = encoder(new PatternLayoutEncoder(), StandardCharsets.UTF_8);
+        ReusableBufferEncoder actual = (ReusableBufferEncoder) encoder(new ReusableBufferEncoder(),
+                StandardCharsets.UTF_8);
+
+        char[] large = new char[200 * 1024];
+        Arrays.fill(large, '日');
+        LoggingEvent[] events = {
+                event("plain message", null),
+                event("订单创建失败 ✓", new IllegalStateException("boom")),
+                event(new String(large), null),
+                event("after the large event", null)
+        };
+
+        for (LoggingEvent event : events) {
+            LogPayloadSanitizer.SanitizedPayload payload = actual.encodeSanitized(event, Integer.MAX_VALUE);
+            assertArrayEquals(expected.encode(event), payload.bytes);
+            assertFalse(payload.sanitized);
+            assertFalse(payload.truncated);
+        }
+    }
+
+    @Test
+    @DisplayName("应按Encoder配置的字符集编码，无法映射的字符与PatternLayoutEncoder一样替换")
+    void shouldHonourConfiguredCharset() {
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        PatternLayoutEncoder expected = encoder(new PatternLayoutEncoder(), latin1);
+        ReusableBufferEncoder actual = (ReusableBufferEncoder) encoder(new ReusableBufferEncoder(), latin1);
+
+        LoggingEvent event = event("café 日志", null);
+
+        assertArrayEquals(expected.encode(event), actual.encodeSanitized(event, Integer.MAX_VALUE).bytes);
+    }
+
+    private PatternLayoutEncoder encoder(PatternLayoutEncoder encoder, Charset charset) {
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.setCharset(charset);
+        encoder.start();
+        return encoder;
+    }
+
+    private LoggingEvent event(String message, Throwable throwable) {
+        return new LoggingEvent(Logger.class.getName(), logger, Level.WARN, message, throwable, null);
+    }
+}
@@ -0,0 +1,73 @@
+package org.logx.benchmark;
+
+import org.logx.core.AsyncEngine;
+import org.logx.core.AsyncEngineRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AsyncEngine.put的多生产者吞吐和延迟
+ * <p>
+ * 引擎使用内存存储，队列满时阻塞，因此测得的是整个管道（入队、批处理、压缩、上传）
+ * 可持续的吞吐，而不仅是入队速度。分别在1、4和全部可用核数的生产者线程下测量。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncEnginePutBenchmark {
+
+    private Path fallbackDir;
+    private AsyncEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fallbackDir = BenchmarkSupport.createTempDir("logx-bench-put");
+        engine = AsyncEngineRegistry.acquire(BenchmarkSupport.storageConfig("bench/put"),
+                BenchmarkSupport.engineConfig(fallbackDir));
+        engine.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.stop(30, TimeUnit.SECONDS);
+        BenchmarkSupport.deleteRecursively(fallbackDir);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void put1Thread() {
+        engine.put(BenchmarkSupport.SAMPLE_BYTES);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void put4Threads() {
+        engine.put(BenchmarkSupport.SAMPLE_BYTES);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void putMaxThreads() {
+        engine.put(BenchmarkSupport.SAMPLE_BYTES);
+    }
+}
@@ -0,0 +1,79 @@
+package org.logx.benchmark;
+
+import org.logx.core.AsyncEngineConfig;
+import org.logx.storage.StorageConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试公共配置和样本数据
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * 典型的应用日志行，约160字节
+     */
+    public static final String SAMPLE_LINE = "2024-05-01 12:00:00.123 [http-nio-8080-exec-12] INFO  "
+            + "o.e.order.OrderService - order created, orderId=202405011200001234, userId=98765, amount=199.00";
+
+    public static final byte[] SAMPLE_BYTES = (SAMPLE_LINE + "\n").getBytes(StandardCharsets.UTF_8);
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 指向内存存储的存储配置；不保留对象内容，只统计数量和字节数，不产生网络请求
+     */
+    public static StorageConfig storageConfig(String keyPrefix) {
+        return StorageConfig.builder()
+                .ossType("MEMORY")
+                .endpoint("memory://?retain=false")
+                .bucket("benchmark")
+                .keyPrefix(keyPrefix)
+                .build();
+    }
+
+    /**
+     * 基准测试的引擎配置：队列满时阻塞，测得的是可持续吞吐而不是丢弃速度；兜底目录放在临时目录
+     */
+    public static AsyncEngineConfig engineConfig(Path fallbackDir) {
+        return AsyncEngineConfig.defaultConfig()
+                .queueCapacity(65536)
+                .batchMaxMessages(4096)
+                .batchMaxBytes(4 * 1024 * 1024)
+                .maxMessageAgeMs(1000)
+                .blockOnFull(true)
+                .multiProducer(true)
+                .enableDynamicBatching(false)
+                .metricsEnabled(false)
+                .logFilePrefix(fallbackDir.toString())
+                .logFileName("benchmark");
+    }
+
+    public static Path createTempDir(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create temp directory", e);
+        }
+    }
+
+    public static void deleteRecursively(Path dir) {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // 临时目录清理失败不影响结果
+        }
+    }
+}
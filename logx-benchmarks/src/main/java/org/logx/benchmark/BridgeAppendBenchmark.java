@@ -0,0 +1,159 @@
+package org.logx.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.logx.log4j.Log4j1xBridge;
+import org.logx.log4j2.Log4j2Bridge;
+import org.logx.logback.LogbackBridge;
+import org.logx.logback.ReusableBufferEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三个框架桥接器的append开销
+ * <p>
+ * 测量从框架事件到引擎入队的完整路径：布局格式化、清洗和put。
+ * 事件对象在初始化时创建并复用，结果不包含框架自身创建事件的开销。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class BridgeAppendBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%t] %-5level %logger{36} - %msg%n";
+    private static final String LOG4J1_PATTERN = "%d{yyyy-MM-dd HH:mm:ss,SSS} [%t] %-5p %c{1} - %m%n";
+    private static final String MESSAGE = "order created, orderId=202405011200001234, userId=98765, amount=199.00";
+
+    @State(Scope.Benchmark)
+    public static class LogbackState {
+        @Param({"pattern", "reusable"})
+        public String encoder;
+
+        Path dir;
+        LogbackBridge bridge;
+        LoggingEvent event;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchmarkSupport.createTempDir("logx-bench-logback");
+            LoggerContext context = new LoggerContext();
+            PatternLayoutEncoder layoutEncoder = "reusable".equals(encoder)
+                    ? new ReusableBufferEncoder() : new PatternLayoutEncoder();
+            layoutEncoder.setContext(context);
+            layoutEncoder.setPattern(PATTERN);
+            layoutEncoder.start();
+
+            bridge = new LogbackBridge(BenchmarkSupport.storageConfig("bench/logback"),
+                    BenchmarkSupport.engineConfig(dir));
+            bridge.setEncoder(layoutEncoder);
+            bridge.start();
+
+            event = new LoggingEvent(BridgeAppendBenchmark.class.getName(),
+                    context.getLogger("org.example.order.OrderService"),
+                    ch.qos.logback.classic.Level.INFO, MESSAGE, null, null);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            bridge.stop();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Log4j2State {
+        Path dir;
+        Log4j2Bridge bridge;
+        org.apache.logging.log4j.core.LogEvent event;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchmarkSupport.createTempDir("logx-bench-log4j2");
+            bridge = new Log4j2Bridge(BenchmarkSupport.storageConfig("bench/log4j2"),
+                    BenchmarkSupport.engineConfig(dir));
+            bridge.setLayout(org.apache.logging.log4j.core.layout.PatternLayout.newBuilder()
+                    .withPattern(PATTERN)
+                    .build());
+            bridge.start();
+
+            event = Log4jLogEvent.newBuilder()
+                    .setLoggerName("org.example.order.OrderService")
+                    .setLevel(org.apache.logging.log4j.Level.INFO)
+                    .setMessage(new SimpleMessage(MESSAGE))
+                    .setThreadName("http-nio-8080-exec-12")
+                    .setTimeMillis(System.currentTimeMillis())
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            bridge.stop();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Log4j1State {
+        Path dir;
+        Log4j1xBridge bridge;
+        org.apache.log4j.spi.LoggingEvent event;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchmarkSupport.createTempDir("logx-bench-log4j1");
+            bridge = new Log4j1xBridge(BenchmarkSupport.storageConfig("bench/log4j1"),
+                    BenchmarkSupport.engineConfig(dir));
+            bridge.setLayout(new org.apache.log4j.PatternLayout(LOG4J1_PATTERN));
+            bridge.start();
+
+            org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger("org.example.order.OrderService");
+            event = new org.apache.log4j.spi.LoggingEvent(BridgeAppendBenchmark.class.getName(), logger,
+                    org.apache.log4j.Level.INFO, MESSAGE, null);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            bridge.stop();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    public void logback(LogbackState state) {
+        state.bridge.append(state.event);
+    }
+
+    @Benchmark
+    public void log4j2(Log4j2State state) {
+        state.bridge.append(state.event);
+    }
+
+    @Benchmark
+    public void log4j1(Log4j1State state) {
+        state.bridge.append(state.event);
+    }
+}
@@ -0,0 +1,112 @@
+package org.logx.benchmark;
+
+import org.logx.fallback.FallbackManager;
+import org.logx.fallback.FallbackUploaderTask;
+import org.logx.storage.memory.InMemoryStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 兜底文件写入和重传的开销
+ * <p>
+ * 写入测量单个批次落盘的时间；重传在每次调用前准备固定数量的兜底文件，
+ * 测量一轮扫描、读取和上传到内存存储的时间，准备文件的时间不计入结果。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class FallbackBenchmark {
+
+    @State(Scope.Thread)
+    public static class WriteState {
+        @Param({"65536", "1048576"})
+        public int batchBytes;
+
+        Path dir;
+        FallbackManager manager;
+        byte[] batch;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchmarkSupport.createTempDir("logx-bench-fallback-write");
+            manager = new FallbackManager(dir.toString(), "bench/fallback");
+            batch = batchOf(batchBytes);
+        }
+
+        @TearDown(Level.Iteration)
+        public void clean() {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReplayState {
+        @Param({"10"})
+        public int files;
+
+        Path dir;
+        FallbackUploaderTask task;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("deprecation")
+        public void setUp() {
+            dir = BenchmarkSupport.createTempDir("logx-bench-fallback-replay");
+            InMemoryStorageService storage = new InMemoryStorageService();
+            storage.setRetainObjects(false);
+            task = new FallbackUploaderTask(storage, dir.toString(), "benchmark", 7,
+                    16L * 1024 * 1024, 1000, 1024L * 1024 * 1024);
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareFiles() {
+            FallbackManager manager = new FallbackManager(dir.toString(), "bench/fallback");
+            byte[] batch = batchOf(256 * 1024);
+            for (int i = 0; i < files; i++) {
+                manager.writeFallbackFile(batch);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    public boolean write(WriteState state) {
+        return state.manager.writeFallbackFile(state.batch);
+    }
+
+    @Benchmark
+    public void replay(ReplayState state) {
+        state.task.run();
+    }
+
+    static byte[] batchOf(int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + BenchmarkSupport.SAMPLE_BYTES.length);
+        while (out.size() < size) {
+            out.write(BenchmarkSupport.SAMPLE_BYTES, 0, BenchmarkSupport.SAMPLE_BYTES.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package org.logx.benchmark;
+
+import org.logx.fallback.ObjectNameGenerator;
+import org.logx.fallback.ObjectNameStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 默认对象名策略与模板策略的生成开销
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectNameGeneratorBenchmark {
+
+    private static final String TEMPLATE =
+            "{hash:2}/{prefix}/dt={dt}/hour={hour}/service={attr:service}/{HH}{mm}{ss}{SSS}-{fileName}-{host}-{uid}.log.gz";
+
+    private ObjectNameStrategy defaultStrategy;
+    private ObjectNameStrategy templateStrategy;
+    private Map<String, String> attributes;
+
+    @Setup
+    public void setUp() {
+        defaultStrategy = ObjectNameGenerator.getDefaultStrategy();
+        templateStrategy = ObjectNameGenerator.createStrategy(TEMPLATE, "applogx",
+                Collections.singletonMap("service", "order-service"));
+        attributes = new HashMap<>();
+        attributes.put("level", "INFO");
+    }
+
+    @Benchmark
+    public String defaultStrategy() {
+        return defaultStrategy.generateObjectName("logs/app");
+    }
+
+    @Benchmark
+    public String templateStrategy() {
+        return templateStrategy.generateObjectName("logs/app", attributes);
+    }
+}
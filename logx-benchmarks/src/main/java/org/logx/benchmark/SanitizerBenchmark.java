@@ -0,0 +1,60 @@
+package org.logx.benchmark;
+
+import org.logx.core.LogPayloadSanitizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogPayloadSanitizer的字符串和字节两条路径
+ * <p>
+ * clean为不需要清洗的普通日志行，dirty包含控制字符，需要复制并替换。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SanitizerBenchmark {
+
+    private static final int MAX_BYTES = 512 * 1024;
+
+    @Param({"clean", "dirty"})
+    public String input;
+
+    private String line;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        line = "clean".equals(input)
+                ? BenchmarkSupport.SAMPLE_LINE + "\n"
+                : BenchmarkSupport.SAMPLE_LINE.replace(", ", ",\u0000\u001b[31m") + "\n";
+        bytes = line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LogPayloadSanitizer.SanitizedPayload sanitizeString() {
+        return LogPayloadSanitizer.sanitize(line, MAX_BYTES);
+    }
+
+    @Benchmark
+    public LogPayloadSanitizer.SanitizedPayload sanitizeBytes() {
+        return LogPayloadSanitizer.sanitize(bytes, MAX_BYTES);
+    }
+}
@@ -0,0 +1,73 @@
+package org.logx.core;
+
+import org.logx.benchmark.BenchmarkSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批次序列化与压缩的开销
+ * <p>
+ * 放在org.logx.core包中以直接调用队列的包级别方法，不经过Disruptor和消费者线程。
+ * codec为NONE时只测序列化，GZIP时测序列化加压缩，PGZIP时测序列化加4线程多成员并行压缩（64KB块）。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchEncodeBenchmark {
+
+    @Param({"NONE", "GZIP", "PGZIP"})
+    public String codec;
+
+    @Param({"512", "4096"})
+    public int batchSize;
+
+    private EnhancedDisruptorBatchingQueue.LogEvent[] events;
+    private ParallelGzipCompressor compressor;
+
+    @Setup
+    public void setUp() {
+        events = new EnhancedDisruptorBatchingQueue.LogEvent[batchSize];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batchSize; i++) {
+            events[i] = new EnhancedDisruptorBatchingQueue.LogEvent(BenchmarkSupport.SAMPLE_BYTES, now + i);
+        }
+        if ("PGZIP".equals(codec)) {
+            compressor = new ParallelGzipCompressor(4, ParallelGzipCompressor.MIN_BLOCK_SIZE, false);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (compressor != null) {
+            compressor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        byte[] serialized = EnhancedDisruptorBatchingQueue.serializeToPatternFormat(events, 0, batchSize);
+        if (compressor != null) {
+            return compressor.compress(serialized);
+        }
+        return "GZIP".equals(codec) ? EnhancedDisruptorBatchingQueue.gzip(serialized) : serialized;
+    }
+}
@@ -0,0 +1,130 @@
+package org.logx.loadtest;
+
+import org.logx.metrics.LatencyRecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 统计模拟服务收到的日志行和端到端投递延迟
+ * <p>
+ * 压测日志行包含标记{@code LT<框架序号>|<生成时间毫秒>|}，对象到达时逐行解析，
+ * 投递延迟为到达时间减去生成时间，即日志调用到对象写入存储的完整耗时。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class DeliveryTracker implements S3MockServer.ObjectListener {
+
+    static final byte[] MARKER = {'L', 'T'};
+
+    private final LatencyRecorder deliveryDelay = new LatencyRecorder();
+    private final AtomicLongArray delivered;
+    private final AtomicLong unparsedLines = new AtomicLong();
+
+    public DeliveryTracker(int frameworkCount) {
+        this.delivered = new AtomicLongArray(frameworkCount);
+    }
+
+    /**
+     * 生成带投递标记的日志消息，总长度约为messageBytes（不含布局前缀）
+     */
+    static String message(int frameworkIndex, long seq, int messageBytes) {
+        StringBuilder sb = new StringBuilder(Math.max(messageBytes, 48));
+        sb.append("LT").append(frameworkIndex).append('|').append(System.currentTimeMillis()).append('|')
+                .append(seq).append('|');
+        while (sb.length() < messageBytes) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void onObject(String key, byte[] content) {
+        byte[] data = isGzip(content) ? gunzip(content) : content;
+        long arrivedMs = System.currentTimeMillis();
+        int lineStart = 0;
+        for (int i = 0; i <= data.length; i++) {
+            if (i == data.length || data[i] == '\n') {
+                if (i > lineStart) {
+                    parseLine(data, lineStart, i, arrivedMs);
+                }
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    private void parseLine(byte[] data, int from, int to, long arrivedMs) {
+        int marker = indexOfMarker(data, from, to);
+        if (marker < 0 || marker + 3 >= to) {
+            unparsedLines.incrementAndGet();
+            return;
+        }
+        int frameworkIndex = data[marker + 2] - '0';
+        int pos = marker + 4;
+        long createdMs = 0;
+        while (pos < to && data[pos] >= '0' && data[pos] <= '9') {
+            createdMs = createdMs * 10 + (data[pos] - '0');
+            pos++;
+        }
+        if (frameworkIndex < 0 || frameworkIndex >= delivered.length() || pos >= to || data[pos] != '|') {
+            unparsedLines.incrementAndGet();
+            return;
+        }
+        delivered.incrementAndGet(frameworkIndex);
+        deliveryDelay.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, arrivedMs - createdMs)));
+    }
+
+    private static int indexOfMarker(byte[] data, int from, int to) {
+        for (int i = from; i < to - 3; i++) {
+            if (data[i] == MARKER[0] && data[i + 1] == MARKER[1] && data[i + 3] == '|') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isGzip(byte[] content) {
+        return content.length > 2 && (content[0] & 0xff) == 0x1f && (content[1] & 0xff) == 0x8b;
+    }
+
+    private static byte[] gunzip(byte[] content) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length * 8);
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress uploaded object", e);
+        }
+    }
+
+    public LatencyRecorder getDeliveryDelay() {
+        return deliveryDelay;
+    }
+
+    public long getDelivered(int frameworkIndex) {
+        return delivered.get(frameworkIndex);
+    }
+
+    public long getTotalDelivered() {
+        long total = 0;
+        for (int i = 0; i < delivered.length(); i++) {
+            total += delivered.get(i);
+        }
+        return total;
+    }
+
+    public long getUnparsedLines() {
+        return unparsedLines.get();
+    }
+}
@@ -0,0 +1,40 @@
+package org.logx.loadtest;
+
+/**
+ * 以编程方式配置某个日志框架的OSS Appender，并通过该框架的Logger输出日志
+ * <p>
+ * 存储和引擎配置通过系统属性传入，与生产环境相同由ConfigManager解析；
+ * 每个框架使用独立的对象键前缀，因此各自拥有独立的引擎。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public interface FrameworkDriver {
+
+    String LOGGER_NAME = "org.logx.loadtest.Generated";
+    String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%t] %-5level %logger{36} - %msg%n";
+
+    String getName();
+
+    void start();
+
+    void log(String message);
+
+    void stop();
+
+    static FrameworkDriver create(String framework) {
+        String keyPrefix = "loadtest/" + framework;
+        switch (framework) {
+            case "logback":
+                return new LogbackDriver(keyPrefix);
+            case "log4j2":
+                return new Log4j2Driver(keyPrefix);
+            case "log4j":
+            case "log4j1":
+                return new Log4j1Driver(keyPrefix);
+            default:
+                throw new IllegalArgumentException("Unknown framework: " + framework
+                        + ", expected logback, log4j2 or log4j");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.logx.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按固定速率产生日志的生成器
+ * <p>
+ * 总速率平均分到各线程，线程按轮询分配到各框架驱动。每个线程按已过时间计算应发送的条数，
+ * 追平后短暂休眠；跟不上目标速率时全速发送，实际达到的速率由监控采样反映。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class LoadGenerator {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<FrameworkDriver> drivers;
+    private final int threads;
+    private final double ratePerThread;
+    private final int messageBytes;
+    private final LongAdder[] generated;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    LoadGenerator(List<FrameworkDriver> drivers, LoadTestConfig config) {
+        this.drivers = drivers;
+        this.threads = config.getThreads();
+        this.ratePerThread = (double) config.getRate() / threads;
+        this.messageBytes = config.getMessageBytes();
+        this.generated = new LongAdder[drivers.size()];
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = new LongAdder();
+        }
+    }
+
+    void start() {
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            int driverIndex = i % drivers.size();
+            Thread worker = new Thread(() -> run(driverIndex), "loadgen-" + drivers.get(driverIndex).getName() + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void run(int driverIndex) {
+        FrameworkDriver driver = drivers.get(driverIndex);
+        LongAdder counter = generated[driverIndex];
+        long startNanos = System.nanoTime();
+        long sent = 0;
+        while (running) {
+            long due = (long) ((System.nanoTime() - startNanos) * ratePerThread / TimeUnit.SECONDS.toNanos(1));
+            if (sent >= due) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            long burst = Math.min(due - sent, 1000);
+            for (long i = 0; i < burst && running; i++) {
+                driver.log(DeliveryTracker.message(driverIndex, sent, messageBytes));
+                sent++;
+                counter.increment();
+            }
+        }
+    }
+
+    long getGenerated(int driverIndex) {
+        return generated[driverIndex].sum();
+    }
+
+    long getTotalGenerated() {
+        long total = 0;
+        for (LongAdder counter : generated) {
+            total += counter.sum();
+        }
+        return total;
+    }
+}
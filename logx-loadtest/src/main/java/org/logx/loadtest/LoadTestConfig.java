@@ -0,0 +1,229 @@
+package org.logx.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数
+ * <p>
+ * 命令行参数形如{@code --rate=300000}；以{@code --logx.oss.}开头的参数原样设置为系统属性，
+ * 由Appender通过ConfigManager读取，用于调整引擎配置。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LoadTestConfig {
+
+    private static final String LOGX_PREFIX = "logx.oss.";
+
+    private List<String> frameworks = Collections.singletonList("logback");
+    private int rate = 300_000;
+    private int threads = 8;
+    private int messageBytes = 200;
+    private int durationSeconds = 300;
+    private int warmupSeconds = 30;
+    private int sampleIntervalSeconds = 5;
+    private int drainSeconds = 60;
+
+    private int s3Port = 0;
+    private int s3Threads = 64;
+    private long s3LatencyP50Ms = 20;
+    private long s3LatencyP99Ms = 2000;
+    private double s3ErrorRate = 0.0;
+    private int s3ThrottleRps = 0;
+
+    private double minRate = -1;
+    private double maxDropRate = 0.0;
+    private long maxDeliveryP99Ms = 0;
+    private String reportDir = "target/loadtest-report";
+
+    private final Map<String, String> logxProperties = new LinkedHashMap<>();
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            config.set(arg.substring(2, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        if (config.rate <= 0 || config.threads <= 0 || config.durationSeconds <= 0) {
+            throw new IllegalArgumentException("rate, threads and duration must be positive");
+        }
+        if (config.minRate < 0) {
+            config.minRate = config.rate;
+        }
+        return config;
+    }
+
+    private void set(String name, String value) {
+        if (name.startsWith(LOGX_PREFIX)) {
+            logxProperties.put(name, value);
+            return;
+        }
+        switch (name) {
+            case "frameworks":
+                List<String> parsed = new ArrayList<>();
+                for (String framework : value.split(",")) {
+                    if (!framework.trim().isEmpty()) {
+                        parsed.add(framework.trim().toLowerCase());
+                    }
+                }
+                frameworks = "all".equals(value.trim()) ? Arrays.asList("logback", "log4j2", "log4j") : parsed;
+                break;
+            case "rate":
+                rate = Integer.parseInt(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "message-bytes":
+                messageBytes = Integer.parseInt(value);
+                break;
+            case "duration":
+                durationSeconds = Integer.parseInt(value);
+                break;
+            case "warmup":
+                warmupSeconds = Integer.parseInt(value);
+                break;
+            case "sample-interval":
+                sampleIntervalSeconds = Integer.parseInt(value);
+                break;
+            case "drain":
+                drainSeconds = Integer.parseInt(value);
+                break;
+            case "s3-port":
+                s3Port = Integer.parseInt(value);
+                break;
+            case "s3-threads":
+                s3Threads = Integer.parseInt(value);
+                break;
+            case "s3-latency-p50-ms":
+                s3LatencyP50Ms = Long.parseLong(value);
+                break;
+            case "s3-latency-p99-ms":
+                s3LatencyP99Ms = Long.parseLong(value);
+                break;
+            case "s3-error-rate":
+                s3ErrorRate = Double.parseDouble(value);
+                break;
+            case "s3-throttle-rps":
+                s3ThrottleRps = Integer.parseInt(value);
+                break;
+            case "min-rate":
+                minRate = Double.parseDouble(value);
+                break;
+            case "max-drop-rate":
+                maxDropRate = Double.parseDouble(value);
+                break;
+            case "max-delivery-p99-ms":
+                maxDeliveryP99Ms = Long.parseLong(value);
+                break;
+            case "report-dir":
+                reportDir = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+
+    public List<String> getFrameworks() {
+        return frameworks;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMessageBytes() {
+        return messageBytes;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getSampleIntervalSeconds() {
+        return sampleIntervalSeconds;
+    }
+
+    public int getDrainSeconds() {
+        return drainSeconds;
+    }
+
+    public int getS3Port() {
+        return s3Port;
+    }
+
+    public int getS3Threads() {
+        return s3Threads;
+    }
+
+    public long getS3LatencyP50Ms() {
+        return s3LatencyP50Ms;
+    }
+
+    public long getS3LatencyP99Ms() {
+        return s3LatencyP99Ms;
+    }
+
+    public double getS3ErrorRate() {
+        return s3ErrorRate;
+    }
+
+    public int getS3ThrottleRps() {
+        return s3ThrottleRps;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public double getMaxDropRate() {
+        return maxDropRate;
+    }
+
+    public long getMaxDeliveryP99Ms() {
+        return maxDeliveryP99Ms;
+    }
+
+    public String getReportDir() {
+        return reportDir;
+    }
+
+    public Map<String, String> getLogxProperties() {
+        return logxProperties;
+    }
+
+    /**
+     * @return 用于报告的参数列表
+     */
+    public Map<String, String> describe() {
+        Map<String, String> description = new LinkedHashMap<>();
+        description.put("frameworks", String.join(",", frameworks));
+        description.put("rate", String.valueOf(rate));
+        description.put("threads", String.valueOf(threads));
+        description.put("message-bytes", String.valueOf(messageBytes));
+        description.put("duration", durationSeconds + "s");
+        description.put("warmup", warmupSeconds + "s");
+        description.put("s3-latency-p50-ms", String.valueOf(s3LatencyP50Ms));
+        description.put("s3-latency-p99-ms", String.valueOf(s3LatencyP99Ms));
+        description.put("s3-error-rate", String.valueOf(s3ErrorRate));
+        description.put("s3-throttle-rps", String.valueOf(s3ThrottleRps));
+        description.putAll(logxProperties);
+        return description;
+    }
+}
@@ -0,0 +1,150 @@
+package org.logx.loadtest;
+
+import org.logx.metrics.LatencySnapshot;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测入口
+ * <p>
+ * 启动内嵌S3模拟服务，把Appender指向它，按配置的速率持续输出日志，预热后进入测量区间；
+ * 结束时停止Appender让剩余日志刷出，等待投递追平或超时后生成报告。
+ * 结果未达到门槛时以退出码1结束，便于在发布流水线中作为门禁。
+ * <p>
+ * 用法见logx-loadtest/README.md。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(run(config) ? 0 : 1);
+    }
+
+    static boolean run(LoadTestConfig config) throws Exception {
+        List<String> frameworks = config.getFrameworks();
+        DeliveryTracker tracker = new DeliveryTracker(frameworks.size());
+        try (S3MockServer server = new S3MockServer(config, tracker)) {
+            server.start();
+            configureAppenders(config, server.getEndpoint());
+
+            List<FrameworkDriver> drivers = new ArrayList<>();
+            for (String framework : frameworks) {
+                FrameworkDriver driver = FrameworkDriver.create(framework);
+                driver.start();
+                drivers.add(driver);
+            }
+
+            LoadGenerator generator = new LoadGenerator(drivers, config);
+            SoakMonitor monitor = new SoakMonitor(generator, tracker, server);
+            monitor.start(config.getSampleIntervalSeconds());
+            generator.start();
+
+            TimeUnit.SECONDS.sleep(config.getWarmupSeconds());
+            long measureStartNanos = System.nanoTime();
+            long generatedAtStart = generator.getTotalGenerated();
+            long deliveredAtStart = tracker.getTotalDelivered();
+            LatencySnapshot deliveryAtStart = tracker.getDeliveryDelay().snapshot();
+            LatencySnapshot requestAtStart = server.getRequestLatency().snapshot();
+            long gcCountAtStart = SoakMonitor.totalGcCount();
+            long gcTimeAtStart = SoakMonitor.totalGcTimeMs();
+
+            TimeUnit.SECONDS.sleep(config.getDurationSeconds());
+            generator.stop();
+            double measuredSeconds = (System.nanoTime() - measureStartNanos) / 1e9;
+
+            LoadTestReport report = new LoadTestReport();
+            report.measuredSeconds = Math.round(measuredSeconds);
+            report.measuredGeneratedPerSecond = (generator.getTotalGenerated() - generatedAtStart) / measuredSeconds;
+            report.measuredDeliveredPerSecond = (tracker.getTotalDelivered() - deliveredAtStart) / measuredSeconds;
+
+            // 引擎停止后其指标分组被移除，先记录最后一次采样
+            SoakMonitor.Sample lastSample = monitor.sample();
+            report.queueDropped = lastSample.queueDropped;
+            report.uploadFailed = lastSample.uploadFailed;
+            report.fallbackBacklogFiles = lastSample.fallbackBacklogFiles;
+            report.fallbackBacklogBytes = lastSample.fallbackBacklogBytes;
+
+            for (FrameworkDriver driver : drivers) {
+                driver.stop();
+            }
+            awaitDelivery(generator, tracker, config.getDrainSeconds());
+            monitor.stop();
+
+            LatencySnapshot delivery = tracker.getDeliveryDelay().snapshot().since(deliveryAtStart);
+            report.generated = generator.getTotalGenerated();
+            report.delivered = tracker.getTotalDelivered();
+            report.unparsedLines = tracker.getUnparsedLines();
+            report.deliveryP50Ms = TimeUnit.NANOSECONDS.toMillis(delivery.getPercentile(0.5));
+            report.deliveryP99Ms = TimeUnit.NANOSECONDS.toMillis(delivery.getPercentile(0.99));
+            report.deliveryMaxMs = TimeUnit.NANOSECONDS.toMillis(delivery.getMax());
+            report.s3RequestP99Ms = TimeUnit.NANOSECONDS.toMillis(
+                    server.getRequestLatency().snapshot().since(requestAtStart).getPercentile(0.99));
+            report.s3Objects = server.getObjectCount();
+            report.s3Bytes = server.getByteCount();
+            report.s3InjectedErrors = server.getInjectedErrorCount();
+            report.s3Throttled = server.getThrottledCount();
+            report.peakHeapBytes = monitor.getPeakHeapBytes();
+            report.gcCount = SoakMonitor.totalGcCount() - gcCountAtStart;
+            report.gcTimeMs = SoakMonitor.totalGcTimeMs() - gcTimeAtStart;
+
+            boolean passed = report.evaluate(config);
+            Path file = report.write(config, monitor.getSamples());
+            System.out.printf("%s: %,.0f events/s, undelivered %.6f, delivery p99 %dms, report %s%n",
+                    passed ? "PASS" : "FAIL", report.measuredGeneratedPerSecond, report.getDropRate(),
+                    report.deliveryP99Ms, file.toAbsolutePath());
+            for (String failure : report.getFailures()) {
+                System.out.println("  " + failure);
+            }
+            return passed;
+        }
+    }
+
+    /**
+     * 通过系统属性把Appender指向模拟服务；命令行传入的logx.oss.*参数优先
+     */
+    private static void configureAppenders(LoadTestConfig config, String endpoint) {
+        setDefault("logx.oss.storage.ossType", "MINIO");
+        setDefault("logx.oss.storage.endpoint", endpoint);
+        setDefault("logx.oss.storage.region", "us-east-1");
+        setDefault("logx.oss.storage.accessKeyId", "loadtest");
+        setDefault("logx.oss.storage.accessKeySecret", "loadtest");
+        setDefault("logx.oss.storage.bucket", "loadtest");
+        setDefault("logx.oss.storage.pathStyleAccess", "true");
+        // 配置兜底目录配额后引擎才会导出兜底积压指标
+        setDefault("logx.oss.engine.fallback.maxTotalBytes", String.valueOf(1024L * 1024 * 1024));
+        for (Map.Entry<String, String> entry : config.getLogxProperties().entrySet()) {
+            System.setProperty(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static void awaitDelivery(LoadGenerator generator, DeliveryTracker tracker, int drainSeconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+        while (tracker.getTotalDelivered() < generator.getTotalGenerated() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+    }
+}
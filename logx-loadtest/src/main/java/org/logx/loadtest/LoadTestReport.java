@@ -0,0 +1,142 @@
+package org.logx.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 压测报告
+ * <p>
+ * 汇总测量区间（预热之后）的结果并与门槛比较，写出{@code report.md}和逐区间的{@code samples.csv}。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class LoadTestReport {
+
+    long generated;
+    long delivered;
+    long queueDropped;
+    long unparsedLines;
+    double measuredGeneratedPerSecond;
+    double measuredDeliveredPerSecond;
+    long deliveryP50Ms;
+    long deliveryP99Ms;
+    long deliveryMaxMs;
+    long s3RequestP99Ms;
+    long s3Objects;
+    long s3Bytes;
+    long s3InjectedErrors;
+    long s3Throttled;
+    long uploadFailed;
+    long fallbackBacklogFiles;
+    long fallbackBacklogBytes;
+    long peakHeapBytes;
+    long gcCount;
+    long gcTimeMs;
+    long measuredSeconds;
+
+    private final List<String> failures = new ArrayList<>();
+
+    double getDropRate() {
+        return generated == 0 ? 0 : (double) Math.max(0, generated - delivered) / generated;
+    }
+
+    /**
+     * 按配置的门槛检查结果
+     *
+     * @return 全部通过时返回true
+     */
+    boolean evaluate(LoadTestConfig config) {
+        failures.clear();
+        if (measuredGeneratedPerSecond < config.getMinRate()) {
+            failures.add(String.format(Locale.ROOT, "events/s %.0f < required %.0f",
+                    measuredGeneratedPerSecond, config.getMinRate()));
+        }
+        if (getDropRate() > config.getMaxDropRate()) {
+            failures.add(String.format(Locale.ROOT, "drop rate %.6f > allowed %.6f",
+                    getDropRate(), config.getMaxDropRate()));
+        }
+        if (config.getMaxDeliveryP99Ms() > 0 && deliveryP99Ms > config.getMaxDeliveryP99Ms()) {
+            failures.add("delivery p99 " + deliveryP99Ms + "ms > allowed " + config.getMaxDeliveryP99Ms() + "ms");
+        }
+        return failures.isEmpty();
+    }
+
+    Path write(LoadTestConfig config, List<SoakMonitor.Sample> samples) throws IOException {
+        Path dir = Paths.get(config.getReportDir());
+        Files.createDirectories(dir);
+        writeCsv(dir.resolve("samples.csv"), samples);
+        Path report = dir.resolve("report.md");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8))) {
+            out.println("# LogX 压测报告");
+            out.println();
+            out.println("结果: **" + (failures.isEmpty() ? "PASS" : "FAIL") + "**");
+            for (String failure : failures) {
+                out.println("- " + failure);
+            }
+            out.println();
+            out.println("## 参数");
+            out.println();
+            out.println("| 参数 | 值 |");
+            out.println("|------|----|");
+            for (Map.Entry<String, String> entry : config.describe().entrySet()) {
+                out.println("| " + entry.getKey() + " | " + entry.getValue() + " |");
+            }
+            out.println();
+            out.println("## 结果（测量区间 " + measuredSeconds + "s，不含预热）");
+            out.println();
+            out.println("| 指标 | 值 |");
+            out.println("|------|----|");
+            row(out, "生成速率 (events/s)", String.format(Locale.ROOT, "%,.0f", measuredGeneratedPerSecond));
+            row(out, "投递速率 (events/s)", String.format(Locale.ROOT, "%,.0f", measuredDeliveredPerSecond));
+            row(out, "生成总数", String.valueOf(generated));
+            row(out, "投递总数", String.valueOf(delivered));
+            row(out, "未投递比例", String.format(Locale.ROOT, "%.6f", getDropRate()));
+            row(out, "队列满丢弃", String.valueOf(queueDropped));
+            row(out, "投递延迟 p50 / p99 / max (ms)", deliveryP50Ms + " / " + deliveryP99Ms + " / " + deliveryMaxMs);
+            row(out, "S3请求延迟 p99 (ms)", String.valueOf(s3RequestP99Ms));
+            row(out, "S3对象数 / 字节数", s3Objects + " / " + s3Bytes);
+            row(out, "注入错误 / 限流", s3InjectedErrors + " / " + s3Throttled);
+            row(out, "上传失败转兜底的批次", String.valueOf(uploadFailed));
+            row(out, "兜底积压 (文件 / 字节)", fallbackBacklogFiles + " / " + fallbackBacklogBytes);
+            row(out, "堆峰值 (MB)", String.valueOf(peakHeapBytes / (1024 * 1024)));
+            row(out, "GC次数 / 耗时 (ms)", gcCount + " / " + gcTimeMs);
+            if (unparsedLines > 0) {
+                row(out, "无法解析的行", String.valueOf(unparsedLines));
+            }
+            out.println();
+            out.println("逐区间数据见 samples.csv。未投递的日志可能仍在兜底目录中等待重传，结合兜底积压判断是否真正丢失。");
+        }
+        return report;
+    }
+
+    private static void row(PrintWriter out, String name, String value) {
+        out.println("| " + name + " | " + value + " |");
+    }
+
+    private static void writeCsv(Path file, List<SoakMonitor.Sample> samples) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("elapsed_s,generated_per_s,delivered_per_s,delivery_p50_ms,delivery_p99_ms,s3_request_p99_ms,"
+                    + "queue_dropped,upload_failed,fallback_backlog_files,fallback_backlog_bytes,heap_used_bytes,"
+                    + "gc_count,gc_time_ms");
+            for (SoakMonitor.Sample s : samples) {
+                out.printf(Locale.ROOT, "%d,%.0f,%.0f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d%n",
+                        s.elapsedSeconds, s.generatedPerSecond, s.deliveredPerSecond, s.deliveryP50Ms,
+                        s.deliveryP99Ms, s.s3RequestP99Ms, s.queueDropped, s.uploadFailed, s.fallbackBacklogFiles,
+                        s.fallbackBacklogBytes, s.heapUsedBytes, s.gcCount, s.gcTimeMs);
+            }
+        }
+    }
+
+    List<String> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,55 @@
+package org.logx.loadtest;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.logx.log4j.Log4jOSSAppender;
+
+/**
+ * Log4j 1.x驱动
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class Log4j1Driver implements FrameworkDriver {
+
+    private static final String LOG4J1_PATTERN = "%d{yyyy-MM-dd HH:mm:ss,SSS} [%t] %-5p %c{1} - %m%n";
+
+    private final String keyPrefix;
+    private Log4jOSSAppender appender;
+    private Logger logger;
+
+    Log4j1Driver(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public String getName() {
+        return "log4j";
+    }
+
+    @Override
+    public void start() {
+        appender = new Log4jOSSAppender();
+        appender.setName("loadtest-log4j");
+        appender.setLayout(new PatternLayout(LOG4J1_PATTERN));
+        appender.setKeyPrefix(keyPrefix);
+        appender.activateOptions();
+
+        logger = Logger.getLogger(LOGGER_NAME);
+        logger.setLevel(Level.INFO);
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+    }
+
+    @Override
+    public void log(String message) {
+        logger.info(message);
+    }
+
+    @Override
+    public void stop() {
+        logger.removeAppender(appender);
+        appender.close();
+    }
+}
@@ -0,0 +1,69 @@
+package org.logx.loadtest;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.logx.log4j2.Log4j2OSSAppender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log4j2驱动，在当前LoggerContext中添加专用的Logger和Appender
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class Log4j2Driver implements FrameworkDriver {
+
+    private final String keyPrefix;
+    private LoggerContext context;
+    private Log4j2OSSAppender appender;
+    private Logger logger;
+
+    Log4j2Driver(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public String getName() {
+        return "log4j2";
+    }
+
+    @Override
+    public void start() {
+        context = LoggerContext.getContext(false);
+        Configuration configuration = context.getConfiguration();
+
+        appender = Log4j2OSSAppender.createAppender("loadtest-log4j2",
+                PatternLayout.newBuilder().withPattern(PATTERN).withConfiguration(configuration).build(), null);
+        appender.setKeyPrefix(keyPrefix);
+        appender.start();
+        if (!appender.isStarted()) {
+            throw new IllegalStateException("Log4j2OSSAppender failed to start, see status logger output");
+        }
+        configuration.addAppender(appender);
+
+        LoggerConfig loggerConfig = new LoggerConfig(LOGGER_NAME, Level.INFO, false);
+        loggerConfig.addAppender(appender, Level.INFO, null);
+        configuration.addLogger(LOGGER_NAME, loggerConfig);
+        context.updateLoggers();
+
+        logger = context.getLogger(LOGGER_NAME);
+    }
+
+    @Override
+    public void log(String message) {
+        logger.info(message);
+    }
+
+    @Override
+    public void stop() {
+        Configuration configuration = context.getConfiguration();
+        configuration.removeLogger(LOGGER_NAME);
+        context.updateLoggers();
+        appender.stop(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,70 @@
+package org.logx.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.logx.logback.LogbackOSSAppender;
+
+/**
+ * Logback驱动，使用独立的LoggerContext，不影响压测工具自身的日志输出
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class LogbackDriver implements FrameworkDriver {
+
+    private final String keyPrefix;
+    private LoggerContext context;
+    private LogbackOSSAppender appender;
+    private Logger logger;
+
+    LogbackDriver(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public String getName() {
+        return "logback";
+    }
+
+    @Override
+    public void start() {
+        context = new LoggerContext();
+        context.setName("logx-loadtest");
+        // 独立创建的LoggerContext不经过SLF4J初始化，需要自行设置MDC适配器，与应用中的上下文保持一致
+        context.setMDCAdapter(new LogbackMDCAdapter());
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        appender = new LogbackOSSAppender();
+        appender.setContext(context);
+        appender.setName("loadtest-logback");
+        appender.setEncoder(encoder);
+        appender.setKeyPrefix(keyPrefix);
+        appender.start();
+        if (!appender.isStarted()) {
+            throw new IllegalStateException("LogbackOSSAppender failed to start, see status messages");
+        }
+
+        logger = context.getLogger(LOGGER_NAME);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+    }
+
+    @Override
+    public void log(String message) {
+        logger.info(message);
+    }
+
+    @Override
+    public void stop() {
+        appender.stop();
+        context.stop();
+    }
+}
@@ -0,0 +1,277 @@
+package org.logx.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.logx.metrics.LatencyRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内嵌的S3兼容模拟服务
+ * <p>
+ * 只实现路径风格的PutObject，足以承接Appender的全部上传。每个请求可注入延迟、错误和限流：
+ * <ul>
+ * <li>延迟：约99%的请求在p50附近均匀分布，约1%落在[p99, 2*p99)，使请求延迟的p99接近配置值</li>
+ * <li>错误：按比例返回500 InternalError</li>
+ * <li>限流：超过每秒请求数时返回503 SlowDown</li>
+ * </ul>
+ * 成功写入的对象交给{@link ObjectListener}处理，模拟服务本身不保存对象内容。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class S3MockServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3MockServer.class);
+
+    private static final double TAIL_RATIO = 0.01;
+
+    /**
+     * 成功写入对象的回调，在模拟服务的请求线程上调用
+     */
+    public interface ObjectListener {
+        void onObject(String key, byte[] content);
+    }
+
+    private final LoadTestConfig config;
+    private final ObjectListener listener;
+    private final LatencyRecorder requestLatency = new LatencyRecorder();
+    private final AtomicLong objects = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong throttleWindow = new AtomicLong();
+    private final AtomicInteger throttleCount = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public S3MockServer(LoadTestConfig config, ObjectListener listener) {
+        this.config = config;
+        this.listener = listener;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.getS3Port()), 512);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(config.getS3Threads(), r -> {
+            Thread thread = new Thread(r, "s3-mock-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("S3 mock listening on {}, latency p50={}ms p99={}ms, errorRate={}, throttle={}/s",
+                getEndpoint(), config.getS3LatencyP50Ms(), config.getS3LatencyP99Ms(),
+                config.getS3ErrorRate(), config.getS3ThrottleRps());
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            String method = exchange.getRequestMethod();
+            byte[] body = readBody(exchange);
+            if ("HEAD".equals(method) || "GET".equals(method)) {
+                // 存储桶探测等只读请求直接成功
+                respond(exchange, 200, null);
+                return;
+            }
+            if (!"PUT".equals(method)) {
+                respondError(exchange, 405, "MethodNotAllowed", "Only PutObject is supported");
+                return;
+            }
+            if (isThrottled()) {
+                throttled.incrementAndGet();
+                respondError(exchange, 503, "SlowDown", "Please reduce your request rate.");
+                return;
+            }
+            sleepInjectedLatency();
+            if (config.getS3ErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < config.getS3ErrorRate()) {
+                injectedErrors.incrementAndGet();
+                respondError(exchange, 500, "InternalError", "Injected error");
+                return;
+            }
+
+            String key = exchange.getRequestURI().getPath();
+            byte[] content = isAwsChunked(exchange) ? decodeAwsChunked(body) : body;
+            objects.incrementAndGet();
+            bytes.addAndGet(content.length);
+            try {
+                listener.onObject(key, content);
+            } catch (RuntimeException e) {
+                logger.warn("Object listener failed for {}: {}", key, e.getMessage());
+            }
+            // SDK会用ETag校验上传内容的MD5
+            exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(content) + "\"");
+            respond(exchange, 200, null);
+        } finally {
+            requestLatency.recordSince(startNanos);
+            exchange.close();
+        }
+    }
+
+    private boolean isThrottled() {
+        int limit = config.getS3ThrottleRps();
+        if (limit <= 0) {
+            return false;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long window = throttleWindow.get();
+        if (window != second && throttleWindow.compareAndSet(window, second)) {
+            throttleCount.set(0);
+        }
+        return throttleCount.incrementAndGet() > limit;
+    }
+
+    private void sleepInjectedLatency() {
+        long p50 = config.getS3LatencyP50Ms();
+        long p99 = config.getS3LatencyP99Ms();
+        if (p50 <= 0 && p99 <= 0) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delayMs;
+        if (p99 > p50 && random.nextDouble() < TAIL_RATIO) {
+            delayMs = p99 + (long) (random.nextDouble() * p99);
+        } else {
+            delayMs = (long) (p50 * (0.5 + random.nextDouble()));
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isAwsChunked(HttpExchange exchange) {
+        String sha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        return (sha != null && sha.startsWith("STREAMING-"))
+                || (encoding != null && encoding.contains("aws-chunked"));
+    }
+
+    /**
+     * 去掉aws-chunked编码的分块头：{@code <hex长度>;chunk-signature=...\r\n<数据>\r\n}，以长度为0的分块结束
+     */
+    static byte[] decodeAwsChunked(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        int pos = 0;
+        while (pos < body.length) {
+            int lineEnd = indexOfCrlf(body, pos);
+            if (lineEnd < 0) {
+                break;
+            }
+            String header = new String(body, pos, lineEnd - pos, StandardCharsets.US_ASCII);
+            int semicolon = header.indexOf(';');
+            int size = Integer.parseInt((semicolon >= 0 ? header.substring(0, semicolon) : header).trim(), 16);
+            pos = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            out.write(body, pos, Math.min(size, body.length - pos));
+            pos += size + 2;
+        }
+        return out.toByteArray();
+    }
+
+    private static String md5Hex(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static int indexOfCrlf(byte[] data, int from) {
+        for (int i = from; i < data.length - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>"
+                + message + "</Message></Error>";
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        respond(exchange, status, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public LatencyRecorder getRequestLatency() {
+        return requestLatency;
+    }
+
+    public long getObjectCount() {
+        return objects.get();
+    }
+
+    public long getByteCount() {
+        return bytes.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+}
@@ -0,0 +1,177 @@
+package org.logx.loadtest;
+
+import org.logx.metrics.LatencySnapshot;
+import org.logx.metrics.MetricGroup;
+import org.logx.metrics.MetricRegistry;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 周期采样压测状态
+ * <p>
+ * 每个采样区间记录生成和投递速率、投递延迟和模拟服务请求延迟的分位数、堆和GC，
+ * 以及从管道指标中汇总的丢弃数、上传失败数和兜底目录积压。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class SoakMonitor {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    /**
+     * 单个采样区间的数据
+     */
+    static final class Sample {
+        long elapsedSeconds;
+        double generatedPerSecond;
+        double deliveredPerSecond;
+        long deliveryP50Ms;
+        long deliveryP99Ms;
+        long s3RequestP99Ms;
+        long queueDropped;
+        long uploadFailed;
+        long fallbackBacklogBytes;
+        long fallbackBacklogFiles;
+        long heapUsedBytes;
+        long gcCount;
+        long gcTimeMs;
+    }
+
+    private final LoadGenerator generator;
+    private final DeliveryTracker tracker;
+    private final S3MockServer server;
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "loadtest-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long startNanos;
+    private long lastNanos;
+    private long lastGenerated;
+    private long lastDelivered;
+    private long lastGcCount;
+    private long lastGcTimeMs;
+    private LatencySnapshot lastDelivery;
+    private LatencySnapshot lastRequest;
+    private long peakHeapBytes;
+
+    SoakMonitor(LoadGenerator generator, DeliveryTracker tracker, S3MockServer server) {
+        this.generator = generator;
+        this.tracker = tracker;
+        this.server = server;
+    }
+
+    void start(int intervalSeconds) {
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+        lastGcCount = totalGcCount();
+        lastGcTimeMs = totalGcTimeMs();
+        lastDelivery = tracker.getDeliveryDelay().snapshot();
+        lastRequest = server.getRequestLatency().snapshot();
+        scheduler.scheduleAtFixedRate(this::sample, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    synchronized Sample sample() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastNanos) / 1e9);
+        long generated = generator.getTotalGenerated();
+        long delivered = tracker.getTotalDelivered();
+        LatencySnapshot delivery = tracker.getDeliveryDelay().snapshot();
+        LatencySnapshot request = server.getRequestLatency().snapshot();
+        LatencySnapshot deliveryInterval = delivery.since(lastDelivery);
+        long gcCount = totalGcCount();
+        long gcTimeMs = totalGcTimeMs();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+        Sample sample = new Sample();
+        sample.elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - startNanos);
+        sample.generatedPerSecond = (generated - lastGenerated) / seconds;
+        sample.deliveredPerSecond = (delivered - lastDelivered) / seconds;
+        sample.deliveryP50Ms = toMs(deliveryInterval.getPercentile(0.5));
+        sample.deliveryP99Ms = toMs(deliveryInterval.getPercentile(0.99));
+        sample.s3RequestP99Ms = toMs(request.since(lastRequest).getPercentile(0.99));
+        sample.queueDropped = sumEngineMetric("queue.dropped");
+        sample.uploadFailed = sumEngineMetric("upload.failed");
+        sample.fallbackBacklogBytes = sumEngineMetric("fallback.backlog.bytes");
+        sample.fallbackBacklogFiles = sumEngineMetric("fallback.backlog.files");
+        sample.heapUsedBytes = heap.getUsed();
+        sample.gcCount = gcCount - lastGcCount;
+        sample.gcTimeMs = gcTimeMs - lastGcTimeMs;
+        samples.add(sample);
+        peakHeapBytes = Math.max(peakHeapBytes, heap.getUsed());
+
+        lastNanos = now;
+        lastGenerated = generated;
+        lastDelivered = delivered;
+        lastDelivery = delivery;
+        lastRequest = request;
+        lastGcCount = gcCount;
+        lastGcTimeMs = gcTimeMs;
+
+        System.out.printf("[%4ds] gen=%,.0f/s delivered=%,.0f/s delivery p99=%dms s3 p99=%dms dropped=%d "
+                        + "fallback=%d files heap=%dMB gc=%d (%dms)%n",
+                sample.elapsedSeconds, sample.generatedPerSecond, sample.deliveredPerSecond, sample.deliveryP99Ms,
+                sample.s3RequestP99Ms, sample.queueDropped, sample.fallbackBacklogFiles,
+                sample.heapUsedBytes / (1024 * 1024), sample.gcCount, sample.gcTimeMs);
+        return sample;
+    }
+
+    List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    synchronized long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * 汇总所有指标分组中的同名指标，每个引擎各有一个分组
+     */
+    static long sumEngineMetric(String name) {
+        double total = 0;
+        for (MetricGroup group : MetricRegistry.global().getGroups()) {
+            MetricGroup.Metric metric = group.getMetric(name);
+            if (metric != null) {
+                total += metric.getValue();
+            }
+        }
+        return (long) total;
+    }
+
+    static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    static long totalGcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long toMs(long nanos) {
+        return Math.round(nanos / NANOS_PER_MS);
+    }
+}
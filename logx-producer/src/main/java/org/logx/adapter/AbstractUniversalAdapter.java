@@ -2,8 +2,10 @@ package org.logx.adapter;
 
 import org.logx.storage.StorageService;
 import org.logx.core.AsyncEngine;
+import org.logx.core.BatchRouting;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * 抽象基类，提供通用适配器的基本实现
@@ -12,7 +14,7 @@ import java.util.concurrent.TimeUnit;
 public abstract class AbstractUniversalAdapter implements UniversalOSSAdapter {
     protected AsyncEngine asyncEngine;
     protected StorageService s3Storage;
-    private boolean started = false;
+    private volatile boolean started = false;
     
     @Override
     public void start() {
@@ -51,6 +53,32 @@ public abstract class AbstractUniversalAdapter implements UniversalOSSAdapter {
         }
     }
     
+    /**
+     * 按引擎的批次路由配置从事件属性计算路由键
+     *
+     * @param level 日志级别名称
+     * @param loggerName Logger名称
+     * @param mdcLookup 按键读取MDC值，仅在按MDC路由时调用
+     * @return 路由键，未启用路由或属性缺失时返回null
+     */
+    protected String resolveRouteKey(String level, String loggerName, Function<String, String> mdcLookup) {
+        BatchRouting routing = asyncEngine != null ? asyncEngine.getBatchRouting() : null;
+        if (routing == null) {
+            return null;
+        }
+        switch (routing.getAttributeType()) {
+            case LEVEL:
+                return level;
+            case LOGGER:
+                return routing.loggerRouteKey(loggerName);
+            case MDC:
+                String value = mdcLookup.apply(routing.getAttributeArgument());
+                return value == null || value.isEmpty() ? null : value;
+            default:
+                return null;
+        }
+    }
+
     @Override
     public boolean isStarted() {
         return started;
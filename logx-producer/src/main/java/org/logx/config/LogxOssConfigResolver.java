@@ -2,6 +2,7 @@ package org.logx.config;
 
 import org.logx.config.properties.LogxOssProperties;
 import org.logx.core.AsyncEngineConfig;
+import org.logx.fallback.FallbackEvictionPolicy;
 
 public class LogxOssConfigResolver {
 
@@ -35,7 +36,11 @@ public class LogxOssConfigResolver {
         storage.setAccessKeySecret(resolve(configManager.getProperty("logx.oss.storage.accessKeySecret")));
         storage.setBucket(resolve(configManager.getProperty("logx.oss.storage.bucket")));
         storage.setKeyPrefix(resolve(configManager.getProperty("logx.oss.storage.keyPrefix", storage.getKeyPrefix())));
+        storage.setKeyTemplate(resolve(configManager.getProperty("logx.oss.storage.keyTemplate", storage.getKeyTemplate())));
+        storage.setKeyAttributes(resolve(configManager.getProperty("logx.oss.storage.keyAttributes", storage.getKeyAttributes())));
         storage.setPathStyleAccess(configManager.getBooleanProperty("logx.oss.storage.pathStyleAccess", storage.isPathStyleAccess()));
+        storage.setFailoverTargets(resolve(configManager.getProperty("logx.oss.storage.failover.targets", storage.getFailoverTargets())));
+        storage.setFanoutTargets(resolve(configManager.getProperty("logx.oss.storage.fanout.targets", storage.getFanoutTargets())));
         // Default values
         if(storage.getOssType() == null) {
             storage.setOssType("sf_s3");
@@ -86,6 +91,13 @@ public class LogxOssConfigResolver {
         fallback.setMaxRetryFileBytes(configManager.getLongProperty("logx.oss.engine.fallback.maxRetryFileBytes", fallback.getMaxRetryFileBytes()));
         fallback.setMaxRetryFilesPerRound(configManager.getIntProperty("logx.oss.engine.fallback.maxRetryFilesPerRound", fallback.getMaxRetryFilesPerRound()));
         fallback.setMaxRetryBytesPerRound(configManager.getLongProperty("logx.oss.engine.fallback.maxRetryBytesPerRound", fallback.getMaxRetryBytesPerRound()));
+        fallback.setMaxTotalBytes(configManager.getLongProperty("logx.oss.engine.fallback.maxTotalBytes", fallback.getMaxTotalBytes()));
+        fallback.setMaxFiles(configManager.getIntProperty("logx.oss.engine.fallback.maxFiles", fallback.getMaxFiles()));
+        fallback.setQuotaWarnPercent(configManager.getIntProperty("logx.oss.engine.fallback.quotaWarnPercent", fallback.getQuotaWarnPercent()));
+        String evictionPolicy = configManager.getProperty("logx.oss.engine.fallback.evictionPolicy", fallback.getEvictionPolicy().name());
+        if (evictionPolicy != null) {
+            fallback.setEvictionPolicy(FallbackEvictionPolicy.valueOf(evictionPolicy.trim().toUpperCase()));
+        }
     }
 
     private void resolveThreadPool(LogxOssProperties.ThreadPool threadPool) {
@@ -102,13 +114,47 @@ public class LogxOssConfigResolver {
         engine.setEmergencyMemoryThresholdMb(configManager.getIntProperty("logx.oss.engine.emergencyMemoryThresholdMb", engine.getEmergencyMemoryThresholdMb()));
         engine.setEnableCompression(configManager.getBooleanProperty("logx.oss.engine.enableCompression", engine.isEnableCompression()));
         engine.setCompressionThreshold(configManager.getIntProperty("logx.oss.engine.compressionThreshold", engine.getCompressionThreshold()));
+        engine.setCompressionParallelism(configManager.getIntProperty("logx.oss.engine.compressionParallelism", engine.getCompressionParallelism()));
+        engine.setCompressionBlockSizeKb(configManager.getIntProperty("logx.oss.engine.compressionBlockSizeKb", engine.getCompressionBlockSizeKb()));
+        engine.setCompressionBlockIndex(configManager.getBooleanProperty("logx.oss.engine.compressionBlockIndex", engine.isCompressionBlockIndex()));
         engine.setEnableSharding(configManager.getBooleanProperty("logx.oss.engine.enableSharding", engine.isEnableSharding()));
         engine.setMaxUploadSizeMb(configManager.getIntProperty("logx.oss.engine.maxUploadSizeMb", engine.getMaxUploadSizeMb()));
+        engine.setShardUploadBudgetMb(configManager.getIntProperty("logx.oss.engine.shardUploadBudgetMb", engine.getShardUploadBudgetMb()));
         engine.setPayloadMaxBytes(configManager.getIntProperty("logx.oss.engine.payloadMaxBytes", engine.getPayloadMaxBytes()));
         String oversizePolicy = configManager.getProperty("logx.oss.engine.oversizePayloadPolicy", engine.getOversizePayloadPolicy().name());
         if (oversizePolicy != null) {
             engine.setOversizePayloadPolicy(AsyncEngineConfig.OversizePayloadPolicy.valueOf(oversizePolicy.trim().toUpperCase()));
         }
         engine.setOversizeFallbackMaxBytes(configManager.getIntProperty("logx.oss.engine.oversizeFallbackMaxBytes", engine.getOversizeFallbackMaxBytes()));
+        engine.setShutdownSnapshotEnabled(configManager.getBooleanProperty("logx.oss.engine.shutdownSnapshotEnabled", engine.isShutdownSnapshotEnabled()));
+        engine.setRouteBy(resolve(configManager.getProperty("logx.oss.engine.route.by", engine.getRouteBy())));
+        engine.setRouteMaxRoutes(configManager.getIntProperty("logx.oss.engine.route.maxRoutes", engine.getRouteMaxRoutes()));
+        engine.setRouteRules(resolve(configManager.getProperty("logx.oss.engine.route.rules", engine.getRouteRules())));
+        engine.setUploadWeight(configManager.getIntProperty("logx.oss.engine.upload.weight", engine.getUploadWeight()));
+        engine.setUploadMaxInFlight(configManager.getIntProperty("logx.oss.engine.upload.maxInFlight", engine.getUploadMaxInFlight()));
+        engine.setUploadSharedThreads(configManager.getIntProperty("logx.oss.engine.upload.sharedThreads", engine.getUploadSharedThreads()));
+        engine.setUploadHedgeEnabled(configManager.getBooleanProperty("logx.oss.engine.upload.hedge.enabled", engine.isUploadHedgeEnabled()));
+        engine.setUploadHedgePercentile(configManager.getIntProperty("logx.oss.engine.upload.hedge.percentile", engine.getUploadHedgePercentile()));
+        engine.setUploadHedgeMinDelayMs(configManager.getLongProperty("logx.oss.engine.upload.hedge.minDelayMs", engine.getUploadHedgeMinDelayMs()));
+        engine.setUploadMaxAttempts(configManager.getIntProperty("logx.oss.engine.upload.maxAttempts", engine.getUploadMaxAttempts()));
+        engine.setUploadAttemptDeadlineMultiplier(configManager.getIntProperty("logx.oss.engine.upload.attemptDeadlineMultiplier", engine.getUploadAttemptDeadlineMultiplier()));
+        engine.setUploadBreakerEnabled(configManager.getBooleanProperty("logx.oss.engine.upload.breaker.enabled", engine.isUploadBreakerEnabled()));
+        engine.setUploadBreakerWindowSize(configManager.getIntProperty("logx.oss.engine.upload.breaker.windowSize", engine.getUploadBreakerWindowSize()));
+        engine.setUploadBreakerFailureRatePercent(configManager.getIntProperty("logx.oss.engine.upload.breaker.failureRatePercent", engine.getUploadBreakerFailureRatePercent()));
+        engine.setUploadBreakerSlowCallMs(configManager.getLongProperty("logx.oss.engine.upload.breaker.slowCallMs", engine.getUploadBreakerSlowCallMs()));
+        engine.setUploadBreakerSlowCallRatePercent(configManager.getIntProperty("logx.oss.engine.upload.breaker.slowCallRatePercent", engine.getUploadBreakerSlowCallRatePercent()));
+        engine.setUploadBreakerOpenMs(configManager.getLongProperty("logx.oss.engine.upload.breaker.openMs", engine.getUploadBreakerOpenMs()));
+        engine.setUploadBreakerProbes(configManager.getIntProperty("logx.oss.engine.upload.breaker.probes", engine.getUploadBreakerProbes()));
+        engine.setUploadLimiterEnabled(configManager.getBooleanProperty("logx.oss.engine.upload.limiter.enabled", engine.isUploadLimiterEnabled()));
+        engine.setUploadLimiterMinLimit(configManager.getIntProperty("logx.oss.engine.upload.limiter.minLimit", engine.getUploadLimiterMinLimit()));
+        engine.setUploadLimiterMaxLimit(configManager.getIntProperty("logx.oss.engine.upload.limiter.maxLimit", engine.getUploadLimiterMaxLimit()));
+        engine.setUploadLimiterBackoffPercent(configManager.getIntProperty("logx.oss.engine.upload.limiter.backoffPercent", engine.getUploadLimiterBackoffPercent()));
+        engine.setUploadLimiterLatencyTolerancePercent(configManager.getIntProperty("logx.oss.engine.upload.limiter.latencyTolerancePercent", engine.getUploadLimiterLatencyTolerancePercent()));
+        engine.setFanoutLagBudgetMs(configManager.getLongProperty("logx.oss.engine.fanout.lagBudgetMs", engine.getFanoutLagBudgetMs()));
+        engine.setFanoutMaxInFlight(configManager.getIntProperty("logx.oss.engine.fanout.maxInFlight", engine.getFanoutMaxInFlight()));
+        engine.setDeferredFormatEnabled(configManager.getBooleanProperty("logx.oss.engine.deferredFormat.enabled", engine.isDeferredFormatEnabled()));
+        engine.setDeferredFormatWorkers(configManager.getIntProperty("logx.oss.engine.deferredFormat.workers", engine.getDeferredFormatWorkers()));
+        engine.setDeferredFormatQueueCapacity(configManager.getIntProperty("logx.oss.engine.deferredFormat.queueCapacity", engine.getDeferredFormatQueueCapacity()));
+        engine.setMetricsEnabled(configManager.getBooleanProperty("logx.oss.engine.metrics.enabled", engine.isMetricsEnabled()));
     }
 }
\ No newline at end of file
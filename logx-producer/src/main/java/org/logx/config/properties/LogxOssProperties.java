@@ -1,6 +1,7 @@
 package org.logx.config.properties;
 
 import org.logx.core.AsyncEngineConfig;
+import org.logx.fallback.FallbackEvictionPolicy;
 
 public class LogxOssProperties {
 
@@ -39,9 +40,13 @@ public class LogxOssProperties {
         private String accessKeySecret;
         private String bucket;
         private String keyPrefix = "logx/";
+        private String keyTemplate;
+        private String keyAttributes;
         private String ossType = "SF_S3";
         private boolean pathStyleAccess;
         private long uploadTimeoutMs = 30000L;
+        private String failoverTargets;
+        private String fanoutTargets;
 
         public String getEndpoint() {
             return endpoint;
@@ -91,6 +96,22 @@ public class LogxOssProperties {
             this.keyPrefix = keyPrefix;
         }
 
+        public String getKeyTemplate() {
+            return keyTemplate;
+        }
+
+        public void setKeyTemplate(String keyTemplate) {
+            this.keyTemplate = keyTemplate;
+        }
+
+        public String getKeyAttributes() {
+            return keyAttributes;
+        }
+
+        public void setKeyAttributes(String keyAttributes) {
+            this.keyAttributes = keyAttributes;
+        }
+
         public String getOssType() {
             return ossType;
         }
@@ -114,6 +135,22 @@ public class LogxOssProperties {
         public void setUploadTimeoutMs(long uploadTimeoutMs) {
             this.uploadTimeoutMs = uploadTimeoutMs;
         }
+
+        public String getFailoverTargets() {
+            return failoverTargets;
+        }
+
+        public void setFailoverTargets(String failoverTargets) {
+            this.failoverTargets = failoverTargets;
+        }
+
+        public String getFanoutTargets() {
+            return fanoutTargets;
+        }
+
+        public void setFanoutTargets(String fanoutTargets) {
+            this.fanoutTargets = fanoutTargets;
+        }
     }
 
     public static class Batch {
@@ -210,7 +247,7 @@ public class LogxOssProperties {
         private ThreadPool threadPool = new ThreadPool();
 
         // 其他引擎配置
-        private boolean multiProducer = false;
+        private boolean multiProducer = true;
         private boolean enableCpuYield = true;
         private boolean enableMemoryProtection = true;
         private long maxShutdownWaitMs = 30000L;
@@ -218,11 +255,45 @@ public class LogxOssProperties {
         private int emergencyMemoryThresholdMb = 512;
         private boolean enableCompression = true;
         private int compressionThreshold = 1024;
+        private int compressionParallelism = 1;
+        private int compressionBlockSizeKb = 1024;
+        private boolean compressionBlockIndex = false;
         private boolean enableSharding = true;
         private int maxUploadSizeMb = 10;
+        private int shardUploadBudgetMb = 64;
         private int payloadMaxBytes = 512 * 1024;
         private AsyncEngineConfig.OversizePayloadPolicy oversizePayloadPolicy = AsyncEngineConfig.OversizePayloadPolicy.DROP;
         private int oversizeFallbackMaxBytes = 10 * 1024 * 1024;
+        private boolean shutdownSnapshotEnabled = false;
+        private String routeBy;
+        private int routeMaxRoutes = 32;
+        private String routeRules;
+        private int uploadWeight = 1;
+        private int uploadMaxInFlight = 0;
+        private int uploadSharedThreads = 0;
+        private boolean uploadHedgeEnabled = false;
+        private int uploadHedgePercentile = 95;
+        private long uploadHedgeMinDelayMs = 50;
+        private int uploadMaxAttempts = 2;
+        private int uploadAttemptDeadlineMultiplier = 0;
+        private boolean uploadBreakerEnabled = true;
+        private int uploadBreakerWindowSize = 20;
+        private int uploadBreakerFailureRatePercent = 50;
+        private long uploadBreakerSlowCallMs = 10000L;
+        private int uploadBreakerSlowCallRatePercent = 100;
+        private long uploadBreakerOpenMs = 30000L;
+        private int uploadBreakerProbes = 3;
+        private boolean uploadLimiterEnabled = false;
+        private int uploadLimiterMinLimit = 1;
+        private int uploadLimiterMaxLimit = 32;
+        private int uploadLimiterBackoffPercent = 90;
+        private int uploadLimiterLatencyTolerancePercent = 200;
+        private long fanoutLagBudgetMs = 30000L;
+        private int fanoutMaxInFlight = 4;
+        private boolean deferredFormatEnabled = false;
+        private int deferredFormatWorkers = 1;
+        private int deferredFormatQueueCapacity = 8192;
+        private boolean metricsEnabled = true;
 
         public Batch getBatch() {
             return batch;
@@ -328,6 +399,38 @@ public class LogxOssProperties {
             this.compressionThreshold = compressionThreshold;
         }
 
+        public int getCompressionParallelism() {
+            return compressionParallelism;
+        }
+
+        public void setCompressionParallelism(int compressionParallelism) {
+            this.compressionParallelism = compressionParallelism;
+        }
+
+        public int getCompressionBlockSizeKb() {
+            return compressionBlockSizeKb;
+        }
+
+        public void setCompressionBlockSizeKb(int compressionBlockSizeKb) {
+            this.compressionBlockSizeKb = compressionBlockSizeKb;
+        }
+
+        public boolean isCompressionBlockIndex() {
+            return compressionBlockIndex;
+        }
+
+        public void setCompressionBlockIndex(boolean compressionBlockIndex) {
+            this.compressionBlockIndex = compressionBlockIndex;
+        }
+
+        public int getShardUploadBudgetMb() {
+            return shardUploadBudgetMb;
+        }
+
+        public void setShardUploadBudgetMb(int shardUploadBudgetMb) {
+            this.shardUploadBudgetMb = shardUploadBudgetMb;
+        }
+
         public boolean isEnableSharding() {
             return enableSharding;
         }
@@ -367,6 +470,246 @@ public class LogxOssProperties {
         public void setOversizeFallbackMaxBytes(int oversizeFallbackMaxBytes) {
             this.oversizeFallbackMaxBytes = oversizeFallbackMaxBytes;
         }
+
+        public boolean isShutdownSnapshotEnabled() {
+            return shutdownSnapshotEnabled;
+        }
+
+        public void setShutdownSnapshotEnabled(boolean shutdownSnapshotEnabled) {
+            this.shutdownSnapshotEnabled = shutdownSnapshotEnabled;
+        }
+
+        public String getRouteBy() {
+            return routeBy;
+        }
+
+        public void setRouteBy(String routeBy) {
+            this.routeBy = routeBy;
+        }
+
+        public int getRouteMaxRoutes() {
+            return routeMaxRoutes;
+        }
+
+        public void setRouteMaxRoutes(int routeMaxRoutes) {
+            this.routeMaxRoutes = routeMaxRoutes;
+        }
+
+        public String getRouteRules() {
+            return routeRules;
+        }
+
+        public void setRouteRules(String routeRules) {
+            this.routeRules = routeRules;
+        }
+
+        public int getUploadWeight() {
+            return uploadWeight;
+        }
+
+        public void setUploadWeight(int uploadWeight) {
+            this.uploadWeight = uploadWeight;
+        }
+
+        public int getUploadMaxInFlight() {
+            return uploadMaxInFlight;
+        }
+
+        public void setUploadMaxInFlight(int uploadMaxInFlight) {
+            this.uploadMaxInFlight = uploadMaxInFlight;
+        }
+
+        public int getUploadSharedThreads() {
+            return uploadSharedThreads;
+        }
+
+        public void setUploadSharedThreads(int uploadSharedThreads) {
+            this.uploadSharedThreads = uploadSharedThreads;
+        }
+
+        public boolean isUploadHedgeEnabled() {
+            return uploadHedgeEnabled;
+        }
+
+        public void setUploadHedgeEnabled(boolean uploadHedgeEnabled) {
+            this.uploadHedgeEnabled = uploadHedgeEnabled;
+        }
+
+        public int getUploadHedgePercentile() {
+            return uploadHedgePercentile;
+        }
+
+        public void setUploadHedgePercentile(int uploadHedgePercentile) {
+            this.uploadHedgePercentile = uploadHedgePercentile;
+        }
+
+        public long getUploadHedgeMinDelayMs() {
+            return uploadHedgeMinDelayMs;
+        }
+
+        public void setUploadHedgeMinDelayMs(long uploadHedgeMinDelayMs) {
+            this.uploadHedgeMinDelayMs = uploadHedgeMinDelayMs;
+        }
+
+        public int getUploadMaxAttempts() {
+            return uploadMaxAttempts;
+        }
+
+        public void setUploadMaxAttempts(int uploadMaxAttempts) {
+            this.uploadMaxAttempts = uploadMaxAttempts;
+        }
+
+        public int getUploadAttemptDeadlineMultiplier() {
+            return uploadAttemptDeadlineMultiplier;
+        }
+
+        public void setUploadAttemptDeadlineMultiplier(int uploadAttemptDeadlineMultiplier) {
+            this.uploadAttemptDeadlineMultiplier = uploadAttemptDeadlineMultiplier;
+        }
+
+        public boolean isUploadBreakerEnabled() {
+            return uploadBreakerEnabled;
+        }
+
+        public void setUploadBreakerEnabled(boolean uploadBreakerEnabled) {
+            this.uploadBreakerEnabled = uploadBreakerEnabled;
+        }
+
+        public int getUploadBreakerWindowSize() {
+            return uploadBreakerWindowSize;
+        }
+
+        public void setUploadBreakerWindowSize(int uploadBreakerWindowSize) {
+            this.uploadBreakerWindowSize = uploadBreakerWindowSize;
+        }
+
+        public int getUploadBreakerFailureRatePercent() {
+            return uploadBreakerFailureRatePercent;
+        }
+
+        public void setUploadBreakerFailureRatePercent(int uploadBreakerFailureRatePercent) {
+            this.uploadBreakerFailureRatePercent = uploadBreakerFailureRatePercent;
+        }
+
+        public long getUploadBreakerSlowCallMs() {
+            return uploadBreakerSlowCallMs;
+        }
+
+        public void setUploadBreakerSlowCallMs(long uploadBreakerSlowCallMs) {
+            this.uploadBreakerSlowCallMs = uploadBreakerSlowCallMs;
+        }
+
+        public int getUploadBreakerSlowCallRatePercent() {
+            return uploadBreakerSlowCallRatePercent;
+        }
+
+        public void setUploadBreakerSlowCallRatePercent(int uploadBreakerSlowCallRatePercent) {
+            this.uploadBreakerSlowCallRatePercent = uploadBreakerSlowCallRatePercent;
+        }
+
+        public long getUploadBreakerOpenMs() {
+            return uploadBreakerOpenMs;
+        }
+
+        public void setUploadBreakerOpenMs(long uploadBreakerOpenMs) {
+            this.uploadBreakerOpenMs = uploadBreakerOpenMs;
+        }
+
+        public int getUploadBreakerProbes() {
+            return uploadBreakerProbes;
+        }
+
+        public void setUploadBreakerProbes(int uploadBreakerProbes) {
+            this.uploadBreakerProbes = uploadBreakerProbes;
+        }
+
+        public boolean isUploadLimiterEnabled() {
+            return uploadLimiterEnabled;
+        }
+
+        public void setUploadLimiterEnabled(boolean uploadLimiterEnabled) {
+            this.uploadLimiterEnabled = uploadLimiterEnabled;
+        }
+
+        public int getUploadLimiterMinLimit() {
+            return uploadLimiterMinLimit;
+        }
+
+        public void setUploadLimiterMinLimit(int uploadLimiterMinLimit) {
+            this.uploadLimiterMinLimit = uploadLimiterMinLimit;
+        }
+
+        public int getUploadLimiterMaxLimit() {
+            return uploadLimiterMaxLimit;
+        }
+
+        public void setUploadLimiterMaxLimit(int uploadLimiterMaxLimit) {
+            this.uploadLimiterMaxLimit = uploadLimiterMaxLimit;
+        }
+
+        public int getUploadLimiterBackoffPercent() {
+            return uploadLimiterBackoffPercent;
+        }
+
+        public void setUploadLimiterBackoffPercent(int uploadLimiterBackoffPercent) {
+            this.uploadLimiterBackoffPercent = uploadLimiterBackoffPercent;
+        }
+
+        public int getUploadLimiterLatencyTolerancePercent() {
+            return uploadLimiterLatencyTolerancePercent;
+        }
+
+        public void setUploadLimiterLatencyTolerancePercent(int uploadLimiterLatencyTolerancePercent) {
+            this.uploadLimiterLatencyTolerancePercent = uploadLimiterLatencyTolerancePercent;
+        }
+
+        public long getFanoutLagBudgetMs() {
+            return fanoutLagBudgetMs;
+        }
+
+        public void setFanoutLagBudgetMs(long fanoutLagBudgetMs) {
+            this.fanoutLagBudgetMs = fanoutLagBudgetMs;
+        }
+
+        public int getFanoutMaxInFlight() {
+            return fanoutMaxInFlight;
+        }
+
+        public void setFanoutMaxInFlight(int fanoutMaxInFlight) {
+            this.fanoutMaxInFlight = fanoutMaxInFlight;
+        }
+
+        public boolean isDeferredFormatEnabled() {
+            return deferredFormatEnabled;
+        }
+
+        public void setDeferredFormatEnabled(boolean deferredFormatEnabled) {
+            this.deferredFormatEnabled = deferredFormatEnabled;
+        }
+
+        public int getDeferredFormatWorkers() {
+            return deferredFormatWorkers;
+        }
+
+        public void setDeferredFormatWorkers(int deferredFormatWorkers) {
+            this.deferredFormatWorkers = deferredFormatWorkers;
+        }
+
+        public int getDeferredFormatQueueCapacity() {
+            return deferredFormatQueueCapacity;
+        }
+
+        public void setDeferredFormatQueueCapacity(int deferredFormatQueueCapacity) {
+            this.deferredFormatQueueCapacity = deferredFormatQueueCapacity;
+        }
+
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
+        public void setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+        }
     }
 
     /**
@@ -379,6 +722,10 @@ public class LogxOssProperties {
         private long maxRetryFileBytes = 10L * 1024 * 1024;
         private int maxRetryFilesPerRound = 100;
         private long maxRetryBytesPerRound = 50L * 1024 * 1024;
+        private long maxTotalBytes = 1024L * 1024 * 1024;
+        private int maxFiles = 10000;
+        private int quotaWarnPercent = 80;
+        private FallbackEvictionPolicy evictionPolicy = FallbackEvictionPolicy.OLDEST_FIRST;
 
         public String getPath() {
             return path;
@@ -427,6 +774,38 @@ public class LogxOssProperties {
         public void setMaxRetryBytesPerRound(long maxRetryBytesPerRound) {
             this.maxRetryBytesPerRound = maxRetryBytesPerRound;
         }
+
+        public long getMaxTotalBytes() {
+            return maxTotalBytes;
+        }
+
+        public void setMaxTotalBytes(long maxTotalBytes) {
+            this.maxTotalBytes = maxTotalBytes;
+        }
+
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+
+        public void setMaxFiles(int maxFiles) {
+            this.maxFiles = maxFiles;
+        }
+
+        public int getQuotaWarnPercent() {
+            return quotaWarnPercent;
+        }
+
+        public void setQuotaWarnPercent(int quotaWarnPercent) {
+            this.quotaWarnPercent = quotaWarnPercent;
+        }
+
+        public FallbackEvictionPolicy getEvictionPolicy() {
+            return evictionPolicy;
+        }
+
+        public void setEvictionPolicy(FallbackEvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+        }
     }
 
     /**
@@ -2,9 +2,11 @@ package org.logx.config.validation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Consumer;
 
 import org.logx.config.properties.LogxOssProperties;
+import org.logx.storage.StorageOssType;
 
 public final class ConfigValidationUtils {
 
@@ -17,16 +19,19 @@ public final class ConfigValidationUtils {
         }
 
         List<String> missing = new ArrayList<>();
-        if (isBlank(properties.getStorage().getEndpoint())) {
+        StorageOssType ossType = resolveOssType(properties.getStorage().getOssType());
+        // 本地文件系统和内存存储不经过网络，不需要region和访问凭证；内存存储也不需要endpoint
+        boolean local = ossType != null && ossType.isLocal();
+        if (ossType != StorageOssType.MEMORY && isBlank(properties.getStorage().getEndpoint())) {
             missing.add("logx.oss.storage.endpoint");
         }
-        if (isBlank(properties.getStorage().getRegion())) {
+        if (!local && isBlank(properties.getStorage().getRegion())) {
             missing.add("logx.oss.storage.region");
         }
-        if (isBlank(properties.getStorage().getAccessKeyId())) {
+        if (!local && isBlank(properties.getStorage().getAccessKeyId())) {
             missing.add("logx.oss.storage.accessKeyId");
         }
-        if (isBlank(properties.getStorage().getAccessKeySecret())) {
+        if (!local && isBlank(properties.getStorage().getAccessKeySecret())) {
             missing.add("logx.oss.storage.accessKeySecret");
         }
         if (isBlank(properties.getStorage().getBucket())) {
@@ -42,6 +47,17 @@ public final class ConfigValidationUtils {
         }
     }
 
+    private static StorageOssType resolveOssType(String ossType) {
+        if (isBlank(ossType)) {
+            return null;
+        }
+        try {
+            return StorageOssType.valueOf(ossType.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private static boolean isBlank(String value) {
         return value == null || value.trim().isEmpty();
     }
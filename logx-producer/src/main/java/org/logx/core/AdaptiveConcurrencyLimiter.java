@@ -0,0 +1,291 @@
+package org.logx.core;
+
+import org.logx.exception.StorageException;
+import org.logx.metrics.Counter;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 自适应上传并发限制
+ * <p>
+ * 包装存储服务，限制同时进行的上传请求数，按AIMD调整上限：
+ * <ul>
+ * <li>上传成功且耗时不超过同量级对象最近最小耗时的容忍倍数时，上限每次增加1/上限，即每轮满并发的上传增加1；
+ * 在途请求不足上限一半时说明并发没有用满，不增加</li>
+ * <li>上传以可重试的错误失败（包括限流）或耗时超出容忍倍数时，上限乘以退避比例，
+ * 同一批并发请求（一个平滑耗时内）只退避一次</li>
+ * </ul>
+ * 最小耗时按对象大小（以2倍分级）分别统计，取最近两个15秒区间的最小值，网络整体变慢时基准随之上移。
+ * 达到上限时调用线程等待空位，等待超过{@code uploadTimeoutMs}时返回失败，由引擎转入兜底。
+ * 共享上传调度器的工作线程不等待，由调度器按{@link #getLimit()}派发，没有空位时立即失败。
+ * 不可重试的错误、被取消或中断的请求只释放名额，不参与调整。
+ * <p>
+ * 包装在对冲和熔断之内，批次上传、分片上传和对冲尝试共用同一个上限。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class AdaptiveConcurrencyLimiter implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final long BASELINE_BUCKET_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final int SIZE_CLASSES = 12;
+
+    private final StorageService delegate;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final long acquireTimeoutNanos;
+    private final LongSupplier clock;
+
+    // 以下字段由this保护
+    private double limit;
+    private int inFlight;
+    private long smoothedRttNanos;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+    private long bucketStart;
+    private final long[] currentMinRtt = new long[SIZE_CLASSES];
+    private final long[] previousMinRtt = new long[SIZE_CLASSES];
+
+    private final Counter decreases = new Counter();
+    private final Counter waitTimeouts = new Counter();
+
+    AdaptiveConcurrencyLimiter(StorageService delegate, AsyncEngineConfig config) {
+        this(delegate, config.getParallelUploadThreads(), config.getUploadLimiterMinLimit(),
+                config.getUploadLimiterMaxLimit(), config.getUploadLimiterBackoffPercent(),
+                config.getUploadLimiterLatencyTolerancePercent(), config.getUploadTimeoutMs(), System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(StorageService delegate, int initialLimit, int minLimit, int maxLimit,
+                               int backoffPercent, int latencyTolerancePercent, long acquireTimeoutMs,
+                               LongSupplier clock) {
+        this.delegate = delegate;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffPercent / 100.0;
+        this.latencyTolerance = latencyTolerancePercent / 100.0;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, acquireTimeoutMs));
+        this.clock = clock;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.bucketStart = clock.getAsLong();
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        return call(data.length, () -> delegate.putObject(key, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        return call(buffer.remaining(), () -> delegate.putObject(key, buffer));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        return call(dataLength, () -> delegate.putObject(key, inputStream, dataLength));
+    }
+
+    private CompletableFuture<Void> call(long bytes, Supplier<CompletableFuture<Void>> request) {
+        try {
+            if (!acquire()) {
+                waitTimeouts.increment();
+                return failed(StorageException.networkError("No upload slot available, concurrency limit "
+                        + getLimit(), null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(new CancellationException("Interrupted while waiting for an upload slot"));
+        }
+        long start = clock.getAsLong();
+        CompletableFuture<Void> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            release(bytes, start, e);
+            throw e;
+        }
+        return future.whenComplete((ignored, error) -> release(bytes, start, error));
+    }
+
+    /**
+     * 共享调度器的工作线程不等待：调度器已按当前上限派发，没有名额说明被其他调用方占用，立即失败
+     */
+    private synchronized boolean acquire() throws InterruptedException {
+        long deadline = System.nanoTime() + (SharedUploadScheduler.isWorkerThread() ? 0 : acquireTimeoutNanos);
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized void release(long bytes, long start, Throwable error) {
+        int concurrent = inFlight--;
+        try {
+            Throwable cause = unwrap(error);
+            long now = clock.getAsLong();
+            if (cause != null) {
+                if (countsAsDrop(cause)) {
+                    decrease(now, "upload failed: " + cause.getMessage());
+                }
+                return;
+            }
+            long rtt = Math.max(1, now - start);
+            smoothedRttNanos = smoothedRttNanos == 0 ? rtt : (smoothedRttNanos * 7 + rtt) / 8;
+            int sizeClass = sizeClass(bytes);
+            long baseline = baseline(sizeClass, now);
+            if (currentMinRtt[sizeClass] == 0 || rtt < currentMinRtt[sizeClass]) {
+                currentMinRtt[sizeClass] = rtt;
+            }
+            if (baseline > 0 && rtt > baseline * latencyTolerance) {
+                decrease(now, "upload took " + TimeUnit.NANOSECONDS.toMillis(rtt) + " ms against a baseline of "
+                        + TimeUnit.NANOSECONDS.toMillis(baseline) + " ms");
+            } else if (concurrent * 2 >= limit && limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        } finally {
+            notifyAll();
+        }
+    }
+
+    private void decrease(long now, String reason) {
+        if (decreased && now - lastDecreaseNanos < smoothedRttNanos) {
+            return;
+        }
+        decreased = true;
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previous != (int) limit) {
+            decreases.increment();
+            logger.debug("Upload concurrency limit {} -> {}: {}", (int) previous, (int) limit, reason);
+        }
+    }
+
+    /**
+     * @return 同量级对象在最近两个区间内的最小耗时，没有样本时为0
+     */
+    private long baseline(int sizeClass, long now) {
+        long elapsed = now - bucketStart;
+        if (elapsed >= BASELINE_BUCKET_NANOS) {
+            if (elapsed >= 2 * BASELINE_BUCKET_NANOS) {
+                Arrays.fill(previousMinRtt, 0);
+            } else {
+                System.arraycopy(currentMinRtt, 0, previousMinRtt, 0, SIZE_CLASSES);
+            }
+            Arrays.fill(currentMinRtt, 0);
+            bucketStart = now;
+        }
+        long current = currentMinRtt[sizeClass];
+        long previous = previousMinRtt[sizeClass];
+        if (current == 0 || previous == 0) {
+            return Math.max(current, previous);
+        }
+        return Math.min(current, previous);
+    }
+
+    /**
+     * 64KB以下为第0级，之后每翻一倍升一级
+     */
+    static int sizeClass(long bytes) {
+        int sizeClass = 64 - Long.numberOfLeadingZeros(Math.max(0, bytes) >>> 16);
+        return Math.min(SIZE_CLASSES - 1, sizeClass);
+    }
+
+    /**
+     * 取消和中断（对冲放弃的尝试、关闭时中断的上传）不代表存储拥塞，不计为丢弃
+     */
+    private static boolean countsAsDrop(Throwable cause) {
+        for (Throwable c = cause; c != null; c = c.getCause()) {
+            if (c instanceof CancellationException || c instanceof InterruptedException
+                    || c instanceof InterruptedIOException) {
+                return false;
+            }
+        }
+        if (cause instanceof StorageException) {
+            return ((StorageException) cause).isRetryable();
+        }
+        return !(cause instanceof IllegalArgumentException);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    int getMaxLimit() {
+        return maxLimit;
+    }
+
+    long getDecreases() {
+        return decreases.get();
+    }
+
+    long getWaitTimeouts() {
+        return waitTimeouts.get();
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return delegate.getProtocolType();
+    }
+
+    @Override
+    public String getBucketName() {
+        return delegate.getBucketName();
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return delegate.supportsProtocol(protocol);
+    }
+}
@@ -38,6 +38,27 @@ public interface AsyncEngine {
      */
     void put(byte[] data);
 
+    /**
+     * 将日志数据放入指定批次路由，未启用路由时与{@link #put(byte[])}相同
+     *
+     * @param data
+     *            日志数据
+     * @param routeKey
+     *            路由键，例如日志级别、Logger前缀或MDC值，可为null
+     */
+    default void put(byte[] data, String routeKey) {
+        put(data);
+    }
+
+    /**
+     * 获取批次路由配置，桥接器据此从日志事件中提取路由键
+     *
+     * @return 批次路由配置，未启用路由时返回null
+     */
+    default BatchRouting getBatchRouting() {
+        return null;
+    }
+
     /**
      * 创建并返回一个AsyncEngine的实例
      *
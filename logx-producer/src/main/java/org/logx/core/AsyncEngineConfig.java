@@ -1,5 +1,10 @@
 package org.logx.core;
 
+import org.logx.fallback.FallbackEvictionPolicy;
+import org.logx.fallback.ObjectNameStrategy;
+
+import java.util.Objects;
+
 public class AsyncEngineConfig {
 
     public enum OversizePayloadPolicy {
@@ -13,7 +18,7 @@ public class AsyncEngineConfig {
     private int batchMaxBytes = 10 * 1024 * 1024;
     private long maxMessageAgeMs = 60000L;
     private boolean blockOnFull = false;
-    private boolean multiProducer = false;
+    private boolean multiProducer = true;
     private int corePoolSize = 1;
     private int maximumPoolSize = 1;
     private int queueCapacityThreadPool = 500;
@@ -27,6 +32,10 @@ public class AsyncEngineConfig {
     private long fallbackMaxRetryFileBytes = 10L * 1024 * 1024;
     private int fallbackMaxRetryFilesPerRound = 100;
     private long fallbackMaxRetryBytesPerRound = 50L * 1024 * 1024;
+    private long fallbackMaxTotalBytes = 1024L * 1024 * 1024;
+    private int fallbackMaxFiles = 10000;
+    private int fallbackQuotaWarnPercent = 80;
+    private FallbackEvictionPolicy fallbackEvictionPolicy = FallbackEvictionPolicy.OLDEST_FIRST;
     private int emergencyMemoryThresholdMb = 512;
     private int parallelUploadThreads = 2;
     private long uploadTimeoutMs = 30000L;
@@ -37,6 +46,37 @@ public class AsyncEngineConfig {
     private int payloadMaxBytes = 512 * 1024;
     private OversizePayloadPolicy oversizePayloadPolicy = OversizePayloadPolicy.DROP;
     private int oversizeFallbackMaxBytes = 10 * 1024 * 1024;
+    private boolean shutdownSnapshotEnabled = false;
+    private ObjectNameStrategy objectNameStrategy;
+    private String routeBy;
+    private int routeMaxRoutes = BatchRouting.DEFAULT_MAX_ROUTES;
+    private String routeRules;
+    private int uploadWeight = 1;
+    private int uploadMaxInFlight = 0;
+    private int uploadSharedThreads = 0;
+    private boolean uploadHedgeEnabled = false;
+    private int uploadHedgePercentile = 95;
+    private long uploadHedgeMinDelayMs = 50;
+    private int uploadMaxAttempts = 2;
+    private int uploadAttemptDeadlineMultiplier = 0;
+    private boolean uploadBreakerEnabled = true;
+    private int uploadBreakerWindowSize = 20;
+    private int uploadBreakerFailureRatePercent = 50;
+    private long uploadBreakerSlowCallMs = 10000L;
+    private int uploadBreakerSlowCallRatePercent = 100;
+    private long uploadBreakerOpenMs = 30000L;
+    private int uploadBreakerProbes = 3;
+    private boolean uploadLimiterEnabled = false;
+    private int uploadLimiterMinLimit = 1;
+    private int uploadLimiterMaxLimit = 32;
+    private int uploadLimiterBackoffPercent = 90;
+    private int uploadLimiterLatencyTolerancePercent = 200;
+    private long fanoutLagBudgetMs = 30000L;
+    private int fanoutMaxInFlight = 4;
+    private boolean deferredFormatEnabled = false;
+    private int deferredFormatWorkers = 1;
+    private int deferredFormatQueueCapacity = 8192;
+    private boolean metricsEnabled = true;
 
     public static AsyncEngineConfig defaultConfig() {
         return new AsyncEngineConfig();
@@ -222,6 +262,45 @@ public class AsyncEngineConfig {
         return this;
     }
 
+    public long getFallbackMaxTotalBytes() {
+        return fallbackMaxTotalBytes;
+    }
+
+    /**
+     * 兜底目录总字节上限，小于等于0表示不限制
+     */
+    public AsyncEngineConfig fallbackMaxTotalBytes(long fallbackMaxTotalBytes) {
+        this.fallbackMaxTotalBytes = fallbackMaxTotalBytes;
+        return this;
+    }
+
+    public int getFallbackMaxFiles() {
+        return fallbackMaxFiles;
+    }
+
+    public AsyncEngineConfig fallbackMaxFiles(int fallbackMaxFiles) {
+        this.fallbackMaxFiles = Math.max(1, fallbackMaxFiles);
+        return this;
+    }
+
+    public int getFallbackQuotaWarnPercent() {
+        return fallbackQuotaWarnPercent;
+    }
+
+    public AsyncEngineConfig fallbackQuotaWarnPercent(int fallbackQuotaWarnPercent) {
+        this.fallbackQuotaWarnPercent = Math.max(1, Math.min(100, fallbackQuotaWarnPercent));
+        return this;
+    }
+
+    public FallbackEvictionPolicy getFallbackEvictionPolicy() {
+        return fallbackEvictionPolicy;
+    }
+
+    public AsyncEngineConfig fallbackEvictionPolicy(FallbackEvictionPolicy fallbackEvictionPolicy) {
+        this.fallbackEvictionPolicy = fallbackEvictionPolicy != null ? fallbackEvictionPolicy : FallbackEvictionPolicy.OLDEST_FIRST;
+        return this;
+    }
+
     public int getEmergencyMemoryThresholdMb() {
         return emergencyMemoryThresholdMb;
     }
@@ -307,6 +386,378 @@ public class AsyncEngineConfig {
         return this;
     }
 
+    public boolean isShutdownSnapshotEnabled() {
+        return shutdownSnapshotEnabled;
+    }
+
+    /**
+     * 启用后关闭时将未上传的队列事件写入本地快照并在下次启动时恢复，不等待云存储上传
+     */
+    public AsyncEngineConfig shutdownSnapshotEnabled(boolean shutdownSnapshotEnabled) {
+        this.shutdownSnapshotEnabled = shutdownSnapshotEnabled;
+        return this;
+    }
+
+    public ObjectNameStrategy getObjectNameStrategy() {
+        return objectNameStrategy;
+    }
+
+    /**
+     * 指定对象名生成策略，为null时使用ObjectNameGenerator的全局默认策略
+     */
+    public AsyncEngineConfig objectNameStrategy(ObjectNameStrategy objectNameStrategy) {
+        this.objectNameStrategy = objectNameStrategy;
+        return this;
+    }
+
+    public String getRouteBy() {
+        return routeBy;
+    }
+
+    /**
+     * 按事件属性拆分批次：level、logger、logger:N或mdc:key，为空时不启用路由
+     */
+    public AsyncEngineConfig routeBy(String routeBy) {
+        this.routeBy = routeBy;
+        return this;
+    }
+
+    public int getRouteMaxRoutes() {
+        return routeMaxRoutes;
+    }
+
+    /**
+     * 同时存在的路由上限，超出时按最近最少使用淘汰
+     */
+    public AsyncEngineConfig routeMaxRoutes(int routeMaxRoutes) {
+        this.routeMaxRoutes = routeMaxRoutes;
+        return this;
+    }
+
+    public String getRouteRules() {
+        return routeRules;
+    }
+
+    /**
+     * 各路由的批次阈值和对象键前缀，格式见{@link BatchRouting}
+     */
+    public AsyncEngineConfig routeRules(String routeRules) {
+        this.routeRules = routeRules;
+        return this;
+    }
+
+    public int getUploadWeight() {
+        return uploadWeight;
+    }
+
+    /**
+     * 在共享上传调度器中的权重，多个引擎积压时按权重比例分配上传机会
+     */
+    public AsyncEngineConfig uploadWeight(int uploadWeight) {
+        this.uploadWeight = Math.max(1, uploadWeight);
+        return this;
+    }
+
+    public int getUploadMaxInFlight() {
+        return uploadMaxInFlight;
+    }
+
+    /**
+     * 在共享上传调度器中同时执行的上传上限，不大于0时取parallelUploadThreads
+     */
+    public AsyncEngineConfig uploadMaxInFlight(int uploadMaxInFlight) {
+        this.uploadMaxInFlight = uploadMaxInFlight;
+        return this;
+    }
+
+    public int getUploadSharedThreads() {
+        return uploadSharedThreads;
+    }
+
+    /**
+     * 进程级共享上传线程数，由第一个创建的引擎决定，不大于0时按CPU核数自动确定
+     */
+    public AsyncEngineConfig uploadSharedThreads(int uploadSharedThreads) {
+        this.uploadSharedThreads = uploadSharedThreads;
+        return this;
+    }
+
+    public boolean isUploadHedgeEnabled() {
+        return uploadHedgeEnabled;
+    }
+
+    /**
+     * 是否开启对冲上传：单次上传超过最近耗时的指定分位仍未完成时，以相同对象键再发起一次，取最先成功的结果
+     */
+    public AsyncEngineConfig uploadHedgeEnabled(boolean uploadHedgeEnabled) {
+        this.uploadHedgeEnabled = uploadHedgeEnabled;
+        return this;
+    }
+
+    public int getUploadHedgePercentile() {
+        return uploadHedgePercentile;
+    }
+
+    /**
+     * 触发对冲的耗时分位，取值50~99
+     */
+    public AsyncEngineConfig uploadHedgePercentile(int uploadHedgePercentile) {
+        this.uploadHedgePercentile = Math.min(99, Math.max(50, uploadHedgePercentile));
+        return this;
+    }
+
+    public long getUploadHedgeMinDelayMs() {
+        return uploadHedgeMinDelayMs;
+    }
+
+    /**
+     * 对冲延迟下限（毫秒），避免耗时很短时频繁发起重复请求
+     */
+    public AsyncEngineConfig uploadHedgeMinDelayMs(long uploadHedgeMinDelayMs) {
+        this.uploadHedgeMinDelayMs = Math.max(0, uploadHedgeMinDelayMs);
+        return this;
+    }
+
+    public int getUploadMaxAttempts() {
+        return uploadMaxAttempts;
+    }
+
+    /**
+     * 开启对冲或单次截止时间后，单个批次最多发起的上传尝试次数（含对冲和替换），至少为1
+     */
+    public AsyncEngineConfig uploadMaxAttempts(int uploadMaxAttempts) {
+        this.uploadMaxAttempts = Math.max(1, uploadMaxAttempts);
+        return this;
+    }
+
+    public int getUploadAttemptDeadlineMultiplier() {
+        return uploadAttemptDeadlineMultiplier;
+    }
+
+    /**
+     * 单次尝试的截止时间为最近成功耗时p99的倍数（不低于1秒），超时取消该尝试并换一次；不大于0时不设单次截止时间
+     */
+    public AsyncEngineConfig uploadAttemptDeadlineMultiplier(int uploadAttemptDeadlineMultiplier) {
+        this.uploadAttemptDeadlineMultiplier = Math.max(0, uploadAttemptDeadlineMultiplier);
+        return this;
+    }
+
+    public boolean isUploadBreakerEnabled() {
+        return uploadBreakerEnabled;
+    }
+
+    /**
+     * 是否开启存储熔断：最近上传的失败率或慢调用率达到阈值时打开，打开期间批次直接写入兜底文件
+     */
+    public AsyncEngineConfig uploadBreakerEnabled(boolean uploadBreakerEnabled) {
+        this.uploadBreakerEnabled = uploadBreakerEnabled;
+        return this;
+    }
+
+    public int getUploadBreakerWindowSize() {
+        return uploadBreakerWindowSize;
+    }
+
+    /**
+     * 熔断统计的滑动窗口大小（最近的上传次数），样本数达到窗口一半后才判断是否打开
+     */
+    public AsyncEngineConfig uploadBreakerWindowSize(int uploadBreakerWindowSize) {
+        this.uploadBreakerWindowSize = Math.max(2, uploadBreakerWindowSize);
+        return this;
+    }
+
+    public int getUploadBreakerFailureRatePercent() {
+        return uploadBreakerFailureRatePercent;
+    }
+
+    /**
+     * 触发熔断的失败率（百分比），取值1~100
+     */
+    public AsyncEngineConfig uploadBreakerFailureRatePercent(int uploadBreakerFailureRatePercent) {
+        this.uploadBreakerFailureRatePercent = Math.min(100, Math.max(1, uploadBreakerFailureRatePercent));
+        return this;
+    }
+
+    public long getUploadBreakerSlowCallMs() {
+        return uploadBreakerSlowCallMs;
+    }
+
+    /**
+     * 单次上传超过该耗时（毫秒）记为慢调用
+     */
+    public AsyncEngineConfig uploadBreakerSlowCallMs(long uploadBreakerSlowCallMs) {
+        this.uploadBreakerSlowCallMs = Math.max(1, uploadBreakerSlowCallMs);
+        return this;
+    }
+
+    public int getUploadBreakerSlowCallRatePercent() {
+        return uploadBreakerSlowCallRatePercent;
+    }
+
+    /**
+     * 触发熔断的慢调用率（百分比），取值1~100
+     */
+    public AsyncEngineConfig uploadBreakerSlowCallRatePercent(int uploadBreakerSlowCallRatePercent) {
+        this.uploadBreakerSlowCallRatePercent = Math.min(100, Math.max(1, uploadBreakerSlowCallRatePercent));
+        return this;
+    }
+
+    public long getUploadBreakerOpenMs() {
+        return uploadBreakerOpenMs;
+    }
+
+    /**
+     * 熔断打开的持续时间（毫秒），之后转为半开并放行探测上传
+     */
+    public AsyncEngineConfig uploadBreakerOpenMs(long uploadBreakerOpenMs) {
+        this.uploadBreakerOpenMs = Math.max(1, uploadBreakerOpenMs);
+        return this;
+    }
+
+    public int getUploadBreakerProbes() {
+        return uploadBreakerProbes;
+    }
+
+    /**
+     * 半开状态放行的探测上传次数，全部成功后关闭熔断
+     */
+    public AsyncEngineConfig uploadBreakerProbes(int uploadBreakerProbes) {
+        this.uploadBreakerProbes = Math.max(1, uploadBreakerProbes);
+        return this;
+    }
+
+    public boolean isUploadLimiterEnabled() {
+        return uploadLimiterEnabled;
+    }
+
+    /**
+     * 是否按上传耗时和错误自适应调整在途上传数，开启后parallelUploadThreads只作为初始并发上限
+     */
+    public AsyncEngineConfig uploadLimiterEnabled(boolean uploadLimiterEnabled) {
+        this.uploadLimiterEnabled = uploadLimiterEnabled;
+        return this;
+    }
+
+    public int getUploadLimiterMinLimit() {
+        return uploadLimiterMinLimit;
+    }
+
+    /**
+     * 自适应并发上限的下界
+     */
+    public AsyncEngineConfig uploadLimiterMinLimit(int uploadLimiterMinLimit) {
+        this.uploadLimiterMinLimit = Math.max(1, Math.min(256, uploadLimiterMinLimit));
+        return this;
+    }
+
+    public int getUploadLimiterMaxLimit() {
+        return Math.max(uploadLimiterMinLimit, uploadLimiterMaxLimit);
+    }
+
+    /**
+     * 自适应并发上限的上界，也是开启后上传线程数的上限
+     */
+    public AsyncEngineConfig uploadLimiterMaxLimit(int uploadLimiterMaxLimit) {
+        this.uploadLimiterMaxLimit = Math.max(1, Math.min(256, uploadLimiterMaxLimit));
+        return this;
+    }
+
+    public int getUploadLimiterBackoffPercent() {
+        return uploadLimiterBackoffPercent;
+    }
+
+    /**
+     * 出现失败或耗时超出容忍度时，并发上限乘以该百分比
+     */
+    public AsyncEngineConfig uploadLimiterBackoffPercent(int uploadLimiterBackoffPercent) {
+        this.uploadLimiterBackoffPercent = Math.max(50, Math.min(99, uploadLimiterBackoffPercent));
+        return this;
+    }
+
+    public int getUploadLimiterLatencyTolerancePercent() {
+        return uploadLimiterLatencyTolerancePercent;
+    }
+
+    /**
+     * 上传耗时超过同量级对象最近最小耗时的该百分比时视为拥塞
+     */
+    public AsyncEngineConfig uploadLimiterLatencyTolerancePercent(int uploadLimiterLatencyTolerancePercent) {
+        this.uploadLimiterLatencyTolerancePercent = Math.max(110, uploadLimiterLatencyTolerancePercent);
+        return this;
+    }
+
+    public long getFanoutLagBudgetMs() {
+        return fanoutLagBudgetMs;
+    }
+
+    /**
+     * 扇出目标允许落后的最长时间：最早一个未完成的上传超过该时间时，新批次直接写入该目标的兜底文件
+     */
+    public AsyncEngineConfig fanoutLagBudgetMs(long fanoutLagBudgetMs) {
+        this.fanoutLagBudgetMs = Math.max(100L, fanoutLagBudgetMs);
+        return this;
+    }
+
+    public int getFanoutMaxInFlight() {
+        return fanoutMaxInFlight;
+    }
+
+    /**
+     * 每个扇出目标同时进行的上传数
+     */
+    public AsyncEngineConfig fanoutMaxInFlight(int fanoutMaxInFlight) {
+        this.fanoutMaxInFlight = Math.max(1, Math.min(64, fanoutMaxInFlight));
+        return this;
+    }
+
+    public boolean isDeferredFormatEnabled() {
+        return deferredFormatEnabled;
+    }
+
+    /**
+     * 是否开启延迟格式化：调用线程只冻结事件，Layout格式化和清洗交给格式化工作线程完成
+     */
+    public AsyncEngineConfig deferredFormatEnabled(boolean deferredFormatEnabled) {
+        this.deferredFormatEnabled = deferredFormatEnabled;
+        return this;
+    }
+
+    public int getDeferredFormatWorkers() {
+        return deferredFormatWorkers;
+    }
+
+    /**
+     * 格式化工作线程数，至少为1；同一调用线程的事件总由同一工作线程处理，保持先后顺序
+     */
+    public AsyncEngineConfig deferredFormatWorkers(int deferredFormatWorkers) {
+        this.deferredFormatWorkers = Math.max(1, deferredFormatWorkers);
+        return this;
+    }
+
+    public int getDeferredFormatQueueCapacity() {
+        return deferredFormatQueueCapacity;
+    }
+
+    /**
+     * 每个格式化工作线程的待格式化事件队列容量，向上取整为2的幂；队列满时调用线程等待所属工作线程腾出空间
+     */
+    public AsyncEngineConfig deferredFormatQueueCapacity(int deferredFormatQueueCapacity) {
+        this.deferredFormatQueueCapacity = deferredFormatQueueCapacity;
+        return this;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * 是否把引擎指标发布到全局指标注册表，并经JMX/Micrometer导出
+     */
+    public AsyncEngineConfig metricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
     public int getOversizeFallbackMaxBytes() {
         return oversizeFallbackMaxBytes;
     }
@@ -325,4 +776,180 @@ public class AsyncEngineConfig {
     public void setStorageConfig(org.logx.storage.StorageConfig storageConfig) {
         this.storageConfig = storageConfig;
     }
+
+    /**
+     * 复制全部配置，包括存储配置的引用
+     *
+     * @return 配置副本，之后修改原配置不影响副本
+     */
+    public AsyncEngineConfig copy() {
+        AsyncEngineConfig copy = new AsyncEngineConfig();
+        copy.enabled = enabled;
+        copy.queueCapacity = queueCapacity;
+        copy.batchMaxMessages = batchMaxMessages;
+        copy.batchMaxBytes = batchMaxBytes;
+        copy.maxMessageAgeMs = maxMessageAgeMs;
+        copy.blockOnFull = blockOnFull;
+        copy.multiProducer = multiProducer;
+        copy.corePoolSize = corePoolSize;
+        copy.maximumPoolSize = maximumPoolSize;
+        copy.queueCapacityThreadPool = queueCapacityThreadPool;
+        copy.enableCpuYield = enableCpuYield;
+        copy.enableMemoryProtection = enableMemoryProtection;
+        copy.maxShutdownWaitMs = maxShutdownWaitMs;
+        copy.logFilePrefix = logFilePrefix;
+        copy.logFileName = logFileName;
+        copy.fallbackRetentionDays = fallbackRetentionDays;
+        copy.fallbackScanIntervalSeconds = fallbackScanIntervalSeconds;
+        copy.fallbackMaxRetryFileBytes = fallbackMaxRetryFileBytes;
+        copy.fallbackMaxRetryFilesPerRound = fallbackMaxRetryFilesPerRound;
+        copy.fallbackMaxRetryBytesPerRound = fallbackMaxRetryBytesPerRound;
+        copy.fallbackMaxTotalBytes = fallbackMaxTotalBytes;
+        copy.fallbackMaxFiles = fallbackMaxFiles;
+        copy.fallbackQuotaWarnPercent = fallbackQuotaWarnPercent;
+        copy.fallbackEvictionPolicy = fallbackEvictionPolicy;
+        copy.emergencyMemoryThresholdMb = emergencyMemoryThresholdMb;
+        copy.parallelUploadThreads = parallelUploadThreads;
+        copy.uploadTimeoutMs = uploadTimeoutMs;
+        copy.enableDynamicBatching = enableDynamicBatching;
+        copy.queuePressureMonitorIntervalMs = queuePressureMonitorIntervalMs;
+        copy.highPressureThreshold = highPressureThreshold;
+        copy.lowPressureThreshold = lowPressureThreshold;
+        copy.payloadMaxBytes = payloadMaxBytes;
+        copy.oversizePayloadPolicy = oversizePayloadPolicy;
+        copy.oversizeFallbackMaxBytes = oversizeFallbackMaxBytes;
+        copy.shutdownSnapshotEnabled = shutdownSnapshotEnabled;
+        copy.objectNameStrategy = objectNameStrategy;
+        copy.routeBy = routeBy;
+        copy.routeMaxRoutes = routeMaxRoutes;
+        copy.routeRules = routeRules;
+        copy.uploadWeight = uploadWeight;
+        copy.uploadMaxInFlight = uploadMaxInFlight;
+        copy.uploadSharedThreads = uploadSharedThreads;
+        copy.uploadHedgeEnabled = uploadHedgeEnabled;
+        copy.uploadHedgePercentile = uploadHedgePercentile;
+        copy.uploadHedgeMinDelayMs = uploadHedgeMinDelayMs;
+        copy.uploadMaxAttempts = uploadMaxAttempts;
+        copy.uploadAttemptDeadlineMultiplier = uploadAttemptDeadlineMultiplier;
+        copy.uploadBreakerEnabled = uploadBreakerEnabled;
+        copy.uploadBreakerWindowSize = uploadBreakerWindowSize;
+        copy.uploadBreakerFailureRatePercent = uploadBreakerFailureRatePercent;
+        copy.uploadBreakerSlowCallMs = uploadBreakerSlowCallMs;
+        copy.uploadBreakerSlowCallRatePercent = uploadBreakerSlowCallRatePercent;
+        copy.uploadBreakerOpenMs = uploadBreakerOpenMs;
+        copy.uploadBreakerProbes = uploadBreakerProbes;
+        copy.uploadLimiterEnabled = uploadLimiterEnabled;
+        copy.uploadLimiterMinLimit = uploadLimiterMinLimit;
+        copy.uploadLimiterMaxLimit = uploadLimiterMaxLimit;
+        copy.uploadLimiterBackoffPercent = uploadLimiterBackoffPercent;
+        copy.uploadLimiterLatencyTolerancePercent = uploadLimiterLatencyTolerancePercent;
+        copy.fanoutLagBudgetMs = fanoutLagBudgetMs;
+        copy.fanoutMaxInFlight = fanoutMaxInFlight;
+        copy.deferredFormatEnabled = deferredFormatEnabled;
+        copy.deferredFormatWorkers = deferredFormatWorkers;
+        copy.deferredFormatQueueCapacity = deferredFormatQueueCapacity;
+        copy.metricsEnabled = metricsEnabled;
+        copy.storageConfig = storageConfig;
+        return copy;
+    }
+
+    /**
+     * 除存储配置外的全部字段相同即相等，引擎注册表据此判断Appender能否共享引擎；
+     * 自定义命名策略按其equals比较，未覆盖equals时按实例区分。新增字段时需同时加入equals和hashCode
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AsyncEngineConfig)) {
+            return false;
+        }
+        AsyncEngineConfig other = (AsyncEngineConfig) o;
+        return enabled == other.enabled
+                && queueCapacity == other.queueCapacity
+                && batchMaxMessages == other.batchMaxMessages
+                && batchMaxBytes == other.batchMaxBytes
+                && maxMessageAgeMs == other.maxMessageAgeMs
+                && blockOnFull == other.blockOnFull
+                && multiProducer == other.multiProducer
+                && corePoolSize == other.corePoolSize
+                && maximumPoolSize == other.maximumPoolSize
+                && queueCapacityThreadPool == other.queueCapacityThreadPool
+                && enableCpuYield == other.enableCpuYield
+                && enableMemoryProtection == other.enableMemoryProtection
+                && maxShutdownWaitMs == other.maxShutdownWaitMs
+                && Objects.equals(logFilePrefix, other.logFilePrefix)
+                && Objects.equals(logFileName, other.logFileName)
+                && fallbackRetentionDays == other.fallbackRetentionDays
+                && fallbackScanIntervalSeconds == other.fallbackScanIntervalSeconds
+                && fallbackMaxRetryFileBytes == other.fallbackMaxRetryFileBytes
+                && fallbackMaxRetryFilesPerRound == other.fallbackMaxRetryFilesPerRound
+                && fallbackMaxRetryBytesPerRound == other.fallbackMaxRetryBytesPerRound
+                && fallbackMaxTotalBytes == other.fallbackMaxTotalBytes
+                && fallbackMaxFiles == other.fallbackMaxFiles
+                && fallbackQuotaWarnPercent == other.fallbackQuotaWarnPercent
+                && Objects.equals(fallbackEvictionPolicy, other.fallbackEvictionPolicy)
+                && emergencyMemoryThresholdMb == other.emergencyMemoryThresholdMb
+                && parallelUploadThreads == other.parallelUploadThreads
+                && uploadTimeoutMs == other.uploadTimeoutMs
+                && enableDynamicBatching == other.enableDynamicBatching
+                && queuePressureMonitorIntervalMs == other.queuePressureMonitorIntervalMs
+                && Double.compare(highPressureThreshold, other.highPressureThreshold) == 0
+                && Double.compare(lowPressureThreshold, other.lowPressureThreshold) == 0
+                && payloadMaxBytes == other.payloadMaxBytes
+                && Objects.equals(oversizePayloadPolicy, other.oversizePayloadPolicy)
+                && oversizeFallbackMaxBytes == other.oversizeFallbackMaxBytes
+                && shutdownSnapshotEnabled == other.shutdownSnapshotEnabled
+                && Objects.equals(objectNameStrategy, other.objectNameStrategy)
+                && Objects.equals(routeBy, other.routeBy)
+                && routeMaxRoutes == other.routeMaxRoutes
+                && Objects.equals(routeRules, other.routeRules)
+                && uploadWeight == other.uploadWeight
+                && uploadMaxInFlight == other.uploadMaxInFlight
+                && uploadSharedThreads == other.uploadSharedThreads
+                && uploadHedgeEnabled == other.uploadHedgeEnabled
+                && uploadHedgePercentile == other.uploadHedgePercentile
+                && uploadHedgeMinDelayMs == other.uploadHedgeMinDelayMs
+                && uploadMaxAttempts == other.uploadMaxAttempts
+                && uploadAttemptDeadlineMultiplier == other.uploadAttemptDeadlineMultiplier
+                && uploadBreakerEnabled == other.uploadBreakerEnabled
+                && uploadBreakerWindowSize == other.uploadBreakerWindowSize
+                && uploadBreakerFailureRatePercent == other.uploadBreakerFailureRatePercent
+                && uploadBreakerSlowCallMs == other.uploadBreakerSlowCallMs
+                && uploadBreakerSlowCallRatePercent == other.uploadBreakerSlowCallRatePercent
+                && uploadBreakerOpenMs == other.uploadBreakerOpenMs
+                && uploadBreakerProbes == other.uploadBreakerProbes
+                && uploadLimiterEnabled == other.uploadLimiterEnabled
+                && uploadLimiterMinLimit == other.uploadLimiterMinLimit
+                && uploadLimiterMaxLimit == other.uploadLimiterMaxLimit
+                && uploadLimiterBackoffPercent == other.uploadLimiterBackoffPercent
+                && uploadLimiterLatencyTolerancePercent == other.uploadLimiterLatencyTolerancePercent
+                && fanoutLagBudgetMs == other.fanoutLagBudgetMs
+                && fanoutMaxInFlight == other.fanoutMaxInFlight
+                && deferredFormatEnabled == other.deferredFormatEnabled
+                && deferredFormatWorkers == other.deferredFormatWorkers
+                && deferredFormatQueueCapacity == other.deferredFormatQueueCapacity
+                && metricsEnabled == other.metricsEnabled;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, queueCapacity, batchMaxMessages, batchMaxBytes, maxMessageAgeMs, blockOnFull,
+                multiProducer, corePoolSize, maximumPoolSize, queueCapacityThreadPool, enableCpuYield,
+                enableMemoryProtection, maxShutdownWaitMs, logFilePrefix, logFileName, fallbackRetentionDays,
+                fallbackScanIntervalSeconds, fallbackMaxRetryFileBytes, fallbackMaxRetryFilesPerRound,
+                fallbackMaxRetryBytesPerRound, fallbackMaxTotalBytes, fallbackMaxFiles, fallbackQuotaWarnPercent,
+                fallbackEvictionPolicy, emergencyMemoryThresholdMb, parallelUploadThreads, uploadTimeoutMs,
+                enableDynamicBatching, queuePressureMonitorIntervalMs, highPressureThreshold, lowPressureThreshold,
+                payloadMaxBytes, oversizePayloadPolicy, oversizeFallbackMaxBytes, shutdownSnapshotEnabled,
+                objectNameStrategy, routeBy, routeMaxRoutes, routeRules, uploadWeight, uploadMaxInFlight,
+                uploadSharedThreads, uploadHedgeEnabled, uploadHedgePercentile, uploadHedgeMinDelayMs,
+                uploadMaxAttempts, uploadAttemptDeadlineMultiplier, uploadBreakerEnabled, uploadBreakerWindowSize,
+                uploadBreakerFailureRatePercent, uploadBreakerSlowCallMs, uploadBreakerSlowCallRatePercent,
+                uploadBreakerOpenMs, uploadBreakerProbes, uploadLimiterEnabled, uploadLimiterMinLimit,
+                uploadLimiterMaxLimit, uploadLimiterBackoffPercent, uploadLimiterLatencyTolerancePercent,
+                fanoutLagBudgetMs, fanoutMaxInFlight, deferredFormatEnabled, deferredFormatWorkers,
+                deferredFormatQueueCapacity, metricsEnabled);
+    }
 }
@@ -1,6 +1,8 @@
 package org.logx.core;
 
 import org.logx.config.ConfigManager;
+import org.logx.config.properties.LogxOssProperties;
+import org.logx.fallback.FallbackEvictionPolicy;
 
 /**
  * 异步引擎配置构建器
@@ -51,6 +53,14 @@ public class AsyncEngineConfigBuilder {
         config.fallbackMaxRetryFileBytes(configManager.getLongProperty(CONFIG_PREFIX + "fallback.max.retry.file.bytes", config.getFallbackMaxRetryFileBytes()));
         config.fallbackMaxRetryFilesPerRound(configManager.getIntProperty(CONFIG_PREFIX + "fallback.max.retry.files.per.round", config.getFallbackMaxRetryFilesPerRound()));
         config.fallbackMaxRetryBytesPerRound(configManager.getLongProperty(CONFIG_PREFIX + "fallback.max.retry.bytes.per.round", config.getFallbackMaxRetryBytesPerRound()));
+        config.fallbackMaxTotalBytes(configManager.getLongProperty(CONFIG_PREFIX + "fallback.max.total.bytes", config.getFallbackMaxTotalBytes()));
+        config.fallbackMaxFiles(configManager.getIntProperty(CONFIG_PREFIX + "fallback.max.files", config.getFallbackMaxFiles()));
+        config.fallbackQuotaWarnPercent(configManager.getIntProperty(CONFIG_PREFIX + "fallback.quota.warn.percent", config.getFallbackQuotaWarnPercent()));
+        String evictionPolicy = configManager.getProperty(CONFIG_PREFIX + "fallback.eviction.policy",
+                config.getFallbackEvictionPolicy().name());
+        if (evictionPolicy != null) {
+            config.fallbackEvictionPolicy(FallbackEvictionPolicy.valueOf(evictionPolicy.trim().toUpperCase()));
+        }
         config.emergencyMemoryThresholdMb(configManager.getIntProperty(CONFIG_PREFIX + "emergency.memory.threshold.mb", config.getEmergencyMemoryThresholdMb()));
         config.uploadTimeoutMs(configManager.getLongProperty("logx.oss.storage.uploadTimeoutMs", config.getUploadTimeoutMs()));
 
@@ -65,7 +75,127 @@ public class AsyncEngineConfigBuilder {
         }
         config.oversizeFallbackMaxBytes(configManager.getIntProperty(CONFIG_PREFIX + "oversizeFallbackMaxBytes",
                 config.getOversizeFallbackMaxBytes()));
+        config.shutdownSnapshotEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "shutdown.snapshot.enable",
+                config.isShutdownSnapshotEnabled()));
+        config.routeBy(configManager.getProperty(CONFIG_PREFIX + "route.by", config.getRouteBy()));
+        config.routeMaxRoutes(configManager.getIntProperty(CONFIG_PREFIX + "route.max.routes", config.getRouteMaxRoutes()));
+        config.routeRules(configManager.getProperty(CONFIG_PREFIX + "route.rules", config.getRouteRules()));
+        config.uploadWeight(configManager.getIntProperty(CONFIG_PREFIX + "upload.weight", config.getUploadWeight()));
+        config.uploadMaxInFlight(configManager.getIntProperty(CONFIG_PREFIX + "upload.max.in.flight",
+                config.getUploadMaxInFlight()));
+        config.uploadSharedThreads(configManager.getIntProperty(CONFIG_PREFIX + "upload.shared.threads",
+                config.getUploadSharedThreads()));
+        config.uploadHedgeEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "upload.hedge.enable",
+                config.isUploadHedgeEnabled()));
+        config.uploadHedgePercentile(configManager.getIntProperty(CONFIG_PREFIX + "upload.hedge.percentile",
+                config.getUploadHedgePercentile()));
+        config.uploadHedgeMinDelayMs(configManager.getLongProperty(CONFIG_PREFIX + "upload.hedge.min.delay.ms",
+                config.getUploadHedgeMinDelayMs()));
+        config.uploadMaxAttempts(configManager.getIntProperty(CONFIG_PREFIX + "upload.max.attempts",
+                config.getUploadMaxAttempts()));
+        config.uploadAttemptDeadlineMultiplier(configManager.getIntProperty(
+                CONFIG_PREFIX + "upload.attempt.deadline.multiplier", config.getUploadAttemptDeadlineMultiplier()));
+        config.uploadBreakerEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "upload.breaker.enable",
+                config.isUploadBreakerEnabled()));
+        config.uploadBreakerWindowSize(configManager.getIntProperty(CONFIG_PREFIX + "upload.breaker.window.size",
+                config.getUploadBreakerWindowSize()));
+        config.uploadBreakerFailureRatePercent(configManager.getIntProperty(
+                CONFIG_PREFIX + "upload.breaker.failure.rate.percent", config.getUploadBreakerFailureRatePercent()));
+        config.uploadBreakerSlowCallMs(configManager.getLongProperty(CONFIG_PREFIX + "upload.breaker.slow.call.ms",
+                config.getUploadBreakerSlowCallMs()));
+        config.uploadBreakerSlowCallRatePercent(configManager.getIntProperty(
+                CONFIG_PREFIX + "upload.breaker.slow.call.rate.percent", config.getUploadBreakerSlowCallRatePercent()));
+        config.uploadBreakerOpenMs(configManager.getLongProperty(CONFIG_PREFIX + "upload.breaker.open.ms",
+                config.getUploadBreakerOpenMs()));
+        config.uploadBreakerProbes(configManager.getIntProperty(CONFIG_PREFIX + "upload.breaker.probes",
+                config.getUploadBreakerProbes()));
+        config.uploadLimiterEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "upload.limiter.enable",
+                config.isUploadLimiterEnabled()));
+        config.uploadLimiterMinLimit(configManager.getIntProperty(CONFIG_PREFIX + "upload.limiter.min",
+                config.getUploadLimiterMinLimit()));
+        config.uploadLimiterMaxLimit(configManager.getIntProperty(CONFIG_PREFIX + "upload.limiter.max",
+                config.getUploadLimiterMaxLimit()));
+        config.uploadLimiterBackoffPercent(configManager.getIntProperty(
+                CONFIG_PREFIX + "upload.limiter.backoff.percent", config.getUploadLimiterBackoffPercent()));
+        config.uploadLimiterLatencyTolerancePercent(configManager.getIntProperty(
+                CONFIG_PREFIX + "upload.limiter.latency.tolerance.percent",
+                config.getUploadLimiterLatencyTolerancePercent()));
+        config.fanoutLagBudgetMs(configManager.getLongProperty(CONFIG_PREFIX + "fanout.lag.budget.ms",
+                config.getFanoutLagBudgetMs()));
+        config.fanoutMaxInFlight(configManager.getIntProperty(CONFIG_PREFIX + "fanout.max.inflight",
+                config.getFanoutMaxInFlight()));
+        config.deferredFormatEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "deferred.format.enable",
+                config.isDeferredFormatEnabled()));
+        config.deferredFormatWorkers(configManager.getIntProperty(CONFIG_PREFIX + "deferred.format.workers",
+                config.getDeferredFormatWorkers()));
+        config.deferredFormatQueueCapacity(configManager.getIntProperty(
+                CONFIG_PREFIX + "deferred.format.queue.capacity", config.getDeferredFormatQueueCapacity()));
+        config.metricsEnabled(configManager.getBooleanProperty(CONFIG_PREFIX + "metrics.enable", config.isMetricsEnabled()));
 
         return config;
     }
+
+    /**
+     * 从最终生效的LogxOssProperties构建AsyncEngineConfig
+     * <p>
+     * 供各框架Appender共用，取决于接入方式的项（如多生产者）由调用方按需覆盖。
+     *
+     * @param properties 最终生效的配置
+     * @return AsyncEngineConfig实例
+     */
+    public static AsyncEngineConfig buildConfig(LogxOssProperties properties) {
+        AsyncEngineConfig config = AsyncEngineConfig.defaultConfig();
+        config.enabled(properties.isEnabled());
+        config.queueCapacity(properties.getEngine().getQueue().getCapacity());
+        config.batchMaxMessages(properties.getEngine().getBatch().getCount());
+        config.batchMaxBytes(properties.getEngine().getBatch().getBytes());
+        config.maxMessageAgeMs(properties.getEngine().getBatch().getMaxAgeMs());
+        config.blockOnFull(!properties.getEngine().getQueue().isDropWhenFull());
+        config.multiProducer(properties.getEngine().isMultiProducer());
+        config.uploadTimeoutMs(properties.getStorage().getUploadTimeoutMs());
+        config.payloadMaxBytes(properties.getEngine().getPayloadMaxBytes());
+        config.fallbackRetentionDays(properties.getEngine().getFallback().getRetentionDays());
+        config.fallbackScanIntervalSeconds(properties.getEngine().getFallback().getScanIntervalSeconds());
+        config.fallbackMaxRetryFileBytes(properties.getEngine().getFallback().getMaxRetryFileBytes());
+        config.fallbackMaxRetryFilesPerRound(properties.getEngine().getFallback().getMaxRetryFilesPerRound());
+        config.fallbackMaxRetryBytesPerRound(properties.getEngine().getFallback().getMaxRetryBytesPerRound());
+        config.fallbackMaxTotalBytes(properties.getEngine().getFallback().getMaxTotalBytes());
+        config.fallbackMaxFiles(properties.getEngine().getFallback().getMaxFiles());
+        config.fallbackQuotaWarnPercent(properties.getEngine().getFallback().getQuotaWarnPercent());
+        config.fallbackEvictionPolicy(properties.getEngine().getFallback().getEvictionPolicy());
+        config.oversizePayloadPolicy(properties.getEngine().getOversizePayloadPolicy());
+        config.oversizeFallbackMaxBytes(properties.getEngine().getOversizeFallbackMaxBytes());
+        config.shutdownSnapshotEnabled(properties.getEngine().isShutdownSnapshotEnabled());
+        config.logFileName(properties.getEngine().getLogFileName());
+        config.routeBy(properties.getEngine().getRouteBy());
+        config.routeMaxRoutes(properties.getEngine().getRouteMaxRoutes());
+        config.routeRules(properties.getEngine().getRouteRules());
+        config.uploadWeight(properties.getEngine().getUploadWeight());
+        config.uploadMaxInFlight(properties.getEngine().getUploadMaxInFlight());
+        config.uploadSharedThreads(properties.getEngine().getUploadSharedThreads());
+        config.uploadHedgeEnabled(properties.getEngine().isUploadHedgeEnabled());
+        config.uploadHedgePercentile(properties.getEngine().getUploadHedgePercentile());
+        config.uploadHedgeMinDelayMs(properties.getEngine().getUploadHedgeMinDelayMs());
+        config.uploadMaxAttempts(properties.getEngine().getUploadMaxAttempts());
+        config.uploadAttemptDeadlineMultiplier(properties.getEngine().getUploadAttemptDeadlineMultiplier());
+        config.uploadBreakerEnabled(properties.getEngine().isUploadBreakerEnabled());
+        config.uploadBreakerWindowSize(properties.getEngine().getUploadBreakerWindowSize());
+        config.uploadBreakerFailureRatePercent(properties.getEngine().getUploadBreakerFailureRatePercent());
+        config.uploadBreakerSlowCallMs(properties.getEngine().getUploadBreakerSlowCallMs());
+        config.uploadBreakerSlowCallRatePercent(properties.getEngine().getUploadBreakerSlowCallRatePercent());
+        config.uploadBreakerOpenMs(properties.getEngine().getUploadBreakerOpenMs());
+        config.uploadBreakerProbes(properties.getEngine().getUploadBreakerProbes());
+        config.uploadLimiterEnabled(properties.getEngine().isUploadLimiterEnabled());
+        config.uploadLimiterMinLimit(properties.getEngine().getUploadLimiterMinLimit());
+        config.uploadLimiterMaxLimit(properties.getEngine().getUploadLimiterMaxLimit());
+        config.uploadLimiterBackoffPercent(properties.getEngine().getUploadLimiterBackoffPercent());
+        config.uploadLimiterLatencyTolerancePercent(properties.getEngine().getUploadLimiterLatencyTolerancePercent());
+        config.fanoutLagBudgetMs(properties.getEngine().getFanoutLagBudgetMs());
+        config.fanoutMaxInFlight(properties.getEngine().getFanoutMaxInFlight());
+        config.deferredFormatEnabled(properties.getEngine().isDeferredFormatEnabled());
+        config.deferredFormatWorkers(properties.getEngine().getDeferredFormatWorkers());
+        config.deferredFormatQueueCapacity(properties.getEngine().getDeferredFormatQueueCapacity());
+        config.metricsEnabled(properties.getEngine().isMetricsEnabled());
+        return config;
+    }
 }
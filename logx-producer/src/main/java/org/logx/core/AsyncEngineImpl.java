@@ -1,62 +1,184 @@
 package org.logx.core;
 
 import org.logx.core.EnhancedDisruptorBatchingQueue.LogEvent;
+import org.logx.fallback.FailoverJournal;
+import org.logx.fallback.FallbackDiskQuota;
 import org.logx.fallback.FallbackManager;
+import org.logx.fallback.FallbackPriority;
+import org.logx.fallback.FallbackPathResolver;
 import org.logx.fallback.FallbackUploaderTask;
+import org.logx.fallback.LegacyFallbackMigrator;
 import org.logx.fallback.ObjectNameGenerator;
+import org.logx.fallback.ObjectNameStrategy;
+import org.logx.metrics.Counter;
+import org.logx.metrics.LatencyRecorder;
+import org.logx.metrics.MetricGroup;
+import org.logx.metrics.MetricRegistry;
 import org.logx.reliability.ShutdownHookHandler;
+import org.logx.storage.StorageConfig;
 import org.logx.storage.StorageService;
 import org.logx.storage.StorageServiceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(AsyncEngineImpl.class);
+    private static final long SNAPSHOT_UPLOAD_GRACE_MS = 2000L;
 
     private final long emergencyMemoryThreshold;
     private final StorageService storageService;
+    // 批次上传使用的存储服务，按配置依次包装并发限制、对冲、熔断和故障转移；兜底重传仍直接使用storageService
+    private final StorageService uploadStorage;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final HedgingStorageService hedging;
+    private final StorageCircuitBreaker circuitBreaker;
+    // 备用存储按优先级排列，名称与FailoverJournal中的目标一致
+    private final Map<String, StorageService> failoverStorages;
+    private final FailoverStorageService failover;
+    private final FailoverJournal failoverJournal;
+    private final FanOutStorageService fanOut;
+    // 扇出目标的兜底重传任务，按目标名称索引
+    private final Map<String, FallbackUploaderTask> fanOutUploaderTasks = new LinkedHashMap<>();
     private final ShutdownHookHandler shutdownHandler;
     private final EnhancedDisruptorBatchingQueue batchingQueue;
     private final AsyncEngineConfig config;
     private final FallbackManager fallbackManager;
+    private final QueueSnapshotStore snapshotStore;
+    // 旧版所有引擎共用的兜底目录，启动时把其中遗留的文件迁入本引擎的兜底目录；使用外部兜底管理器时为null
+    private final String legacyFallbackRoot;
+    private final ObjectNameStrategy nameStrategy;
+    private final BatchRouting batchRouting;
     private ScheduledExecutorService fallbackScheduler;
     private java.util.concurrent.ExecutorService uploadExecutor;
     private ScheduledExecutorService queueMonitor;
+    // 由AsyncEngineRegistry注入时，兜底重传和队列监控在共享调度线程上执行
+    private ScheduledExecutorService sharedScheduler;
+    private SharedUploadScheduler sharedUploadScheduler;
+    private String uploadTenantName;
+    private ScheduledFuture<?> fallbackTask;
+    private ScheduledFuture<?> monitorTask;
+    private final ReentrantLock fallbackRoundLock = new ReentrantLock();
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final AtomicBoolean stopped = new AtomicBoolean(false);
     private final AtomicLong currentMemoryUsage = new AtomicLong(0);
     private final AtomicLong oversizeDroppedCount = new AtomicLong(0);
     private final AtomicLong oversizeFallbackCount = new AtomicLong(0);
+    private final Counter emergencyFallbackCount = new Counter();
+    private final Counter uploadSucceeded = new Counter();
+    private final Counter uploadFailed = new Counter();
+    private final LatencyRecorder uploadLatency = new LatencyRecorder();
+    private FallbackUploaderTask fallbackUploaderTask;
+    private volatile MetricGroup metricGroup;
 
     public AsyncEngineImpl(AsyncEngineConfig config) {
-        this(config, StorageServiceFactory.createStorageService(config.getStorageConfig()));
+        this(config, StorageServiceFactory.createStorageService(config.getStorageConfig()),
+                config.getStorageConfig() != null
+                        ? createStorages(config.getStorageConfig().getFailoverConfigs())
+                        : Collections.<StorageService>emptyList(),
+                config.getStorageConfig() != null
+                        ? createStorages(config.getStorageConfig().getFanoutConfigs())
+                        : Collections.<StorageService>emptyList(), null, null);
     }
 
     // 包级别可见的测试构造函数，允许传入Mock的StorageService
     AsyncEngineImpl(AsyncEngineConfig config, StorageService storageService) {
-        this(config, storageService, null, null);
+        this(config, storageService, Collections.<StorageService>emptyList());
+    }
+
+    /**
+     * @param failoverStorages 备用存储，按优先级排列，引擎停止时关闭
+     */
+    AsyncEngineImpl(AsyncEngineConfig config, StorageService storageService, List<StorageService> failoverStorages) {
+        this(config, storageService, failoverStorages, Collections.<StorageService>emptyList());
+    }
+
+    /**
+     * @param failoverStorages 备用存储，按优先级排列，引擎停止时关闭
+     * @param fanoutStorages 扇出目标，对象键前缀取自各自的存储服务，引擎停止时关闭
+     */
+    AsyncEngineImpl(AsyncEngineConfig config, StorageService storageService, List<StorageService> failoverStorages,
+                    List<StorageService> fanoutStorages) {
+        this(config, storageService, failoverStorages, fanoutStorages, null, null);
+    }
+
+    AsyncEngineImpl(AsyncEngineConfig config,
+                    StorageService storageService,
+                    EnhancedDisruptorBatchingQueue queue,
+                    FallbackManager manager) {
+        this(config, storageService, Collections.<StorageService>emptyList(),
+                Collections.<StorageService>emptyList(), queue, manager);
     }
 
     AsyncEngineImpl(AsyncEngineConfig config,
                     StorageService storageService,
+                    List<StorageService> failoverStorages,
+                    List<StorageService> fanoutStorages,
                     EnhancedDisruptorBatchingQueue queue,
                     FallbackManager manager) {
         this.config = Objects.requireNonNull(config, "config cannot be null");
         this.storageService = Objects.requireNonNull(storageService, "storageService cannot be null");
+        // 并发限制在最内层，对冲发起的每次尝试都占用一个名额
+        this.concurrencyLimiter = config.isUploadLimiterEnabled()
+                ? new AdaptiveConcurrencyLimiter(storageService, config)
+                : null;
+        StorageService limited = concurrencyLimiter != null ? concurrencyLimiter : storageService;
+        this.hedging = HedgingStorageService.isEnabled(config)
+                ? new HedgingStorageService(limited, config)
+                : null;
+        StorageService hedged = hedging != null ? hedging : limited;
+        // 熔断包在对冲之外，一次对冲上传无论发起几次尝试都只记一次结果
+        this.circuitBreaker = config.isUploadBreakerEnabled() ? new StorageCircuitBreaker(hedged, config) : null;
+        StorageService primary = circuitBreaker != null ? circuitBreaker : hedged;
+        this.failoverStorages = nameStorages(storageService, failoverStorages);
         this.emergencyMemoryThreshold = (long) config.getEmergencyMemoryThresholdMb() * 1024 * 1024;
+        this.nameStrategy = config.getObjectNameStrategy() != null
+                ? config.getObjectNameStrategy()
+                : createNameStrategy(config);
+        this.batchRouting = createBatchRouting(config);
         if (manager == null) {
-            this.fallbackManager = new FallbackManager(config.getLogFilePrefix(), this.storageService.getKeyPrefix());
+            // 每个引擎使用独立的兜底目录，重传、磁盘配额、队列快照和备用存储记录都不会读到其他引擎的数据
+            this.fallbackManager = new FallbackManager(engineFallbackPath(storageService, config),
+                    this.storageService.getKeyPrefix(), createDiskQuotaConfig(config), nameStrategy);
+            LegacyFallbackMigrator.markEngineDirectory(fallbackManager.getAbsoluteFallbackPath());
+            this.legacyFallbackRoot = FallbackPathResolver.resolveAbsolutePath(config.getLogFilePrefix());
         } else {
             this.fallbackManager = manager;
+            this.legacyFallbackRoot = null;
+        }
+        String fallbackDirectory = this.fallbackManager.getAbsoluteFallbackPath();
+        this.snapshotStore = fallbackDirectory != null ? new QueueSnapshotStore(fallbackDirectory) : null;
+        if (this.failoverStorages.isEmpty()) {
+            this.failoverJournal = null;
+            this.failover = null;
+        } else {
+            this.failoverJournal = fallbackDirectory != null
+                    ? new FailoverJournal(fallbackDirectory, engineName(storageService, config))
+                    : null;
+            this.failover = createFailover(primary, config);
         }
+        StorageService failedOver = failover != null ? failover : primary;
+        // 扇出在最外层，批次和分片都只组装一次，主存储仍走并发限制、对冲、熔断和故障转移
+        this.fanOut = fanoutStorages == null || fanoutStorages.isEmpty()
+                ? null
+                : new FanOutStorageService(failedOver, createFanOutDestinations(fanoutStorages, config));
+        this.uploadStorage = fanOut != null ? fanOut : failedOver;
         this.shutdownHandler = new ShutdownHookHandler();
         if (queue == null) {
             this.batchingQueue = createQueue();
@@ -66,10 +188,130 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
         registerShutdownHook();
     }
 
+    private static List<StorageService> createStorages(List<StorageConfig> storageConfigs) {
+        List<StorageService> storages = new ArrayList<>();
+        for (StorageConfig storageConfig : storageConfigs) {
+            storages.add(StorageServiceFactory.createStorageService(storageConfig));
+        }
+        return storages;
+    }
+
+    /**
+     * 备用存储和扇出目标以bucket命名，与主存储或同类的其他目标重名时追加序号
+     */
+    private static Map<String, StorageService> nameStorages(StorageService primary, List<StorageService> storages) {
+        Map<String, StorageService> named = new LinkedHashMap<>();
+        if (storages == null) {
+            return named;
+        }
+        for (StorageService storage : storages) {
+            String base = String.valueOf(storage.getBucketName());
+            String name = base;
+            for (int n = 2; named.containsKey(name) || name.equals(primary.getBucketName()); n++) {
+                name = base + "#" + n;
+            }
+            named.put(name, storage);
+        }
+        return Collections.unmodifiableMap(named);
+    }
+
+    /**
+     * 引擎名称：由bucket、对象键前缀和日志文件名确定，用作兜底子目录名和备用存储记录名
+     */
+    private static String engineName(StorageService storageService, AsyncEngineConfig config) {
+        String identity = storageService.getBucketName() + "/" + storageService.getKeyPrefix() + ":"
+                + config.getLogFileName();
+        String bucket = String.valueOf(storageService.getBucketName()).replaceAll("[^A-Za-z0-9._-]", "_");
+        return bucket + "-" + Integer.toHexString(identity.hashCode());
+    }
+
+    private static String engineFallbackPath(StorageService storageService, AsyncEngineConfig config) {
+        return config.getLogFilePrefix().trim().replaceAll("[/\\\\]+$", "") + File.separator
+                + engineName(storageService, config);
+    }
+
+    private String fallbackDirectory() {
+        String path = fallbackManager.getAbsoluteFallbackPath();
+        return path != null ? path : engineFallbackPath(storageService, config);
+    }
+
+    /**
+     * 每个扇出目标使用与本引擎兜底目录同级的独立兜底目录，兜底文件按目标的前缀命名，由目标自己的重传任务补传
+     */
+    private List<FanOutStorageService.Destination> createFanOutDestinations(List<StorageService> fanoutStorages,
+                                                                           AsyncEngineConfig config) {
+        List<FanOutStorageService.Destination> destinations = new ArrayList<>();
+        String fallbackBase = fallbackDirectory();
+        for (Map.Entry<String, StorageService> entry : nameStorages(storageService, fanoutStorages).entrySet()) {
+            StorageService target = config.isUploadBreakerEnabled()
+                    ? new StorageCircuitBreaker(entry.getValue(), config)
+                    : entry.getValue();
+            FallbackManager targetFallback = new FallbackManager(
+                    fallbackBase + "-fanout-" + entry.getKey().replaceAll("[^A-Za-z0-9._-]", "_"),
+                    entry.getValue().getKeyPrefix(), createDiskQuotaConfig(config), nameStrategy);
+            LegacyFallbackMigrator.markEngineDirectory(targetFallback.getAbsoluteFallbackPath());
+            destinations.add(new FanOutStorageService.Destination(entry.getKey(), target,
+                    storageService.getKeyPrefix(), targetFallback, config.getFanoutLagBudgetMs(),
+                    config.getUploadTimeoutMs(), System::nanoTime));
+        }
+        return destinations;
+    }
+
+    private FailoverStorageService createFailover(StorageService primary, AsyncEngineConfig config) {
+        List<StorageService> targets = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        targets.add(primary);
+        names.add(String.valueOf(storageService.getBucketName()));
+        for (Map.Entry<String, StorageService> entry : failoverStorages.entrySet()) {
+            // 备用存储各自熔断，不可用时直接跳过，不拖慢后续目标
+            targets.add(config.isUploadBreakerEnabled()
+                    ? new StorageCircuitBreaker(entry.getValue(), config)
+                    : entry.getValue());
+            names.add(entry.getKey());
+        }
+        return new FailoverStorageService(targets, names, failoverJournal);
+    }
+
+    private static ObjectNameStrategy createNameStrategy(AsyncEngineConfig config) {
+        StorageConfig storageConfig = config.getStorageConfig();
+        String keyTemplate = storageConfig != null ? storageConfig.getKeyTemplate() : null;
+        try {
+            return ObjectNameGenerator.createStrategy(keyTemplate, config.getLogFileName(),
+                    storageConfig != null ? storageConfig.getKeyAttributeMap() : null);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid object key template, falling back to default naming: {}", keyTemplate, e);
+            return ObjectNameGenerator.createStrategy(null, config.getLogFileName(), null);
+        }
+    }
+
+    private static BatchRouting createBatchRouting(AsyncEngineConfig config) {
+        try {
+            return BatchRouting.parse(config.getRouteBy(), config.getRouteMaxRoutes(), config.getRouteRules());
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid batch routing configuration, routing disabled: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static FallbackDiskQuota.Config createDiskQuotaConfig(AsyncEngineConfig config) {
+        if (config.getFallbackMaxTotalBytes() <= 0) {
+            return null;
+        }
+        return FallbackDiskQuota.Config.defaultConfig()
+                .maxTotalBytes(config.getFallbackMaxTotalBytes())
+                .maxFiles(config.getFallbackMaxFiles())
+                .warnPercent(config.getFallbackQuotaWarnPercent())
+                .evictionPolicy(config.getFallbackEvictionPolicy());
+    }
+
     private EnhancedDisruptorBatchingQueue createQueue() {
         int maxUploadSizeMb = 10;
         boolean enableSharding = true;
         boolean enableCompression = true;
+        int compressionParallelism = 1;
+        int compressionBlockSize = ParallelGzipCompressor.DEFAULT_BLOCK_SIZE;
+        boolean compressionBlockIndex = false;
+        long shardUploadMemoryBytes = 64L * 1024 * 1024;
         org.logx.config.properties.LogxOssProperties props = config.getStorageConfig() != null
                 ? config.getStorageConfig().getProperties()
                 : null;
@@ -77,6 +319,10 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
             enableSharding = props.getEngine().isEnableSharding();
             enableCompression = props.getEngine().isEnableCompression();
             maxUploadSizeMb = props.getEngine().getMaxUploadSizeMb();
+            compressionParallelism = props.getEngine().getCompressionParallelism();
+            compressionBlockSize = props.getEngine().getCompressionBlockSizeKb() * 1024;
+            compressionBlockIndex = props.getEngine().isCompressionBlockIndex();
+            shardUploadMemoryBytes = props.getEngine().getShardUploadBudgetMb() * 1024L * 1024;
         }
 
         EnhancedDisruptorBatchingQueue.Config queueConfig = new EnhancedDisruptorBatchingQueue.Config()
@@ -87,11 +333,56 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
                 .blockOnFull(config.isBlockOnFull())
                 .multiProducer(config.isMultiProducer())
                 .enableCompression(enableCompression)
+                .compressionParallelism(compressionParallelism)
+                .compressionBlockSize(compressionBlockSize)
+                .compressionBlockIndex(compressionBlockIndex)
                 .enableSharding(enableSharding)
                 .maxUploadSizeMb(maxUploadSizeMb)
-                .uploadTimeoutMs(config.getUploadTimeoutMs());
+                .shardUploadMemoryBytes(shardUploadMemoryBytes)
+                .maxConcurrentShardUploads(config.isUploadLimiterEnabled()
+                        ? config.getUploadLimiterMaxLimit()
+                        : EnhancedDisruptorBatchingQueue.Config.DEFAULT_MAX_CONCURRENT_SHARD_UPLOADS)
+                .uploadTimeoutMs(config.getUploadTimeoutMs())
+                .snapshotStore(config.isShutdownSnapshotEnabled() ? snapshotStore : null)
+                .objectNameStrategy(nameStrategy)
+                .routing(batchRouting);
+
+        return new EnhancedDisruptorBatchingQueue(queueConfig, new EnhancedDisruptorBatchingQueue.BatchConsumer() {
+            @Override
+            public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount) {
+                return onBatch(batchData, originalSize, compressed, messageCount, null, FallbackPriority.NORMAL);
+            }
+
+            @Override
+            public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount,
+                                        String routeKey) {
+                return onBatch(batchData, originalSize, compressed, messageCount, routeKey, FallbackPriority.NORMAL);
+            }
+
+            @Override
+            public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount,
+                                        String routeKey, FallbackPriority priority) {
+                return onBatch(batchData, originalSize, compressed, messageCount, routeKey, priority);
+            }
+
+            @Override
+            public void onShardFailed(java.nio.ByteBuffer shard, String key, Throwable cause, boolean uploadAttempted,
+                                      FallbackPriority priority) {
+                byte[] data = new byte[shard.remaining()];
+                shard.duplicate().get(data);
+                writeFallback(data, key, !uploadAttempted, priority);
+            }
 
-        return new EnhancedDisruptorBatchingQueue(queueConfig, this::onBatch, storageService);
+            @Override
+            public void onShardedBatchComplete(int originalSize, int messageCount, int shardCount, int failedShards) {
+                if (failedShards == 0) {
+                    uploadSucceeded.increment();
+                } else {
+                    uploadFailed.increment();
+                }
+                currentMemoryUsage.addAndGet(-originalSize);
+            }
+        }, uploadStorage);
     }
 
     private void registerShutdownHook() {
@@ -115,16 +406,45 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
         this.shutdownHandler.registerShutdownHook();
     }
 
+    /**
+     * 使用共享调度线程执行兜底重传和队列压力监控，不再为本引擎单独创建调度线程
+     * <p>
+     * 必须在{@link #start()}之前调用，停止引擎时只取消本引擎的任务，不关闭共享线程。
+     *
+     * @param scheduler 共享调度线程池
+     */
+    void setSharedScheduler(ScheduledExecutorService scheduler) {
+        this.sharedScheduler = scheduler;
+    }
+
+    /**
+     * 通过进程级共享上传调度器执行上传，本引擎按配置的权重和在途上限注册为其中一个租户
+     * <p>
+     * 必须在{@link #start()}之前调用。
+     *
+     * @param scheduler 共享上传调度器
+     * @param tenantName 租户名称
+     */
+    void setSharedUploadScheduler(SharedUploadScheduler scheduler, String tenantName) {
+        this.sharedUploadScheduler = scheduler;
+        this.uploadTenantName = tenantName;
+    }
+
     @Override
     public void start() {
         if (!started.compareAndSet(false, true)) {
             return;
         }
 
+        if (sharedScheduler != null) {
+            batchingQueue.setScheduler(sharedScheduler);
+        }
         batchingQueue.start();
+        migrateLegacyFallbackFiles();
         startFallbackScheduler();
         startUploadExecutor();
         batchingQueue.setShardExecutor(uploadExecutor, config.getUploadTimeoutMs());
+        recoverQueueSnapshots();
 
         if (config.isEnableDynamicBatching()) {
             startQueuePressureMonitor();
@@ -132,6 +452,10 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
 
         shutdownHandler.registerShutdownHook();
 
+        if (config.isMetricsEnabled()) {
+            publishMetrics();
+        }
+
         logger.info("AsyncEngine started successfully with {} parallel upload threads, dynamic batching: {}",
                 config.getParallelUploadThreads(), config.isEnableDynamicBatching());
     }
@@ -149,6 +473,17 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
         long startTime = System.currentTimeMillis();
 
         try {
+            if (monitorTask != null) {
+                monitorTask.cancel(false);
+            }
+            if (fallbackTask != null) {
+                // 与独立调度线程的关闭语义一致：快照模式中断当前重传，否则等待本轮重传结束
+                fallbackTask.cancel(config.isShutdownSnapshotEnabled());
+                if (!config.isShutdownSnapshotEnabled()) {
+                    awaitFallbackRound(30, TimeUnit.SECONDS);
+                }
+            }
+
             if (queueMonitor != null) {
                 queueMonitor.shutdown();
                 try {
@@ -161,7 +496,10 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
                 }
             }
 
-            if (fallbackScheduler != null) {
+            if (fallbackScheduler != null && config.isShutdownSnapshotEnabled()) {
+                // 快速关闭不等待正在进行的兜底重传，未完成的文件下次启动继续重传
+                fallbackScheduler.shutdownNow();
+            } else if (fallbackScheduler != null) {
                 fallbackScheduler.shutdown();
                 try {
                     if (!fallbackScheduler.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -180,15 +518,31 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
                 try {
                     long elapsed = System.currentTimeMillis() - startTime;
                     long remaining = Math.max(5, timeoutMillis - elapsed);
+                    if (config.isShutdownSnapshotEnabled()) {
+                        remaining = Math.min(remaining, SNAPSHOT_UPLOAD_GRACE_MS);
+                    }
                     if (!uploadExecutor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
-                        uploadExecutor.shutdownNow();
+                        persistPendingUploads(uploadExecutor.shutdownNow());
                     }
                 } catch (InterruptedException e) {
-                    uploadExecutor.shutdownNow();
+                    persistPendingUploads(uploadExecutor.shutdownNow());
                     Thread.currentThread().interrupt();
                 }
             }
 
+            if (fanOut != null) {
+                long elapsed = System.currentTimeMillis() - startTime;
+                fanOut.shutdown(Math.max(5, timeoutMillis - elapsed));
+                for (FanOutStorageService.Destination destination : fanOut.getDestinations()) {
+                    try {
+                        destination.getStorage().close();
+                    } catch (Exception e) {
+                        logger.error("Error closing fan-out storage service {}: {}", destination.getName(),
+                                e.getMessage());
+                    }
+                }
+            }
+
             if (storageService != null) {
                 try {
                     storageService.close();
@@ -196,11 +550,137 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
                     logger.error("Error closing storage service: {}", e.getMessage());
                 }
             }
+            for (StorageService failoverStorage : failoverStorages.values()) {
+                try {
+                    failoverStorage.close();
+                } catch (Exception e) {
+                    logger.error("Error closing failover storage service: {}", e.getMessage());
+                }
+            }
 
             logger.info("AsyncEngine stopped successfully");
         } catch (Exception e) {
             logger.error("Error stopping AsyncEngine: {}", e.getMessage());
+        } finally {
+            MetricRegistry.global().remove(metricGroup);
+        }
+    }
+
+    /**
+     * 把引擎各环节的指标汇总到一个分组并发布到全局指标注册表，引擎停止时移除
+     */
+    private void publishMetrics() {
+        String name = uploadTenantName != null
+                ? uploadTenantName
+                : storageService.getBucketName() + "/" + storageService.getKeyPrefix() + ":" + config.getLogFileName();
+        MetricRegistry registry = MetricRegistry.global();
+        MetricGroup group = registry.createGroup(name);
+
+        batchingQueue.bindMetrics(group);
+        group.gauge("engine.memory.bytes", "Bytes accepted but not yet uploaded", currentMemoryUsage::get);
+        group.counter("engine.oversize.dropped", "Oversize payloads dropped", oversizeDroppedCount::get);
+        group.counter("engine.oversize.fallback", "Oversize payloads written to fallback files",
+                oversizeFallbackCount::get);
+        group.counter("engine.emergency.fallback", "Payloads written to fallback files under memory pressure",
+                emergencyFallbackCount::get);
+        group.counter("upload.succeeded", "Batches uploaded", uploadSucceeded::get);
+        group.counter("upload.failed", "Batch uploads failed and handed to fallback", uploadFailed::get);
+        group.register("latency.upload.ns", "putObject time per batch, including failed attempts", uploadLatency);
+        if (hedging != null) {
+            group.counter("upload.hedged", "Hedge attempts issued for slow uploads", hedging::getHedgedAttempts);
+            group.counter("upload.hedge.wins", "Uploads completed by a hedge or replacement attempt",
+                    hedging::getHedgeWins);
+            group.counter("upload.attempt.timeouts", "Upload attempts cancelled at their deadline",
+                    hedging::getAttemptTimeouts);
+            group.counter("upload.attempt.replaced", "Failed or timed-out attempts replaced by a new attempt",
+                    hedging::getReplacedAttempts);
+            group.register("latency.upload.attempt.ns", "Successful upload attempt time driving hedge delay",
+                    hedging.getAttemptLatency());
+        }
+        if (concurrencyLimiter != null) {
+            group.gauge("upload.concurrency.limit", "Current adaptive limit on in-flight uploads",
+                    concurrencyLimiter::getLimit);
+            group.gauge("upload.concurrency.inflight", "Uploads currently holding a concurrency slot",
+                    concurrencyLimiter::getInFlight);
+            group.counter("upload.concurrency.decreases", "Times the concurrency limit backed off",
+                    concurrencyLimiter::getDecreases);
+            group.counter("upload.concurrency.wait.timeouts", "Uploads that found no slot within uploadTimeoutMs",
+                    concurrencyLimiter::getWaitTimeouts);
+        }
+        if (circuitBreaker != null) {
+            group.gauge("upload.breaker.state", "Storage circuit breaker state (0 closed, 1 open, 2 half-open)",
+                    () -> circuitBreaker.getState().ordinal());
+            group.counter("upload.breaker.opened", "Times the storage circuit breaker opened",
+                    circuitBreaker::getOpenTransitions);
+            group.counter("upload.breaker.rejected", "Uploads sent straight to fallback while the breaker was open",
+                    circuitBreaker::getRejectedCalls);
+        }
+        if (failover != null) {
+            group.counter("upload.failover.succeeded", "Uploads written to a failover target instead of the primary",
+                    failover::getFailoverSucceeded);
+        }
+        if (failoverJournal != null) {
+            group.gauge("failover.journal.pending", "Failover objects waiting to be restored to the primary",
+                    failoverJournal::size);
+        }
+        if (fanOut != null) {
+            for (FanOutStorageService.Destination destination : fanOut.getDestinations()) {
+                String prefix = "fanout." + destination.getName() + ".";
+                group.counter(prefix + "uploaded", "Batches uploaded to this fan-out target",
+                        destination::getUploaded);
+                group.counter(prefix + "failed", "Fan-out uploads failed and written to the target's fallback files",
+                        destination::getFailed);
+                group.counter(prefix + "spilled", "Batches written to the target's fallback files over the lag budget",
+                        destination::getSpilled);
+                group.gauge(prefix + "lag.ms", "Age of the oldest unfinished upload to this fan-out target",
+                        () -> TimeUnit.NANOSECONDS.toMillis(destination.getLagNanos()));
+                group.gauge(prefix + "pending", "Uploads queued or running for this fan-out target",
+                        destination::getPendingUploads);
+                group.register("latency.fanout." + destination.getName() + ".ns", "putObject time per fan-out upload",
+                        destination.getLatency());
+            }
+            for (Map.Entry<String, FallbackUploaderTask> entry : fanOutUploaderTasks.entrySet()) {
+                String prefix = "fanout." + entry.getKey() + ".";
+                FallbackUploaderTask task = entry.getValue();
+                group.counter(prefix + "retry.succeeded", "Fan-out fallback files resent", task::getResentFileCount);
+                group.counter(prefix + "retry.failed", "Fan-out fallback resend attempts failed",
+                        task::getResendFailureCount);
+            }
+        }
+        if (fallbackManager.getWriteLatency() != null) {
+            group.register("latency.fallback.write.ns", "Time to write one fallback file",
+                    fallbackManager.getWriteLatency());
+        }
+
+        if (uploadExecutor instanceof SharedUploadScheduler.Tenant) {
+            SharedUploadScheduler.Tenant tenant = (SharedUploadScheduler.Tenant) uploadExecutor;
+            group.gauge("upload.queued", "Upload tasks waiting for a shared upload thread", tenant::getQueuedTasks);
+            group.gauge("upload.in.flight", "Uploads currently running", tenant::getInFlight);
+        }
+
+        FallbackDiskQuota quota = fallbackManager.getDiskQuota();
+        if (quota != null) {
+            group.gauge("fallback.backlog.bytes", "Bytes waiting in the fallback directory", quota::getUsedBytes);
+            group.gauge("fallback.backlog.files", "Files waiting in the fallback directory", quota::getFileCount);
+            group.counter("fallback.evicted.files", "Fallback files evicted by the disk quota", quota::getEvictedFiles);
+            group.counter("fallback.rejected", "Fallback writes rejected by the disk quota", quota::getRejectedWrites);
         }
+        FallbackUploaderTask uploaderTask = fallbackUploaderTask;
+        if (uploaderTask != null) {
+            group.counter("fallback.retry.succeeded", "Fallback files resent", uploaderTask::getResentFileCount);
+            group.counter("fallback.retry.failed", "Fallback resend attempts failed", uploaderTask::getResendFailureCount);
+            group.counter("fallback.quarantined", "Fallback files quarantined as too large to resend",
+                    uploaderTask::getQuarantinedFileCount);
+            if (failoverJournal != null) {
+                group.counter("failover.restore.succeeded", "Failover objects restored to the primary",
+                        uploaderTask::getRestoredObjectCount);
+                group.counter("failover.restore.failed", "Failover restore attempts failed",
+                        uploaderTask::getRestoreFailureCount);
+            }
+        }
+
+        registry.publish(group);
+        this.metricGroup = group;
     }
 
     @Override
@@ -210,6 +690,16 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
 
     @Override
     public void put(byte[] data) {
+        put(data, null);
+    }
+
+    @Override
+    public BatchRouting getBatchRouting() {
+        return batchRouting;
+    }
+
+    @Override
+    public void put(byte[] data, String routeKey) {
         if (!started.get() || stopped.get() || data == null || data.length == 0) {
             return;
         }
@@ -219,21 +709,25 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
         if (currentMemory > emergencyMemoryThreshold) {
             logger.warn("Emergency fallback triggered: memory usage {} MB > {} MB, writing directly to fallback file",
                     currentMemory / 1024 / 1024, emergencyMemoryThreshold / 1024 / 1024);
-            fallbackManager.writeFallbackFile(data);
+            FallbackPriority priority = FallbackPriority.detect(data);
+            String key = objectKeyFor(routeKey);
+            fallbackManager.writeFallbackFile(data, priority, key);
+            writeFanOutFallback(key, data, priority);
+            emergencyFallbackCount.increment();
             return;
         }
 
         if (data.length > config.getPayloadMaxBytes()) {
-            handleOversizePayload(data);
+            handleOversizePayload(data, routeKey);
             return;
         }
 
-        if (batchingQueue.submit(data)) {
+        if (batchingQueue.submit(data, routeKey)) {
             currentMemoryUsage.addAndGet(data.length);
         }
     }
 
-    private void handleOversizePayload(byte[] data) {
+    private void handleOversizePayload(byte[] data, String routeKey) {
         logger.warn("Payload exceeded max bytes, actual={}, max={}, policy={}",
                 data.length, config.getPayloadMaxBytes(), config.getOversizePayloadPolicy());
 
@@ -245,7 +739,10 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
                 return;
             }
 
-            if (fallbackManager.writeFallbackFile(data)) {
+            FallbackPriority priority = FallbackPriority.detect(data);
+            String key = objectKeyFor(routeKey);
+            writeFanOutFallback(key, data, priority);
+            if (fallbackManager.writeFallbackFile(data, priority, key)) {
                 long fallbacked = oversizeFallbackCount.incrementAndGet();
                 logger.warn("Oversize payload written to fallback file. actual={}, fallbackCount={}",
                         data.length, fallbacked);
@@ -261,42 +758,208 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
         logger.warn("Oversize payload dropped. actual={}, droppedCount={}", data.length, dropped);
     }
 
-    private boolean onBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount) {
-        String key = ObjectNameGenerator.generateObjectName(storageService.getKeyPrefix());
+    private boolean onBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount, String routeKey,
+                            FallbackPriority priority) {
+        String key = objectKeyFor(routeKey);
 
         if (uploadExecutor != null && !uploadExecutor.isShutdown()) {
-            uploadExecutor.submit(() -> {
-                try {
-                    storageService.putObject(key, batchData).get(config.getUploadTimeoutMs(), TimeUnit.MILLISECONDS);
-                } catch (Exception e) {
-                    logger.error("Parallel upload failed for {}: {}", key, e.getMessage(), e);
-                    boolean fallbackSuccess = false;
-                    try {
-                        fallbackSuccess = fallbackManager.writeFallbackFile(batchData);
-                    } catch (Exception fallbackEx) {
-                        logger.error("Fallback write failed with exception for key {}: {}", key, fallbackEx.getMessage(), fallbackEx);
-                    }
-                    if (!fallbackSuccess) {
-                        logger.error("Fallback write failed for key {}", key);
-                    }
-                } finally {
-                    currentMemoryUsage.addAndGet(-originalSize);
-                }
-            });
+            uploadExecutor.execute(new BatchUploadTask(key, batchData, originalSize, priority));
             return true;
         } else {
-            return onBatchSync(batchData, originalSize, compressed, messageCount, key);
+            return onBatchSync(batchData, originalSize, key, priority);
+        }
+    }
+
+    /**
+     * 对象键带有路由前缀和键模板中的路由属性，上传失败时兜底文件也以该对象键命名
+     */
+    private String objectKeyFor(String routeKey) {
+        if (batchRouting == null || routeKey == null) {
+            return nameStrategy.generateObjectName(storageService.getKeyPrefix());
+        }
+        return nameStrategy.generateObjectName(batchRouting.keyPrefixFor(routeKey, storageService.getKeyPrefix()),
+                batchRouting.attributesFor(routeKey));
+    }
+
+    /**
+     * 并行上传任务，关闭时尚未开始执行的任务会被取回并写入兜底文件
+     */
+    private final class BatchUploadTask implements Runnable {
+        private final String key;
+        private final byte[] batchData;
+        private final int originalSize;
+        private final FallbackPriority priority;
+
+        BatchUploadTask(String key, byte[] batchData, int originalSize, FallbackPriority priority) {
+            this.key = key;
+            this.batchData = batchData;
+            this.originalSize = originalSize;
+            this.priority = priority;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            try {
+                upload(key, batchData, priority).get(config.getUploadTimeoutMs(), TimeUnit.MILLISECONDS);
+                recordUpload(startNanos, true);
+            } catch (Exception e) {
+                recordFailedUpload(startNanos, key, e);
+                writeFallback(false);
+            } finally {
+                currentMemoryUsage.addAndGet(-originalSize);
+            }
+        }
+
+        void writeFallback(boolean fanOutPending) {
+            AsyncEngineImpl.this.writeFallback(batchData, key, fanOutPending, priority);
+        }
+    }
+
+    /**
+     * 上传批次，经由扇出时带上批次优先级，扇出目标写入兜底文件时按该优先级参与配额淘汰
+     */
+    private java.util.concurrent.CompletableFuture<Void> upload(String key, byte[] data, FallbackPriority priority) {
+        return fanOut != null ? fanOut.putObject(key, data, priority) : uploadStorage.putObject(key, data);
+    }
+
+    /**
+     * 写入主兜底文件，兜底文件以对象键命名，重传时使用同一个对象键
+     *
+     * @param fanOutPending 批次还没有经过扇出上传，需要同时写入各扇出目标的兜底文件
+     * @param priority 批次的兜底优先级，磁盘配额不足时低优先级的文件先被淘汰
+     */
+    private void writeFallback(byte[] data, String key, boolean fanOutPending, FallbackPriority priority) {
+        if (fanOutPending) {
+            writeFanOutFallback(key, data, priority);
+        }
+        boolean fallbackSuccess = false;
+        try {
+            fallbackSuccess = fallbackManager.writeFallbackFile(data, priority, key);
+        } catch (Exception fallbackEx) {
+            logger.error("Fallback write failed with exception for key {}: {}", key, fallbackEx.getMessage(), fallbackEx);
+        }
+        if (!fallbackSuccess) {
+            logger.error("Fallback write failed for key {}", key);
+        }
+    }
+
+    /**
+     * 没有经过扇出上传就写入主兜底文件的批次，同时写入各扇出目标的兜底文件，各目标不会缺少这些批次
+     */
+    private void writeFanOutFallback(String key, byte[] data, FallbackPriority priority) {
+        if (fanOut != null) {
+            fanOut.writeFallback(key, data, priority);
+        }
+    }
+
+    private void persistPendingUploads(List<Runnable> pending) {
+        int persisted = 0;
+        for (Runnable runnable : pending) {
+            if (runnable instanceof BatchUploadTask) {
+                BatchUploadTask task = (BatchUploadTask) runnable;
+                task.writeFallback(true);
+                currentMemoryUsage.addAndGet(-task.originalSize);
+                persisted++;
+            } else if (runnable instanceof EnhancedDisruptorBatchingQueue.ShardUploadTask) {
+                // 按失败回调，分片写入兜底文件，整批结束时释放内存计数
+                ((EnhancedDisruptorBatchingQueue.ShardUploadTask) runnable).abandon();
+                persisted++;
+            }
+        }
+        if (persisted > 0) {
+            logger.warn("Upload executor did not drain before shutdown, {} pending batches written to fallback files", persisted);
+        }
+    }
+
+    /**
+     * 旧版兜底目录中遗留的兜底文件和队列快照迁入本引擎的兜底目录，由本引擎重传和恢复
+     */
+    private void migrateLegacyFallbackFiles() {
+        if (legacyFallbackRoot == null) {
+            return;
+        }
+        int moved = LegacyFallbackMigrator.migrate(legacyFallbackRoot, fallbackManager.getAbsoluteFallbackPath());
+        if (moved > 0 && fallbackManager.getDiskQuota() != null) {
+            fallbackManager.getDiskQuota().rescan();
+        }
+    }
+
+    /**
+     * 恢复上次快速关闭留下的队列快照，重新注入队列；队列无法接收的事件写入兜底文件
+     */
+    private void recoverQueueSnapshots() {
+        if (snapshotStore == null) {
+            return;
+        }
+        try {
+            int recovered = snapshotStore.recover(this::reinjectSnapshotEvents);
+            if (recovered > 0) {
+                logger.info("Re-injected {} events from queue snapshots", recovered);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to recover queue snapshots: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean reinjectSnapshotEvents(List<LogEvent> events) {
+        java.io.ByteArrayOutputStream rejected = new java.io.ByteArrayOutputStream();
+        FallbackPriority priority = FallbackPriority.LOW;
+        for (LogEvent event : events) {
+            if (batchingQueue.submit(event.payload, event.routeKey)) {
+                currentMemoryUsage.addAndGet(event.payload.length);
+            } else {
+                FallbackPriority detected = FallbackPriority.detect(event.payload);
+                if (detected.compareTo(priority) > 0) {
+                    priority = detected;
+                }
+                rejected.write(event.payload, 0, event.payload.length);
+                if (event.payload.length > 0 && event.payload[event.payload.length - 1] != '\n') {
+                    rejected.write('\n');
+                }
+            }
+        }
+        if (rejected.size() > 0) {
+            logger.warn("Queue rejected {} bytes of snapshot events, writing them to fallback file", rejected.size());
+            byte[] data = rejected.toByteArray();
+            writeFanOutFallback(null, data, priority);
+            return fallbackManager.writeFallbackFile(data, priority);
+        }
+        return true;
+    }
+
+    /**
+     * 熔断打开时被拒绝的上传不计入上传耗时，也不逐条记录错误日志
+     */
+    private void recordFailedUpload(long startNanos, String key, Exception e) {
+        if (e.getCause() instanceof StorageCircuitBreaker.CircuitOpenException) {
+            uploadFailed.increment();
+            logger.debug("Storage circuit breaker open, {} written to fallback file", key);
+            return;
+        }
+        recordUpload(startNanos, false);
+        logger.error("Upload failed for {}: {}", key, e.getMessage(), e);
+    }
+
+    private void recordUpload(long startNanos, boolean success) {
+        uploadLatency.recordSince(startNanos);
+        if (success) {
+            uploadSucceeded.increment();
+        } else {
+            uploadFailed.increment();
         }
     }
 
-    private boolean onBatchSync(byte[] batchData, int originalSize, boolean compressed, int messageCount, String key) {
+    private boolean onBatchSync(byte[] batchData, int originalSize, String key, FallbackPriority priority) {
+        long startNanos = System.nanoTime();
         try {
-            storageService.putObject(key, batchData).get(config.getUploadTimeoutMs(), TimeUnit.MILLISECONDS);
+            upload(key, batchData, priority).get(config.getUploadTimeoutMs(), TimeUnit.MILLISECONDS);
+            recordUpload(startNanos, true);
             return true;
         } catch (Exception e) {
-            logger.error("Sync upload failed for {}: {}", key, e.getMessage(), e);
+            recordFailedUpload(startNanos, key, e);
             try {
-                if (fallbackManager.writeFallbackFile(batchData)) {
+                if (fallbackManager.writeFallbackFile(batchData, priority, key)) {
                     return true;
                 }
                 logger.error("Fallback write failed for key {}", key);
@@ -310,35 +973,165 @@ public class AsyncEngineImpl implements AsyncEngine, AutoCloseable {
     }
 
     private void startFallbackScheduler() {
+        int fallbackRetentionDays = config.getFallbackRetentionDays();
+        int fallbackScanIntervalSeconds = config.getFallbackScanIntervalSeconds();
+
+        // 有熔断器时经由熔断器重传，打开期间停止重传，打开期满后由重传的文件完成半开探测
+        StorageService resendStorage = circuitBreaker != null ? circuitBreaker : storageService;
+        FallbackUploaderTask uploaderTask = new FallbackUploaderTask(resendStorage, fallbackDirectory(),
+                fallbackRetentionDays, config.getFallbackMaxRetryFileBytes(),
+                config.getFallbackMaxRetryFilesPerRound(),
+                config.getFallbackMaxRetryBytesPerRound());
+        uploaderTask.setDiskQuota(fallbackManager.getDiskQuota());
+        if (failoverJournal != null) {
+            uploaderTask.setFailoverRestore(failoverJournal, failoverStorages);
+        }
+        this.fallbackUploaderTask = uploaderTask;
+        if (circuitBreaker != null) {
+            // 熔断期间不重传兜底文件，关闭后立即补一轮，不等下一个扫描周期
+            uploaderTask.setUploadGate(circuitBreaker::permitsCalls);
+            circuitBreaker.setListener((from, to) -> {
+                if (to == StorageCircuitBreaker.State.CLOSED) {
+                    triggerFallbackRound(uploaderTask);
+                }
+            });
+        }
+
+        Runnable round = uploaderTask;
+        if (fanOut != null) {
+            for (FanOutStorageService.Destination destination : fanOut.getDestinations()) {
+                fanOutUploaderTasks.put(destination.getName(), createFanOutUploaderTask(destination));
+            }
+            // 扇出目标的重传与主存储的重传在同一轮中依次执行，共用扫描周期和停止时的等待
+            round = () -> {
+                uploaderTask.run();
+                for (FallbackUploaderTask task : fanOutUploaderTasks.values()) {
+                    task.run();
+                }
+            };
+        }
+        Runnable fallbackRound = round;
+
+        if (sharedScheduler != null) {
+            fallbackTask = sharedScheduler.scheduleWithFixedDelay(() -> runFallbackRound(fallbackRound),
+                    1, fallbackScanIntervalSeconds, TimeUnit.SECONDS);
+            return;
+        }
+
         fallbackScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "fallback-uploader");
             t.setDaemon(true);
             t.setPriority(Thread.MIN_PRIORITY);
             return t;
         });
+        fallbackScheduler.scheduleWithFixedDelay(fallbackRound, 1, fallbackScanIntervalSeconds, TimeUnit.SECONDS);
+    }
 
-        int fallbackRetentionDays = config.getFallbackRetentionDays();
-        int fallbackScanIntervalSeconds = config.getFallbackScanIntervalSeconds();
+    private FallbackUploaderTask createFanOutUploaderTask(FanOutStorageService.Destination destination) {
+        FallbackManager targetFallback = destination.getFallbackManager();
+        FallbackUploaderTask task = new FallbackUploaderTask(destination.getStorage(),
+                targetFallback.getAbsoluteFallbackPath(), config.getFallbackRetentionDays(),
+                config.getFallbackMaxRetryFileBytes(),
+                config.getFallbackMaxRetryFilesPerRound(),
+                config.getFallbackMaxRetryBytesPerRound());
+        task.setDiskQuota(targetFallback.getDiskQuota());
+        if (destination.getStorage() instanceof StorageCircuitBreaker) {
+            task.setUploadGate(((StorageCircuitBreaker) destination.getStorage())::permitsCalls);
+        }
+        return task;
+    }
 
-        fallbackScheduler.scheduleWithFixedDelay(
-                new FallbackUploaderTask(storageService, config.getLogFilePrefix(), config.getLogFileName(), fallbackRetentionDays,
-                        config.getFallbackMaxRetryFileBytes(),
-                        config.getFallbackMaxRetryFilesPerRound(),
-                        config.getFallbackMaxRetryBytesPerRound()),
-                1, fallbackScanIntervalSeconds, TimeUnit.SECONDS
-        );
+    private void triggerFallbackRound(Runnable uploaderTask) {
+        if (stopped.get()) {
+            return;
+        }
+        try {
+            if (sharedScheduler != null) {
+                sharedScheduler.execute(() -> runFallbackRound(uploaderTask));
+            } else if (fallbackScheduler != null) {
+                fallbackScheduler.execute(uploaderTask);
+            }
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            logger.debug("Fallback scheduler already shut down, resend deferred to next start");
+        }
+    }
+
+    private void runFallbackRound(Runnable uploaderTask) {
+        fallbackRoundLock.lock();
+        try {
+            uploaderTask.run();
+        } finally {
+            fallbackRoundLock.unlock();
+        }
+    }
+
+    private void awaitFallbackRound(long timeout, TimeUnit unit) {
+        try {
+            if (fallbackRoundLock.tryLock(timeout, unit)) {
+                fallbackRoundLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void startUploadExecutor() {
         int threads = config.getParallelUploadThreads();
-        this.uploadExecutor = Executors.newFixedThreadPool(threads, r -> {
-            Thread t = new Thread(r, "parallel-uploader-" + System.currentTimeMillis());
-            t.setDaemon(true);
-            return t;
-        });
+        if (concurrencyLimiter != null) {
+            // 线程数按上界准备，实际并发由限制器决定，多出的线程在限制器上等待
+            threads = Math.max(threads, concurrencyLimiter.getMaxLimit());
+        }
+        if (sharedUploadScheduler != null) {
+            int maxInFlight = config.getUploadMaxInFlight() > 0 ? config.getUploadMaxInFlight() : threads;
+            // 共享线程不能在限制器上等待，由调度器按限制器的当前上限派发，达到上限时把线程让给其他租户
+            this.uploadExecutor = sharedUploadScheduler.register(uploadTenantName, config.getUploadWeight(), maxInFlight,
+                    concurrencyLimiter != null ? concurrencyLimiter::getLimit : null);
+        } else {
+            this.uploadExecutor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "parallel-uploader-" + System.currentTimeMillis());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        startFanOutExecutors();
+    }
+
+    /**
+     * 每个扇出目标使用独立的上传执行器，并发数为{@code fanoutMaxInFlight}：使用共享上传调度器时注册为单独的租户，
+     * 慢目标只占用自己的在途名额；执行器在{@link FanOutStorageService#shutdown}中随引擎关闭
+     */
+    private void startFanOutExecutors() {
+        if (fanOut == null) {
+            return;
+        }
+        int maxInFlight = Math.max(1, config.getFanoutMaxInFlight());
+        for (FanOutStorageService.Destination destination : fanOut.getDestinations()) {
+            if (sharedUploadScheduler != null) {
+                destination.start(sharedUploadScheduler.register(uploadTenantName + "/fanout-" + destination.getName(),
+                        config.getUploadWeight(), maxInFlight));
+                continue;
+            }
+            String threadName = "logx-fanout-" + destination.getName() + "-";
+            AtomicInteger index = new AtomicInteger();
+            destination.start(Executors.newFixedThreadPool(maxInFlight, r -> {
+                Thread t = new Thread(r, threadName + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }));
+        }
     }
 
     private void startQueuePressureMonitor() {
+        if (sharedScheduler != null) {
+            monitorTask = sharedScheduler.scheduleWithFixedDelay(
+                    this::monitorQueuePressure,
+                    config.getQueuePressureMonitorIntervalMs(),
+                    config.getQueuePressureMonitorIntervalMs(),
+                    TimeUnit.MILLISECONDS
+            );
+            return;
+        }
+
         queueMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "queue-pressure-monitor");
             t.setDaemon(true);
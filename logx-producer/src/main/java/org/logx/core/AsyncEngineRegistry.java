@@ -0,0 +1,474 @@
+package org.logx.core;
+
+import org.logx.config.properties.LogxOssProperties;
+import org.logx.metrics.MetricGroup;
+import org.logx.metrics.MetricRegistry;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+import org.logx.storage.StorageServiceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 异步引擎注册表
+ * <p>
+ * 同一JVM中可以运行多个相互独立的OSS Appender（例如审计日志和应用日志写入不同的bucket或前缀），
+ * 每个Appender通过{@link #acquire}获取引擎租约：
+ * <ul>
+ * <li>存储配置和引擎配置完全相同的Appender共享同一个引擎，按引用计数管理，最后一个租约释放时才停止引擎</li>
+ * <li>连接同一存储端点、使用同一凭证的引擎共享存储客户端及其连接池，对象键前缀仍按各自配置生成，
+ * 备用存储和扇出目标同样参与共享</li>
+ * <li>所有引擎共享批次超时检查、兜底重传和队列压力监控的调度线程</li>
+ * <li>所有引擎的上传任务提交到{@link SharedUploadScheduler}，按各自权重和在途上限公平调度，
+ * 线程数不随引擎数量增长</li>
+ * </ul>
+ * 日志框架热加载配置时，旧Appender停止会释放旧引擎，新Appender按新配置获取引擎，
+ * 无论新旧Appender的启停顺序如何，日志都不会中断上传。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class AsyncEngineRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEngineRegistry.class);
+
+    private static final int SHARED_SCHEDULER_THREADS = 2;
+
+    private static final Map<EngineKey, EngineEntry> ENGINES = new HashMap<>();
+    private static final Map<String, StorageEntry> STORAGES = new HashMap<>();
+    private static ScheduledExecutorService sharedScheduler;
+    private static SharedUploadScheduler sharedUploads;
+    private static boolean processMetricsPublished;
+
+    // 测试时可替换存储服务的创建方式
+    private static Function<StorageConfig, StorageService> storageFactory =
+            StorageServiceFactory::createStorageService;
+
+    private AsyncEngineRegistry() {
+    }
+
+    /**
+     * 获取与配置对应的引擎租约，不存在时创建新引擎
+     *
+     * @param storageConfig 存储配置
+     * @param engineConfig 引擎配置，注册表使用其副本，不修改调用方的对象
+     * @return 引擎租约，调用{@link Lease#start()}启动引擎，调用{@link Lease#stop}释放租约
+     */
+    public static Lease acquire(StorageConfig storageConfig, AsyncEngineConfig engineConfig) {
+        Objects.requireNonNull(storageConfig, "storageConfig cannot be null");
+        Objects.requireNonNull(engineConfig, "engineConfig cannot be null");
+        AsyncEngineConfig config = engineConfig.copy();
+        config.setStorageConfig(storageConfig);
+
+        EngineKey engineKey = new EngineKey(storageKey(storageConfig), layoutKey(storageConfig), config);
+        synchronized (AsyncEngineRegistry.class) {
+            EngineEntry entry = ENGINES.get(engineKey);
+            if (entry == null) {
+                entry = createEngine(engineKey, storageConfig, config);
+                ENGINES.put(engineKey, entry);
+                logger.info("Created AsyncEngine [{}], active engines: {}", entry.name, ENGINES.size());
+            } else {
+                logger.info("Sharing AsyncEngine [{}] with another appender", entry.name);
+            }
+            entry.references++;
+            return new Lease(entry);
+        }
+    }
+
+    /**
+     * @return 当前运行中的引擎数量
+     */
+    public static synchronized int getActiveEngineCount() {
+        return ENGINES.size();
+    }
+
+    /**
+     * @return 当前共享的存储客户端数量
+     */
+    public static synchronized int getSharedStorageCount() {
+        return STORAGES.size();
+    }
+
+    /**
+     * @return 共享上传线程数，尚无引擎时返回0
+     */
+    public static synchronized int getSharedUploadThreadCount() {
+        return sharedUploads != null ? sharedUploads.getThreadCount() : 0;
+    }
+
+    /**
+     * @return 运行中引擎的名称，格式为bucket/前缀:日志文件名
+     */
+    public static synchronized List<String> getEngineNames() {
+        List<String> names = new ArrayList<>();
+        for (EngineEntry entry : ENGINES.values()) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    static synchronized void setStorageFactory(Function<StorageConfig, StorageService> factory) {
+        storageFactory = factory != null ? factory : StorageServiceFactory::createStorageService;
+    }
+
+    // 调用方持有注册表锁
+    private static EngineEntry createEngine(EngineKey engineKey, StorageConfig storageConfig,
+                                            AsyncEngineConfig engineConfig) {
+        SharedStorageService storage = acquireStorage(storageConfig);
+        List<StorageService> failoverStorages = new ArrayList<>();
+        List<StorageService> fanoutStorages = new ArrayList<>();
+        AsyncEngineImpl engine;
+        try {
+            for (StorageConfig failoverConfig : storageConfig.getFailoverConfigs()) {
+                failoverStorages.add(acquireStorage(failoverConfig));
+            }
+            for (StorageConfig fanoutConfig : storageConfig.getFanoutConfigs()) {
+                fanoutStorages.add(acquireStorage(fanoutConfig));
+            }
+            engine = new AsyncEngineImpl(engineConfig, storage, failoverStorages, fanoutStorages);
+        } catch (RuntimeException e) {
+            storage.close();
+            for (StorageService failoverStorage : failoverStorages) {
+                failoverStorage.close();
+            }
+            for (StorageService fanoutStorage : fanoutStorages) {
+                fanoutStorage.close();
+            }
+            throw e;
+        }
+        if (sharedScheduler == null) {
+            sharedScheduler = createSharedScheduler();
+        }
+        engine.setSharedScheduler(sharedScheduler);
+        if (sharedUploads == null) {
+            int threads = engineConfig.getUploadSharedThreads() > 0
+                    ? engineConfig.getUploadSharedThreads()
+                    : SharedUploadScheduler.defaultThreadCount();
+            sharedUploads = new SharedUploadScheduler(threads, "logx-shared-uploader");
+        }
+        String name = storageConfig.getBucket() + "/" + storage.getKeyPrefix() + ":" + engineConfig.getLogFileName();
+        engine.setSharedUploadScheduler(sharedUploads, name);
+        if (engineConfig.isMetricsEnabled() && !processMetricsPublished) {
+            publishProcessMetrics();
+            processMetricsPublished = true;
+        }
+        return new EngineEntry(engineKey, name, engine, storage);
+    }
+
+    /**
+     * 发布进程级指标：日志清洗计数和共享资源的规模，与单个引擎无关，发布后不再移除
+     */
+    private static void publishProcessMetrics() {
+        MetricRegistry registry = MetricRegistry.global();
+        MetricGroup group = registry.createGroup("process");
+        group.counter("payload.sanitized", "Log payloads with control characters removed",
+                LogPayloadSanitizer::getSanitizedCount);
+        group.counter("payload.truncated", "Log payloads truncated to the size limit",
+                LogPayloadSanitizer::getTruncatedCount);
+        group.gauge("engines.active", "Running engines", AsyncEngineRegistry::getActiveEngineCount);
+        group.gauge("storage.clients", "Shared storage clients", AsyncEngineRegistry::getSharedStorageCount);
+        group.gauge("upload.shared.threads", "Shared upload threads", AsyncEngineRegistry::getSharedUploadThreadCount);
+        registry.publish(group);
+    }
+
+    // 调用方持有注册表锁
+    private static SharedStorageService acquireStorage(StorageConfig storageConfig) {
+        String key = storageKey(storageConfig);
+        StorageEntry entry = STORAGES.get(key);
+        if (entry == null) {
+            entry = new StorageEntry(key, storageFactory.apply(storageConfig));
+            STORAGES.put(key, entry);
+        }
+        entry.references++;
+        return new SharedStorageService(entry, normalizeKeyPrefix(storageConfig.getKeyPrefix()));
+    }
+
+    private static void release(EngineEntry entry, long timeout, TimeUnit timeUnit) {
+        synchronized (AsyncEngineRegistry.class) {
+            if (--entry.references > 0) {
+                return;
+            }
+            if (ENGINES.get(entry.key) == entry) {
+                ENGINES.remove(entry.key);
+            }
+        }
+        // 在锁外停止引擎，刷新剩余日志期间不阻塞其他Appender获取引擎
+        entry.engine.stop(timeout, timeUnit);
+        logger.info("Released AsyncEngine [{}]", entry.name);
+        synchronized (AsyncEngineRegistry.class) {
+            if (ENGINES.isEmpty() && sharedScheduler != null) {
+                sharedScheduler.shutdown();
+                sharedScheduler = null;
+            }
+            if (ENGINES.isEmpty() && sharedUploads != null) {
+                sharedUploads.shutdown();
+                sharedUploads = null;
+            }
+        }
+    }
+
+    private static synchronized void releaseStorage(StorageEntry entry) {
+        if (--entry.references > 0) {
+            return;
+        }
+        if (STORAGES.get(entry.key) == entry) {
+            STORAGES.remove(entry.key);
+        }
+        try {
+            entry.delegate.close();
+        } catch (Exception e) {
+            logger.error("Error closing shared storage service: {}", e.getMessage());
+        }
+    }
+
+    private static ScheduledExecutorService createSharedScheduler() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newScheduledThreadPool(SHARED_SCHEDULER_THREADS, r -> {
+            Thread t = new Thread(r, "logx-shared-scheduler-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * 存储客户端的身份：端点、区域、凭证和连接参数相同即可共享
+     */
+    static String storageKey(StorageConfig config) {
+        return String.join("|",
+                String.valueOf(config.getOssType()),
+                String.valueOf(config.getEndpoint()),
+                String.valueOf(config.getRegion()),
+                String.valueOf(config.getBucket()),
+                String.valueOf(config.getAccessKeyId()),
+                String.valueOf(config.getAccessKeySecret()),
+                String.valueOf(config.isPathStyleAccess()),
+                String.valueOf(config.getUploadTimeoutMs()));
+    }
+
+    /**
+     * 引擎中不属于{@link AsyncEngineConfig}的身份：对象键布局、备用存储、扇出目标和队列的组装参数
+     */
+    private static String layoutKey(StorageConfig storageConfig) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(storageConfig.getKeyPrefix()).append('|')
+                .append(storageConfig.getKeyTemplate()).append('|')
+                .append(storageConfig.getKeyAttributes()).append('|')
+                .append(storageConfig.getFailoverTargets()).append('|')
+                .append(storageConfig.getFanoutTargets());
+        LogxOssProperties properties = storageConfig.getProperties();
+        if (properties != null) {
+            LogxOssProperties.Engine engine = properties.getEngine();
+            sb.append('|').append(engine.isEnableSharding())
+                    .append('|').append(engine.isEnableCompression())
+                    .append('|').append(engine.getMaxUploadSizeMb())
+                    .append('|').append(engine.getCompressionParallelism())
+                    .append('|').append(engine.getCompressionBlockSizeKb())
+                    .append('|').append(engine.isCompressionBlockIndex())
+                    .append('|').append(engine.getShardUploadBudgetMb());
+        }
+        return sb.toString();
+    }
+
+    // 与S3适配器的前缀规范化保持一致
+    private static String normalizeKeyPrefix(String keyPrefix) {
+        if (keyPrefix == null || keyPrefix.trim().isEmpty()) {
+            return "logx";
+        }
+        return keyPrefix.trim().replaceAll("^/+|/+$", "");
+    }
+
+    /**
+     * 引擎租约
+     * <p>
+     * 启动时启动共享引擎（已启动时无操作），停止时只释放本租约，
+     * 最后一个租约释放后引擎才会刷新剩余日志并停止。每个租约只能释放一次。
+     */
+    public static final class Lease implements AsyncEngine {
+        private final EngineEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Lease(EngineEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void start() {
+            entry.engine.start();
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+            if (released.compareAndSet(false, true)) {
+                release(entry, timeout, timeUnit);
+            }
+        }
+
+        @Override
+        public void put(byte[] data) {
+            entry.engine.put(data);
+        }
+
+        @Override
+        public void put(byte[] data, String routeKey) {
+            entry.engine.put(data, routeKey);
+        }
+
+        @Override
+        public BatchRouting getBatchRouting() {
+            return entry.engine.getBatchRouting();
+        }
+
+        /**
+         * @return 引擎使用的存储服务
+         */
+        public StorageService getStorageService() {
+            return entry.storage;
+        }
+
+        /**
+         * @return 引擎名称
+         */
+        public String getName() {
+            return entry.name;
+        }
+    }
+
+    /**
+     * 引擎的身份：存储客户端、对象键布局和引擎配置（按{@link AsyncEngineConfig#equals}比较）都相同的Appender共享引擎，
+     * 任意一项变化（例如热加载修改了批次参数）都会创建新引擎
+     */
+    private static final class EngineKey {
+        private final String storageKey;
+        private final String layoutKey;
+        private final AsyncEngineConfig config;
+
+        EngineKey(String storageKey, String layoutKey, AsyncEngineConfig config) {
+            this.storageKey = storageKey;
+            this.layoutKey = layoutKey;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof EngineKey)) {
+                return false;
+            }
+            EngineKey other = (EngineKey) o;
+            return storageKey.equals(other.storageKey) && layoutKey.equals(other.layoutKey)
+                    && config.equals(other.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(storageKey, layoutKey, config);
+        }
+    }
+
+    private static final class EngineEntry {
+        private final EngineKey key;
+        private final String name;
+        private final AsyncEngineImpl engine;
+        private final StorageService storage;
+        private int references;
+
+        EngineEntry(EngineKey key, String name, AsyncEngineImpl engine, StorageService storage) {
+            this.key = key;
+            this.name = name;
+            this.engine = engine;
+            this.storage = storage;
+        }
+    }
+
+    private static final class StorageEntry {
+        private final String key;
+        private final StorageService delegate;
+        private int references;
+
+        StorageEntry(String key, StorageService delegate) {
+            this.key = key;
+            this.delegate = delegate;
+        }
+    }
+
+    /**
+     * 共享存储客户端的引擎视图：上传委托给共享客户端，对象键前缀使用引擎自己的配置，
+     * 关闭时只释放引用，最后一个引擎关闭时才关闭底层客户端
+     */
+    private static final class SharedStorageService implements StorageService {
+        private final StorageEntry entry;
+        private final String keyPrefix;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        SharedStorageService(StorageEntry entry, String keyPrefix) {
+            this.entry = entry;
+            this.keyPrefix = keyPrefix;
+        }
+
+        @Override
+        public CompletableFuture<Void> putObject(String key, byte[] data) {
+            return entry.delegate.putObject(key, data);
+        }
+
+        @Override
+        public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+            return entry.delegate.putObject(key, inputStream, dataLength);
+        }
+
+        @Override
+        public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+            return entry.delegate.putObject(key, buffer);
+        }
+
+        @Override
+        public CompletableFuture<byte[]> readObject(String key) {
+            return entry.delegate.readObject(key);
+        }
+
+        @Override
+        public ProtocolType getProtocolType() {
+            return entry.delegate.getProtocolType();
+        }
+
+        @Override
+        public String getBucketName() {
+            return entry.delegate.getBucketName();
+        }
+
+        @Override
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                releaseStorage(entry);
+            }
+        }
+
+        @Override
+        public boolean supportsProtocol(ProtocolType protocol) {
+            return entry.delegate.supportsProtocol(protocol);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.logx.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批次路由配置
+ * <p>
+ * 按事件属性（日志级别、Logger名称前缀或MDC键）把事件分配到相互独立的批次流，
+ * 每个路由拥有自己的条数、字节、最大等待时间阈值和对象键前缀。例如ERROR路由可以数秒内上传，
+ * 而DEBUG路由保持大批次。同时存在的路由数量有上限，超出时按最近最少使用淘汰空闲路由，
+ * 淘汰前先上传该路由已组装的批次。
+ * <p>
+ * 路由规则格式：{@code 路由键:参数=值;参数=值,路由键:...}，支持的参数为
+ * count、bytes、maxAgeMs、prefix。例如：
+ * <pre>
+ * ERROR:count=200;maxAgeMs=2000;prefix=logx/error/,DEBUG:count=10000;maxAgeMs=120000
+ * </pre>
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class BatchRouting {
+
+    public static final int DEFAULT_MAX_ROUTES = 32;
+
+    /**
+     * 路由属性类型
+     */
+    public enum AttributeType {
+        /** 日志级别 */
+        LEVEL,
+        /** Logger名称的前N段 */
+        LOGGER,
+        /** MDC中的指定键 */
+        MDC
+    }
+
+    private final AttributeType attributeType;
+    private final String attributeArgument;
+    private final int loggerDepth;
+    private final int maxRoutes;
+    private final Map<String, Route> routes;
+
+    private BatchRouting(AttributeType attributeType, String attributeArgument, int maxRoutes, Map<String, Route> routes) {
+        this.attributeType = attributeType;
+        this.attributeArgument = attributeArgument;
+        this.loggerDepth = attributeType == AttributeType.LOGGER && attributeArgument != null
+                ? Integer.parseInt(attributeArgument)
+                : 2;
+        this.maxRoutes = Math.max(1, maxRoutes);
+        this.routes = Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * 解析路由配置
+     *
+     * @param routeBy 路由属性：level、logger、logger:N（前N段，默认2）或mdc:key，为空时返回null表示不启用路由
+     * @param maxRoutes 同时存在的路由上限
+     * @param rules 各路由的阈值规则，可为空
+     * @return 路由配置，未启用时返回null
+     * @throws IllegalArgumentException 配置格式不正确
+     */
+    public static BatchRouting parse(String routeBy, int maxRoutes, String rules) {
+        if (routeBy == null || routeBy.trim().isEmpty()) {
+            return null;
+        }
+        String spec = routeBy.trim();
+        int idx = spec.indexOf(':');
+        String typeName = idx < 0 ? spec : spec.substring(0, idx).trim();
+        String argument = idx < 0 ? null : spec.substring(idx + 1).trim();
+
+        AttributeType type;
+        try {
+            type = AttributeType.valueOf(typeName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown route attribute: " + routeBy, e);
+        }
+        if (type == AttributeType.MDC && (argument == null || argument.isEmpty())) {
+            throw new IllegalArgumentException("MDC route attribute requires a key, e.g. mdc:tenant");
+        }
+        if (type == AttributeType.LOGGER && argument != null) {
+            try {
+                if (Integer.parseInt(argument) < 1) {
+                    throw new IllegalArgumentException("Logger route depth must be positive: " + routeBy);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid logger route depth: " + routeBy, e);
+            }
+        }
+        if (type == AttributeType.LEVEL && argument != null) {
+            throw new IllegalArgumentException("Level route attribute takes no argument: " + routeBy);
+        }
+        return new BatchRouting(type, argument, maxRoutes, parseRules(rules, type == AttributeType.LEVEL));
+    }
+
+    private static Map<String, Route> parseRules(String rules, boolean upperCaseKeys) {
+        Map<String, Route> result = new LinkedHashMap<>();
+        if (rules == null || rules.trim().isEmpty()) {
+            return result;
+        }
+        for (String entry : rules.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int idx = entry.indexOf(':');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Route rule must be in the form key:param=value: " + entry);
+            }
+            String key = entry.substring(0, idx).trim();
+            if (upperCaseKeys) {
+                key = key.toUpperCase();
+            }
+            Route route = new Route(key);
+            for (String param : entry.substring(idx + 1).split(";")) {
+                if (param.trim().isEmpty()) {
+                    continue;
+                }
+                int eq = param.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Invalid route parameter: " + param);
+                }
+                String name = param.substring(0, eq).trim();
+                String value = param.substring(eq + 1).trim();
+                try {
+                    switch (name) {
+                        case "count":
+                            route.batchMaxMessages = Integer.parseInt(value);
+                            break;
+                        case "bytes":
+                            route.batchMaxBytes = Integer.parseInt(value);
+                            break;
+                        case "maxAgeMs":
+                            route.maxMessageAgeMs = Long.parseLong(value);
+                            break;
+                        case "prefix":
+                            route.keyPrefix = value.isEmpty() ? null : value;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown route parameter: " + name);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for route parameter " + name + ": " + value, e);
+                }
+            }
+            result.put(key, route);
+        }
+        return result;
+    }
+
+    public AttributeType getAttributeType() {
+        return attributeType;
+    }
+
+    /**
+     * @return MDC键或Logger段数参数，没有参数时为null
+     */
+    public String getAttributeArgument() {
+        return attributeArgument;
+    }
+
+    /**
+     * @return 对象名中携带路由键的属性名，level路由为level，MDC路由为MDC键，Logger路由为logger
+     */
+    public String getAttributeName() {
+        switch (attributeType) {
+            case LEVEL:
+                return "level";
+            case MDC:
+                return attributeArgument;
+            default:
+                return "logger";
+        }
+    }
+
+    public int getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    /**
+     * 获取显式配置的路由规则
+     *
+     * @param routeKey 路由键
+     * @return 路由规则，未配置时返回null，批次沿用队列的默认阈值
+     */
+    public Route getRoute(String routeKey) {
+        return routes.get(routeKey);
+    }
+
+    /**
+     * 获取路由对应的对象键前缀
+     *
+     * @param routeKey 路由键
+     * @param defaultPrefix 存储配置的默认前缀
+     * @return 路由规则配置了prefix时返回该前缀，否则返回默认前缀
+     */
+    public String keyPrefixFor(String routeKey, String defaultPrefix) {
+        Route route = routeKey != null ? routes.get(routeKey) : null;
+        return route != null && route.keyPrefix != null ? route.keyPrefix : defaultPrefix;
+    }
+
+    /**
+     * 生成对象名时携带的路由属性，供键模板中的{attr:name}和{level}使用
+     *
+     * @param routeKey 路由键
+     * @return 包含route和路由属性名两个键的属性表，路由键为null时返回null
+     */
+    public Map<String, String> attributesFor(String routeKey) {
+        if (routeKey == null) {
+            return null;
+        }
+        Map<String, String> attributes = new LinkedHashMap<>(4);
+        attributes.put("route", routeKey);
+        attributes.put(getAttributeName(), routeKey);
+        return attributes;
+    }
+
+    /**
+     * 由Logger名称计算路由键，取前N段
+     *
+     * @param loggerName Logger名称
+     * @return 路由键，名称为空时返回null
+     */
+    public String loggerRouteKey(String loggerName) {
+        if (loggerName == null || loggerName.isEmpty()) {
+            return null;
+        }
+        int pos = -1;
+        for (int i = 0; i < loggerDepth; i++) {
+            pos = loggerName.indexOf('.', pos + 1);
+            if (pos < 0) {
+                return loggerName;
+            }
+        }
+        return loggerName.substring(0, pos);
+    }
+
+    /**
+     * 单个路由的批次参数，未设置的参数（值不大于0或为null）沿用队列的默认配置
+     */
+    public static final class Route {
+        private final String key;
+        private int batchMaxMessages;
+        private int batchMaxBytes;
+        private long maxMessageAgeMs;
+        private String keyPrefix;
+
+        Route(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getBatchMaxMessages() {
+            return batchMaxMessages;
+        }
+
+        public int getBatchMaxBytes() {
+            return batchMaxBytes;
+        }
+
+        public long getMaxMessageAgeMs() {
+            return maxMessageAgeMs;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+    }
+}
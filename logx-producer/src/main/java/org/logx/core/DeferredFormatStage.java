@@ -0,0 +1,366 @@
+package org.logx.core;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import org.logx.metrics.Counter;
+import org.logx.metrics.MetricGroup;
+import org.logx.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 延迟格式化阶段
+ * <p>
+ * 调用线程只把冻结后的不可变事件快照写入RingBuffer，Layout格式化、清洗和入队由格式化工作线程完成，
+ * 日志调用的耗时不再随Pattern复杂度增长：
+ * <ul>
+ * <li>每个工作线程有自己的多生产者RingBuffer，调用线程按线程ID固定分配到一个工作线程，同一线程的日志保持先后顺序</li>
+ * <li>RingBuffer满时调用线程等待所属工作线程腾出空间，不越过本线程排队中的事件；
+ * 格式化工作线程自身提交的事件（例如Layout内部记录日志）不等待，直接在该线程上格式化，避免工作线程相互等待</li>
+ * <li>关闭时先等待正在发布的调用线程完成，再排空各工作线程的积压；关闭后提交的事件在调用线程上处理</li>
+ * </ul>
+ * 事件快照必须在调用线程上完成冻结（线程名、MDC、格式化后的消息等），工作线程上不能再依赖调用线程的状态。
+ *
+ * @param <E> 事件快照类型
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class DeferredFormatStage<E> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredFormatStage.class);
+
+    private static final int MIN_QUEUE_CAPACITY = 64;
+    private static final long FULL_QUEUE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * 在工作线程上把事件快照渲染为清洗后的字节
+     *
+     * @param <E> 事件快照类型
+     */
+    public interface Renderer<E> {
+
+        /**
+         * 格式化并清洗事件
+         *
+         * @param event 事件快照
+         * @return 清洗结果，返回null表示忽略该事件
+         */
+        LogPayloadSanitizer.SanitizedPayload render(E event);
+
+        /**
+         * 计算事件的路由键
+         *
+         * @param event 事件快照
+         * @return 路由键，未启用路由时返回null
+         */
+        String routeKey(E event);
+    }
+
+    private final String name;
+    private final AsyncEngine engine;
+    private final Renderer<E> renderer;
+    private final Worker<E>[] workers;
+    private final boolean metricsEnabled;
+
+    private final Counter renderedEvents = new Counter();
+    private final Counter callerRunsEvents = new Counter();
+    private final Counter renderFailures = new Counter();
+    private final Counter fullQueueWaits = new Counter();
+    private final AtomicLong lastFailureLogTimeMs = new AtomicLong();
+    // 正在向RingBuffer发布的调用线程数，关闭时等待归零后再排空，已申请序号的事件不会被跳过
+    private final AtomicInteger activePublishers = new AtomicInteger();
+
+    private volatile boolean closed;
+    private volatile MetricGroup metricGroup;
+
+    @SuppressWarnings("unchecked")
+    public DeferredFormatStage(String name, AsyncEngineConfig config, AsyncEngine engine, Renderer<E> renderer) {
+        this.name = name;
+        this.engine = engine;
+        this.renderer = renderer;
+        this.metricsEnabled = config.isMetricsEnabled();
+        int capacity = ceilingPowerOfTwo(Math.max(MIN_QUEUE_CAPACITY, config.getDeferredFormatQueueCapacity()));
+        this.workers = new Worker[config.getDeferredFormatWorkers()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker<>(this, capacity);
+        }
+    }
+
+    /**
+     * 启动格式化工作线程并发布指标
+     */
+    public void start() {
+        for (Worker<E> worker : workers) {
+            worker.thread.start();
+        }
+        if (metricsEnabled) {
+            MetricGroup group = MetricRegistry.global().createGroup("deferred-format-" + name);
+            group.counter("deferred.format.rendered", "Events formatted on deferred-format workers",
+                    renderedEvents::get);
+            group.counter("deferred.format.caller.runs",
+                    "Events formatted on the calling thread because the stage was closed or the caller was a worker",
+                    callerRunsEvents::get);
+            group.counter("deferred.format.full.waits",
+                    "Submissions that waited for room because the worker queue was full", fullQueueWaits::get);
+            group.counter("deferred.format.failures", "Events dropped because formatting failed on a worker",
+                    renderFailures::get);
+            group.gauge("deferred.format.backlog", "Events waiting for a deferred-format worker", this::getBacklog);
+            MetricRegistry.global().publish(group);
+            this.metricGroup = group;
+        }
+    }
+
+    /**
+     * 提交冻结后的事件快照
+     * <p>
+     * 队列满时等待所属工作线程腾出空间；阶段已关闭、工作线程未运行或由工作线程自身提交时
+     * 在调用线程上直接格式化，格式化异常会抛给调用方。
+     *
+     * @param event 事件快照
+     */
+    public void submit(E event) {
+        activePublishers.incrementAndGet();
+        try {
+            if (!closed && publish(event)) {
+                return;
+            }
+        } finally {
+            activePublishers.decrementAndGet();
+        }
+        callerRunsEvents.increment();
+        deliver(event);
+    }
+
+    private boolean publish(E event) {
+        Thread current = Thread.currentThread();
+        Worker<E> worker = workers[(int) (current.getId() % workers.length)];
+        if (worker.tryPublish(event)) {
+            return true;
+        }
+        if (current instanceof WorkerThread) {
+            return false;
+        }
+        fullQueueWaits.increment();
+        // 关闭期间继续等待：关闭会先等本方法返回再排空，提前改为调用线程格式化会越过排队中的事件
+        while (worker.thread.isAlive()) {
+            LockSupport.parkNanos(FULL_QUEUE_PARK_NANOS);
+            if (worker.tryPublish(event)) {
+                return true;
+            }
+            if (current.isInterrupted()) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 关闭格式化阶段，在超时时间内排空积压，剩余事件在当前线程上处理
+     *
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     */
+    public void close(long timeout, TimeUnit unit) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        awaitPublishers(deadline);
+        for (Worker<E> worker : workers) {
+            worker.awaitDrained(deadline);
+        }
+        for (Worker<E> worker : workers) {
+            worker.processor.halt();
+        }
+        for (Worker<E> worker : workers) {
+            worker.join(deadline);
+            worker.drainRemaining();
+        }
+        MetricGroup group = metricGroup;
+        if (group != null) {
+            MetricRegistry.global().remove(group);
+            metricGroup = null;
+        }
+    }
+
+    public long getRenderedEvents() {
+        return renderedEvents.get();
+    }
+
+    public long getCallerRunsEvents() {
+        return callerRunsEvents.get();
+    }
+
+    public long getRenderFailures() {
+        return renderFailures.get();
+    }
+
+    public long getFullQueueWaits() {
+        return fullQueueWaits.get();
+    }
+
+    /**
+     * 等待格式化的事件数
+     */
+    public long getBacklog() {
+        long backlog = 0;
+        for (Worker<E> worker : workers) {
+            backlog += worker.getBacklog();
+        }
+        return backlog;
+    }
+
+    private void awaitPublishers(long deadline) {
+        while (activePublishers.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(FULL_QUEUE_PARK_NANOS);
+        }
+    }
+
+    private void deliver(E event) {
+        LogPayloadSanitizer.SanitizedPayload payload = renderer.render(event);
+        if (payload != null) {
+            engine.put(payload.bytes, renderer.routeKey(event));
+            renderedEvents.increment();
+        }
+    }
+
+    private void deliverOnWorker(E event) {
+        try {
+            deliver(event);
+        } catch (Exception e) {
+            renderFailures.increment();
+            long failures = renderFailures.get();
+            long now = System.currentTimeMillis();
+            long lastLog = lastFailureLogTimeMs.get();
+            if (now - lastLog > 1000 && lastFailureLogTimeMs.compareAndSet(lastLog, now)) {
+                logger.warn("Deferred formatting failed, event dropped. totalFailures={}", failures, e);
+            }
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+
+    private static final class Slot<E> {
+        E event;
+    }
+
+    private static final class Worker<E> implements EventHandler<Slot<E>> {
+        private final DeferredFormatStage<E> stage;
+        private final RingBuffer<Slot<E>> ringBuffer;
+        private final BatchEventProcessor<Slot<E>> processor;
+        private final Thread thread;
+
+        Worker(DeferredFormatStage<E> stage, int capacity) {
+            this.stage = stage;
+            this.ringBuffer = RingBuffer.createMultiProducer(Slot::new, capacity, new BlockingWaitStrategy());
+            this.processor = new BatchEventProcessor<>(ringBuffer, ringBuffer.newBarrier(), this);
+            this.processor.setExceptionHandler(new LoggingExceptionHandler<>());
+            ringBuffer.addGatingSequences(processor.getSequence());
+            this.thread = new WorkerThread(processor, "logx-deferred-format-" + THREAD_COUNTER.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        boolean tryPublish(E event) {
+            long seq;
+            try {
+                seq = ringBuffer.tryNext();
+            } catch (InsufficientCapacityException e) {
+                return false;
+            }
+            ringBuffer.get(seq).event = event;
+            ringBuffer.publish(seq);
+            return true;
+        }
+
+        @Override
+        public void onEvent(Slot<E> slot, long sequence, boolean endOfBatch) {
+            E event = slot.event;
+            slot.event = null;
+            if (event != null) {
+                stage.deliverOnWorker(event);
+            }
+        }
+
+        long getBacklog() {
+            return Math.max(0, ringBuffer.getCursor() - processor.getSequence().get());
+        }
+
+        void awaitDrained(long deadline) {
+            while (getBacklog() > 0 && thread.isAlive() && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void join(long deadline) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                thread.join(Math.max(1, remainingMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 工作线程停止后处理仍留在RingBuffer中的事件（关闭前一刻提交或排空超时的事件）
+         * <p>
+         * 调用方已等待发布中的调用线程归零，游标以内的序号都已写入事件；槽位在处理后清空，按事件是否为空判断
+         */
+        void drainRemaining() {
+            if (thread.isAlive()) {
+                return;
+            }
+            long cursor = ringBuffer.getCursor();
+            for (long seq = processor.getSequence().get() + 1; seq <= cursor; seq++) {
+                Slot<E> slot = ringBuffer.get(seq);
+                E event = slot.event;
+                slot.event = null;
+                if (event != null) {
+                    stage.deliverOnWorker(event);
+                }
+            }
+            processor.getSequence().set(cursor);
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+        WorkerThread(Runnable target, String name) {
+            super(target, name);
+        }
+    }
+
+    private static final class LoggingExceptionHandler<T> implements ExceptionHandler<T> {
+        @Override
+        public void handleEventException(Throwable ex, long sequence, T event) {
+            logger.warn("Deferred-format worker failed at sequence {}", sequence, ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex) {
+            logger.error("Deferred-format worker failed to start", ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex) {
+            logger.warn("Deferred-format worker failed to shut down", ex);
+        }
+    }
+}
@@ -2,11 +2,17 @@ package org.logx.core;
 
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
+import org.logx.fallback.FallbackPriority;
 import org.logx.fallback.ObjectNameGenerator;
+import org.logx.fallback.ObjectNameStrategy;
+import org.logx.metrics.Histogram;
+import org.logx.metrics.LatencyRecorder;
+import org.logx.metrics.MetricGroup;
 import org.logx.storage.StorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,48 +22,123 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.GZIPOutputStream;
 
 public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(EnhancedDisruptorBatchingQueue.class);
+    private static final long SNAPSHOT_HALT_WAIT_MS = 2000L;
 
     public static class LogEvent {
         public final byte[] payload;
         public final long timestampMs;
+        public final String routeKey;
 
         public LogEvent(byte[] payload, long timestampMs) {
+            this(payload, timestampMs, null);
+        }
+
+        public LogEvent(byte[] payload, long timestampMs, String routeKey) {
             this.payload = payload;
             this.timestampMs = timestampMs;
+            this.routeKey = routeKey;
         }
     }
 
     public interface BatchConsumer {
         boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount);
+
+        /**
+         * 处理某个路由的批次，未启用路由或事件没有路由键时routeKey为null
+         */
+        default boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount,
+                                     String routeKey) {
+            return processBatch(batchData, originalSize, compressed, messageCount);
+        }
+
+        /**
+         * 处理批次并带上批次中最高的日志级别对应的兜底优先级，批次写入兜底文件时按该优先级参与磁盘配额淘汰
+         *
+         * @param priority 批次中各事件探测到的最高优先级
+         */
+        default boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount,
+                                     String routeKey, FallbackPriority priority) {
+            return processBatch(batchData, originalSize, compressed, messageCount, routeKey);
+        }
+
+        /**
+         * 分片上传失败（含关闭时未执行的分片）后回调，在上传线程或关闭线程上执行
+         *
+         * @param shard 分片内容的只读视图
+         * @param cause 失败原因
+         */
+        default void onShardFailed(ByteBuffer shard, Throwable cause) {
+        }
+
+        /**
+         * 分片上传失败后回调，区分分片是否已交给存储服务
+         *
+         * @param shard 分片内容的只读视图
+         * @param cause 失败原因
+         * @param uploadAttempted 是否已调用存储服务上传，false表示分片在上传前就失败（上传预算耗尽、未执行等）
+         */
+        default void onShardFailed(ByteBuffer shard, Throwable cause, boolean uploadAttempted) {
+            onShardFailed(shard, cause);
+        }
+
+        /**
+         * 分片上传失败后回调，带上分片的对象键和所属批次的兜底优先级
+         *
+         * @param key 分片的对象键，兜底文件重传时使用；上传预算耗尽时为整批的对象键
+         * @param priority 所属批次中各事件探测到的最高优先级
+         */
+        default void onShardFailed(ByteBuffer shard, String key, Throwable cause, boolean uploadAttempted,
+                                   FallbackPriority priority) {
+            onShardFailed(shard, cause, uploadAttempted);
+        }
+
+        /**
+         * 分片批次的所有分片都结束（成功或失败）后回调，在上传线程或关闭线程上执行
+         *
+         * @param originalSize 批次未压缩的字节数
+         * @param messageCount 批次中的事件数
+         * @param shardCount 分片数
+         * @param failedShards 失败的分片数
+         */
+        default void onShardedBatchComplete(int originalSize, int messageCount, int shardCount, int failedShards) {
+        }
     }
 
     private static final class LogEventHolder {
         byte[] payload;
         long timestampMs;
+        String routeKey;
 
-        void set(byte[] p, long ts) {
+        void set(byte[] p, long ts, String route) {
             this.payload = p;
             this.timestampMs = ts;
+            this.routeKey = route;
         }
 
         void clear() {
             this.payload = null;
             this.timestampMs = 0L;
+            this.routeKey = null;
         }
     }
 
@@ -68,9 +149,16 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
     private final RingBuffer<LogEventHolder> ringBuffer;
     private final BatchEventHandler batchEventHandler;
     private final AtomicBoolean flushRequested = new AtomicBoolean(false);
-    private final ScheduledExecutorService scheduler;
+    // 未注入共享调度线程时在start中创建自有线程
+    private ScheduledExecutorService scheduler;
+    private boolean ownsScheduler;
+    private ScheduledFuture<?> batchCheckTask;
+    private final ReentrantLock batchCheckLock = new ReentrantLock();
 
     private volatile boolean started = false;
+    private volatile boolean snapshotRequested = false;
+    // 启用快照时统计正在发布的生产者，快照关闭等待其归零后再收集槽位，不会遗漏已认领尚未发布的序号
+    private final AtomicInteger activePublishers = new AtomicInteger(0);
 
     private final AtomicLong totalBatchesProcessed = new AtomicLong(0);
     private final AtomicLong totalMessagesProcessed = new AtomicLong(0);
@@ -78,11 +166,25 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
     private final AtomicLong totalBytesCompressed = new AtomicLong(0);
     private final AtomicLong totalCompressionSavings = new AtomicLong(0);
     private final AtomicLong totalShardsCreated = new AtomicLong(0);
+    private final AtomicLong totalShardsFailed = new AtomicLong(0);
     private final AtomicLong totalDroppedMessages = new AtomicLong(0);
     private final AtomicLong lastDropLogTimeMs = new AtomicLong(0);
+    private final AtomicLong totalRouteEvictions = new AtomicLong(0);
+    private final Histogram batchMessages = new Histogram();
+    private final Histogram batchBytes = new Histogram();
+    private final LatencyRecorder submitLatency = new LatencyRecorder();
+    private final LatencyRecorder flushLatency = new LatencyRecorder();
+    private final LatencyRecorder compressLatency = new LatencyRecorder();
+    private final LatencyRecorder shardUploadLatency = new LatencyRecorder();
     private volatile java.util.concurrent.ExecutorService shardExecutor;
     private volatile long uploadTimeoutMs = 30000L;
+    // 分片路径总是按块压缩；普通批次只在开启并行压缩或块索引时输出多成员GZIP
+    private final ParallelGzipCompressor compressor;
+    private final boolean multiMemberBatches;
     private final Object capacityMonitor = new Object();
+    // 上传中的分片批次占用的字节数，消费线程只在超出预算时等待
+    private final Object shardBudgetMonitor = new Object();
+    private long shardBytesInFlight;
 
     public EnhancedDisruptorBatchingQueue(Config config, BatchConsumer consumer, StorageService storageService) {
         this.config = config;
@@ -90,6 +192,13 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
         this.storageService = storageService;
         this.shardExecutor = config.getShardExecutor();
         this.uploadTimeoutMs = config.getUploadTimeoutMs();
+        this.multiMemberBatches = config.compressionParallelism > 1 || config.compressionBlockIndex;
+        // 块不能大于分片目标，否则单个成员就会超出对象大小上限
+        int blockSize = config.enableSharding
+                ? Math.min(config.compressionBlockSize, config.getShardSize())
+                : config.compressionBlockSize;
+        this.compressor = new ParallelGzipCompressor(config.compressionParallelism, blockSize,
+                config.compressionBlockIndex);
 
         logger.debug("Initializing EnhancedDisruptorBatchingQueue with config: queueCapacity={}, batchMaxMessages={}, batchMaxBytes={}, maxMessageAgeMs={}",
                 config.queueCapacity, config.batchMaxMessages, config.batchMaxBytes, config.maxMessageAgeMs);
@@ -130,36 +239,116 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
         });
 
         this.ringBuffer = disruptor.getRingBuffer();
+    }
 
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "disruptor-batch-scheduler");
-            t.setDaemon(true);
-            return t;
-        });
+    /**
+     * 使用共享调度线程执行批次超时检查，必须在{@link #start()}之前调用；关闭队列时只取消本队列的检查任务
+     *
+     * @param scheduler 共享调度线程池
+     */
+    public synchronized void setScheduler(ScheduledExecutorService scheduler) {
+        if (!started) {
+            this.scheduler = scheduler;
+        }
     }
 
     public synchronized void start() {
         if (started) {
             return;
         }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "disruptor-batch-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+            ownsScheduler = true;
+        }
         disruptor.start();
         long checkInterval = Math.max(100, config.maxMessageAgeMs / 10);
-        scheduler.scheduleAtFixedRate(batchEventHandler::checkAndProcessBatch, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        batchCheckTask = scheduler.scheduleAtFixedRate(this::runBatchCheck, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
         started = true;
     }
 
+    private void runBatchCheck() {
+        batchCheckLock.lock();
+        try {
+            batchEventHandler.checkAndProcessBatch();
+        } finally {
+            batchCheckLock.unlock();
+        }
+    }
+
+    /**
+     * 停止批次超时检查
+     *
+     * @param interrupt 是否中断正在执行的检查
+     * @param waitMs 等待正在执行的检查结束的时间
+     * @return 检查任务是否已空闲
+     */
+    private boolean stopBatchCheck(boolean interrupt, long waitMs) throws InterruptedException {
+        if (ownsScheduler) {
+            if (interrupt) {
+                scheduler.shutdownNow();
+                return scheduler.awaitTermination(waitMs, TimeUnit.MILLISECONDS);
+            }
+            scheduler.shutdown();
+            if (!scheduler.awaitTermination(waitMs, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+                return false;
+            }
+            return true;
+        }
+        if (batchCheckTask != null) {
+            batchCheckTask.cancel(interrupt);
+        }
+        if (batchCheckLock.tryLock(waitMs, TimeUnit.MILLISECONDS)) {
+            batchCheckLock.unlock();
+            return true;
+        }
+        return false;
+    }
+
     public boolean submit(byte[] payload) {
-        if (!started) {
-            return false;
+        return submit(payload, null);
+    }
+
+    /**
+     * 提交事件到指定路由
+     *
+     * @param payload 日志内容
+     * @param routeKey 路由键，为null或未配置路由时进入默认批次
+     * @return 是否成功入队
+     */
+    public boolean submit(byte[] payload, String routeKey) {
+        if (config.snapshotStore == null) {
+            return started && timedPublish(payload, routeKey);
+        }
+        activePublishers.incrementAndGet();
+        try {
+            return started && timedPublish(payload, routeKey);
+        } finally {
+            activePublishers.decrementAndGet();
+        }
+    }
+
+    private boolean timedPublish(byte[] payload, String routeKey) {
+        long startNanos = System.nanoTime();
+        try {
+            return publish(payload, routeKey);
+        } finally {
+            submitLatency.recordSince(startNanos);
         }
+    }
 
+    private boolean publish(byte[] payload, String routeKey) {
         long ts = System.currentTimeMillis();
         while (true) {
             if (ringBuffer.hasAvailableCapacity(1)) {
                 long seq = ringBuffer.next();
                 try {
                     LogEventHolder slot = ringBuffer.get(seq);
-                    slot.set(payload, ts);
+                    slot.set(payload, ts, config.routing != null ? routeKey : null);
                 } finally {
                     ringBuffer.publish(seq);
                 }
@@ -179,6 +368,10 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
                 return false;
             }
 
+            if (!started) {
+                return false;
+            }
+
             try {
                 synchronized (capacityMonitor) {
                     capacityMonitor.wait(5L);
@@ -223,6 +416,12 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
             return;
         }
 
+        if (config.snapshotStore != null) {
+            closeWithSnapshot();
+            shutdownCompressor();
+            return;
+        }
+
         logger.info("Closing queue, forcing processing of all remaining events");
 
         try {
@@ -232,27 +431,116 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
             logger.info("Step 2: Shutting down Disruptor to stop new events");
             disruptor.shutdown();
 
-            scheduler.shutdown();
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
+            stopBatchCheck(false, TimeUnit.SECONDS.toMillis(5));
 
             synchronized (this) {
                 wait(100);
             }
 
+            // 第一次刷出之后、Disruptor停止之前消费的事件仍在组装中的批次里，消费线程已停止，再刷出一次
+            batchEventHandler.forceFlushBuffer();
+
             logger.info("Step 3: Processing remaining events in the ring buffer");
             forceProcessAllRemainingEvents();
 
+            logger.info("Step 4: Waiting for sharded uploads in flight");
+            awaitShardUploads(uploadTimeoutMs);
+
         } catch (Exception e) {
             logger.error("Error while closing queue: {}", e.getMessage(), e);
         } finally {
             flushRequested.set(false);
             started = false;
+            shutdownCompressor();
             logger.info("Queue closed");
         }
     }
 
+    private void shutdownCompressor() {
+        compressor.shutdown();
+    }
+
+    /**
+     * 快速关闭：停止消费线程，将环形队列中未消费的事件和正在组装的批次一次性写入本地快照，
+     * 不等待云存储上传。快照写入失败时退回到直接上传剩余事件。
+     */
+    private void closeWithSnapshot() {
+        long startNanos = System.nanoTime();
+        started = false;
+        snapshotRequested = true;
+        signalCapacityAvailable();
+
+        try {
+            if (!awaitPublishers(SNAPSHOT_HALT_WAIT_MS)) {
+                logger.warn("{} producers still publishing at shutdown, their events may be missing from the snapshot",
+                        activePublishers.get());
+            }
+            boolean schedulerIdle = stopBatchCheck(true, SNAPSHOT_HALT_WAIT_MS);
+
+            disruptor.halt();
+            boolean consumerHalted = batchEventHandler.awaitShutdown(SNAPSHOT_HALT_WAIT_MS);
+
+            List<LogEvent> events = new ArrayList<>();
+            if (schedulerIdle && consumerHalted) {
+                batchEventHandler.drainBufferTo(events);
+            } else {
+                // 消费线程仍在上传当前批次，该批次失败时由上传路径自行兜底
+                logger.warn("Batch handler still busy uploading at shutdown, in-flight batch is not included in the snapshot");
+            }
+            collectUnconsumedEvents(batchEventHandler.lastConsumedSequence + 1, events);
+
+            if (events.isEmpty()) {
+                logger.info("Queue closed with snapshot, no pending events");
+                return;
+            }
+
+            try {
+                java.nio.file.Path snapshot = config.snapshotStore.write(events);
+                logger.info("Queue closed with snapshot: {} events written to {} in {} ms",
+                        events.size(), snapshot, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            } catch (IOException e) {
+                logger.error("Failed to write queue snapshot, uploading {} remaining events directly", events.size(), e);
+                processRemainingEvents(events);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while closing queue with snapshot");
+        } catch (Exception e) {
+            logger.error("Error while closing queue with snapshot: {}", e.getMessage(), e);
+        } finally {
+            flushRequested.set(false);
+        }
+    }
+
+    /**
+     * 等待已通过started检查的生产者发布完成，之后游标以内的序号都已发布
+     */
+    private boolean awaitPublishers(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (activePublishers.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(1L);
+        }
+        return true;
+    }
+
+    /**
+     * 消费线程处理过的槽位已清空，生产者都已退出后载荷不为空的槽位即未消费的事件
+     */
+    private void collectUnconsumedEvents(long fromSequence, List<LogEvent> events) {
+        long cursor = ringBuffer.getCursor();
+        long from = Math.max(fromSequence, cursor - ringBuffer.getBufferSize() + 1);
+        for (long seq = from; seq <= cursor; seq++) {
+            LogEventHolder holder = ringBuffer.get(seq);
+            if (holder.payload != null) {
+                events.add(new LogEvent(holder.payload, holder.timestampMs, holder.routeKey));
+                holder.clear();
+            }
+        }
+    }
+
     private void forceProcessAllRemainingEvents() {
         try {
             long cursor = ringBuffer.getCursor();
@@ -267,7 +555,7 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
                     try {
                         LogEventHolder holder = ringBuffer.get(seq);
                         if (holder != null && holder.payload != null) {
-                            remainingEvents.add(new LogEvent(holder.payload, holder.timestampMs));
+                            remainingEvents.add(new LogEvent(holder.payload, holder.timestampMs, holder.routeKey));
                         }
                     } catch (Exception e) {
                         logger.warn("Error processing remaining event at sequence {}: {}", seq, e.getMessage());
@@ -289,12 +577,29 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
     }
 
     private void processRemainingEvents(List<LogEvent> events) {
+        if (config.routing == null) {
+            processRemainingRoute(events, null);
+            return;
+        }
+        Map<String, List<LogEvent>> byRoute = new LinkedHashMap<>();
+        for (LogEvent event : events) {
+            byRoute.computeIfAbsent(event.routeKey, k -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<String, List<LogEvent>> entry : byRoute.entrySet()) {
+            processRemainingRoute(entry.getValue(), entry.getKey());
+        }
+    }
+
+    private void processRemainingRoute(List<LogEvent> events, String routeKey) {
+        long startNanos = System.nanoTime();
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             int totalBytes = 0;
+            FallbackPriority priority = FallbackPriority.LOW;
 
             for (LogEvent event : events) {
                 if (event.payload != null) {
+                    priority = higherPriority(priority, event.payload);
                     baos.write(event.payload);
                     if (event.payload.length > 0 && event.payload[event.payload.length - 1] != '\n') {
                         baos.write('\n');
@@ -312,29 +617,128 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
                     compressed = true;
                 }
 
-                boolean success = consumer.processBatch(finalData, totalBytes, compressed, events.size());
+                boolean success = consumer.processBatch(finalData, totalBytes, compressed, events.size(), routeKey,
+                        priority);
 
                 if (success) {
                     totalBatchesProcessed.incrementAndGet();
                     totalMessagesProcessed.addAndGet(events.size());
                     totalBytesProcessed.addAndGet(totalBytes);
+                    batchMessages.record(events.size());
+                    batchBytes.record(totalBytes);
                 }
             }
         } catch (Exception e) {
             logger.error("Error processing remaining events: {}", e.getMessage(), e);
+        } finally {
+            flushLatency.recordSince(startNanos);
         }
     }
 
-    private class BatchEventHandler implements EventHandler<LogEventHolder> {
-        private LogEvent[] eventBuffer;
-        private int bufferHead = 0;
-        private int bufferTail = 0;
-        private int bufferCount = 0;
+    /**
+     * 单个路由正在组装的批次，只在持有BatchEventHandler锁时访问
+     */
+    private final class RouteBuffer {
+        private final String routeKey;
+        private final int maxMessages;
+        private final int maxBytes;
+        private final long maxAgeMs;
+        private final LogEvent[] events;
+        private int count = 0;
         private int totalBytes = 0;
         private long oldestTimestamp = 0L;
+        private FallbackPriority priority = FallbackPriority.LOW;
+
+        RouteBuffer(String routeKey, BatchRouting.Route route) {
+            this.routeKey = routeKey;
+            this.maxMessages = route != null && route.getBatchMaxMessages() > 0
+                    ? Math.max(1, Math.min(10000, route.getBatchMaxMessages()))
+                    : config.batchMaxMessages;
+            this.maxBytes = route != null && route.getBatchMaxBytes() > 0 ? route.getBatchMaxBytes() : config.batchMaxBytes;
+            this.maxAgeMs = route != null && route.getMaxMessageAgeMs() > 0 ? route.getMaxMessageAgeMs() : config.maxMessageAgeMs;
+            this.events = new LogEvent[maxMessages];
+        }
+
+        void add(LogEvent event) {
+            if (count == 0) {
+                oldestTimestamp = event.timestampMs;
+            }
+            events[count++] = event;
+            totalBytes += event.payload.length;
+            priority = higherPriority(priority, event.payload);
+        }
+
+        void clear() {
+            Arrays.fill(events, 0, count, null);
+            count = 0;
+            totalBytes = 0;
+            oldestTimestamp = 0L;
+            priority = FallbackPriority.LOW;
+        }
+
+        String describe() {
+            return routeKey == null ? "default" : routeKey;
+        }
+    }
+
+    private class BatchEventHandler implements EventHandler<LogEventHolder>, LifecycleAware {
+        private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+        private volatile long lastConsumedSequence = -1L;
+        private final RouteBuffer defaultBuffer = new RouteBuffer(null, null);
+        private final Map<String, RouteBuffer> routeBuffers;
 
         BatchEventHandler() {
-            this.eventBuffer = new LogEvent[config.batchMaxMessages];
+            final int maxRoutes = config.routing != null ? config.routing.getMaxRoutes() : 0;
+            // 按访问顺序维护路由，超出上限时先上传最久未使用路由的批次再淘汰
+            this.routeBuffers = new LinkedHashMap<String, RouteBuffer>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RouteBuffer> eldest) {
+                    if (size() <= maxRoutes) {
+                        return false;
+                    }
+                    RouteBuffer evicted = eldest.getValue();
+                    if (evicted.count > 0) {
+                        flush(evicted, "route evicted");
+                    }
+                    totalRouteEvictions.incrementAndGet();
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public void onStart() {
+        }
+
+        @Override
+        public void onShutdown() {
+            shutdownLatch.countDown();
+        }
+
+        boolean awaitShutdown(long timeoutMs) throws InterruptedException {
+            return shutdownLatch.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 取出所有路由正在组装的批次，仅在消费线程和定时检查线程都已停止后调用
+         */
+        synchronized void drainBufferTo(List<LogEvent> events) {
+            drain(defaultBuffer, events);
+            for (RouteBuffer buffer : routeBuffers.values()) {
+                drain(buffer, events);
+            }
+            routeBuffers.clear();
+        }
+
+        private void drain(RouteBuffer buffer, List<LogEvent> events) {
+            for (int i = 0; i < buffer.count; i++) {
+                events.add(buffer.events[i]);
+            }
+            buffer.clear();
+        }
+
+        synchronized int getActiveRouteCount() {
+            return routeBuffers.size();
         }
 
         @Override
@@ -343,132 +747,150 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
                 return;
             }
 
+            // 快照关闭期间保留槽位中的事件，由关闭线程写入快照
+            if (snapshotRequested) {
+                return;
+            }
+
             if (ev.payload == null) {
-                if (flushRequested.get() && bufferCount > 0) {
-                    processBatch();
-                    clearBuffer();
-                    flushRequested.set(false);
-                }
-                if (flushRequested.get() && bufferCount == 0) {
+                if (flushRequested.get()) {
+                    forceFlushBuffer();
                     flushRequested.set(false);
                 }
                 ev.clear();
+                lastConsumedSequence = sequence;
                 signalCapacityAvailable();
                 return;
             }
 
-            LogEvent event = new LogEvent(ev.payload, ev.timestampMs);
-            eventBuffer[bufferTail] = event;
-            bufferTail = (bufferTail + 1) % eventBuffer.length;
-            bufferCount++;
+            LogEvent event = new LogEvent(ev.payload, ev.timestampMs, ev.routeKey);
+            ev.clear();
+            lastConsumedSequence = sequence;
+            signalCapacityAvailable();
 
-            if (bufferCount == 1) {
-                oldestTimestamp = event.timestampMs;
+            append(event);
+        }
+
+        private synchronized void append(LogEvent event) {
+            RouteBuffer buffer = bufferFor(event.routeKey);
+            buffer.add(event);
+
+            if (buffer.count >= buffer.maxMessages) {
+                flush(buffer, "message count threshold reached: " + buffer.count + " >= " + buffer.maxMessages);
+            } else if (buffer.totalBytes >= buffer.maxBytes) {
+                flush(buffer, "byte size threshold reached: " + buffer.totalBytes + " >= " + buffer.maxBytes);
             }
-            totalBytes += event.payload.length;
+        }
 
-            ev.clear();
-            signalCapacityAvailable();
+        private RouteBuffer bufferFor(String routeKey) {
+            if (routeKey == null || config.routing == null) {
+                return defaultBuffer;
+            }
+            RouteBuffer buffer = routeBuffers.get(routeKey);
+            if (buffer == null) {
+                buffer = new RouteBuffer(routeKey, config.routing.getRoute(routeKey));
+                routeBuffers.put(routeKey, buffer);
+            }
+            return buffer;
+        }
 
-            checkAndProcessBatchByCountAndSize();
+        private void flush(RouteBuffer buffer, String reason) {
+            logger.info("Triggering batch upload for route {} - {}", buffer.describe(), reason);
+            processBatch(buffer);
+            buffer.clear();
         }
 
-        private void processBatch() {
+        private void processBatch(RouteBuffer buffer) {
+            long startNanos = System.nanoTime();
             try {
-                byte[] serializedData = serializeToPatternFormat(eventBuffer, bufferHead, bufferCount);
+                byte[] serializedData = serializeToPatternFormat(buffer.events, 0, buffer.count);
                 int originalSize = serializedData.length;
 
-                boolean shouldCompress = config.enableCompression;
-                byte[] finalData = serializedData;
-
-                if (shouldCompress) {
-                    finalData = compressData(serializedData);
-                    totalBytesCompressed.addAndGet(finalData.length);
-                    totalCompressionSavings.addAndGet(originalSize - finalData.length);
-                }
-
                 boolean success;
                 if (config.enableSharding && originalSize > config.getShardingThreshold()) {
-                    success = processSharding(serializedData);
+                    success = processSharding(serializedData, buffer.count, buffer.routeKey, buffer.priority);
                 } else {
-                    success = consumer.processBatch(finalData, originalSize, shouldCompress, bufferCount);
+                    boolean shouldCompress = config.enableCompression;
+                    byte[] finalData = serializedData;
+                    if (shouldCompress) {
+                        finalData = compressData(serializedData);
+                        recordCompression(originalSize, finalData.length);
+                    }
+                    success = consumer.processBatch(finalData, originalSize, shouldCompress, buffer.count, buffer.routeKey,
+                            buffer.priority);
                 }
 
                 if (success) {
                     totalBatchesProcessed.incrementAndGet();
-                    totalMessagesProcessed.addAndGet(bufferCount);
+                    totalMessagesProcessed.addAndGet(buffer.count);
                     totalBytesProcessed.addAndGet(originalSize);
+                    batchMessages.record(buffer.count);
+                    batchBytes.record(originalSize);
                 }
 
             } catch (Exception e) {
                 logger.error("Batch processing failed: {}", e.getMessage(), e);
+            } finally {
+                flushLatency.recordSince(startNanos);
             }
         }
 
-        private void clearBuffer() {
-            for (int i = 0; i < bufferCount; i++) {
-                int index = (bufferHead + i) % eventBuffer.length;
-                eventBuffer[index] = null;
+        public synchronized void checkAndProcessBatch() {
+            long currentTime = System.currentTimeMillis();
+            checkAge(defaultBuffer, currentTime);
+            for (RouteBuffer buffer : routeBuffers.values()) {
+                checkAge(buffer, currentTime);
             }
-
-            bufferHead = 0;
-            bufferTail = 0;
-            bufferCount = 0;
-            totalBytes = 0;
-            oldestTimestamp = 0L;
         }
 
-        private synchronized void checkAndProcessBatchByCountAndSize() {
-            boolean shouldTrigger = false;
-            String triggerReason = "";
-
-            if (bufferCount >= config.batchMaxMessages) {
-                shouldTrigger = true;
-                triggerReason = "message count threshold reached: " + bufferCount + " >= " + config.batchMaxMessages;
-            } else if (totalBytes >= config.batchMaxBytes) {
-                shouldTrigger = true;
-                triggerReason = "byte size threshold reached: " + totalBytes + " >= " + config.batchMaxBytes;
-            }
-
-            if (shouldTrigger) {
-                logger.info("Triggering batch upload - {}", triggerReason);
-                processBatch();
-                clearBuffer();
+        private void checkAge(RouteBuffer buffer, long currentTime) {
+            if (buffer.count > 0) {
+                long age = currentTime - buffer.oldestTimestamp;
+                if (age >= buffer.maxAgeMs) {
+                    flush(buffer, "message age timeout: " + age + "ms >= " + buffer.maxAgeMs + "ms");
+                }
             }
         }
 
-        public synchronized void checkAndProcessBatch() {
-            if (bufferCount > 0) {
-                long currentTime = System.currentTimeMillis();
-                long age = currentTime - oldestTimestamp;
-                if (age >= config.maxMessageAgeMs) {
-                    logger.info("Triggering batch upload - message age timeout: {}ms >= {}ms", age, config.maxMessageAgeMs);
-                    processBatch();
-                    clearBuffer();
-                }
+        public synchronized void forceFlushBuffer() {
+            forceFlush(defaultBuffer);
+            for (RouteBuffer buffer : routeBuffers.values()) {
+                forceFlush(buffer);
             }
         }
 
-        public void forceFlushBuffer() {
-            if (bufferCount > 0) {
-                logger.info("Forcing flush of BatchEventHandler buffer with {} events", bufferCount);
+        private void forceFlush(RouteBuffer buffer) {
+            if (buffer.count > 0) {
+                logger.info("Forcing flush of route {} buffer with {} events", buffer.describe(), buffer.count);
                 try {
-                    processBatch();
+                    processBatch(buffer);
                 } catch (Exception e) {
                     logger.error("Error during forced flush of BatchEventHandler buffer: {}", e.getMessage(), e);
                 }
-                clearBuffer();
+                buffer.clear();
             }
         }
     }
 
+    /**
+     * 批次优先级取各事件探测到的最高优先级，已是最高时不再扫描后续事件
+     */
+    private static FallbackPriority higherPriority(FallbackPriority current, byte[] payload) {
+        if (current == FallbackPriority.HIGH) {
+            return current;
+        }
+        FallbackPriority detected = FallbackPriority.detect(payload);
+        return detected.compareTo(current) > 0 ? detected : current;
+    }
+
     private void signalCapacityAvailable() {
         synchronized (capacityMonitor) {
             capacityMonitor.notifyAll();
         }
     }
 
-    private byte[] serializeToPatternFormat(LogEvent[] events, int head, int count) {
+    // 包级别可见，供基准测试直接测量序列化开销
+    static byte[] serializeToPatternFormat(LogEvent[] events, int head, int count) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
             for (int i = 0; i < count; i++) {
@@ -503,6 +925,19 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
     }
 
     private byte[] compressData(byte[] data) throws IOException {
+        long startNanos = System.nanoTime();
+        byte[] compressed = multiMemberBatches ? compressor.compress(data) : gzip(data);
+        compressLatency.recordSince(startNanos);
+        return compressed;
+    }
+
+    private void recordCompression(int originalSize, int compressedSize) {
+        totalBytesCompressed.addAndGet(compressedSize);
+        totalCompressionSavings.addAndGet(originalSize - compressedSize);
+    }
+
+    // 包级别可见，供基准测试直接测量压缩开销
+    static byte[] gzip(byte[] data) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
             gzos.write(data);
@@ -510,147 +945,306 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
         return baos.toByteArray();
     }
 
-    private boolean processSharding(byte[] data) {
-        List<CompletableFuture<Void>> windowFutures = new ArrayList<>();
+    /**
+     * 把超过分片阈值的批次交给上传线程，消费线程不等待网络
+     * <p>
+     * 分片在记录边界处切分，每个字节只压缩一次：
+     * <ul>
+     * <li>开启压缩时整批按行边界块压缩为多成员GZIP，再按压缩后的大小把连续成员合并为分片，
+     * 每个分片都是可独立解压的GZIP对象；压缩后不超过分片大小时作为普通批次上传</li>
+     * <li>未开启压缩时在分片大小之前的最后一个换行处切分，单条记录超过分片大小时才在记录中间切开</li>
+     * </ul>
+     * 各分片作为一个整体在上传线程上执行，每个分片结束后启动下一个，在途分片数不超过maxConcurrentShardUploads；
+     * 结果通过{@link BatchConsumer#onShardFailed}和{@link BatchConsumer#onShardedBatchComplete}回调。
+     * 消费线程只在上传中的分片字节数超出内存预算时等待，超过uploadTimeoutMs仍无预算时整批按失败处理。
+     */
+    private boolean processSharding(byte[] data, int messageCount, String routeKey, FallbackPriority priority) {
         try {
             int shardSize = config.getShardSize();
-            int shardCount = (int) Math.ceil((double) data.length / shardSize);
-
-            if (shardCount <= 1) {
-                return consumer.processBatch(data, data.length, false, 1);
+            byte[] payload = data;
+            List<int[]> shards;
+            if (config.enableCompression) {
+                long startNanos = System.nanoTime();
+                ParallelGzipCompressor.Members members = compressor.compressMembers(data, 0, data.length);
+                compressLatency.recordSince(startNanos);
+                recordCompression(data.length, members.bytes.length);
+                payload = members.bytes;
+                shards = groupMembers(members.ends, shardSize);
+            } else {
+                shards = splitOnLines(data, shardSize);
             }
 
-            if (shardExecutor == null) {
-                logger.warn("Shard executor not configured, falling back to synchronous upload on consumer thread");
+            if (shards.size() <= 1) {
+                return consumer.processBatch(payload, data.length, config.enableCompression, messageCount, routeKey,
+                        priority);
             }
 
-            int maxConcurrentUploads = config.getMaxConcurrentShardUploads();
-            long overallDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(uploadTimeoutMs);
-            Executor executor = shardExecutor != null
-                    ? shardExecutor
-                    : java.util.concurrent.ForkJoinPool.commonPool();
-            Semaphore uploadSlots = new Semaphore(maxConcurrentUploads);
-
-            for (int i = 0; i < shardCount; i++) {
-                int start = i * shardSize;
-                int length = Math.min(shardSize, data.length - start);
-                String shardKey = ObjectNameGenerator.generateObjectName(storageService.getKeyPrefix());
-                totalShardsCreated.incrementAndGet();
-                ByteBuffer shardBuffer = ByteBuffer.wrap(data, start, length).slice();
-
-                waitForWindowSlot(uploadSlots, windowFutures, overallDeadlineNanos);
-
-                CompletableFuture<Void> uploadFuture = CompletableFuture.runAsync(() -> {
-                    try {
-                        long remainingMs = getRemainingMs(overallDeadlineNanos);
-                        if (remainingMs <= 0) {
-                            throw new java.util.concurrent.TimeoutException("Sharding process reached overall deadline");
-                        }
-
-                        long perShardTimeoutMs = Math.min(uploadTimeoutMs, remainingMs);
-                        ByteBuffer uploadBuffer = shardBuffer.asReadOnlyBuffer();
-                        ByteBuffer payloadBuffer = config.enableCompression
-                                ? ByteBuffer.wrap(compressData(uploadBuffer))
-                                : uploadBuffer;
-
-                        storageService.putObject(shardKey, payloadBuffer)
-                                .get(perShardTimeoutMs, TimeUnit.MILLISECONDS);
-                    } catch (Exception ex) {
-                        throw new RuntimeException("Shard upload failed for key " + shardKey, ex);
-                    } finally {
-                        uploadSlots.release();
-                    }
-                }, executor);
-
-                windowFutures.add(uploadFuture);
+            if (!acquireShardBudget(payload.length, uploadTimeoutMs)) {
+                logger.error("Shard upload budget of {} bytes still exhausted after {} ms, batch of {} bytes failed",
+                        config.shardUploadMemoryBytes, uploadTimeoutMs, payload.length);
+                totalShardsFailed.addAndGet(shards.size());
+                consumer.onShardFailed(ByteBuffer.wrap(payload).asReadOnlyBuffer(), objectKeyFor(routeKey),
+                        new java.util.concurrent.TimeoutException("Shard upload budget exhausted"), false, priority);
+                consumer.onShardedBatchComplete(data.length, messageCount, shards.size(), shards.size());
+                return false;
             }
 
-            waitAllWindowFutures(windowFutures, overallDeadlineNanos);
+            Executor executor = shardExecutor;
+            if (executor == null) {
+                logger.warn("Shard executor not configured, uploading shards on the common pool");
+                executor = java.util.concurrent.ForkJoinPool.commonPool();
+            }
+            new ShardedUpload(payload, shards, routeKey, data.length, messageCount, priority, executor).start();
             return true;
         } catch (InterruptedException e) {
             logger.error("Sharding process interrupted: {}", e.getMessage());
             Thread.currentThread().interrupt();
             return false;
-        } catch (java.util.concurrent.TimeoutException e) {
-            logger.error("Sharding process timeout after {} ms", uploadTimeoutMs);
-            windowFutures.forEach(future -> future.cancel(true));
-            return false;
         } catch (Exception e) {
             logger.error("Sharding process failed: {}", e.getMessage(), e);
-            windowFutures.forEach(future -> future.cancel(true));
             return false;
         }
     }
 
-    private void waitForWindowSlot(Semaphore uploadSlots,
-                                   List<CompletableFuture<Void>> windowFutures,
-                                   long overallDeadlineNanos) throws Exception {
-        while (!uploadSlots.tryAcquire(50, TimeUnit.MILLISECONDS)) {
-            if (getRemainingMs(overallDeadlineNanos) <= 0) {
-                throw new java.util.concurrent.TimeoutException("Sharding process reached overall deadline");
+    private boolean acquireShardBudget(long bytes, long timeoutMs) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (shardBudgetMonitor) {
+            // 没有在途分片时总是放行，超过预算的单个批次也能上传
+            while (shardBytesInFlight > 0 && shardBytesInFlight + bytes > config.shardUploadMemoryBytes) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(shardBudgetMonitor, remainingNanos);
             }
-            drainCompletedFutures(windowFutures);
+            shardBytesInFlight += bytes;
+            return true;
         }
-        drainCompletedFutures(windowFutures);
     }
 
-    private void drainCompletedFutures(List<CompletableFuture<Void>> windowFutures) throws Exception {
-        for (int i = windowFutures.size() - 1; i >= 0; i--) {
-            CompletableFuture<Void> future = windowFutures.get(i);
-            if (future.isDone()) {
-                windowFutures.remove(i);
-                getFutureResult(future);
+    private void releaseShardBudget(long bytes) {
+        synchronized (shardBudgetMonitor) {
+            shardBytesInFlight -= bytes;
+            shardBudgetMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * 等待上传中的分片批次结束
+     *
+     * @param timeoutMs 最长等待时间
+     * @return 是否全部结束
+     */
+    boolean awaitShardUploads(long timeoutMs) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (shardBudgetMonitor) {
+            while (shardBytesInFlight > 0) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    logger.warn("{} bytes of sharded uploads still in flight after {} ms", shardBytesInFlight, timeoutMs);
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(shardBudgetMonitor, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
             }
+            return true;
         }
     }
 
-    private void waitAllWindowFutures(List<CompletableFuture<Void>> windowFutures, long overallDeadlineNanos)
-            throws Exception {
-        while (!windowFutures.isEmpty()) {
-            if (getRemainingMs(overallDeadlineNanos) <= 0) {
-                throw new java.util.concurrent.TimeoutException("Sharding process reached overall deadline");
+    /**
+     * @return 上传中的分片批次占用的字节数
+     */
+    public long getShardBytesInFlight() {
+        synchronized (shardBudgetMonitor) {
+            return shardBytesInFlight;
+        }
+    }
+
+    /**
+     * 一个分片批次的上传，所有分片结束后释放内存预算并回调消费者
+     */
+    private final class ShardedUpload {
+        private final byte[] payload;
+        private final List<int[]> shards;
+        private final String[] keys;
+        private final int originalSize;
+        private final int messageCount;
+        private final FallbackPriority priority;
+        private final Executor executor;
+        private final AtomicInteger nextShard = new AtomicInteger();
+        private final AtomicInteger remainingShards;
+        private final AtomicInteger failedShards = new AtomicInteger();
+
+        ShardedUpload(byte[] payload, List<int[]> shards, String routeKey, int originalSize, int messageCount,
+                      FallbackPriority priority, Executor executor) {
+            this.payload = payload;
+            this.shards = shards;
+            this.originalSize = originalSize;
+            this.messageCount = messageCount;
+            this.priority = priority;
+            this.executor = executor;
+            this.remainingShards = new AtomicInteger(shards.size());
+            // 各分片的对象名在此按分片顺序一次生成，上传和写入兜底都沿用同一个对象键
+            this.keys = new String[shards.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = objectKeyFor(routeKey);
             }
-            drainCompletedFutures(windowFutures);
-            if (!windowFutures.isEmpty()) {
-                Thread.sleep(10L);
+            totalShardsCreated.addAndGet(shards.size());
+        }
+
+        void start() {
+            int window = Math.min(config.getMaxConcurrentShardUploads(), shards.size());
+            for (int i = 0; i < window; i++) {
+                launchNext();
             }
         }
-    }
 
-    private void getFutureResult(CompletableFuture<Void> future) throws Exception {
-        try {
-            future.get();
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof Exception) {
-                throw (Exception) cause;
+        private void launchNext() {
+            int index = nextShard.getAndIncrement();
+            if (index >= shards.size()) {
+                return;
+            }
+            ShardUploadTask task = new ShardUploadTask(this, index);
+            try {
+                executor.execute(task);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                task.abandon();
+            }
+        }
+
+        void upload(int index) {
+            long startNanos = System.nanoTime();
+            try {
+                // 经由扇出上传时带上批次优先级，扇出目标写入兜底文件时按该优先级参与配额淘汰
+                java.util.concurrent.CompletableFuture<Void> future = storageService instanceof FanOutStorageService
+                        ? ((FanOutStorageService) storageService).putObject(keys[index], shard(index), priority)
+                        : storageService.putObject(keys[index], shard(index));
+                future.get(uploadTimeoutMs, TimeUnit.MILLISECONDS);
+                shardUploadLatency.recordSince(startNanos);
+                onShardDone(index, null, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                onShardDone(index, e, true);
+            } catch (ExecutionException e) {
+                onShardDone(index, e.getCause() != null ? e.getCause() : e, true);
+            } catch (Exception e) {
+                onShardDone(index, e, true);
+            }
+        }
+
+        ByteBuffer shard(int index) {
+            int[] shard = shards.get(index);
+            return ByteBuffer.wrap(payload, shard[0], shard[1]).slice().asReadOnlyBuffer();
+        }
+
+        void onShardDone(int index, Throwable failure, boolean uploadAttempted) {
+            if (failure != null) {
+                failedShards.incrementAndGet();
+                totalShardsFailed.incrementAndGet();
+                logger.error("Shard upload failed for key {}: {}", keys[index], failure.getMessage(), failure);
+                try {
+                    consumer.onShardFailed(shard(index), keys[index], failure, uploadAttempted, priority);
+                } catch (Exception e) {
+                    logger.error("Shard failure callback failed for key {}: {}", keys[index], e.getMessage(), e);
+                }
+            }
+            if (remainingShards.decrementAndGet() > 0) {
+                launchNext();
+                return;
+            }
+            releaseShardBudget(payload.length);
+            try {
+                consumer.onShardedBatchComplete(originalSize, messageCount, shards.size(), failedShards.get());
+            } catch (Exception e) {
+                logger.error("Sharded batch completion callback failed: {}", e.getMessage(), e);
             }
-            throw new RuntimeException(cause);
         }
     }
 
-    private long getRemainingMs(long overallDeadlineNanos) {
-        long remainingNanos = overallDeadlineNanos - System.nanoTime();
-        return TimeUnit.NANOSECONDS.toMillis(Math.max(0L, remainingNanos));
+    /**
+     * 单个分片的上传任务
+     * <p>
+     * 上传线程池关闭时取回的未执行任务应调用{@link #abandon()}，分片按失败处理并继续结束同批次的其余分片。
+     */
+    public static final class ShardUploadTask implements Runnable {
+        private final ShardedUpload upload;
+        private final int index;
+
+        private ShardUploadTask(ShardedUpload upload, int index) {
+            this.upload = upload;
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            upload.upload(index);
+        }
+
+        /**
+         * 放弃执行该分片，按上传失败回调
+         */
+        public void abandon() {
+            upload.onShardDone(index, new java.util.concurrent.RejectedExecutionException(
+                    "Shard upload abandoned before it started"), false);
+        }
     }
 
-    private byte[] compressData(ByteBuffer dataBuffer) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
-            if (dataBuffer.hasArray()) {
-                int offset = dataBuffer.arrayOffset() + dataBuffer.position();
-                gzos.write(dataBuffer.array(), offset, dataBuffer.remaining());
-            } else {
-                ByteBuffer readBuffer = dataBuffer.asReadOnlyBuffer();
-                byte[] chunk = new byte[Math.min(8192, readBuffer.remaining())];
-                while (readBuffer.hasRemaining()) {
-                    int read = Math.min(chunk.length, readBuffer.remaining());
-                    readBuffer.get(chunk, 0, read);
-                    gzos.write(chunk, 0, read);
-                }
+    private String objectKeyFor(String routeKey) {
+        if (config.routing == null || routeKey == null) {
+            return config.getObjectNameStrategy().generateObjectName(storageService.getKeyPrefix());
+        }
+        return config.getObjectNameStrategy().generateObjectName(
+                config.routing.keyPrefixFor(routeKey, storageService.getKeyPrefix()),
+                config.routing.attributesFor(routeKey));
+    }
+
+    /**
+     * 按行切分未压缩的批次：每个分片在目标大小之前的最后一个换行处结束，目标大小内没有换行时在目标大小处切开
+     *
+     * @return 各分片的[起始偏移, 长度]
+     */
+    static List<int[]> splitOnLines(byte[] data, int shardSize) {
+        List<int[]> shards = new ArrayList<>();
+        int start = 0;
+        while (data.length - start > shardSize) {
+            int cut = start + shardSize;
+            int lineEnd = cut;
+            while (lineEnd > start && data[lineEnd - 1] != '\n') {
+                lineEnd--;
+            }
+            if (lineEnd == start) {
+                lineEnd = cut;
             }
+            shards.add(new int[] {start, lineEnd - start});
+            start = lineEnd;
         }
-        return baos.toByteArray();
+        shards.add(new int[] {start, data.length - start});
+        return shards;
+    }
+
+    /**
+     * 把连续的GZIP成员合并为不超过目标大小的分片，单个成员超过目标大小时独占一个分片
+     *
+     * @param memberEnds 各成员的结束位置
+     * @return 各分片的[起始偏移, 长度]
+     */
+    static List<int[]> groupMembers(int[] memberEnds, int shardSize) {
+        List<int[]> shards = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < memberEnds.length) {
+            int end = memberEnds[i++];
+            while (i < memberEnds.length && memberEnds[i] - start <= shardSize) {
+                end = memberEnds[i++];
+            }
+            shards.add(new int[] {start, end - start});
+            start = end;
+        }
+        return shards;
     }
 
     public void setShardExecutor(java.util.concurrent.ExecutorService shardExecutor, long uploadTimeoutMs) {
@@ -658,6 +1252,55 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
         this.uploadTimeoutMs = uploadTimeoutMs;
     }
 
+    /**
+     * 把队列指标登记到指标分组
+     * <p>
+     * 入队数取自RingBuffer游标，丢弃、批次和压缩计数复用已有的计数器，不在submit热路径上增加开销；
+     * 各阶段耗时由按线程分片的{@link LatencyRecorder}记录，每次记录只有几纳秒。
+     *
+     * @param group 所属引擎的指标分组
+     */
+    public void bindMetrics(MetricGroup group) {
+        group.counter("queue.enqueued", "Events published to the ring buffer",
+                () -> ringBuffer.getCursor() + 1);
+        group.counter("queue.dropped", "Events dropped because the ring buffer was full", totalDroppedMessages::get);
+        group.gauge("queue.occupancy", "Ring buffer occupancy ratio (0-1)", this::getQueueUsageRatio);
+        group.gauge("queue.capacity", "Ring buffer size", ringBuffer::getBufferSize);
+        group.counter("batch.flushed", "Batches handed to the uploader", totalBatchesProcessed::get);
+        group.counter("batch.messages.total", "Events in flushed batches", totalMessagesProcessed::get);
+        group.counter("batch.bytes.total", "Uncompressed bytes in flushed batches", totalBytesProcessed::get);
+        group.counter("batch.shards", "Shards created for oversized batches", totalShardsCreated::get);
+        group.counter("batch.shards.failed", "Shards that failed to upload or were abandoned at shutdown",
+                totalShardsFailed::get);
+        group.gauge("batch.shards.inflight.bytes", "Bytes of sharded batches handed to the uploader and not yet finished",
+                this::getShardBytesInFlight);
+        group.counter("batch.route.evictions", "Route buffers evicted by the route limit", totalRouteEvictions::get);
+        group.counter("compress.bytes.out", "Compressed bytes produced", totalBytesCompressed::get);
+        group.counter("compress.bytes.saved", "Bytes saved by compression", totalCompressionSavings::get);
+        group.register("batch.messages", "Events per flushed batch", batchMessages);
+        group.register("batch.bytes", "Uncompressed bytes per flushed batch", batchBytes);
+        group.register("latency.submit.ns", "Time to publish one event, including waits on a full ring",
+                submitLatency);
+        group.register("latency.flush.ns", "Time to serialize, compress and hand off one batch, including waits for the shard upload budget", flushLatency);
+        group.register("latency.compress.ns", "GZIP compression time per batch, including oversized batches before sharding", compressLatency);
+        group.register("latency.upload.shard.ns", "putObject time per shard of an oversized batch",
+                shardUploadLatency);
+    }
+
+    /**
+     * @return 当前存在的路由批次数量，不含默认批次
+     */
+    public int getActiveRouteCount() {
+        return batchEventHandler.getActiveRouteCount();
+    }
+
+    /**
+     * @return 因超出路由上限被淘汰的路由次数
+     */
+    public long getRouteEvictionCount() {
+        return totalRouteEvictions.get();
+    }
+
     private double getQueueUsageRatio() {
         long remainingCapacity = ringBuffer.remainingCapacity();
         long bufferSize = ringBuffer.getBufferSize();
@@ -680,6 +1323,11 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
 
     public static class Config {
 
+        /**
+         * 单个分片批次同时上传的分片数默认值
+         */
+        public static final int DEFAULT_MAX_CONCURRENT_SHARD_UPLOADS = 4;
+
         private int queueCapacity = 524288;
         private int batchMaxMessages = 8192;
         private int batchMaxBytes = 10 * 1024 * 1024;
@@ -690,9 +1338,16 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
         private boolean enableSharding = true;
         private int maxUploadSizeMb = 10;
         private int consumerThreadCount = 1;
-        private int maxConcurrentShardUploads = 4;
+        private int maxConcurrentShardUploads = DEFAULT_MAX_CONCURRENT_SHARD_UPLOADS;
+        private long shardUploadMemoryBytes = 64L * 1024 * 1024;
+        private int compressionParallelism = 1;
+        private int compressionBlockSize = ParallelGzipCompressor.DEFAULT_BLOCK_SIZE;
+        private boolean compressionBlockIndex = false;
         private java.util.concurrent.ExecutorService shardExecutor;
         private long uploadTimeoutMs = 30000L;
+        private QueueSnapshotStore snapshotStore;
+        private ObjectNameStrategy objectNameStrategy;
+        private BatchRouting routing;
 
         public static Config defaultConfig() {
             return new Config();
@@ -748,11 +1403,46 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
             return this;
         }
 
+        /**
+         * 批次压缩的并行度（含消费线程），大于1时按块并行压缩为多成员GZIP
+         */
+        public Config compressionParallelism(int compressionParallelism) {
+            this.compressionParallelism = Math.max(1, compressionParallelism);
+            return this;
+        }
+
+        /**
+         * 并行压缩的目标块大小（字节），块在行边界处结束；开启分片时不超过分片大小
+         */
+        public Config compressionBlockSize(int compressionBlockSize) {
+            this.compressionBlockSize = compressionBlockSize;
+            return this;
+        }
+
+        /**
+         * 是否在每个GZIP成员头部写入块索引，见{@link ParallelGzipCompressor}
+         */
+        public Config compressionBlockIndex(boolean compressionBlockIndex) {
+            this.compressionBlockIndex = compressionBlockIndex;
+            return this;
+        }
+
+        /**
+         * 单个分片批次同时上传的分片数，上限64
+         */
         public Config maxConcurrentShardUploads(int maxConcurrentShardUploads) {
             this.maxConcurrentShardUploads = Math.max(1, Math.min(64, maxConcurrentShardUploads));
             return this;
         }
 
+        /**
+         * 上传中的分片批次最多占用的内存（字节），超出时消费线程等待已有分片批次上传结束
+         */
+        public Config shardUploadMemoryBytes(long shardUploadMemoryBytes) {
+            this.shardUploadMemoryBytes = Math.max(1, shardUploadMemoryBytes);
+            return this;
+        }
+
         public Config shardExecutor(java.util.concurrent.ExecutorService shardExecutor) {
             this.shardExecutor = shardExecutor;
             return this;
@@ -763,6 +1453,39 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
             return this;
         }
 
+        /**
+         * 设置关闭快照存储，设置后close()走快速关闭路径，未上传的事件写入本地快照而不是等待上传
+         */
+        public Config snapshotStore(QueueSnapshotStore snapshotStore) {
+            this.snapshotStore = snapshotStore;
+            return this;
+        }
+
+        public QueueSnapshotStore getSnapshotStore() {
+            return snapshotStore;
+        }
+
+        public Config objectNameStrategy(ObjectNameStrategy objectNameStrategy) {
+            this.objectNameStrategy = objectNameStrategy;
+            return this;
+        }
+
+        public ObjectNameStrategy getObjectNameStrategy() {
+            return objectNameStrategy != null ? objectNameStrategy : ObjectNameGenerator.getDefaultStrategy();
+        }
+
+        /**
+         * 设置批次路由，为null时所有事件进入同一批次
+         */
+        public Config routing(BatchRouting routing) {
+            this.routing = routing;
+            return this;
+        }
+
+        public BatchRouting getRouting() {
+            return routing;
+        }
+
         public int getQueueCapacity() {
             return queueCapacity;
         }
@@ -807,6 +1530,22 @@ public final class EnhancedDisruptorBatchingQueue implements AutoCloseable {
             return maxConcurrentShardUploads;
         }
 
+        public long getShardUploadMemoryBytes() {
+            return shardUploadMemoryBytes;
+        }
+
+        public int getCompressionParallelism() {
+            return compressionParallelism;
+        }
+
+        public int getCompressionBlockSize() {
+            return compressionBlockSize;
+        }
+
+        public boolean isCompressionBlockIndex() {
+            return compressionBlockIndex;
+        }
+
         public int getShardingThreshold() {
             return maxUploadSizeMb * 1024 * 1024;
         }
@@ -0,0 +1,139 @@
+package org.logx.core;
+
+import org.logx.fallback.FailoverJournal;
+import org.logx.metrics.Counter;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * 按顺序故障转移的存储服务
+ * <p>
+ * 第一个目标是主存储（已按配置包装并发限制、对冲和熔断），其后是备用存储。上传依次尝试各目标，
+ * 前一个目标失败（包括熔断打开时的快速失败）后立即尝试下一个，全部失败时才返回失败，由引擎写入本地兜底文件。
+ * <p>
+ * 所有目标使用相同的对象键。写入备用存储成功时在{@link FailoverJournal}中记录目标和对象键，
+ * 兜底重传任务在主存储恢复后据此把对象写回主存储。流式上传无法重放，只写主存储。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class FailoverStorageService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailoverStorageService.class);
+
+    private final List<StorageService> targets;
+    private final List<String> targetNames;
+    private final FailoverJournal journal;
+    private final Counter failoverSucceeded = new Counter();
+
+    /**
+     * @param targets 主存储在前、备用存储按优先级在后
+     * @param targetNames 各目标的名称，写入记录时使用
+     * @param journal 备用存储写入记录，为null时不记录
+     */
+    FailoverStorageService(List<StorageService> targets, List<String> targetNames, FailoverJournal journal) {
+        if (targets.isEmpty() || targets.size() != targetNames.size()) {
+            throw new IllegalArgumentException("Each failover target needs a name");
+        }
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.targetNames = Collections.unmodifiableList(new ArrayList<>(targetNames));
+        this.journal = journal;
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(key, 0, index -> targets.get(index).putObject(key, data), result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(key, 0, index -> targets.get(index).putObject(key, buffer.duplicate()), result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        return targets.get(0).putObject(key, inputStream, dataLength);
+    }
+
+    private void attempt(String key, int index, IntFunction<CompletableFuture<Void>> upload,
+                         CompletableFuture<Void> result) {
+        CompletableFuture<Void> future;
+        try {
+            future = upload.apply(index);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((ignored, error) -> {
+            if (error == null) {
+                if (index > 0) {
+                    recordFailover(key, index);
+                }
+                result.complete(null);
+            } else if (index + 1 < targets.size()) {
+                logger.debug("Upload of {} to {} failed, trying {}: {}", key, targetNames.get(index),
+                        targetNames.get(index + 1), error.getMessage());
+                attempt(key, index + 1, upload, result);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void recordFailover(String key, int index) {
+        failoverSucceeded.increment();
+        String target = targetNames.get(index);
+        if (journal != null) {
+            journal.append(target, key);
+        }
+        logger.info("Uploaded {} to failover target {}", key, target);
+    }
+
+    /**
+     * @return 写入备用存储成功的上传数
+     */
+    long getFailoverSucceeded() {
+        return failoverSucceeded.get();
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return targets.get(0).getProtocolType();
+    }
+
+    @Override
+    public String getBucketName() {
+        return targets.get(0).getBucketName();
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return targets.get(0).getKeyPrefix();
+    }
+
+    @Override
+    public void close() {
+        for (StorageService target : targets) {
+            target.close();
+        }
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return targets.get(0).supportsProtocol(protocol);
+    }
+}
@@ -0,0 +1,382 @@
+package org.logx.core;
+
+import org.logx.fallback.FallbackManager;
+import org.logx.fallback.FallbackPriority;
+import org.logx.metrics.Counter;
+import org.logx.metrics.LatencyRecorder;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 扇出上传：一个批次只组装和压缩一次，上传到主存储和多个扇出目标
+ * <p>
+ * 调用线程只等待主存储的结果，上传结果和兜底与没有扇出时相同。每个扇出目标有独立的上传执行器、
+ * 兜底目录和指标，上传失败时写入该目标自己的兜底文件，由该目标的兜底重传任务补传：
+ * <ul>
+ * <li>对象键中的主存储前缀替换为目标的前缀，其余部分不变</li>
+ * <li>目标的落后时间为最早一个未完成上传已等待的时间。超过落后预算时新批次不再排队，直接写入该目标的兜底文件，
+ * 慢目标既不拖慢主存储和其他目标，占用的内存也以预算内的批次为限</li>
+ * </ul>
+ * 分片上传的缓冲区在整批结束后即被释放，扇出时复制一份交给各目标共用。流式上传无法重放，只写主存储。
+ * 没有经过本服务就直接写入主兜底文件的批次（内存告急、超大载荷、关闭时未执行的上传等）
+ * 通过{@link #writeFallback}同时写入各目标的兜底文件，由各目标的兜底重传任务补传。
+ * 上传执行器由引擎在启动时通过{@link Destination#start}提供（使用共享上传调度器时为该目标的租户），
+ * 随引擎一起关闭；启动前提交的批次直接写入目标的兜底文件。
+ * 引擎上传批次和分片时带上批次的兜底优先级，目标的兜底文件与主兜底文件按同样的优先级参与磁盘配额淘汰。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class FanOutStorageService implements StorageService {
+
+    private final StorageService primary;
+    private final List<Destination> destinations;
+
+    FanOutStorageService(StorageService primary, List<Destination> destinations) {
+        this.primary = primary;
+        this.destinations = Collections.unmodifiableList(new ArrayList<>(destinations));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        return putObject(key, data, FallbackPriority.NORMAL);
+    }
+
+    /**
+     * 上传批次，扇出目标写入兜底文件时使用给定的优先级
+     *
+     * @param priority 批次的兜底优先级
+     */
+    CompletableFuture<Void> putObject(String key, byte[] data, FallbackPriority priority) {
+        for (Destination destination : destinations) {
+            destination.submit(key, data, priority);
+        }
+        return primary.putObject(key, data);
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        return putObject(key, buffer, FallbackPriority.NORMAL);
+    }
+
+    /**
+     * 上传分片，扇出目标写入兜底文件时使用给定的优先级
+     *
+     * @param priority 所属批次的兜底优先级
+     */
+    CompletableFuture<Void> putObject(String key, ByteBuffer buffer, FallbackPriority priority) {
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        for (Destination destination : destinations) {
+            destination.submit(key, copy, priority);
+        }
+        return primary.putObject(key, buffer);
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        return primary.putObject(key, inputStream, dataLength);
+    }
+
+    /**
+     * 把未经扇出上传、直接写入主兜底文件的批次写入各目标的兜底文件
+     * <p>
+     * 对象键按各目标的前缀改写后作为兜底文件名，目标补传时使用与正常扇出相同的对象键。
+     *
+     * @param key 批次在主存储上的对象键，没有确定的对象键时为null
+     * @param data 批次内容
+     * @param priority 批次的兜底优先级
+     */
+    void writeFallback(String key, byte[] data, FallbackPriority priority) {
+        for (Destination destination : destinations) {
+            destination.writeFallback(key != null ? destination.targetKey(key) : null, data, priority);
+        }
+    }
+
+    List<Destination> getDestinations() {
+        return destinations;
+    }
+
+    /**
+     * 停止所有扇出目标，在时限内等待排队的上传完成，剩余批次写入各目标的兜底文件
+     */
+    void shutdown(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Destination destination : destinations) {
+            destination.shutdown(deadline);
+        }
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return primary.getProtocolType();
+    }
+
+    @Override
+    public String getBucketName() {
+        return primary.getBucketName();
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return primary.getKeyPrefix();
+    }
+
+    @Override
+    public void close() {
+        primary.close();
+        for (Destination destination : destinations) {
+            destination.storage.close();
+        }
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return primary.supportsProtocol(protocol);
+    }
+
+    /**
+     * 把主存储的对象键改为目标前缀：键以主存储前缀开头或包含该前缀目录时替换第一处，否则在键前加上目标前缀
+     */
+    static String rewriteKey(String key, String fromPrefix, String toPrefix) {
+        if (fromPrefix == null || fromPrefix.isEmpty() || fromPrefix.equals(toPrefix)) {
+            return key;
+        }
+        if (key.startsWith(fromPrefix + "/")) {
+            return toPrefix + key.substring(fromPrefix.length());
+        }
+        int index = key.indexOf("/" + fromPrefix + "/");
+        if (index >= 0) {
+            return key.substring(0, index + 1) + toPrefix + key.substring(index + 1 + fromPrefix.length());
+        }
+        return toPrefix + "/" + key;
+    }
+
+    /**
+     * 一个扇出目标：独立的上传执行器、落后预算、兜底目录和指标
+     */
+    static final class Destination {
+
+        private static final Logger logger = LoggerFactory.getLogger(Destination.class);
+
+        private final String name;
+        private final StorageService storage;
+        private final String fromPrefix;
+        private final FallbackManager fallbackManager;
+        private final long lagBudgetNanos;
+        private final long uploadTimeoutMs;
+        private final LongSupplier clock;
+        private volatile ExecutorService executor;
+        // 按提交顺序排列，队首为最早一个未完成的上传
+        private final ConcurrentLinkedQueue<Upload> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final Counter uploaded = new Counter();
+        private final Counter failed = new Counter();
+        private final Counter spilled = new Counter();
+        private final LatencyRecorder latency = new LatencyRecorder();
+
+        /**
+         * @param name 目标名称，用于指标
+         * @param storage 目标存储，对象键前缀取自{@link StorageService#getKeyPrefix()}
+         * @param fromPrefix 主存储的对象键前缀
+         * @param fallbackManager 目标自己的兜底文件管理器
+         * @param lagBudgetMs 落后预算（毫秒）
+         * @param uploadTimeoutMs 单次上传的时限（毫秒）
+         */
+        Destination(String name, StorageService storage, String fromPrefix, FallbackManager fallbackManager,
+                    long lagBudgetMs, long uploadTimeoutMs, LongSupplier clock) {
+            this.name = name;
+            this.storage = storage;
+            this.fromPrefix = fromPrefix;
+            this.fallbackManager = fallbackManager;
+            this.lagBudgetNanos = TimeUnit.MILLISECONDS.toNanos(lagBudgetMs);
+            this.uploadTimeoutMs = uploadTimeoutMs;
+            this.clock = clock;
+        }
+
+        /**
+         * 开始接收上传，执行器的并发数即该目标同时进行的上传数，由{@link FanOutStorageService#shutdown}关闭
+         *
+         * @param executor 该目标的上传执行器
+         */
+        void start(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        String targetKey(String primaryKey) {
+            return rewriteKey(primaryKey, fromPrefix, storage.getKeyPrefix());
+        }
+
+        void submit(String primaryKey, byte[] data, FallbackPriority priority) {
+            String key = targetKey(primaryKey);
+            if (getLagNanos() > lagBudgetNanos) {
+                spilled.increment();
+                logger.debug("Fan-out target {} is {} ms behind, {} written to its fallback directory", name,
+                        TimeUnit.NANOSECONDS.toMillis(getLagNanos()), key);
+                writeFallback(key, data, priority);
+                return;
+            }
+            ExecutorService current = executor;
+            if (current == null) {
+                spilled.increment();
+                writeFallback(key, data, priority);
+                return;
+            }
+            Upload upload = new Upload(key, data, priority, clock.getAsLong());
+            pending.add(upload);
+            outstanding.incrementAndGet();
+            try {
+                current.execute(upload);
+            } catch (RejectedExecutionException e) {
+                upload.finish();
+                spilled.increment();
+                writeFallback(key, data, priority);
+            }
+        }
+
+        /**
+         * @return 最早一个未完成上传已等待的时间（纳秒），没有未完成的上传时为0
+         */
+        long getLagNanos() {
+            Upload head;
+            while ((head = pending.peek()) != null && head.done) {
+                // 按引用删除，并发清理时不会误删尚未完成的上传
+                pending.remove(head);
+            }
+            return head != null ? Math.max(0, clock.getAsLong() - head.submittedNanos) : 0;
+        }
+
+        int getPendingUploads() {
+            return outstanding.get();
+        }
+
+        /**
+         * 写入目标的兜底文件，以目标的对象键命名，补传时使用该对象键
+         */
+        private void writeFallback(String key, byte[] data, FallbackPriority priority) {
+            try {
+                if (fallbackManager.writeFallbackFile(data, priority, key)) {
+                    return;
+                }
+            } catch (Exception e) {
+                logger.error("Fan-out fallback write failed for {} on {}: {}", key, name, e.getMessage(), e);
+                return;
+            }
+            logger.error("Fan-out fallback write failed for {} on {}", key, name);
+        }
+
+        private void shutdown(long deadlineNanos) {
+            ExecutorService executor = this.executor;
+            if (executor == null) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining > 0 && executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Runnable> leftover = executor.shutdownNow();
+            for (Runnable runnable : leftover) {
+                Upload upload = (Upload) runnable;
+                upload.finish();
+                writeFallback(upload.key, upload.data, upload.priority);
+            }
+            if (!leftover.isEmpty()) {
+                logger.warn("Fan-out target {} did not drain before shutdown, {} batches written to fallback files",
+                        name, leftover.size());
+            }
+        }
+
+        String getName() {
+            return name;
+        }
+
+        StorageService getStorage() {
+            return storage;
+        }
+
+        FallbackManager getFallbackManager() {
+            return fallbackManager;
+        }
+
+        long getUploaded() {
+            return uploaded.get();
+        }
+
+        long getFailed() {
+            return failed.get();
+        }
+
+        long getSpilled() {
+            return spilled.get();
+        }
+
+        LatencyRecorder getLatency() {
+            return latency;
+        }
+
+        private final class Upload implements Runnable {
+            private final String key;
+            private final byte[] data;
+            private final FallbackPriority priority;
+            private final long submittedNanos;
+            private volatile boolean done;
+
+            Upload(String key, byte[] data, FallbackPriority priority, long submittedNanos) {
+                this.key = key;
+                this.data = data;
+                this.priority = priority;
+                this.submittedNanos = submittedNanos;
+            }
+
+            @Override
+            public void run() {
+                long startNanos = System.nanoTime();
+                try {
+                    storage.putObject(key, data).get(uploadTimeoutMs, TimeUnit.MILLISECONDS);
+                    latency.recordSince(startNanos);
+                    uploaded.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.increment();
+                    writeFallback(key, data, priority);
+                } catch (Exception e) {
+                    failed.increment();
+                    if (!(e.getCause() instanceof StorageCircuitBreaker.CircuitOpenException)) {
+                        logger.warn("Fan-out upload of {} to {} failed: {}", key, name, e.getMessage());
+                    }
+                    writeFallback(key, data, priority);
+                } finally {
+                    finish();
+                }
+            }
+
+            void finish() {
+                if (!done) {
+                    done = true;
+                    outstanding.decrementAndGet();
+                }
+            }
+        }
+    }
+}
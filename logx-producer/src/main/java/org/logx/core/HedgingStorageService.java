@@ -0,0 +1,429 @@
+package org.logx.core;
+
+import org.logx.exception.StorageException;
+import org.logx.metrics.Counter;
+import org.logx.metrics.LatencyRecorder;
+import org.logx.metrics.LatencySnapshot;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲上传和按耗时分布设定的单次尝试截止时间
+ * <p>
+ * 包装存储服务，每次上传在独立的尝试线程上执行，调用线程按以下规则等待：
+ * <ul>
+ * <li>对冲：第一次尝试超过最近成功耗时的指定分位（不低于最小延迟）仍未完成时，以相同对象键再发起一次，
+ * 取最先成功的结果并取消其余尝试。对象键相同，重复写入只会覆盖同一个对象，不会产生重复对象</li>
+ * <li>单次截止时间：单次尝试超过最近成功耗时p99的若干倍仍未完成时取消该尝试，尚有尝试次数时立即换一次</li>
+ * <li>失败替换：尝试以可重试的错误失败时，尚有尝试次数则立即再发起一次</li>
+ * </ul>
+ * 所有尝试共享原有的{@code uploadTimeoutMs}总时限，超时后取消全部尝试并返回失败，由引擎转入兜底。
+ * 最近成功耗时样本不足{@link #MIN_SAMPLES}个时不对冲、不设单次截止时间，行为与直接上传相同。
+ * <p>
+ * 取消通过中断尝试线程完成，是否立即中止网络请求取决于存储适配器；被放弃的尝试仍可能稍后写入同一对象键。
+ * 被中断的尝试应以{@link java.util.concurrent.CancellationException}结束，不计为存储故障。
+ * <p>
+ * 尝试线程数有全局上限，每个服务另有在途尝试上限：被放弃但线程尚未退出的尝试仍占用名额。
+ * 达到上限时不再对冲或替换，第一次尝试也无法发起时以可重试的错误失败，由引擎转入兜底。
+ * InputStream上传无法重放，直接交给被包装的服务。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class HedgingStorageService implements StorageService {
+
+    /**
+     * 启用对冲和单次截止时间所需的最少成功样本数
+     */
+    static final int MIN_SAMPLES = 20;
+
+    static final long DEFAULT_MIN_ATTEMPT_DEADLINE_MS = 1000L;
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingStorageService.class);
+
+    private static final long RECENT_WINDOW_SECONDS = 30;
+
+    /**
+     * 进程内尝试线程的上限
+     */
+    static final int MAX_ATTEMPT_THREADS = 256;
+
+    /**
+     * 进程内所有引擎共用的尝试线程，空闲60秒后回收，因此无需关闭；线程用尽时拒绝新的尝试
+     */
+    private static final ThreadPoolExecutor ATTEMPT_EXECUTOR = createAttemptExecutor();
+
+    private final StorageService delegate;
+    private final Executor executor;
+    private final long uploadTimeoutNanos;
+    private final boolean hedgeEnabled;
+    private final double hedgeQuantile;
+    private final long hedgeMinDelayNanos;
+    private final int maxAttempts;
+    private final int attemptDeadlineMultiplier;
+    private final long minAttemptDeadlineNanos;
+    private final int maxAttemptsInFlight;
+    private final AtomicInteger attemptsInFlight = new AtomicInteger();
+
+    private final LatencyRecorder attemptLatency = new LatencyRecorder(RECENT_WINDOW_SECONDS, TimeUnit.SECONDS);
+    private final Counter hedgedAttempts = new Counter();
+    private final Counter hedgeWins = new Counter();
+    private final Counter attemptTimeouts = new Counter();
+    private final Counter replacedAttempts = new Counter();
+
+    HedgingStorageService(StorageService delegate, AsyncEngineConfig config) {
+        this(delegate, ATTEMPT_EXECUTOR, config.getUploadTimeoutMs(), config.isUploadHedgeEnabled(),
+                config.getUploadHedgePercentile(), config.getUploadHedgeMinDelayMs(), config.getUploadMaxAttempts(),
+                config.getUploadAttemptDeadlineMultiplier(), DEFAULT_MIN_ATTEMPT_DEADLINE_MS,
+                uploadConcurrency(config) * Math.max(1, config.getUploadMaxAttempts()));
+    }
+
+    HedgingStorageService(StorageService delegate, Executor executor, long uploadTimeoutMs, boolean hedgeEnabled,
+                          int hedgePercentile, long hedgeMinDelayMs, int maxAttempts,
+                          int attemptDeadlineMultiplier, long minAttemptDeadlineMs, int maxAttemptsInFlight) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.uploadTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(uploadTimeoutMs);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeQuantile = Math.min(99, Math.max(50, hedgePercentile)) / 100.0;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, hedgeMinDelayMs));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.attemptDeadlineMultiplier = Math.max(0, attemptDeadlineMultiplier);
+        this.minAttemptDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(minAttemptDeadlineMs);
+        this.maxAttemptsInFlight = Math.max(1, maxAttemptsInFlight);
+    }
+
+    /**
+     * 同时进行的上传数：上传线程数，开启限流时取其与限流上限中的较大者
+     */
+    private static int uploadConcurrency(AsyncEngineConfig config) {
+        int threads = Math.max(1, config.getParallelUploadThreads());
+        return config.isUploadLimiterEnabled() ? Math.max(threads, config.getUploadLimiterMaxLimit()) : threads;
+    }
+
+    /**
+     * 按配置判断是否需要包装：开启对冲或单次截止时间时才包装
+     */
+    static boolean isEnabled(AsyncEngineConfig config) {
+        return config.isUploadHedgeEnabled() || config.getUploadAttemptDeadlineMultiplier() > 0;
+    }
+
+    private static ThreadPoolExecutor createAttemptExecutor() {
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(0, MAX_ATTEMPT_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "logx-upload-attempt-" + index.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        return upload(key, () -> delegate.putObject(key, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        if (buffer == null) {
+            return delegate.putObject(key, (ByteBuffer) null);
+        }
+        // 每次尝试使用独立的读位置，互不影响
+        return upload(key, () -> delegate.putObject(key, buffer.duplicate()));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        return delegate.putObject(key, inputStream, dataLength);
+    }
+
+    private CompletableFuture<Void> upload(String key, Callable<CompletableFuture<Void>> request) {
+        long start = System.nanoTime();
+        long overallDeadline = start + uploadTimeoutNanos;
+        LatencySnapshot recent = attemptLatency.getRecentSnapshot();
+        boolean informed = recent.getCount() >= MIN_SAMPLES;
+        long hedgeDelay = hedgeEnabled && informed
+                ? Math.max(hedgeMinDelayNanos, recent.getPercentile(hedgeQuantile))
+                : Long.MAX_VALUE;
+        long attemptBudget = attemptDeadlineMultiplier > 0 && informed
+                ? Math.max(minAttemptDeadlineNanos, saturatedMultiply(recent.getPercentile(0.99), attemptDeadlineMultiplier))
+                : Long.MAX_VALUE;
+
+        LinkedBlockingQueue<Future<Void>> completion = new LinkedBlockingQueue<>();
+        List<Attempt> running = new ArrayList<>(maxAttempts);
+        int launched = 0;
+        Throwable lastError = null;
+        try {
+            Attempt first = launch(completion, request, launched++, attemptBudget);
+            if (first == null) {
+                return failed(StorageException.networkError("No upload attempt slot for " + key + ", "
+                        + attemptsInFlight.get() + " attempts in flight", null));
+            }
+            running.add(first);
+            long nextHedgeAt = saturatedAdd(start, hedgeDelay);
+            while (true) {
+                long now = System.nanoTime();
+                if (running.isEmpty()) {
+                    if (launched < maxAttempts && now - overallDeadline < 0 && isRetryable(lastError)) {
+                        Attempt replacement = launch(completion, request, launched, attemptBudget);
+                        if (replacement != null) {
+                            launched++;
+                            replacedAttempts.increment();
+                            running.add(replacement);
+                            nextHedgeAt = saturatedAdd(now, hedgeDelay);
+                            continue;
+                        }
+                    }
+                    return failed(lastError);
+                }
+
+                long wakeAt = overallDeadline;
+                if (launched < maxAttempts && nextHedgeAt - wakeAt < 0) {
+                    wakeAt = nextHedgeAt;
+                }
+                for (Attempt attempt : running) {
+                    if (attempt.deadline - wakeAt < 0) {
+                        wakeAt = attempt.deadline;
+                    }
+                }
+                Future<Void> done = completion.poll(Math.max(0, wakeAt - now), TimeUnit.NANOSECONDS);
+                if (done != null) {
+                    Attempt attempt = remove(running, done);
+                    if (attempt == null) {
+                        continue; // 已取消的尝试
+                    }
+                    try {
+                        done.get();
+                        attemptLatency.recordSince(attempt.startNanos);
+                        if (attempt.index > 0) {
+                            hedgeWins.increment();
+                        }
+                        return CompletableFuture.completedFuture(null);
+                    } catch (ExecutionException e) {
+                        lastError = unwrap(e);
+                    }
+                    continue;
+                }
+
+                now = System.nanoTime();
+                if (now - overallDeadline >= 0) {
+                    return failed(new TimeoutException("Upload of " + key + " did not complete within "
+                            + TimeUnit.NANOSECONDS.toMillis(uploadTimeoutNanos) + "ms after " + launched + " attempts"));
+                }
+                Iterator<Attempt> it = running.iterator();
+                while (it.hasNext()) {
+                    Attempt attempt = it.next();
+                    if (now - attempt.deadline >= 0) {
+                        logger.debug("Upload attempt {} for {} exceeded its deadline, cancelling", attempt.index, key);
+                        attempt.future.cancel(true);
+                        it.remove();
+                        attemptTimeouts.increment();
+                        lastError = new TimeoutException("Upload attempt for " + key + " exceeded "
+                                + TimeUnit.NANOSECONDS.toMillis(attemptBudget) + "ms");
+                    }
+                }
+                if (!running.isEmpty() && launched < maxAttempts && now - nextHedgeAt >= 0) {
+                    Attempt hedge = launch(completion, request, launched, attemptBudget);
+                    if (hedge != null) {
+                        launched++;
+                        hedgedAttempts.increment();
+                        running.add(hedge);
+                    }
+                    nextHedgeAt = saturatedAdd(now, hedgeDelay);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(e);
+        } finally {
+            for (Attempt attempt : running) {
+                logger.debug("Cancelling losing upload attempt {} for {}", attempt.index, key);
+                attempt.future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return 发起的尝试，达到在途上限或尝试线程用尽时为null
+     */
+    private Attempt launch(LinkedBlockingQueue<Future<Void>> completion, Callable<CompletableFuture<Void>> request,
+                           int index, long attemptBudget) {
+        if (attemptsInFlight.incrementAndGet() > maxAttemptsInFlight) {
+            attemptsInFlight.decrementAndGet();
+            logger.debug("Upload attempt cap {} reached, not launching attempt {}", maxAttemptsInFlight, index);
+            return null;
+        }
+        // 名额在请求返回、结果发布之前归还，调用线程看到结果时名额已可用；
+        // 被放弃的尝试在线程退出前一直占用名额，开始前就被取消的尝试由执行线程归还
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                attemptsInFlight.decrementAndGet();
+            }
+        };
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            try {
+                request.call().get();
+                return null;
+            } finally {
+                release.run();
+            }
+        }) {
+            @Override
+            protected void done() {
+                completion.add(this);
+            }
+        };
+        long startNanos = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release.run();
+            logger.debug("Upload attempt threads exhausted, not launching attempt {}", index);
+            return null;
+        }
+        return new Attempt(task, index, startNanos, saturatedAdd(startNanos, attemptBudget));
+    }
+
+    private static Attempt remove(List<Attempt> running, Future<Void> future) {
+        Iterator<Attempt> it = running.iterator();
+        while (it.hasNext()) {
+            Attempt attempt = it.next();
+            if (attempt.future == future) {
+                it.remove();
+                return attempt;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尝试线程等待适配器返回的Future，失败原因外面包了两层ExecutionException
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof StorageException) {
+            return ((StorageException) error).isRetryable();
+        }
+        return !(error instanceof IllegalArgumentException);
+    }
+
+    private static long saturatedAdd(long base, long delta) {
+        return delta == Long.MAX_VALUE || base + delta < base ? base + (Long.MAX_VALUE >> 1) : base + delta;
+    }
+
+    private static long saturatedMultiply(long value, int multiplier) {
+        return value > Long.MAX_VALUE / multiplier ? Long.MAX_VALUE : value * multiplier;
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 成功尝试的耗时，对冲延迟和单次截止时间由其最近窗口的分布决定
+     */
+    LatencyRecorder getAttemptLatency() {
+        return attemptLatency;
+    }
+
+    long getHedgedAttempts() {
+        return hedgedAttempts.get();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    long getAttemptTimeouts() {
+        return attemptTimeouts.get();
+    }
+
+    long getReplacedAttempts() {
+        return replacedAttempts.get();
+    }
+
+    /**
+     * 已发起且线程尚未退出的尝试数，包括已被放弃的尝试
+     */
+    int getAttemptsInFlight() {
+        return attemptsInFlight.get();
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return delegate.getProtocolType();
+    }
+
+    @Override
+    public String getBucketName() {
+        return delegate.getBucketName();
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return delegate.supportsProtocol(protocol);
+    }
+
+    private static final class Attempt {
+        final Future<Void> future;
+        final int index;
+        final long startNanos;
+        final long deadline;
+
+        Attempt(Future<Void> future, int index, long startNanos, long deadline) {
+            this.future = future;
+            this.index = index;
+            this.startNanos = startNanos;
+            this.deadline = deadline;
+        }
+    }
+}
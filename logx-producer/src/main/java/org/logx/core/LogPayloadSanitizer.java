@@ -1,6 +1,7 @@
 package org.logx.core;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -17,6 +18,20 @@ public final class LogPayloadSanitizer {
     private LogPayloadSanitizer() {
     }
 
+    /**
+     * @return 进程启动以来被清洗过控制字符的日志条数
+     */
+    public static long getSanitizedCount() {
+        return sanitizedCount.get();
+    }
+
+    /**
+     * @return 进程启动以来因超过大小上限被截断的日志条数
+     */
+    public static long getTruncatedCount() {
+        return truncatedCount.get();
+    }
+
     public static SanitizedPayload sanitize(String input, int maxBytes) {
         if (input == null) {
             return new SanitizedPayload(new byte[0], false, false, 0);
@@ -53,6 +68,108 @@ public final class LogPayloadSanitizer {
         return new SanitizedPayload(bytes, sanitized, truncated, originalBytes);
     }
 
+    /**
+     * 按字节清洗已编码的UTF-8日志，内容无需清洗且未超限时直接返回输入数组，不做任何复制
+     *
+     * @param input 日志框架编码器输出的UTF-8字节，调用后不应再修改
+     * @param maxBytes 最大字节数
+     * @return 清洗结果
+     */
+    public static SanitizedPayload sanitize(byte[] input, int maxBytes) {
+        if (input == null) {
+            return new SanitizedPayload(new byte[0], false, false, 0);
+        }
+        return sanitize(input, 0, input.length, maxBytes, true);
+    }
+
+    /**
+     * 按字节清洗可复用缓冲区中的UTF-8日志，结果总是独立的数组，调用后缓冲区可以立即复用
+     *
+     * @param input 缓冲区
+     * @param offset 起始位置
+     * @param length 长度
+     * @param maxBytes 最大字节数
+     * @return 清洗结果
+     */
+    public static SanitizedPayload sanitize(byte[] input, int offset, int length, int maxBytes) {
+        return sanitize(input, offset, length, maxBytes, false);
+    }
+
+    private static SanitizedPayload sanitize(byte[] input, int offset, int length, int maxBytes, boolean ownsInput) {
+        int end = offset + length;
+        int firstControl = indexOfControl(input, offset, end);
+
+        byte[] cleaned = input;
+        int cleanedStart = offset;
+        int cleanedLength = length;
+        boolean sanitized = firstControl >= 0;
+        if (sanitized) {
+            cleaned = new byte[length];
+            cleanedStart = 0;
+            cleanedLength = firstControl - offset;
+            System.arraycopy(input, offset, cleaned, 0, cleanedLength);
+            int i = firstControl;
+            while (i < end) {
+                int skip = controlLength(input, i, end);
+                if (skip > 0) {
+                    i += skip;
+                } else {
+                    cleaned[cleanedLength++] = input[i++];
+                }
+            }
+            sanitizedCount.incrementAndGet();
+        }
+
+        boolean truncated = cleanedLength > maxBytes;
+        int outputLength = cleanedLength;
+        if (truncated) {
+            // 不截断在多字节字符中间
+            outputLength = Math.max(0, maxBytes);
+            while (outputLength > 0 && (cleaned[cleanedStart + outputLength] & 0xC0) == 0x80) {
+                outputLength--;
+            }
+            truncatedCount.incrementAndGet();
+        }
+
+        byte[] bytes;
+        if (cleanedStart == 0 && outputLength == cleaned.length && (cleaned != input || ownsInput)) {
+            bytes = cleaned;
+        } else {
+            bytes = Arrays.copyOfRange(cleaned, cleanedStart, cleanedStart + outputLength);
+        }
+        return new SanitizedPayload(bytes, sanitized, truncated, cleanedLength);
+    }
+
+    private static int indexOfControl(byte[] input, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (controlLength(input, i, end) > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 返回位置i处控制字符的UTF-8字节数，不是控制字符时返回0。
+     * 与{@link Character#isISOControl(char)}一致：C0控制字符（保留换行和制表）、DEL以及编码为0xC2 0x80-0x9F的C1控制字符
+     */
+    private static int controlLength(byte[] input, int i, int end) {
+        int b = input[i] & 0xFF;
+        if (b < 0x20) {
+            return b == '\n' || b == '\t' ? 0 : 1;
+        }
+        if (b == 0x7F) {
+            return 1;
+        }
+        if (b == 0xC2 && i + 1 < end) {
+            int next = input[i + 1] & 0xFF;
+            if (next >= 0x80 && next <= 0x9F) {
+                return 2;
+            }
+        }
+        return 0;
+    }
+
     public static final class SanitizedPayload {
         public final byte[] bytes;
         public final boolean sanitized;
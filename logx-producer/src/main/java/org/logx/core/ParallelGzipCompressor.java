@@ -0,0 +1,272 @@
+package org.logx.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行多成员GZIP压缩器
+ * <p>
+ * 与pigz的思路相同：批次按行边界切成若干块，各块在有界的ForkJoinPool上并行压缩为独立的GZIP成员，
+ * 再按原顺序拼接。多成员GZIP是标准格式（RFC 1952），gunzip、{@link java.util.zip.GZIPInputStream}
+ * 和S3 Select都会依次解压所有成员，得到与原批次完全相同的内容；每块都在行尾结束，单独解压任一成员也得到完整的行。
+ * <p>
+ * 开启块索引时，每个成员头部带一个FEXTRA子字段（SI1='L'，SI2='X'，与BGZF的做法类似），
+ * 依次为该块在原批次中的偏移（8字节）、原始长度（4字节）和整个成员的字节数（4字节），均为小端序。
+ * 读取方可据此跳到指定成员而不必解压前面的数据，不识别该字段的解压工具会按规范忽略它。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class ParallelGzipCompressor {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    // 块太小时压缩率下降明显
+    static final int MIN_BLOCK_SIZE = 64 * 1024;
+
+    static final byte INDEX_SI1 = 'L';
+    static final byte INDEX_SI2 = 'X';
+    static final int INDEX_LENGTH = 16;
+
+    private static final int HEADER_LENGTH = 10;
+    private static final int EXTRA_LENGTH = 2 + 4 + INDEX_LENGTH;
+    private static final int TRAILER_LENGTH = 8;
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    // 每个线程复用Deflater，避免每块分配本地内存
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final int blockSize;
+    private final boolean blockIndex;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism 并行压缩的线程数（含调用线程），不大于1时在调用线程上依次压缩各块
+     * @param blockSize 目标块大小（字节），不低于64KB
+     * @param blockIndex 是否在每个成员头部写入块索引
+     */
+    public ParallelGzipCompressor(int parallelism, int blockSize, boolean blockIndex) {
+        this.blockSize = Math.max(MIN_BLOCK_SIZE, blockSize);
+        this.blockIndex = blockIndex;
+        int poolId = POOL_COUNTER.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger();
+        // 调用线程自己压缩一块，池中只需要parallelism-1个线程
+        this.pool = parallelism > 1
+                ? new ForkJoinPool(parallelism - 1, p -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    thread.setName("logx-gzip-" + poolId + "-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, false)
+                : null;
+    }
+
+    public byte[] compress(byte[] data) {
+        return compress(data, 0, data.length);
+    }
+
+    /**
+     * 压缩指定区间的数据
+     *
+     * @param data 原始数据
+     * @param offset 起始偏移
+     * @param length 长度
+     * @return 多成员GZIP数据，数据不超过一个块时只有一个成员
+     */
+    public byte[] compress(byte[] data, int offset, int length) {
+        return compressMembers(data, offset, length).bytes;
+    }
+
+    /**
+     * 压缩指定区间的数据并返回各成员的结束位置
+     * <p>
+     * 每个成员都是以行尾结束的完整GZIP流，任意连续的若干成员拼接后仍是可独立解压的GZIP对象。
+     *
+     * @param data 原始数据
+     * @param offset 起始偏移
+     * @param length 长度
+     * @return 压缩结果
+     */
+    public Members compressMembers(byte[] data, int offset, int length) {
+        List<int[]> blocks = split(data, offset, length, blockSize);
+        byte[][] members = new byte[blocks.size()][];
+        if (blocks.size() == 1 || pool == null) {
+            for (int i = 0; i < members.length; i++) {
+                int[] block = blocks.get(i);
+                members[i] = member(data, block[0], block[1], block[0] - offset);
+            }
+            return Members.concat(members);
+        }
+
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(blocks.size() - 1);
+        try {
+            for (int i = 1; i < blocks.size(); i++) {
+                int[] block = blocks.get(i);
+                tasks.add(pool.submit(() -> member(data, block[0], block[1], block[0] - offset)));
+            }
+            members[0] = member(data, blocks.get(0)[0], blocks.get(0)[1], 0);
+            for (int i = 1; i < members.length; i++) {
+                members[i] = tasks.get(i - 1).join();
+            }
+            return Members.concat(members);
+        } finally {
+            for (ForkJoinTask<byte[]> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isBlockIndex() {
+        return blockIndex;
+    }
+
+    /**
+     * 停止压缩线程池
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 按行边界切块：每块在目标大小之前的最后一个换行处结束；目标大小内没有换行时延伸到下一个换行
+     *
+     * @return 各块的[起始偏移, 长度]
+     */
+    static List<int[]> split(byte[] data, int offset, int length, int blockSize) {
+        List<int[]> blocks = new ArrayList<>();
+        int end = offset + length;
+        int start = offset;
+        while (end - start > blockSize) {
+            int cut = start + blockSize;
+            int lineEnd = cut;
+            while (lineEnd > start && data[lineEnd - 1] != '\n') {
+                lineEnd--;
+            }
+            if (lineEnd == start) {
+                lineEnd = cut;
+                while (lineEnd < end && data[lineEnd - 1] != '\n') {
+                    lineEnd++;
+                }
+            }
+            blocks.add(new int[] {start, lineEnd - start});
+            start = lineEnd;
+        }
+        if (start < end || blocks.isEmpty()) {
+            blocks.add(new int[] {start, end - start});
+        }
+        return blocks;
+    }
+
+    private byte[] member(byte[] data, int offset, int length, long uncompressedOffset) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+
+        int headerLength = blockIndex ? HEADER_LENGTH + EXTRA_LENGTH : HEADER_LENGTH;
+        byte[] buffer = new byte[headerLength + Math.max(64, length / 3) + TRAILER_LENGTH];
+        int position = headerLength;
+        while (!deflater.finished()) {
+            if (position == buffer.length - TRAILER_LENGTH) {
+                byte[] grown = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, position);
+                buffer = grown;
+            }
+            position += deflater.deflate(buffer, position, buffer.length - TRAILER_LENGTH - position);
+        }
+        int memberLength = position + TRAILER_LENGTH;
+
+        buffer[0] = (byte) 0x1f;
+        buffer[1] = (byte) 0x8b;
+        buffer[2] = Deflater.DEFLATED;
+        buffer[3] = blockIndex ? (byte) 0x04 : 0;
+        // MTIME、XFL、OS与GZIPOutputStream保持一致，均为0
+        if (blockIndex) {
+            writeShort(buffer, HEADER_LENGTH, 4 + INDEX_LENGTH);
+            buffer[HEADER_LENGTH + 2] = INDEX_SI1;
+            buffer[HEADER_LENGTH + 3] = INDEX_SI2;
+            writeShort(buffer, HEADER_LENGTH + 4, INDEX_LENGTH);
+            writeLong(buffer, HEADER_LENGTH + 6, uncompressedOffset);
+            writeInt(buffer, HEADER_LENGTH + 14, length);
+            writeInt(buffer, HEADER_LENGTH + 18, memberLength);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        writeInt(buffer, position, (int) crc.getValue());
+        writeInt(buffer, position + 4, length);
+
+        if (memberLength == buffer.length) {
+            return buffer;
+        }
+        byte[] member = new byte[memberLength];
+        System.arraycopy(buffer, 0, member, 0, memberLength);
+        return member;
+    }
+
+    private static void writeShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        writeShort(buffer, offset, value);
+        writeShort(buffer, offset + 2, value >>> 16);
+    }
+
+    private static void writeLong(byte[] buffer, int offset, long value) {
+        writeInt(buffer, offset, (int) value);
+        writeInt(buffer, offset + 4, (int) (value >>> 32));
+    }
+
+    /**
+     * 多成员GZIP压缩结果
+     */
+    public static final class Members {
+        /** 拼接后的GZIP数据 */
+        public final byte[] bytes;
+        /** 每个成员在bytes中的结束位置，升序，最后一个等于bytes.length */
+        public final int[] ends;
+
+        Members(byte[] bytes, int[] ends) {
+            this.bytes = bytes;
+            this.ends = ends;
+        }
+
+        static Members concat(byte[][] members) {
+            if (members.length == 1) {
+                return new Members(members[0], new int[] {members[0].length});
+            }
+            int[] ends = new int[members.length];
+            int total = 0;
+            for (int i = 0; i < members.length; i++) {
+                total += members[i].length;
+                ends[i] = total;
+            }
+            byte[] bytes = new byte[total];
+            int position = 0;
+            for (byte[] member : members) {
+                System.arraycopy(member, 0, bytes, position, member.length);
+                position += member.length;
+            }
+            return new Members(bytes, ends);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.logx.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 队列关闭快照存储
+ * <p>
+ * 快速关闭时将环形队列中未消费的事件和正在组装的批次一次性顺序写入本地快照文件，
+ * 进程重启后由引擎读取快照并重新注入队列，避免关闭阶段等待云存储上传。
+ * <p>
+ * 快照文件位于兜底目录下的{@code .snapshot}子目录，格式为：
+ * 魔数、版本号、若干条（时间戳、长度、载荷、路由键）记录、记录数和CRC32校验值。
+ * 写入时先写临时文件并刷盘，再原子重命名，保证不会读到半写的快照。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class QueueSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueSnapshotStore.class);
+
+    static final String SNAPSHOT_DIR = ".snapshot";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CLAIMED_SUFFIX = ".claimed";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private static final int MAGIC = 0x4C58534E;
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_ROUTE = 1;
+    private static final int RECORD_TAG = 1;
+    private static final int END_TAG = 0;
+    private static final int IO_BUFFER_SIZE = 256 * 1024;
+    // 认领后超过该时间仍未删除的快照视为认领者已崩溃，重新恢复
+    static final long STALE_CLAIM_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Path snapshotDir;
+
+    /**
+     * 构造快照存储
+     *
+     * @param fallbackDirectory 兜底目录绝对路径，快照写入其下的.snapshot子目录
+     */
+    public QueueSnapshotStore(String fallbackDirectory) {
+        if (fallbackDirectory == null || fallbackDirectory.trim().isEmpty()) {
+            throw new IllegalArgumentException("Fallback directory cannot be null or empty");
+        }
+        this.snapshotDir = Paths.get(fallbackDirectory.trim(), SNAPSHOT_DIR);
+    }
+
+    /**
+     * 将事件一次性写入新的快照文件
+     *
+     * @param events 待保存的事件，按提交顺序排列
+     * @return 写入的快照文件，事件为空时返回null
+     * @throws IOException 写入失败
+     */
+    public Path write(List<EnhancedDisruptorBatchingQueue.LogEvent> events) throws IOException {
+        if (events == null || events.isEmpty()) {
+            return null;
+        }
+
+        Files.createDirectories(snapshotDir);
+        String baseName = "queue-" + System.currentTimeMillis() + "-" + System.nanoTime();
+        Path tempFile = snapshotDir.resolve(baseName + SNAPSHOT_SUFFIX + TEMP_SUFFIX);
+        Path snapshotFile = snapshotDir.resolve(baseName + SNAPSHOT_SUFFIX);
+
+        try (FileOutputStream fos = new FileOutputStream(tempFile.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(fos, IO_BUFFER_SIZE), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            int count = 0;
+            for (EnhancedDisruptorBatchingQueue.LogEvent event : events) {
+                if (event == null || event.payload == null) {
+                    continue;
+                }
+                out.writeByte(RECORD_TAG);
+                out.writeLong(event.timestampMs);
+                out.writeInt(event.payload.length);
+                out.write(event.payload);
+                out.writeBoolean(event.routeKey != null);
+                if (event.routeKey != null) {
+                    out.writeUTF(event.routeKey);
+                }
+                count++;
+            }
+            out.writeByte(END_TAG);
+            out.writeInt(count);
+            out.flush();
+            // CRC不覆盖自身
+            new DataOutputStream(fos).writeLong(crc.getValue());
+            fos.getChannel().force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        moveAtomically(tempFile, snapshotFile);
+        return snapshotFile;
+    }
+
+    /**
+     * 恢复所有快照
+     * <p>
+     * 每个快照文件先通过原子重命名认领，避免共享兜底目录的多个引擎重复恢复。
+     * 处理器返回true后删除快照；返回false时快照保留，下次启动再次恢复。校验失败的快照重命名为.corrupt保留现场。
+     * 认领时刷新文件修改时间，认领超过{@link #STALE_CLAIM_MS}仍未删除的快照（认领者在恢复中途崩溃）会被重新认领。
+     *
+     * @param handler 快照事件处理器
+     * @return 成功恢复的事件数
+     */
+    public int recover(Predicate<List<EnhancedDisruptorBatchingQueue.LogEvent>> handler) {
+        if (!Files.isDirectory(snapshotDir)) {
+            return 0;
+        }
+
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(snapshotDir)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshots.add(file);
+                } else if (name.endsWith(SNAPSHOT_SUFFIX + CLAIMED_SUFFIX) && isStaleClaim(file)) {
+                    Path snapshot = file.resolveSibling(name.substring(0, name.length() - CLAIMED_SUFFIX.length()));
+                    try {
+                        moveAtomically(file, snapshot);
+                        logger.warn("Re-claiming queue snapshot abandoned by an interrupted recovery: {}", name);
+                        snapshots.add(snapshot);
+                    } catch (IOException e) {
+                        logger.debug("Stale queue snapshot claim already taken over: {}", name);
+                    }
+                } else if (name.endsWith(TEMP_SUFFIX)) {
+                    logger.warn("Deleting incomplete queue snapshot left by an interrupted shutdown: {}", name);
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list queue snapshot directory: {}", snapshotDir, e);
+            return 0;
+        }
+        Collections.sort(snapshots);
+
+        int recovered = 0;
+        for (Path snapshot : snapshots) {
+            Path claimed = snapshot.resolveSibling(snapshot.getFileName() + CLAIMED_SUFFIX);
+            try {
+                moveAtomically(snapshot, claimed);
+                Files.setLastModifiedTime(claimed, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                logger.debug("Queue snapshot already claimed by another engine: {}", snapshot.getFileName());
+                continue;
+            }
+
+            List<EnhancedDisruptorBatchingQueue.LogEvent> events;
+            try {
+                events = read(claimed);
+            } catch (IOException e) {
+                logger.error("Queue snapshot is corrupt and will be kept for inspection: {}", snapshot.getFileName(), e);
+                renameQuietly(claimed, snapshot.resolveSibling(snapshot.getFileName() + CORRUPT_SUFFIX));
+                continue;
+            }
+
+            boolean accepted = false;
+            try {
+                accepted = handler.test(events);
+            } catch (Exception e) {
+                logger.error("Failed to re-inject queue snapshot: {}", snapshot.getFileName(), e);
+            }
+
+            if (accepted) {
+                recovered += events.size();
+                try {
+                    Files.deleteIfExists(claimed);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete recovered queue snapshot: {}", claimed, e);
+                }
+                logger.info("Recovered {} events from queue snapshot {}", events.size(), snapshot.getFileName());
+            } else {
+                renameQuietly(claimed, snapshot);
+            }
+        }
+        return recovered;
+    }
+
+    List<EnhancedDisruptorBatchingQueue.LogEvent> read(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream fileIn = Files.newInputStream(file)) {
+            BufferedInputStream buffered = new BufferedInputStream(fileIn, IO_BUFFER_SIZE);
+            DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a queue snapshot file");
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_ROUTE) {
+                throw new IOException("Unsupported queue snapshot version: " + version);
+            }
+
+            List<EnhancedDisruptorBatchingQueue.LogEvent> events = new ArrayList<>();
+            while (true) {
+                int tag = in.readByte();
+                if (tag == END_TAG) {
+                    break;
+                }
+                if (tag != RECORD_TAG) {
+                    throw new IOException("Unexpected record tag in queue snapshot: " + tag);
+                }
+                long timestampMs = in.readLong();
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Negative payload length in queue snapshot: " + length);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                String routeKey = version >= VERSION && in.readBoolean() ? in.readUTF() : null;
+                events.add(new EnhancedDisruptorBatchingQueue.LogEvent(payload, timestampMs, routeKey));
+            }
+
+            int count = in.readInt();
+            long expectedCrc = crc.getValue();
+            long storedCrc = new DataInputStream(buffered).readLong();
+            if (count != events.size() || storedCrc != expectedCrc) {
+                throw new IOException("Queue snapshot checksum mismatch");
+            }
+            return events;
+        } catch (EOFException e) {
+            throw new IOException("Queue snapshot is truncated", e);
+        }
+    }
+
+    private static boolean isStaleClaim(Path file) {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > STALE_CLAIM_MS;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    Path getSnapshotDir() {
+        return snapshotDir;
+    }
+
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    private void renameQuietly(Path source, Path target) {
+        try {
+            moveAtomically(source, target);
+        } catch (IOException e) {
+            logger.warn("Failed to rename queue snapshot {} to {}", source, target, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.logx.core;
 
+import org.logx.metrics.MetricGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -155,6 +156,23 @@ public class ResourceProtectedThreadPool implements AutoCloseable {
                 totalMemoryProtectionCount.get(), getCurrentCpuUsage(), getCurrentMemoryUsage());
     }
 
+    /**
+     * 把线程池统计登记到指标分组，指标名以给定前缀开头
+     *
+     * @param group 指标分组
+     * @param prefix 指标名前缀，如{@code pool}
+     */
+    public void bindMetrics(MetricGroup group, String prefix) {
+        group.gauge(prefix + ".active", "Active threads", executor::getActiveCount);
+        group.gauge(prefix + ".queued", "Tasks waiting in the pool queue", () -> executor.getQueue().size());
+        group.counter(prefix + ".submitted", "Tasks submitted", totalTasksSubmitted::get);
+        group.counter(prefix + ".completed", "Tasks completed", totalTasksCompleted::get);
+        group.counter(prefix + ".rejected", "Tasks rejected by the pool", totalTasksRejected::get);
+        group.counter(prefix + ".cpu.yields", "CPU yields under high load", totalYieldCount::get);
+        group.counter(prefix + ".memory.rejections", "Tasks rejected by memory protection",
+                totalMemoryProtectionCount::get);
+    }
+
     /**
      * 优雅关闭线程池
      */
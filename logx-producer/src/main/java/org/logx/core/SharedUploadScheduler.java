@@ -0,0 +1,372 @@
+package org.logx.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程级共享上传调度器
+ * <p>
+ * 所有引擎的上传任务提交到同一组固定数量的工作线程，线程数不随引擎数量增长。
+ * 每个引擎注册为一个{@link Tenant}，拥有独立的任务队列、权重和在途上限：
+ * 工作线程按步长调度（stride scheduling）在有待执行任务且未达在途上限的租户之间选择，
+ * 长期来看各租户获得的上传次数与权重成正比，一个引擎的积压不会饿死其他引擎。
+ * 租户空闲一段时间后重新提交任务时，其虚拟时间追平到当前全局虚拟时间，不会借空闲积累额度突发抢占。
+ * 租户的在途上限可以随上传并发限制器的当前上限变化，由调度器在派发时把关，工作线程不会在限制器上等待。
+ * <p>
+ * Tenant实现了ExecutorService，引擎可像使用独立线程池一样提交任务、关闭和等待终止；
+ * 关闭租户不影响共享线程和其他租户。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class SharedUploadScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedUploadScheduler.class);
+
+    private static final long STRIDE_BASE = 1L << 20;
+
+    private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition stateChanged = lock.newCondition();
+    private final List<Tenant> tenants = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private long globalPass;
+    private boolean shutdown;
+
+    /**
+     * @param threads 工作线程数
+     * @param threadNamePrefix 线程名前缀
+     */
+    public SharedUploadScheduler(int threads, String threadNamePrefix) {
+        int count = Math.max(1, threads);
+        for (int i = 0; i < count; i++) {
+            Thread t = new Thread(this::workerLoop, threadNamePrefix + "-" + (i + 1));
+            t.setDaemon(true);
+            workers.add(t);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * 默认线程数：上传以网络等待为主，取CPU核数的2倍，限制在4到32之间
+     */
+    public static int defaultThreadCount() {
+        return Math.max(4, Math.min(32, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * 注册租户
+     *
+     * @param name 租户名称，用于日志
+     * @param weight 权重，不小于1
+     * @param maxInFlight 同时执行的任务上限，不小于1
+     * @return 租户执行器
+     */
+    public Tenant register(String name, int weight, int maxInFlight) {
+        return register(name, weight, maxInFlight, null);
+    }
+
+    /**
+     * 注册在途上限随外部上限变化的租户
+     *
+     * @param name 租户名称，用于日志
+     * @param weight 权重，不小于1
+     * @param maxInFlight 同时执行的任务上限，不小于1
+     * @param inFlightLimit 当前允许的在途任务数，每次派发时读取，与maxInFlight取较小者；为null时只按maxInFlight
+     * @return 租户执行器
+     */
+    public Tenant register(String name, int weight, int maxInFlight, IntSupplier inFlightLimit) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Shared upload scheduler has been shut down");
+            }
+            Tenant tenant = new Tenant(name, weight, maxInFlight, inFlightLimit);
+            tenant.pass = globalPass;
+            tenants.add(tenant);
+            logger.info("Registered upload tenant [{}] with weight {}, maxInFlight {}", name, tenant.weight, tenant.maxInFlight);
+            return tenant;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前线程是否为共享调度器的工作线程，工作线程上的调用不应阻塞等待
+     */
+    static boolean isWorkerThread() {
+        return WORKER.get() != null;
+    }
+
+    public int getThreadCount() {
+        return workers.size();
+    }
+
+    public int getTenantCount() {
+        lock.lock();
+        try {
+            return tenants.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停止接收新租户和新任务，工作线程执行完已提交的任务后退出。调用前应先关闭并等待所有租户终止。
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workerLoop() {
+        WORKER.set(Boolean.TRUE);
+        while (true) {
+            Tenant tenant;
+            Runnable task;
+            lock.lock();
+            try {
+                while ((tenant = pickTenant()) == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    workAvailable.awaitUninterruptibly();
+                }
+                task = tenant.queue.poll();
+                tenant.inFlight++;
+                tenant.running.add(Thread.currentThread());
+                globalPass = tenant.pass;
+                tenant.pass += tenant.stride;
+                // 在途上限可能已随限制器升高，还有可派发的任务时接力唤醒下一个工作线程
+                if (pickTenant() != null) {
+                    workAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                logger.error("Upload task of tenant [{}] failed: {}", tenant.name, e.getMessage(), e);
+            } finally {
+                lock.lock();
+                try {
+                    tenant.inFlight--;
+                    tenant.completed++;
+                    tenant.running.remove(Thread.currentThread());
+                    if (tenant.isTerminatedLocked()) {
+                        tenants.remove(tenant);
+                    }
+                    // 在途数下降后该租户可能重新可调度
+                    workAvailable.signal();
+                    stateChanged.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                // 清除shutdownNow留下的中断标记，避免影响下一个租户的任务
+                Thread.interrupted();
+            }
+        }
+    }
+
+    // 调用方持有锁
+    private Tenant pickTenant() {
+        Tenant best = null;
+        for (Tenant tenant : tenants) {
+            if (tenant.queue.isEmpty() || tenant.inFlight >= tenant.currentMaxInFlight()) {
+                continue;
+            }
+            if (best == null || tenant.pass < best.pass) {
+                best = tenant;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 共享调度器中的一个租户，对引擎表现为独立的ExecutorService
+     */
+    public final class Tenant extends AbstractExecutorService {
+        private final String name;
+        private final int weight;
+        private final int maxInFlight;
+        private final IntSupplier inFlightLimit;
+        private final long stride;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private final Set<Thread> running = new HashSet<>();
+        private long pass;
+        private int inFlight;
+        private long completed;
+        private boolean tenantShutdown;
+
+        private Tenant(String name, int weight, int maxInFlight, IntSupplier inFlightLimit) {
+            this.name = name;
+            this.weight = Math.max(1, weight);
+            this.maxInFlight = Math.max(1, maxInFlight);
+            this.inFlightLimit = inFlightLimit;
+            this.stride = STRIDE_BASE / this.weight;
+        }
+
+        private int currentMaxInFlight() {
+            if (inFlightLimit == null) {
+                return maxInFlight;
+            }
+            return Math.min(maxInFlight, Math.max(1, inFlightLimit.getAsInt()));
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (command == null) {
+                throw new NullPointerException("command cannot be null");
+            }
+            lock.lock();
+            try {
+                if (tenantShutdown || shutdown) {
+                    throw new RejectedExecutionException("Upload tenant [" + name + "] has been shut down");
+                }
+                if (queue.isEmpty() && inFlight == 0) {
+                    // 空闲后重新活跃，不允许用空闲期积累的额度突发
+                    pass = Math.max(pass, globalPass);
+                }
+                queue.add(command);
+                workAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            lock.lock();
+            try {
+                tenantShutdown = true;
+                if (isTerminatedLocked()) {
+                    tenants.remove(this);
+                }
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            lock.lock();
+            try {
+                tenantShutdown = true;
+                List<Runnable> pending = new ArrayList<>(queue);
+                queue.clear();
+                for (Thread thread : running) {
+                    thread.interrupt();
+                }
+                if (isTerminatedLocked()) {
+                    tenants.remove(this);
+                }
+                stateChanged.signalAll();
+                return pending;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isShutdown() {
+            lock.lock();
+            try {
+                return tenantShutdown || shutdown;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isTerminated() {
+            lock.lock();
+            try {
+                return isTerminatedLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (!isTerminatedLocked()) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = stateChanged.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isTerminatedLocked() {
+            return tenantShutdown && queue.isEmpty() && inFlight == 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public int getQueuedTasks() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getInFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getCompletedTasks() {
+            lock.lock();
+            try {
+                return completed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package org.logx.core;
+
+import org.logx.exception.StorageException;
+import org.logx.metrics.Counter;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 存储熔断器
+ * <p>
+ * 包装存储服务，按最近若干次上传的结果在三种状态之间切换：
+ * <ul>
+ * <li>关闭：正常上传，滑动窗口记录最近{@code windowSize}次调用；样本数达到窗口一半后，
+ * 失败率或慢调用率达到阈值即打开</li>
+ * <li>打开：上传立即以{@link CircuitOpenException}失败，不占用上传线程，引擎直接把批次写入本地兜底文件；
+ * 持续{@code openMs}后转为半开</li>
+ * <li>半开：放行最多{@code probes}次真实上传作为探测，全部成功且不慢时关闭并清空窗口，
+ * 任一失败或过慢时重新打开；探测在一个打开周期内没有全部返回时同样重新打开</li>
+ * </ul>
+ * 不可重试的客户端错误（参数错误、不可重试的{@link StorageException}）说明服务本身可用，不计入失败率。
+ * 打开前发起、打开后才返回的调用不再影响状态。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class StorageCircuitBreaker implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 状态变化回调，在触发变化的上传线程上、持有熔断器锁时执行，实现不应阻塞
+     */
+    interface Listener {
+        void onStateChange(State from, State to);
+    }
+
+    /**
+     * 熔断器打开时的快速失败
+     */
+    static final class CircuitOpenException extends StorageException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException(String message) {
+            super(message, ErrorType.NETWORK_ERROR);
+        }
+    }
+
+    private final StorageService delegate;
+    private final int windowSize;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final int slowCallRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probes;
+    private final LongSupplier clock;
+    private volatile Listener listener;
+
+    // 以下字段由this保护
+    private final byte[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long stateSince;
+    private int probesIssued;
+    private int probesSucceeded;
+    private volatile State state = State.CLOSED;
+
+    private final Counter rejectedCalls = new Counter();
+    private final Counter openTransitions = new Counter();
+
+    StorageCircuitBreaker(StorageService delegate, AsyncEngineConfig config) {
+        this(delegate, config.getUploadBreakerWindowSize(), config.getUploadBreakerFailureRatePercent(),
+                config.getUploadBreakerSlowCallMs(), config.getUploadBreakerSlowCallRatePercent(),
+                config.getUploadBreakerOpenMs(), config.getUploadBreakerProbes(), System::nanoTime);
+    }
+
+    StorageCircuitBreaker(StorageService delegate, int windowSize, int failureRatePercent, long slowCallMs,
+                          int slowCallRatePercent, long openMs, int probes, LongSupplier clock) {
+        this.delegate = delegate;
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, this.windowSize / 2);
+        this.failureRatePercent = Math.max(1, failureRatePercent);
+        this.slowCallRatePercent = Math.max(1, slowCallRatePercent);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, slowCallMs));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, openMs));
+        this.probes = Math.max(1, probes);
+        this.clock = clock;
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        return call(key, () -> delegate.putObject(key, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        return call(key, () -> delegate.putObject(key, buffer));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        return call(key, () -> delegate.putObject(key, inputStream, dataLength));
+    }
+
+    private CompletableFuture<Void> call(String key, Supplier<CompletableFuture<Void>> request) {
+        Boolean probe = acquire();
+        if (probe == null) {
+            rejectedCalls.increment();
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CircuitOpenException("Storage circuit breaker is " + state
+                    + ", upload of " + key + " not attempted"));
+            return rejected;
+        }
+        boolean isProbe = probe;
+        long start = clock.getAsLong();
+        CompletableFuture<Void> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            onResult(isProbe, start, e);
+            throw e;
+        }
+        return future.whenComplete((ignored, error) -> onResult(isProbe, start, error));
+    }
+
+    /**
+     * @return null表示拒绝，true表示半开状态下的探测，false表示普通调用
+     */
+    private synchronized Boolean acquire() {
+        long now = clock.getAsLong();
+        if (state == State.OPEN) {
+            if (now - stateSince < openNanos) {
+                return null;
+            }
+            transition(State.HALF_OPEN, now);
+            probesIssued = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (now - stateSince >= openNanos) {
+                logger.warn("Storage circuit breaker probes did not complete within {} ms, reopening",
+                        TimeUnit.NANOSECONDS.toMillis(openNanos));
+                open(now);
+                return null;
+            }
+            if (probesIssued >= probes) {
+                return null;
+            }
+            probesIssued++;
+            return Boolean.TRUE;
+        }
+        return Boolean.FALSE;
+    }
+
+    private synchronized void onResult(boolean probe, long start, Throwable error) {
+        long now = clock.getAsLong();
+        Throwable cause = unwrap(error);
+        if (cause != null && !countsAsFailure(cause)) {
+            if (probe && state == State.HALF_OPEN) {
+                onProbeSucceeded(now);
+            }
+            return;
+        }
+        boolean failed = cause != null;
+        boolean slow = now - start >= slowCallNanos;
+
+        if (probe) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (failed || slow) {
+                logger.warn("Storage circuit breaker probe {}, reopening", failed ? "failed: " + cause : "was slow");
+                open(now);
+            } else {
+                onProbeSucceeded(now);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        if (recorded == windowSize) {
+            byte evicted = outcomes[position];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        outcomes[position] = outcome;
+        position = (position + 1) % windowSize;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (recorded >= minCalls
+                && (failures * 100L >= (long) failureRatePercent * recorded
+                || slowCalls * 100L >= (long) slowCallRatePercent * recorded)) {
+            logger.warn("Storage circuit breaker opening: {} failed and {} slow of the last {} uploads, "
+                            + "uploads go to fallback files for {} ms", failures, slowCalls, recorded,
+                    TimeUnit.NANOSECONDS.toMillis(openNanos));
+            open(now);
+        }
+    }
+
+    private void onProbeSucceeded(long now) {
+        if (++probesSucceeded >= probes) {
+            logger.info("Storage circuit breaker closing after {} successful probes", probesSucceeded);
+            recorded = 0;
+            position = 0;
+            failures = 0;
+            slowCalls = 0;
+            transition(State.CLOSED, now);
+        }
+    }
+
+    private void open(long now) {
+        openTransitions.increment();
+        transition(State.OPEN, now);
+    }
+
+    private void transition(State to, long now) {
+        State from = state;
+        state = to;
+        stateSince = now;
+        Listener current = listener;
+        if (current != null && from != to) {
+            try {
+                current.onStateChange(from, to);
+            } catch (RuntimeException e) {
+                logger.warn("Circuit breaker listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static boolean countsAsFailure(Throwable cause) {
+        if (cause instanceof StorageException) {
+            return ((StorageException) cause).isRetryable();
+        }
+        return !(cause instanceof IllegalArgumentException);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * @return 是否处于关闭状态
+     */
+    boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * 下一次调用是否可能被放行：关闭状态、打开已满{@code openMs}、半开状态还有探测名额或探测已超时
+     * <p>
+     * 兜底文件重传以此为开关并经由熔断器上传。状态只在调用时推进，没有新批次的引擎由重传的文件完成半开探测，
+     * 不会因为没有上传而一直停在打开状态。
+     *
+     * @return 是否放行
+     */
+    synchronized boolean permitsCalls() {
+        long elapsed = clock.getAsLong() - stateSince;
+        switch (state) {
+            case OPEN:
+                return elapsed >= openNanos;
+            case HALF_OPEN:
+                return probesIssued < probes || elapsed >= openNanos;
+            default:
+                return true;
+        }
+    }
+
+    long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    long getOpenTransitions() {
+        return openTransitions.get();
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return delegate.getProtocolType();
+    }
+
+    @Override
+    public String getBucketName() {
+        return delegate.getBucketName();
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return delegate.supportsProtocol(protocol);
+    }
+}
@@ -0,0 +1,182 @@
+package org.logx.fallback;
+
+import org.logx.util.IPUtil;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 默认对象名生成策略
+ * <p>
+ * 格式：{prefix}/yyyy/MM/dd/HHmmssSSS-{fileName}-{IP}-{uniqueId}.log.gz
+ * <p>
+ * 为降低热路径开销：
+ * <ul>
+ * <li>主机IP在构造时通过网卡枚举获取并缓存，不做DNS解析</li>
+ * <li>规范化后的前缀缓存，前缀不变时不再做字符串处理</li>
+ * <li>日期路径按秒缓存，同一秒内只拼接毫秒</li>
+ * <li>唯一标识为进程随机盐+单调递增计数器，替代基于SecureRandom的UUID</li>
+ * </ul>
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class DefaultObjectNameStrategy implements ObjectNameStrategy {
+
+    static final String DEFAULT_KEY_PREFIX = "logx";
+    static final String DEFAULT_FILE_NAME = "applogx";
+    static final String FILE_SUFFIX = ".log.gz";
+
+    private static final int MIN_COUNTER_DIGITS = 6;
+
+    private final String fileName;
+    private final String host;
+    private final String salt;
+    private final ZoneId zoneId;
+    private final AtomicLong counter = new AtomicLong(0);
+
+    private volatile PrefixCache prefixCache = new PrefixCache(null, DEFAULT_KEY_PREFIX);
+    private volatile SecondCache secondCache = new SecondCache(Long.MIN_VALUE, null, null);
+
+    public DefaultObjectNameStrategy() {
+        this(DEFAULT_FILE_NAME);
+    }
+
+    /**
+     * @param fileName 对象名中的文件名部分，为空时使用applogx
+     */
+    public DefaultObjectNameStrategy(String fileName) {
+        this(fileName, IPUtil.getCachedLocalIP(), ZoneId.systemDefault());
+    }
+
+    DefaultObjectNameStrategy(String fileName, String host, ZoneId zoneId) {
+        this.fileName = fileName == null || fileName.trim().isEmpty() ? DEFAULT_FILE_NAME : fileName.trim();
+        this.host = host == null || host.trim().isEmpty() ? "unknown-host" : host.trim();
+        this.zoneId = zoneId;
+        this.salt = String.format("%06x", ThreadLocalRandom.current().nextInt(1 << 24));
+    }
+
+    @Override
+    public String generateObjectName(String keyPrefix) {
+        long nowMs = System.currentTimeMillis();
+        String datePath = datePath(normalizePrefix(keyPrefix), nowMs);
+
+        StringBuilder sb = new StringBuilder(datePath.length() + fileName.length() + host.length() + 32);
+        sb.append(datePath);
+        appendMillis(sb, (int) Math.floorMod(nowMs, 1000L));
+        sb.append('-').append(fileName).append('-').append(host).append('-');
+        appendUniqueId(sb);
+        sb.append(FILE_SUFFIX);
+        return sb.toString();
+    }
+
+    /**
+     * 返回"{prefix}/yyyy/MM/dd/HHmmss"，同一秒内直接复用
+     */
+    String datePath(String normalizedPrefix, long nowMs) {
+        long epochSecond = Math.floorDiv(nowMs, 1000L);
+        SecondCache cache = secondCache;
+        if (cache.epochSecond == epochSecond && cache.prefix.equals(normalizedPrefix)) {
+            return cache.path;
+        }
+
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zoneId);
+        StringBuilder sb = new StringBuilder(normalizedPrefix.length() + 18);
+        sb.append(normalizedPrefix).append('/');
+        sb.append(time.getYear()).append('/');
+        appendTwoDigits(sb, time.getMonthValue());
+        sb.append('/');
+        appendTwoDigits(sb, time.getDayOfMonth());
+        sb.append('/');
+        appendTwoDigits(sb, time.getHour());
+        appendTwoDigits(sb, time.getMinute());
+        appendTwoDigits(sb, time.getSecond());
+        String path = sb.toString();
+        secondCache = new SecondCache(epochSecond, normalizedPrefix, path);
+        return path;
+    }
+
+    String normalizePrefix(String keyPrefix) {
+        PrefixCache cache = prefixCache;
+        if (cache.raw == keyPrefix || (cache.raw != null && cache.raw.equals(keyPrefix))) {
+            return cache.normalized;
+        }
+        String normalized = doNormalizePrefix(keyPrefix);
+        prefixCache = new PrefixCache(keyPrefix, normalized);
+        return normalized;
+    }
+
+    static String doNormalizePrefix(String keyPrefix) {
+        if (keyPrefix == null || keyPrefix.trim().isEmpty()) {
+            return DEFAULT_KEY_PREFIX;
+        }
+        int start = 0;
+        int end = keyPrefix.length();
+        while (start < end && keyPrefix.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && keyPrefix.charAt(end - 1) == '/') {
+            end--;
+        }
+        return keyPrefix.substring(start, end);
+    }
+
+    private void appendUniqueId(StringBuilder sb) {
+        sb.append(salt);
+        String hex = Long.toHexString(counter.getAndIncrement());
+        for (int i = hex.length(); i < MIN_COUNTER_DIGITS; i++) {
+            sb.append('0');
+        }
+        sb.append(hex);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    private static void appendMillis(StringBuilder sb, int millis) {
+        if (millis < 100) {
+            sb.append('0');
+        }
+        if (millis < 10) {
+            sb.append('0');
+        }
+        sb.append(millis);
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    private static final class PrefixCache {
+        final String raw;
+        final String normalized;
+
+        PrefixCache(String raw, String normalized) {
+            this.raw = raw;
+            this.normalized = normalized;
+        }
+    }
+
+    private static final class SecondCache {
+        final long epochSecond;
+        final String prefix;
+        final String path;
+
+        SecondCache(long epochSecond, String prefix, String path) {
+            this.epochSecond = epochSecond;
+            this.prefix = prefix;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.logx.fallback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 备用存储写入记录
+ * <p>
+ * 主存储不可用、批次写入备用存储时记录目标和对象键，每行一条，格式为{@code 目标\t对象键}。
+ * 兜底重传任务在主存储恢复后按记录从备用存储读回对象、以相同的对象键写回主存储，
+ * 写回成功后删除记录，主存储上的对象布局与没有发生故障转移时一致。
+ * <p>
+ * 记录文件位于兜底目录的{@code .failover}子目录，不计入兜底磁盘配额，也不会被当作兜底文件重传；
+ * 超过兜底保留天数未更新时随兜底文件一起清理。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class FailoverJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailoverJournal.class);
+
+    static final String JOURNAL_DIR = ".failover";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path journalFile;
+    private int size = -1;
+
+    /**
+     * @param fallbackDirectory 兜底目录的绝对路径
+     * @param name 记录名称，同一兜底目录下的多个引擎使用不同名称
+     */
+    public FailoverJournal(String fallbackDirectory, String name) {
+        Objects.requireNonNull(fallbackDirectory, "fallbackDirectory cannot be null");
+        String fileName = name.replaceAll("[^A-Za-z0-9._-]", "_") + JOURNAL_SUFFIX;
+        this.journalFile = Paths.get(fallbackDirectory.trim(), JOURNAL_DIR, fileName);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param target 备用存储目标名称
+     * @param key 对象键
+     * @return 是否写入成功，失败时该对象只保留在备用存储中
+     */
+    public synchronized boolean append(String target, String key) {
+        try {
+            Files.createDirectories(journalFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(target + '\t' + key);
+                writer.newLine();
+            }
+            if (size >= 0) {
+                size++;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to record failover upload of {} to {}: {}", key, target, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 按写入顺序读取待写回的记录
+     *
+     * @param max 最多返回的条数
+     * @return 待写回的记录
+     */
+    public synchronized List<Entry> pending(int max) {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(journalFile)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while (entries.size() < max && (line = reader.readLine()) != null) {
+                Entry entry = Entry.parse(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read failover journal {}: {}", journalFile, e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * 删除已处理的记录，同一记录重复出现时全部删除
+     *
+     * @param done 已写回或放弃的记录
+     */
+    public synchronized void remove(Collection<Entry> done) {
+        if (done.isEmpty() || !Files.exists(journalFile)) {
+            return;
+        }
+        Set<Entry> removed = new HashSet<>(done);
+        Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + TEMP_SUFFIX);
+        int remaining = 0;
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8);
+                 BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = Entry.parse(line);
+                    if (entry != null && !removed.contains(entry)) {
+                        writer.write(line);
+                        writer.newLine();
+                        remaining++;
+                    }
+                }
+            }
+            if (remaining == 0) {
+                Files.delete(tempFile);
+                Files.delete(journalFile);
+            } else {
+                Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            size = remaining;
+        } catch (IOException e) {
+            logger.error("Failed to update failover journal {}: {}", journalFile, e.getMessage());
+            size = -1;
+        }
+    }
+
+    /**
+     * @return 待写回的记录数
+     */
+    public synchronized int size() {
+        if (size < 0) {
+            size = countLines();
+        }
+        return size;
+    }
+
+    private int countLines() {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (Entry.parse(line) != null) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read failover journal {}: {}", journalFile, e.getMessage());
+        }
+        return count;
+    }
+
+    Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * 一条备用存储写入记录
+     */
+    public static final class Entry {
+        private final String target;
+        private final String key;
+
+        public Entry(String target, String key) {
+            this.target = target;
+            this.key = key;
+        }
+
+        static Entry parse(String line) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0 || tab == line.length() - 1) {
+                return null;
+            }
+            return new Entry(line.substring(0, tab), line.substring(tab + 1));
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return target.equals(other.target) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(target, key);
+        }
+
+        @Override
+        public String toString() {
+            return target + ":" + key;
+        }
+    }
+}
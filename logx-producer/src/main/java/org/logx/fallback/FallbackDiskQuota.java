@@ -0,0 +1,502 @@
+package org.logx.fallback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 兜底目录磁盘配额
+ * <p>
+ * 按字节数和文件数限制兜底目录的总占用，防止长时间存储故障时兜底文件写满Pod的临时磁盘。
+ * <p>
+ * 主要特性：
+ * <ul>
+ * <li>每次写入前通过原子计数器以O(1)完成配额检查，配额充足时无锁</li>
+ * <li>超出配额时按{@link FallbackEvictionPolicy}淘汰已有文件，淘汰过程串行执行</li>
+ * <li>占用达到告警阈值时输出限频告警日志</li>
+ * <li>定期{@link #rescan()}与磁盘实际状态对齐，纠正外部删除带来的计数偏差</li>
+ * </ul>
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class FallbackDiskQuota {
+
+    private static final Logger logger = LoggerFactory.getLogger(FallbackDiskQuota.class);
+
+    private static final long WARN_INTERVAL_MS = 60000L;
+    private static final String QUARANTINE_DIR = "quarantine";
+
+    private final Path rootDir;
+    private final Config config;
+
+    // 已提交文件与已预留但尚未落盘的写入之和；预留只做原子加减，不经过this锁
+    private final AtomicLong usedBytes = new AtomicLong(0);
+    private final AtomicInteger fileCount = new AtomicInteger(0);
+
+    private final AtomicLong evictedFiles = new AtomicLong(0);
+    private final AtomicLong evictedBytes = new AtomicLong(0);
+    private final AtomicLong rejectedWrites = new AtomicLong(0);
+    private final AtomicLong lastWarnTimeMs = new AtomicLong(0);
+
+    // 以下结构由this锁保护
+    private final Map<Path, Entry> entries = new HashMap<>();
+    private final EnumMap<FallbackPriority, ArrayDeque<Entry>> queues = new EnumMap<>(FallbackPriority.class);
+    private final List<Entry> sampleList = new ArrayList<>();
+    // 已纳入淘汰队列的文件合计，usedBytes减去该值即为尚未提交的预留
+    private long committedBytes = 0L;
+    private int committedFiles = 0;
+    private long sequence = 0L;
+
+    /**
+     * 构造兜底目录磁盘配额
+     *
+     * @param rootDir 兜底目录绝对路径
+     * @param config 配额配置
+     */
+    public FallbackDiskQuota(Path rootDir, Config config) {
+        if (rootDir == null) {
+            throw new IllegalArgumentException("Fallback root directory cannot be null");
+        }
+        this.rootDir = rootDir;
+        this.config = config != null ? config : Config.defaultConfig();
+        for (FallbackPriority priority : FallbackPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 为即将写入的文件申请配额
+     * <p>
+     * 配额充足时仅做原子计数；不足时按淘汰策略删除已有文件腾出空间。 申请成功后必须调用{@link #commit}或{@link #cancel}。
+     *
+     * @param size 文件字节数
+     * @param priority 文件优先级
+     * @return 是否申请成功，false表示应放弃本次写入
+     */
+    public boolean tryAcquire(long size, FallbackPriority priority) {
+        FallbackPriority effectivePriority = priority != null ? priority : FallbackPriority.NORMAL;
+        if (size > config.maxTotalBytes) {
+            long rejected = rejectedWrites.incrementAndGet();
+            logger.warn("[FALLBACK_QUOTA_ALERT] Fallback write larger than total quota rejected. size={}, maxTotalBytes={}, rejectedCount={}",
+                    size, config.maxTotalBytes, rejected);
+            return false;
+        }
+
+        if (!tryReserve(size)) {
+            synchronized (this) {
+                while (!tryReserve(size)) {
+                    Entry victim = selectVictim(effectivePriority);
+                    if (victim == null) {
+                        long rejected = rejectedWrites.incrementAndGet();
+                        logger.warn("[FALLBACK_QUOTA_ALERT] Fallback quota exhausted, write rejected. size={}, priority={}, usedBytes={}, files={}, rejectedCount={}",
+                                size, effectivePriority, usedBytes.get(), fileCount.get(), rejected);
+                        return false;
+                    }
+                    evict(victim);
+                }
+            }
+        }
+
+        warnIfNearLimit();
+        return true;
+    }
+
+    /**
+     * 确认文件已写入磁盘，将其纳入淘汰队列
+     *
+     * @param file 文件路径
+     * @param size 申请配额时的字节数
+     * @param priority 文件优先级
+     */
+    public synchronized void commit(Path file, long size, FallbackPriority priority) {
+        Path key = file.toAbsolutePath().normalize();
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            unlink(existing);
+        }
+
+        Entry entry = new Entry(key, size, System.currentTimeMillis(),
+                priority != null ? priority : FallbackPriority.NORMAL, sequence++);
+        // 字节数和文件数已在tryAcquire时计入
+        link(entry, false);
+    }
+
+    /**
+     * 写入失败时归还已申请的配额
+     *
+     * @param size 申请配额时的字节数
+     */
+    public void cancel(long size) {
+        usedBytes.addAndGet(-size);
+        fileCount.decrementAndGet();
+    }
+
+    /**
+     * 文件被外部删除（重传成功、过期清理、隔离）后释放其配额
+     *
+     * @param file 文件路径
+     */
+    public synchronized void release(Path file) {
+        Entry entry = entries.get(file.toAbsolutePath().normalize());
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * 文件被移入隔离目录后更新其路径，隔离文件按LOW优先级参与淘汰
+     *
+     * @param source 原文件路径
+     * @param target 隔离后的文件路径
+     */
+    public synchronized void quarantined(Path source, Path target) {
+        Entry entry = entries.get(source.toAbsolutePath().normalize());
+        if (entry == null) {
+            return;
+        }
+        unlink(entry);
+        link(new Entry(target.toAbsolutePath().normalize(), entry.size, entry.createdMs, FallbackPriority.LOW, sequence++), true);
+    }
+
+    /**
+     * 重新扫描兜底目录，以磁盘实际状态重建计数和淘汰队列
+     * <p>
+     * 扫描结果只替换已提交的部分，按差值调整计数，扫描期间其他线程的预留不会丢失。
+     * 扫描后若仍超出配额（例如重启后配额调小），会立即淘汰至配额以内。
+     */
+    public synchronized void rescan() {
+        if (!Files.isDirectory(rootDir)) {
+            return;
+        }
+
+        List<Entry> scanned;
+        try (Stream<Path> files = Files.walk(rootDir)) {
+            scanned = files.filter(Files::isRegularFile)
+                    .filter(this::isAccountedFile)
+                    .map(this::toEntry)
+                    .filter(entry -> entry != null)
+                    .sorted((a, b) -> Long.compare(a.createdMs, b.createdMs))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Failed to rescan fallback directory for quota accounting: {}", rootDir, e);
+            return;
+        }
+
+        entries.clear();
+        sampleList.clear();
+        for (ArrayDeque<Entry> queue : queues.values()) {
+            queue.clear();
+        }
+        usedBytes.addAndGet(-committedBytes);
+        fileCount.addAndGet(-committedFiles);
+        committedBytes = 0L;
+        committedFiles = 0;
+        for (Entry entry : scanned) {
+            entry.sequence = sequence++;
+            link(entry, true);
+        }
+
+        while (usedBytes.get() > config.maxTotalBytes || fileCount.get() > config.maxFiles) {
+            Entry victim = selectVictim(FallbackPriority.HIGH);
+            if (victim == null) {
+                break;
+            }
+            evict(victim);
+        }
+        warnIfNearLimit();
+    }
+
+    private boolean isAccountedFile(Path file) {
+        Path relative = rootDir.relativize(file);
+        for (Path part : relative) {
+            if (part.toString().startsWith(".")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Entry toEntry(Path file) {
+        try {
+            Path key = file.toAbsolutePath().normalize();
+            Entry known = entries.get(key);
+            FallbackPriority priority;
+            if (known != null) {
+                priority = known.priority;
+            } else if (rootDir.relativize(file).startsWith(QUARANTINE_DIR)) {
+                priority = FallbackPriority.LOW;
+            } else {
+                priority = FallbackPriority.NORMAL;
+            }
+            return new Entry(key, Files.size(file), Files.getLastModifiedTime(file).toMillis(), priority, 0L);
+        } catch (IOException e) {
+            logger.debug("Skip fallback file during quota rescan: {}", file, e);
+            return null;
+        }
+    }
+
+    private boolean tryReserve(long size) {
+        while (true) {
+            long current = usedBytes.get();
+            if (current + size > config.maxTotalBytes) {
+                return false;
+            }
+            if (usedBytes.compareAndSet(current, current + size)) {
+                break;
+            }
+        }
+        while (true) {
+            int files = fileCount.get();
+            if (files + 1 > config.maxFiles) {
+                usedBytes.addAndGet(-size);
+                return false;
+            }
+            if (fileCount.compareAndSet(files, files + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Entry selectVictim(FallbackPriority incoming) {
+        switch (config.evictionPolicy) {
+            case LOWEST_SEVERITY_FIRST:
+                for (FallbackPriority priority : FallbackPriority.values()) {
+                    if (priority.ordinal() > incoming.ordinal()) {
+                        break;
+                    }
+                    Entry head = peekLive(queues.get(priority));
+                    if (head != null) {
+                        return head;
+                    }
+                }
+                return null;
+            case SAMPLED:
+                return sampleVictim(incoming);
+            case OLDEST_FIRST:
+            default:
+                Entry oldest = null;
+                for (ArrayDeque<Entry> queue : queues.values()) {
+                    Entry head = peekLive(queue);
+                    if (head != null && (oldest == null || isOlder(head, oldest))) {
+                        oldest = head;
+                    }
+                }
+                return oldest;
+        }
+    }
+
+    private Entry sampleVictim(FallbackPriority incoming) {
+        int size = sampleList.size();
+        if (size == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int samples = Math.min(config.sampleSize, size);
+        Entry best = null;
+        for (int i = 0; i < samples; i++) {
+            Entry candidate = sampleList.get(random.nextInt(size));
+            if (best == null
+                    || candidate.priority.ordinal() < best.priority.ordinal()
+                    || (candidate.priority == best.priority && isOlder(candidate, best))) {
+                best = candidate;
+            }
+        }
+        if (best.priority.ordinal() > incoming.ordinal()) {
+            return null;
+        }
+        return best;
+    }
+
+    private boolean isOlder(Entry a, Entry b) {
+        if (a.createdMs != b.createdMs) {
+            return a.createdMs < b.createdMs;
+        }
+        return a.sequence < b.sequence;
+    }
+
+    private Entry peekLive(ArrayDeque<Entry> queue) {
+        Entry head = queue.peekFirst();
+        while (head != null && head.removed) {
+            queue.pollFirst();
+            head = queue.peekFirst();
+        }
+        return head;
+    }
+
+    private void evict(Entry victim) {
+        try {
+            Files.deleteIfExists(victim.path);
+        } catch (IOException e) {
+            logger.error("Failed to delete fallback file during quota eviction: {}", victim.path, e);
+        }
+        unlink(victim);
+        evictedFiles.incrementAndGet();
+        evictedBytes.addAndGet(victim.size);
+        logger.warn("[FALLBACK_QUOTA_ALERT] Evicted fallback file to stay within quota. file={}, size={}, priority={}, policy={}",
+                victim.path.getFileName(), victim.size, victim.priority, config.evictionPolicy);
+    }
+
+    private void link(Entry entry, boolean count) {
+        entries.put(entry.path, entry);
+        queues.get(entry.priority).addLast(entry);
+        entry.sampleIndex = sampleList.size();
+        sampleList.add(entry);
+        committedBytes += entry.size;
+        committedFiles++;
+        if (count) {
+            usedBytes.addAndGet(entry.size);
+            fileCount.incrementAndGet();
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.removed) {
+            return;
+        }
+        entry.removed = true;
+        entries.remove(entry.path);
+        int lastIndex = sampleList.size() - 1;
+        Entry last = sampleList.remove(lastIndex);
+        if (last != entry) {
+            sampleList.set(entry.sampleIndex, last);
+            last.sampleIndex = entry.sampleIndex;
+        }
+        committedBytes -= entry.size;
+        committedFiles--;
+        usedBytes.addAndGet(-entry.size);
+        fileCount.decrementAndGet();
+    }
+
+    private void warnIfNearLimit() {
+        long bytesPercent = config.maxTotalBytes > 0 ? usedBytes.get() * 100 / config.maxTotalBytes : 0;
+        long filesPercent = config.maxFiles > 0 ? (long) fileCount.get() * 100 / config.maxFiles : 0;
+        long usagePercent = Math.max(bytesPercent, filesPercent);
+        if (usagePercent < config.warnPercent) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long lastWarn = lastWarnTimeMs.get();
+        if (now - lastWarn > WARN_INTERVAL_MS && lastWarnTimeMs.compareAndSet(lastWarn, now)) {
+            logger.warn("[FALLBACK_QUOTA_ALERT] Fallback directory usage at {}% of quota. usedBytes={}, maxTotalBytes={}, files={}, maxFiles={}, path={}",
+                    usagePercent, usedBytes.get(), config.maxTotalBytes, fileCount.get(), config.maxFiles, rootDir);
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    public long getEvictedFiles() {
+        return evictedFiles.get();
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes.get();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.get();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        final long createdMs;
+        final FallbackPriority priority;
+        long sequence;
+        int sampleIndex;
+        boolean removed;
+
+        Entry(Path path, long size, long createdMs, FallbackPriority priority, long sequence) {
+            this.path = path;
+            this.size = size;
+            this.createdMs = createdMs;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 磁盘配额配置
+     */
+    public static class Config {
+
+        private long maxTotalBytes = 1024L * 1024 * 1024;
+        private int maxFiles = 10000;
+        private int warnPercent = 80;
+        private FallbackEvictionPolicy evictionPolicy = FallbackEvictionPolicy.OLDEST_FIRST;
+        private int sampleSize = 5;
+
+        public static Config defaultConfig() {
+            return new Config();
+        }
+
+        public Config maxTotalBytes(long maxTotalBytes) {
+            this.maxTotalBytes = Math.max(1L, maxTotalBytes);
+            return this;
+        }
+
+        public Config maxFiles(int maxFiles) {
+            this.maxFiles = Math.max(1, maxFiles);
+            return this;
+        }
+
+        public Config warnPercent(int warnPercent) {
+            this.warnPercent = Math.max(1, Math.min(100, warnPercent));
+            return this;
+        }
+
+        public Config evictionPolicy(FallbackEvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy != null ? evictionPolicy : FallbackEvictionPolicy.OLDEST_FIRST;
+            return this;
+        }
+
+        public Config sampleSize(int sampleSize) {
+            this.sampleSize = Math.max(1, Math.min(64, sampleSize));
+            return this;
+        }
+
+        public long getMaxTotalBytes() {
+            return maxTotalBytes;
+        }
+
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+
+        public int getWarnPercent() {
+            return warnPercent;
+        }
+
+        public FallbackEvictionPolicy getEvictionPolicy() {
+            return evictionPolicy;
+        }
+
+        public int getSampleSize() {
+            return sampleSize;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.logx.fallback;
+
+/**
+ * 兜底目录超出磁盘配额时的淘汰策略
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public enum FallbackEvictionPolicy {
+
+    /** 淘汰最早写入的文件 */
+    OLDEST_FIRST,
+
+    /** 先淘汰低优先级文件，同优先级内淘汰最早写入的文件；不会为低优先级数据淘汰高优先级文件 */
+    LOWEST_SEVERITY_FIRST,
+
+    /** 随机采样若干文件，淘汰其中优先级最低且最早写入的文件 */
+    SAMPLED
+}
@@ -48,6 +48,7 @@ public class FallbackFileCleaner {
             AtomicInteger deletedCount = new AtomicInteger(0);
             try (Stream<Path> files = Files.walk(fallbackDir)) {
                 files.filter(Files::isRegularFile)
+                     .filter(file -> !LegacyFallbackMigrator.isEngineMarker(file))
                      .filter(file -> isFileExpired(file, expiryTime))
                      .forEach(file -> {
                          if (deleteFile(file)) {
@@ -1,5 +1,6 @@
 package org.logx.fallback;
 
+import org.logx.metrics.LatencyRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,10 +20,14 @@ import java.nio.file.Paths;
 public class FallbackManager {
 
     private static final Logger logger = LoggerFactory.getLogger(FallbackManager.class);
+    private static final String FALLBACK_FILE_SUFFIX = ".log.gz";
 
     private final String fallbackPath;
     private final String absoluteFallbackPath;
     private final String keyPrefix;
+    private final FallbackDiskQuota diskQuota;
+    private final ObjectNameStrategy nameStrategy;
+    private final LatencyRecorder writeLatency = new LatencyRecorder();
 
     /**
      * 构造兜底文件管理器
@@ -32,6 +37,32 @@ public class FallbackManager {
      * @throws IllegalArgumentException 如果参数为null或空
      */
     public FallbackManager(String fallbackPath, String keyPrefix) {
+        this(fallbackPath, keyPrefix, null);
+    }
+
+    /**
+     * 构造带磁盘配额的兜底文件管理器
+     *
+     * @param fallbackPath 兜底文件存储路径
+     * @param keyPrefix 对象键前缀
+     * @param quotaConfig 磁盘配额配置，为null时不限制兜底目录占用
+     * @throws IllegalArgumentException 如果参数为null或空
+     */
+    public FallbackManager(String fallbackPath, String keyPrefix, FallbackDiskQuota.Config quotaConfig) {
+        this(fallbackPath, keyPrefix, quotaConfig, null);
+    }
+
+    /**
+     * 构造指定对象名生成策略的兜底文件管理器
+     *
+     * @param fallbackPath 兜底文件存储路径
+     * @param keyPrefix 对象键前缀
+     * @param quotaConfig 磁盘配额配置，为null时不限制兜底目录占用
+     * @param nameStrategy 兜底文件名生成策略，为null时使用全局默认策略
+     * @throws IllegalArgumentException 如果参数为null或空
+     */
+    public FallbackManager(String fallbackPath, String keyPrefix, FallbackDiskQuota.Config quotaConfig,
+                           ObjectNameStrategy nameStrategy) {
         if (fallbackPath == null || fallbackPath.trim().isEmpty()) {
             throw new IllegalArgumentException("Fallback path cannot be null or empty");
         }
@@ -39,7 +70,15 @@ public class FallbackManager {
         this.fallbackPath = fallbackPath.trim();
         this.absoluteFallbackPath = FallbackPathResolver.resolveAbsolutePath(this.fallbackPath);
         this.keyPrefix = keyPrefix;
+        this.nameStrategy = nameStrategy != null ? nameStrategy : ObjectNameGenerator.getDefaultStrategy();
         FallbackPathResolver.ensureFallbackDirectoryExists(this.fallbackPath);
+
+        if (quotaConfig != null) {
+            this.diskQuota = new FallbackDiskQuota(Paths.get(absoluteFallbackPath), quotaConfig);
+            this.diskQuota.rescan();
+        } else {
+            this.diskQuota = null;
+        }
     }
     
     /**
@@ -48,6 +87,34 @@ public class FallbackManager {
      * @return 是否写入成功
      */
     public boolean writeFallbackFile(byte[] data) {
+        return writeFallbackFile(data, FallbackPriority.NORMAL);
+    }
+
+    /**
+     * 按指定优先级写入兜底文件
+     * <p>
+     * 启用磁盘配额时，配额不足会先按淘汰策略删除已有文件；无法腾出空间时放弃本次写入。
+     *
+     * @param data 日志数据
+     * @param priority 兜底文件优先级
+     * @return 是否写入成功
+     */
+    public boolean writeFallbackFile(byte[] data, FallbackPriority priority) {
+        return writeFallbackFile(data, priority, null);
+    }
+
+    /**
+     * 按指定优先级写入兜底文件，文件以原本要上传的对象键命名
+     * <p>
+     * 兜底文件相对兜底目录的路径即重传时的对象键，按对象键命名后重传的对象保留路由前缀和键模板中的分区。
+     * 对象键为null、不以.log.gz结尾、越出兜底目录或已有同名文件时，改用命名策略生成的对象名。
+     *
+     * @param data 日志数据
+     * @param priority 兜底文件优先级
+     * @param objectKey 原本要上传的对象键，可为null
+     * @return 是否写入成功
+     */
+    public boolean writeFallbackFile(byte[] data, FallbackPriority priority, String objectKey) {
         if (data == null) {
             logger.warn("Attempted to write null data to fallback file");
             return false;
@@ -58,9 +125,15 @@ public class FallbackManager {
             return false;
         }
         
+        if (diskQuota != null && !diskQuota.tryAcquire(data.length, priority)) {
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        boolean written = false;
         try {
-            String fallbackObjectName = ObjectNameGenerator.generateObjectName(keyPrefix);
-            Path fallbackFile = Paths.get(absoluteFallbackPath, fallbackObjectName);
+            Path fallbackFile = resolveFallbackFile(objectKey);
+            String fallbackObjectName = Paths.get(absoluteFallbackPath).relativize(fallbackFile).toString();
             
             // 确保目录存在
             Path parentDir = fallbackFile.getParent();
@@ -69,7 +142,11 @@ public class FallbackManager {
             }
             
             Files.write(fallbackFile, data);
-            
+            written = true;
+            if (diskQuota != null) {
+                diskQuota.commit(fallbackFile, data.length, priority);
+            }
+
             logger.info("Wrote fallback file: {} (size: {} bytes)", fallbackObjectName, data.length);
             return true;
         } catch (IOException e) {
@@ -78,9 +155,42 @@ public class FallbackManager {
         } catch (Exception e) {
             logger.error("Unexpected error while writing fallback file with data size: {} bytes", data.length, e);
             return false;
+        } finally {
+            writeLatency.recordSince(startNanos);
+            if (diskQuota != null && !written) {
+                diskQuota.cancel(data.length);
+            }
         }
     }
-    
+
+    private Path resolveFallbackFile(String objectKey) {
+        Path root = Paths.get(absoluteFallbackPath);
+        if (objectKey != null && objectKey.endsWith(FALLBACK_FILE_SUFFIX)) {
+            Path file = root.resolve(objectKey).normalize();
+            if (file.startsWith(root) && !file.equals(root) && !Files.exists(file)) {
+                return file;
+            }
+            logger.debug("Object key {} cannot be used as fallback file name, generating one", objectKey);
+        }
+        return root.resolve(nameStrategy.generateObjectName(keyPrefix));
+    }
+
+    /**
+     * 获取兜底文件写入耗时记录器
+     * @return 写入耗时（纳秒），包含失败的写入
+     */
+    public LatencyRecorder getWriteLatency() {
+        return writeLatency;
+    }
+
+    /**
+     * 获取兜底目录磁盘配额
+     * @return 磁盘配额，未启用时返回null
+     */
+    public FallbackDiskQuota getDiskQuota() {
+        return diskQuota;
+    }
+
     /**
      * 获取兜底路径
      * @return 兜底路径
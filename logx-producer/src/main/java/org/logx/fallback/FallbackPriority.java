@@ -0,0 +1,107 @@
+package org.logx.fallback;
+
+/**
+ * 兜底文件优先级
+ * <p>
+ * 用于磁盘配额淘汰时区分兜底文件的重要程度，优先级越低越先被淘汰。
+ * 优先级由日志级别映射而来：TRACE/DEBUG为LOW，INFO及未知级别为NORMAL，WARN/ERROR/FATAL为HIGH。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public enum FallbackPriority {
+
+    /** 调试类日志，磁盘紧张时最先淘汰 */
+    LOW,
+
+    /** 普通日志 */
+    NORMAL,
+
+    /** 告警与错误日志，尽量保留 */
+    HIGH;
+
+    private static final int DETECT_PREFIX_BYTES = 256;
+
+    /**
+     * 根据日志级别名称映射优先级
+     *
+     * @param level 日志级别名称（不区分大小写）
+     * @return 对应的优先级，无法识别时返回NORMAL
+     */
+    public static FallbackPriority fromLevel(String level) {
+        if (level == null) {
+            return NORMAL;
+        }
+        String normalized = level.trim().toUpperCase(java.util.Locale.ENGLISH);
+        switch (normalized) {
+            case "TRACE":
+            case "DEBUG":
+            case "ALL":
+                return LOW;
+            case "WARN":
+            case "WARNING":
+            case "ERROR":
+            case "FATAL":
+            case "SEVERE":
+                return HIGH;
+            default:
+                return NORMAL;
+        }
+    }
+
+    /**
+     * 从单条日志载荷的前缀中探测日志级别并映射为优先级
+     * <p>
+     * 仅扫描前256字节，适用于紧急兜底和超大载荷等单条写入场景。
+     *
+     * @param data 日志载荷
+     * @return 探测到的优先级，未识别时返回NORMAL
+     */
+    public static FallbackPriority detect(byte[] data) {
+        if (data == null || data.length == 0) {
+            return NORMAL;
+        }
+        int limit = Math.min(data.length, DETECT_PREFIX_BYTES);
+        for (int i = 0; i < limit; i++) {
+            byte b = data[i];
+            if (b == 'E' && matches(data, i, limit, "ERROR")) {
+                return HIGH;
+            }
+            if (b == 'F' && matches(data, i, limit, "FATAL")) {
+                return HIGH;
+            }
+            if (b == 'W' && matches(data, i, limit, "WARN")) {
+                return HIGH;
+            }
+            if (b == 'I' && matches(data, i, limit, "INFO")) {
+                return NORMAL;
+            }
+            if (b == 'D' && matches(data, i, limit, "DEBUG")) {
+                return LOW;
+            }
+            if (b == 'T' && matches(data, i, limit, "TRACE")) {
+                return LOW;
+            }
+        }
+        return NORMAL;
+    }
+
+    private static boolean matches(byte[] data, int offset, int limit, String token) {
+        int end = offset + token.length();
+        if (end > limit) {
+            return false;
+        }
+        if (offset > 0 && Character.isLetterOrDigit(data[offset - 1])) {
+            return false;
+        }
+        if (end < limit && Character.isLetterOrDigit(data[end])) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (data[offset + i] != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
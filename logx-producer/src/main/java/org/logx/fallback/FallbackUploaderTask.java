@@ -1,5 +1,6 @@
 package org.logx.fallback;
 
+import org.logx.exception.StorageException;
 import org.logx.storage.StorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,9 +17,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 /**
@@ -49,13 +57,22 @@ public class FallbackUploaderTask implements Runnable {
     private final long maxRetryFileBytes;
     private final int maxRetryFilesPerRound;
     private final long maxRetryBytesPerRound;
+    private volatile FallbackDiskQuota diskQuota;
+    private volatile BooleanSupplier uploadGate;
+    private volatile FailoverJournal failoverJournal;
+    private volatile Map<String, StorageService> failoverSources = Collections.emptyMap();
+    private final AtomicLong resentFiles = new AtomicLong(0);
+    private final AtomicLong resendFailures = new AtomicLong(0);
+    private final AtomicLong quarantinedFiles = new AtomicLong(0);
+    private final AtomicLong restoredObjects = new AtomicLong(0);
+    private final AtomicLong restoreFailures = new AtomicLong(0);
 
     /**
      * @deprecated fileName参数已废弃，ObjectNameGenerator使用固定默认值
      */
     @Deprecated
     public FallbackUploaderTask(StorageService storageService, String fallbackPath, String fileName, int retentionDays) {
-        this(storageService, fallbackPath, fileName, retentionDays,
+        this(storageService, fallbackPath, retentionDays,
             DEFAULT_MAX_RETRY_FILE_BYTES,
             DEFAULT_MAX_RETRY_FILES_PER_ROUND,
             DEFAULT_MAX_RETRY_BYTES_PER_ROUND);
@@ -67,6 +84,20 @@ public class FallbackUploaderTask implements Runnable {
     @Deprecated
     public FallbackUploaderTask(StorageService storageService, String fallbackPath, String fileName, int retentionDays,
                                 long maxRetryFileBytes, int maxRetryFilesPerRound, long maxRetryBytesPerRound) {
+        this(storageService, fallbackPath, retentionDays, maxRetryFileBytes, maxRetryFilesPerRound,
+            maxRetryBytesPerRound);
+    }
+
+    /**
+     * @param storageService 重传目标存储
+     * @param fallbackPath 兜底目录
+     * @param retentionDays 兜底文件保留天数
+     * @param maxRetryFileBytes 单个文件的重传大小上限，超过时移入隔离目录
+     * @param maxRetryFilesPerRound 每轮重传的文件数上限
+     * @param maxRetryBytesPerRound 每轮重传的字节数上限
+     */
+    public FallbackUploaderTask(StorageService storageService, String fallbackPath, int retentionDays,
+                                long maxRetryFileBytes, int maxRetryFilesPerRound, long maxRetryBytesPerRound) {
         this.storageService = storageService;
         this.fallbackPath = fallbackPath;
         this.absoluteFallbackPath = FallbackPathResolver.resolveAbsolutePath(fallbackPath);
@@ -76,14 +107,97 @@ public class FallbackUploaderTask implements Runnable {
         this.maxRetryBytesPerRound = Math.max(1L, maxRetryBytesPerRound);
     }
     
+    /**
+     * 设置兜底目录磁盘配额，重传删除和隔离文件时同步更新配额占用
+     *
+     * @param diskQuota 磁盘配额，为null时不做配额记账
+     */
+    public void setDiskQuota(FallbackDiskQuota diskQuota) {
+        this.diskQuota = diskQuota;
+    }
+
+    /**
+     * 设置重传开关，返回false时本轮只清理过期文件、不重传，例如存储熔断打开期间；
+     * 每个文件上传前都会检查，本轮中途变为false时停止
+     *
+     * @param uploadGate 重传开关，为null时总是重传
+     */
+    public void setUploadGate(BooleanSupplier uploadGate) {
+        this.uploadGate = uploadGate;
+    }
+
+    /**
+     * 设置备用存储写回：每轮重传兜底文件后，把记录中写入备用存储的对象读回并以相同的对象键写入主存储
+     *
+     * @param journal 备用存储写入记录，为null时不写回
+     * @param sources 按目标名称索引的备用存储
+     */
+    public void setFailoverRestore(FailoverJournal journal, Map<String, StorageService> sources) {
+        this.failoverSources = sources != null ? sources : Collections.<String, StorageService>emptyMap();
+        this.failoverJournal = journal;
+    }
+
+    /**
+     * @return 重传成功的兜底文件数
+     */
+    public long getResentFileCount() {
+        return resentFiles.get();
+    }
+
+    /**
+     * @return 重传失败次数，同一文件在后续轮次中再次失败会重复计数
+     */
+    public long getResendFailureCount() {
+        return resendFailures.get();
+    }
+
+    /**
+     * @return 因超过重传大小上限被隔离的文件数
+     */
+    public long getQuarantinedFileCount() {
+        return quarantinedFiles.get();
+    }
+
+    /**
+     * @return 从备用存储写回主存储的对象数
+     */
+    public long getRestoredObjectCount() {
+        return restoredObjects.get();
+    }
+
+    /**
+     * @return 写回主存储失败次数
+     */
+    public long getRestoreFailureCount() {
+        return restoreFailures.get();
+    }
+
     @Override
     public void run() {
         try {
             // 首先清理过期文件
             cleanupExpiredFiles();
-            
+
+            // 清理后与磁盘实际占用对齐
+            FallbackDiskQuota quota = diskQuota;
+            if (quota != null) {
+                quota.rescan();
+            }
+
+            BooleanSupplier gate = uploadGate;
+            if (gate != null && !gate.getAsBoolean()) {
+                logger.debug("Storage unavailable, skipping fallback resend round");
+                return;
+            }
+
             // 然后重传现有的兜底文件
             retryUploadFiles();
+            if (gate != null && !gate.getAsBoolean()) {
+                return;
+            }
+
+            // 最后把写入备用存储的对象写回主存储
+            restoreFailoverObjects();
         } catch (Exception e) {
             logger.error("Failed to execute fallback upload task", e);
         }
@@ -127,6 +241,12 @@ public class FallbackUploaderTask implements Runnable {
                         break;
                     }
 
+                    BooleanSupplier gate = uploadGate;
+                    if (gate != null && !gate.getAsBoolean()) {
+                        logger.debug("Storage unavailable, stopping fallback resend round");
+                        return;
+                    }
+
                     Path file = iterator.next();
                     long fileSize = Files.size(file);
 
@@ -165,12 +285,86 @@ public class FallbackUploaderTask implements Runnable {
 
             // 上传成功后删除本地文件
             Files.delete(file);
+            FallbackDiskQuota quota = diskQuota;
+            if (quota != null) {
+                quota.release(file);
+            }
+            resentFiles.incrementAndGet();
             logger.info("Successfully resent fallback file as: {}", retryObjectName);
         } catch (Exception e) {
+            resendFailures.incrementAndGet();
             logger.error("Failed to retry upload for file: {}", file.getFileName(), e);
         }
     }
 
+    /**
+     * 按写入顺序写回备用存储中的对象，受每轮文件数和字节数上限约束，遇到失败时本轮停止，下一轮从该记录继续
+     */
+    private void restoreFailoverObjects() {
+        FailoverJournal journal = failoverJournal;
+        if (journal == null) {
+            return;
+        }
+        List<FailoverJournal.Entry> done = new ArrayList<>();
+        long processedBytes = 0L;
+        try {
+            for (FailoverJournal.Entry entry : journal.pending(maxRetryFilesPerRound)) {
+                if (processedBytes >= maxRetryBytesPerRound) {
+                    break;
+                }
+                StorageService source = failoverSources.get(entry.getTarget());
+                if (source == null) {
+                    logger.warn("Dropping failover record for unknown target {}: {}", entry.getTarget(),
+                            entry.getKey());
+                    done.add(entry);
+                    continue;
+                }
+                byte[] data;
+                try {
+                    data = source.readObject(entry.getKey()).get(UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (UnsupportedOperationException e) {
+                    logUnreadable(entry);
+                    done.add(entry);
+                    continue;
+                } catch (ExecutionException e) {
+                    // StorageService.readObject的默认实现以失败的future返回UnsupportedOperationException
+                    if (e.getCause() instanceof UnsupportedOperationException) {
+                        logUnreadable(entry);
+                        done.add(entry);
+                        continue;
+                    }
+                    if ("NoSuchKey".equals(errorCode(e.getCause()))) {
+                        logger.warn("Dropping failover record, {} no longer exists on {}", entry.getKey(),
+                                entry.getTarget());
+                        done.add(entry);
+                        continue;
+                    }
+                    throw e;
+                }
+                storageService.putObject(entry.getKey(), data).get(UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                done.add(entry);
+                processedBytes += data.length;
+                restoredObjects.incrementAndGet();
+                logger.info("Restored {} from failover target {}", entry.getKey(), entry.getTarget());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            restoreFailures.incrementAndGet();
+            logger.error("Failed to restore failover object to primary storage: {}", e.getMessage());
+        } finally {
+            journal.remove(done);
+        }
+    }
+
+    private static void logUnreadable(FailoverJournal.Entry entry) {
+        logger.warn("Failover target {} cannot be read back, {} stays there", entry.getTarget(), entry.getKey());
+    }
+
+    private static String errorCode(Throwable error) {
+        return error instanceof StorageException ? ((StorageException) error).getErrorCode() : null;
+    }
+
     private void quarantineOversizedFile(Path file, long fileSize) {
         try {
             Path quarantineDir = Paths.get(absoluteFallbackPath, "quarantine");
@@ -179,7 +373,12 @@ public class FallbackUploaderTask implements Runnable {
             String quarantineName = file.getFileName() + "." + System.currentTimeMillis() + ".quarantine";
             Path quarantinePath = quarantineDir.resolve(quarantineName);
             Files.move(file, quarantinePath, StandardCopyOption.REPLACE_EXISTING);
+            FallbackDiskQuota quota = diskQuota;
+            if (quota != null) {
+                quota.quarantined(file, quarantinePath);
+            }
 
+            quarantinedFiles.incrementAndGet();
             logger.error("Fallback file exceeds max retry size and moved to quarantine, file: {}, size: {}, limit: {}, quarantine: {}",
                 file.getFileName(), fileSize, maxRetryFileBytes, quarantinePath);
         } catch (Exception e) {
@@ -253,12 +452,14 @@ public class FallbackUploaderTask implements Runnable {
         return totalCount > 0 && ((double) printableCount / totalCount) < 0.7;
     }
     
+    /**
+     * 兜底文件相对兜底目录的路径即原始对象名，统一使用/作为分隔符
+     */
     private String getRelativePath(Path file) {
         try {
-            String fullPath = file.toString();
-            
-            if (fullPath.startsWith(absoluteFallbackPath)) {
-                return fullPath.substring(absoluteFallbackPath.length() + 1) + "/logx/";
+            Path base = Paths.get(absoluteFallbackPath);
+            if (file.startsWith(base)) {
+                return base.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
             }
         } catch (Exception e) {
             logger.warn("Failed to extract relative path for file: {}", file.getFileName(), e);
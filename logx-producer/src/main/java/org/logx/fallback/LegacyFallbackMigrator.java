@@ -0,0 +1,149 @@
+package org.logx.fallback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 旧版兜底目录迁移
+ * <p>
+ * 早期版本的所有引擎共用日志前缀目录作为兜底目录，现在每个引擎使用其下的独立子目录。
+ * 引擎启动时把旧目录中遗留的兜底文件和{@code .snapshot}下的队列快照原子移动到自己的兜底目录，
+ * 由自己的重传任务和快照恢复处理。各引擎的兜底目录带有{@link #ENGINE_MARKER}标记文件，
+ * 迁移时跳过带标记的子目录，不会取走其他引擎的文件；多个引擎同时迁移时每个文件只会被移动一次。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LegacyFallbackMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyFallbackMigrator.class);
+
+    /**
+     * 引擎兜底目录的标记文件名
+     */
+    public static final String ENGINE_MARKER = ".logx-engine";
+
+    private static final String FALLBACK_FILE_SUFFIX = ".log.gz";
+    private static final String SNAPSHOT_DIR = ".snapshot";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private LegacyFallbackMigrator() {
+    }
+
+    /**
+     * 标记引擎兜底目录，目录不存在时先创建
+     *
+     * @param engineDirectory 引擎兜底目录的绝对路径
+     */
+    public static void markEngineDirectory(String engineDirectory) {
+        try {
+            Path marker = Paths.get(engineDirectory, ENGINE_MARKER);
+            Files.createDirectories(marker.getParent());
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // 并发创建，已有标记即可
+        } catch (IOException e) {
+            logger.warn("Failed to mark engine fallback directory: {}", engineDirectory, e);
+        }
+    }
+
+    /**
+     * 判断文件是否为引擎兜底目录标记
+     *
+     * @param file 文件路径
+     * @return 是否为标记文件
+     */
+    public static boolean isEngineMarker(Path file) {
+        Path name = file.getFileName();
+        return name != null && ENGINE_MARKER.equals(name.toString());
+    }
+
+    /**
+     * 把旧兜底目录中的兜底文件和队列快照移动到引擎兜底目录
+     * <p>
+     * 兜底文件和快照保持相对路径不变，重传时的对象键与迁移前一致；正在被其他进程认领的快照不移动。
+     *
+     * @param legacyRoot 旧兜底目录的绝对路径
+     * @param engineDirectory 引擎兜底目录的绝对路径
+     * @return 移动的文件数
+     */
+    public static int migrate(String legacyRoot, String engineDirectory) {
+        Path root = Paths.get(legacyRoot).toAbsolutePath().normalize();
+        Path target = Paths.get(engineDirectory).toAbsolutePath().normalize();
+        Path snapshotDir = root.resolve(SNAPSHOT_DIR);
+        if (!Files.isDirectory(root) || root.equals(target)) {
+            return 0;
+        }
+
+        AtomicInteger moved = new AtomicInteger();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(root)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    if (dir.equals(target) || Files.exists(dir.resolve(ENGINE_MARKER))
+                            || dir.getFileName().toString().equals(FailoverJournal.JOURNAL_DIR)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String name = file.getFileName().toString();
+                    boolean snapshot = name.endsWith(SNAPSHOT_SUFFIX) && snapshotDir.equals(file.getParent());
+                    if (attrs.isRegularFile() && (name.endsWith(FALLBACK_FILE_SUFFIX) || snapshot)) {
+                        if (move(file, target.resolve(root.relativize(file)))) {
+                            moved.incrementAndGet();
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.debug("Skip legacy fallback path during migration: {}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to migrate legacy fallback directory {}: {}", root, e.getMessage(), e);
+        }
+
+        if (moved.get() > 0) {
+            logger.info("Moved {} legacy fallback files from {} to {}", moved.get(), root, target);
+        }
+        return moved.get();
+    }
+
+    private static boolean move(Path source, Path destination) {
+        try {
+            Files.createDirectories(destination.getParent());
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            // 已被其他引擎迁移，或目标已有同名文件
+            logger.debug("Legacy fallback file already taken over: {}", source);
+            return false;
+        } catch (IOException e) {
+            logger.warn("Failed to move legacy fallback file {}: {}", source, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,17 +1,12 @@
 package org.logx.fallback;
 
-import org.logx.util.IPUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * 对象名生成器（静态工具类）
  * <p>
- * 负责生成OSS对象名和本地兜底文件名
+ * 负责生成OSS对象名和本地兜底文件名，实际生成逻辑委托给可替换的{@link ObjectNameStrategy}，
+ * 默认使用{@link DefaultObjectNameStrategy}。
  * <p>
  * <b>统一时间格式规则</b>：
  * <ul>
@@ -22,7 +17,7 @@ import java.util.UUID;
  * <b>文件格式（OSS上传、本地兜底、重试上传统一）</b>：
  * <pre>
  * yyyy/MM/dd/HHmmssSSS-{fileName}-IP-uniqueId.log.gz
- * 示例：2025/10/14/143250200-applogx-100.119.145.245-abc12345.log.gz
+ * 示例：2025/10/14/143250200-applogx-100.119.145.245-3fa9c2000001.log.gz
  * </pre>
  *
  * @author OSS Appender Team
@@ -30,16 +25,8 @@ import java.util.UUID;
  */
 public final class ObjectNameGenerator {
 
-    private static final Logger logger = LoggerFactory.getLogger(ObjectNameGenerator.class);
-
-    private static final DateTimeFormatter YEAR_FORMATTER = DateTimeFormatter.ofPattern("yyyy");
-    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MM");
-    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("dd");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HHmmssSSS");
-    private static final String DEFAULT_KEY_PREFIX = "logx";
-    private static final String DEFAULT_FILE_NAME_PREFIX = "applogx";
-    private static final String UNKNOWN_HOST = "unknown-host";
-    private static final String FILE_SUFFIX = ".log.gz";
+    private static volatile ObjectNameStrategy defaultStrategy = new DefaultObjectNameStrategy();
+    private static volatile boolean customized = false;
 
     /**
      * 私有构造器，防止实例化
@@ -56,40 +43,50 @@ public final class ObjectNameGenerator {
      * @return 对象名
      */
     public static String generateObjectName(String keyPrefix) {
-        if (keyPrefix == null || keyPrefix.trim().isEmpty()) {
-            keyPrefix = DEFAULT_KEY_PREFIX;
-        } else {
-            keyPrefix = keyPrefix.replaceAll("^/+|/+$", "");
-        }
-        
+        return defaultStrategy.generateObjectName(keyPrefix);
+    }
+
+    /**
+     * 获取全局默认的对象名生成策略
+     *
+     * @return 默认策略
+     */
+    public static ObjectNameStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
 
-        String ip = getLocalIPForGeneration();
-        LocalDateTime nowTime = LocalDateTime.now();
-        String year = nowTime.format(YEAR_FORMATTER);
-        String month = nowTime.format(MONTH_FORMATTER);
-        String day = nowTime.format(DAY_FORMATTER);
-        String time = nowTime.format(TIME_FORMATTER);
-        String uniqueId = UUID.randomUUID().toString().substring(0, 8);
-        return keyPrefix + "/" + year + "/" + month + "/" + day + "/" + time + "-" + DEFAULT_FILE_NAME_PREFIX + "-" + ip + "-" + uniqueId + FILE_SUFFIX;
+    /**
+     * 替换全局默认的对象名生成策略
+     * <p>
+     * 影响之后所有未单独指定策略的引擎，需在日志框架初始化前调用。
+     *
+     * @param strategy 新策略，为null时恢复为{@link DefaultObjectNameStrategy}
+     */
+    public static void setDefaultStrategy(ObjectNameStrategy strategy) {
+        defaultStrategy = strategy != null ? strategy : new DefaultObjectNameStrategy();
+        customized = strategy != null;
     }
 
     /**
-     * 获取本地IP用于生成对象名（静态方法）
+     * 根据存储配置创建对象名生成策略
+     * <p>
+     * 配置了键模板时使用{@link TemplateObjectNameStrategy}；否则在文件名与默认值不同时创建带该文件名的默认策略，
+     * 其余情况返回全局默认策略（包括通过{@link #setDefaultStrategy}替换的策略）。
      *
-     * @return 本地IP地址或默认值
+     * @param keyTemplate 对象键模板，可为null
+     * @param fileName 对象名中的文件名部分，可为null
+     * @param attributes 模板中{attr:name}使用的静态属性，可为null
+     * @return 对象名生成策略
+     * @throws IllegalArgumentException 模板非法
      */
-    private static String getLocalIPForGeneration() {
-        try {
-            String ip = IPUtil.getLocalIP();
-            if (ip == null || ip.trim().isEmpty()) {
-                logger.warn("IPUtil returned null or empty IP, using default");
-                return UNKNOWN_HOST;
-            }
-            return ip.trim();
-        } catch (Exception e) {
-            logger.warn("Failed to get local IP, using default", e);
-            return UNKNOWN_HOST + "-" + UUID.randomUUID().toString().substring(0, 8);
+    public static ObjectNameStrategy createStrategy(String keyTemplate, String fileName, Map<String, String> attributes) {
+        if (keyTemplate != null && !keyTemplate.trim().isEmpty()) {
+            return new TemplateObjectNameStrategy(keyTemplate, fileName, attributes);
         }
+        if (!customized && fileName != null && !fileName.trim().isEmpty()
+                && !DefaultObjectNameStrategy.DEFAULT_FILE_NAME.equals(fileName.trim())) {
+            return new DefaultObjectNameStrategy(fileName.trim());
+        }
+        return defaultStrategy;
     }
-
 }
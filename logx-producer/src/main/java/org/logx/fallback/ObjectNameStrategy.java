@@ -0,0 +1,36 @@
+package org.logx.fallback;
+
+import java.util.Map;
+
+/**
+ * 对象名生成策略
+ * <p>
+ * 在每个批次、每个分片上传以及每次兜底写入时调用，实现必须线程安全且不能阻塞
+ * （不得进行DNS解析、文件IO或使用阻塞的随机数源）。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public interface ObjectNameStrategy {
+
+    /**
+     * 生成对象名
+     *
+     * @param keyPrefix 对象键前缀，可能为null或带有首尾斜杠
+     * @return 对象名
+     */
+    String generateObjectName(String keyPrefix);
+
+    /**
+     * 携带路由属性生成对象名
+     * <p>
+     * 属性来自批次的路由维度（例如日志级别），不使用属性的策略保持默认实现即可。
+     *
+     * @param keyPrefix 对象键前缀
+     * @param attributes 批次属性，可为null
+     * @return 对象名
+     */
+    default String generateObjectName(String keyPrefix, Map<String, String> attributes) {
+        return generateObjectName(keyPrefix);
+    }
+}
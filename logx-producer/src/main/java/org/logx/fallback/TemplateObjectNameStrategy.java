@@ -0,0 +1,342 @@
+package org.logx.fallback;
+
+import org.logx.util.IPUtil;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于模板的对象名生成策略
+ * <p>
+ * 模板在构造时编译为片段列表，生成对象名时只做字符串拼接。支持的占位符：
+ * <ul>
+ * <li>{prefix}：规范化后的对象键前缀</li>
+ * <li>{yyyy} {MM} {dd} {HH} {mm} {ss} {SSS}：时间字段</li>
+ * <li>{dt}：yyyy-MM-dd，{hour}：HH，用于Hive风格分区</li>
+ * <li>{fileName}：logFileName配置，{host}：本机IP</li>
+ * <li>{uid}：进程内唯一标识（随机盐+递增计数器），模板必须包含</li>
+ * <li>{hash:N}：N位十六进制散列，放在键首部可将请求分散到不同前缀</li>
+ * <li>{attr:name}：应用提供的属性，{level}：等价于{attr:level}</li>
+ * </ul>
+ * 属性值中的斜杠和空白替换为下划线，缺失时使用unknown。模板不以.log.gz结尾时自动追加。
+ * <p>
+ * 示例：{@code {hash:2}/{prefix}/dt={dt}/hour={hour}/service={attr:service}/{HH}{mm}{ss}{SSS}-{fileName}-{host}-{uid}.log.gz}
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public class TemplateObjectNameStrategy implements ObjectNameStrategy {
+
+    static final String UNKNOWN_VALUE = "unknown";
+    private static final String LEVEL_ATTRIBUTE = "level";
+    private static final int MIN_COUNTER_DIGITS = 6;
+
+    private final String template;
+    private final Segment[] segments;
+    private final String fileName;
+    private final String host;
+    private final String salt;
+    private final long identitySeed;
+    private final ZoneId zoneId;
+    private final Map<String, String> attributes;
+    private final AtomicLong counter = new AtomicLong(0);
+
+    private volatile PrefixCache prefixCache = new PrefixCache(null, DefaultObjectNameStrategy.DEFAULT_KEY_PREFIX);
+    private volatile TimeFields timeFields = new TimeFields(Long.MIN_VALUE, null);
+
+    /**
+     * @param template 对象键模板
+     * @param fileName 对象名中的文件名部分，为空时使用applogx
+     * @param attributes 应用提供的静态属性，可为null
+     * @throws IllegalArgumentException 模板为空、包含未知占位符或缺少{uid}
+     */
+    public TemplateObjectNameStrategy(String template, String fileName, Map<String, String> attributes) {
+        this(template, fileName, attributes, IPUtil.getCachedLocalIP(), ZoneId.systemDefault());
+    }
+
+    TemplateObjectNameStrategy(String template, String fileName, Map<String, String> attributes,
+                               String host, ZoneId zoneId) {
+        if (template == null || template.trim().isEmpty()) {
+            throw new IllegalArgumentException("Key template cannot be null or empty");
+        }
+        String normalizedTemplate = template.trim();
+        if (!normalizedTemplate.endsWith(DefaultObjectNameStrategy.FILE_SUFFIX)) {
+            normalizedTemplate = normalizedTemplate + DefaultObjectNameStrategy.FILE_SUFFIX;
+        }
+        this.template = normalizedTemplate;
+        this.segments = compile(normalizedTemplate);
+        this.fileName = fileName == null || fileName.trim().isEmpty()
+                ? DefaultObjectNameStrategy.DEFAULT_FILE_NAME
+                : sanitize(fileName.trim());
+        this.host = host == null || host.trim().isEmpty() ? "unknown-host" : host.trim();
+        this.zoneId = zoneId;
+        int saltValue = ThreadLocalRandom.current().nextInt(1 << 24);
+        this.salt = String.format("%06x", saltValue);
+        this.identitySeed = ((long) this.host.hashCode() << 32) ^ saltValue;
+        Map<String, String> copy = new LinkedHashMap<>();
+        if (attributes != null) {
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                copy.put(entry.getKey(), sanitize(entry.getValue()));
+            }
+        }
+        this.attributes = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public String generateObjectName(String keyPrefix) {
+        return generateObjectName(keyPrefix, null);
+    }
+
+    @Override
+    public String generateObjectName(String keyPrefix, Map<String, String> dynamicAttributes) {
+        long nowMs = System.currentTimeMillis();
+        RenderState state = new RenderState(normalizePrefix(keyPrefix), timeFields(nowMs),
+                (int) Math.floorMod(nowMs, 1000L), counter.getAndIncrement(), dynamicAttributes);
+        StringBuilder sb = new StringBuilder(template.length() + 64);
+        for (Segment segment : segments) {
+            segment.append(sb, state);
+        }
+        return sb.toString();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    private String normalizePrefix(String keyPrefix) {
+        PrefixCache cache = prefixCache;
+        if (cache.raw == keyPrefix || (cache.raw != null && cache.raw.equals(keyPrefix))) {
+            return cache.normalized;
+        }
+        String normalized = DefaultObjectNameStrategy.doNormalizePrefix(keyPrefix);
+        prefixCache = new PrefixCache(keyPrefix, normalized);
+        return normalized;
+    }
+
+    private TimeFields timeFields(long nowMs) {
+        long epochSecond = Math.floorDiv(nowMs, 1000L);
+        TimeFields fields = timeFields;
+        if (fields.epochSecond != epochSecond) {
+            fields = new TimeFields(epochSecond, LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zoneId));
+            timeFields = fields;
+        }
+        return fields;
+    }
+
+    private String attribute(String name, Map<String, String> dynamicAttributes) {
+        if (dynamicAttributes != null) {
+            String value = dynamicAttributes.get(name);
+            if (value != null && !value.isEmpty()) {
+                return sanitize(value);
+            }
+        }
+        String value = attributes.get(name);
+        return value != null && !value.isEmpty() ? value : UNKNOWN_VALUE;
+    }
+
+    static String sanitize(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '/' || c == '\\' || Character.isWhitespace(c) || Character.isISOControl(c)) {
+                if (sb == null) {
+                    sb = new StringBuilder(value);
+                }
+                sb.setCharAt(i, '_');
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+
+    private Segment[] compile(String source) {
+        List<Segment> result = new ArrayList<>();
+        boolean hasUid = false;
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf('{', pos);
+            if (open < 0) {
+                result.add(literal(source.substring(pos)));
+                break;
+            }
+            if (open > pos) {
+                result.add(literal(source.substring(pos, open)));
+            }
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in key template: " + source);
+            }
+            String token = source.substring(open + 1, close).trim();
+            if ("uid".equals(token)) {
+                hasUid = true;
+            }
+            result.add(token(token, source));
+            pos = close + 1;
+        }
+        if (!hasUid) {
+            throw new IllegalArgumentException("Key template must contain {uid} to keep object names unique: " + source);
+        }
+        return result.toArray(new Segment[0]);
+    }
+
+    private static Segment literal(String text) {
+        return (sb, state) -> sb.append(text);
+    }
+
+    private Segment token(String token, String source) {
+        switch (token) {
+            case "prefix":
+                return (sb, state) -> sb.append(state.prefix);
+            case "yyyy":
+                return (sb, state) -> sb.append(state.time.year);
+            case "MM":
+                return (sb, state) -> sb.append(state.time.month);
+            case "dd":
+                return (sb, state) -> sb.append(state.time.day);
+            case "HH":
+            case "hour":
+                return (sb, state) -> sb.append(state.time.hour);
+            case "mm":
+                return (sb, state) -> sb.append(state.time.minute);
+            case "ss":
+                return (sb, state) -> sb.append(state.time.second);
+            case "SSS":
+                return (sb, state) -> appendMillis(sb, state.millis);
+            case "dt":
+                return (sb, state) -> sb.append(state.time.date);
+            case "fileName":
+                return (sb, state) -> sb.append(fileName);
+            case "host":
+                return (sb, state) -> sb.append(host);
+            case "uid":
+                return (sb, state) -> appendUniqueId(sb, state.sequence);
+            case "level":
+                return (sb, state) -> sb.append(attribute(LEVEL_ATTRIBUTE, state.dynamicAttributes));
+            default:
+                break;
+        }
+        if (token.startsWith("attr:") && token.length() > "attr:".length()) {
+            String name = token.substring("attr:".length()).trim();
+            return (sb, state) -> sb.append(attribute(name, state.dynamicAttributes));
+        }
+        if (token.startsWith("hash:")) {
+            int digits;
+            try {
+                digits = Integer.parseInt(token.substring("hash:".length()).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid hash width in key template: " + source, e);
+            }
+            if (digits < 1 || digits > 16) {
+                throw new IllegalArgumentException("Hash width must be between 1 and 16 in key template: " + source);
+            }
+            return (sb, state) -> appendHash(sb, state.sequence, digits);
+        }
+        throw new IllegalArgumentException("Unknown placeholder {" + token + "} in key template: " + source);
+    }
+
+    private void appendUniqueId(StringBuilder sb, long sequence) {
+        sb.append(salt);
+        String hex = Long.toHexString(sequence);
+        for (int i = hex.length(); i < MIN_COUNTER_DIGITS; i++) {
+            sb.append('0');
+        }
+        sb.append(hex);
+    }
+
+    private void appendHash(StringBuilder sb, long sequence, int digits) {
+        // SplitMix64混淆，使连续序号均匀分布到各前缀
+        long z = identitySeed + (sequence + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        String hex = Long.toHexString(z);
+        for (int i = hex.length(); i < 16; i++) {
+            hex = "0" + hex;
+        }
+        sb.append(hex, 0, digits);
+    }
+
+    private static void appendMillis(StringBuilder sb, int millis) {
+        if (millis < 100) {
+            sb.append('0');
+        }
+        if (millis < 10) {
+            sb.append('0');
+        }
+        sb.append(millis);
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+
+    private interface Segment {
+        void append(StringBuilder sb, RenderState state);
+    }
+
+    private static final class RenderState {
+        final String prefix;
+        final TimeFields time;
+        final int millis;
+        final long sequence;
+        final Map<String, String> dynamicAttributes;
+
+        RenderState(String prefix, TimeFields time, int millis, long sequence, Map<String, String> dynamicAttributes) {
+            this.prefix = prefix;
+            this.time = time;
+            this.millis = millis;
+            this.sequence = sequence;
+            this.dynamicAttributes = dynamicAttributes;
+        }
+    }
+
+    private static final class TimeFields {
+        final long epochSecond;
+        final String year;
+        final String month;
+        final String day;
+        final String hour;
+        final String minute;
+        final String second;
+        final String date;
+
+        TimeFields(long epochSecond, LocalDateTime time) {
+            this.epochSecond = epochSecond;
+            if (time == null) {
+                year = month = day = hour = minute = second = date = null;
+                return;
+            }
+            this.year = Integer.toString(time.getYear());
+            this.month = twoDigits(time.getMonthValue());
+            this.day = twoDigits(time.getDayOfMonth());
+            this.hour = twoDigits(time.getHour());
+            this.minute = twoDigits(time.getMinute());
+            this.second = twoDigits(time.getSecond());
+            this.date = year + "-" + month + "-" + day;
+        }
+    }
+
+    private static final class PrefixCache {
+        final String raw;
+        final String normalized;
+
+        PrefixCache(String raw, String normalized) {
+            this.raw = raw;
+            this.normalized = normalized;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.logx.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 累计计数器，基于LongAdder，多线程高频递增时无竞争热点
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package org.logx.metrics;
+
+/**
+ * 可导出的数值分布，由{@link Histogram}和{@link LatencyRecorder}实现
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public interface Distribution {
+
+    /**
+     * @return 累计观测次数
+     */
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    /**
+     * @param quantile 0到1之间的分位
+     * @return 分位数估计值，无数据时为0
+     */
+    long getPercentile(double quantile);
+}
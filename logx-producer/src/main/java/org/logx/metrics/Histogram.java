@@ -0,0 +1,90 @@
+package org.logx.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按2的幂分桶的数值分布统计
+ * <p>
+ * 第i个桶记录区间[2^(i-1), 2^i)内的值，记录只做一次位运算和两次LongAdder累加，不分配对象。
+ * 分位数返回所在桶的上界（不超过观测到的最大值），相对误差不超过一倍，足以用于看板和告警阈值。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class Histogram implements Distribution {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个观测值，负数按0计
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets[bucketOf(v)].increment();
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n > 0 ? (double) sum.sum() / n : 0.0;
+    }
+
+    @Override
+    public long getPercentile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, quantile)) * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private static int bucketOf(long value) {
+        return value == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,177 @@
+package org.logx.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把指标分组导出为JMX MBean
+ * <p>
+ * 每个分组注册为{@code org.logx:type=Pipeline,name="<分组名>"}，属性在读取时实时计算。
+ * 分布统计展开为{@code <指标名>.count/.mean/.max/.p50/.p99}五个属性。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class JmxMetricsExporter implements MetricRegistry.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(JmxMetricsExporter.class);
+
+    public static final String DOMAIN = "org.logx";
+
+    private final MBeanServer server;
+    private final Map<String, ObjectName> registered = new ConcurrentHashMap<>();
+
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(MBeanServer server) {
+        this.server = server;
+    }
+
+    public static ObjectName objectNameOf(String groupName) throws Exception {
+        return new ObjectName(DOMAIN + ":type=Pipeline,name=" + ObjectName.quote(groupName));
+    }
+
+    @Override
+    public void onPublished(MetricGroup group) {
+        try {
+            ObjectName name = objectNameOf(group.getName());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new GroupMBean(group), name);
+            registered.put(group.getName(), name);
+        } catch (Exception e) {
+            logger.warn("Failed to register metrics MBean for [{}]: {}", group.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onRemoved(MetricGroup group) {
+        ObjectName name = registered.remove(group.getName());
+        if (name == null) {
+            return;
+        }
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to unregister metrics MBean for [{}]: {}", group.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 只读的动态MBean，属性列表随分组内容变化
+     */
+    private static final class GroupMBean implements DynamicMBean {
+        private static final String[] HISTOGRAM_SUFFIXES = {"count", "mean", "max", "p50", "p99"};
+
+        private final MetricGroup group;
+
+        GroupMBean(MetricGroup group) {
+            this.group = group;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            MetricGroup.Metric metric = group.getMetric(attribute);
+            if (metric != null && metric.getType() != MetricType.HISTOGRAM) {
+                return metric.getType() == MetricType.COUNTER ? (Object) (long) metric.getValue() : metric.getValue();
+            }
+            int dot = attribute.lastIndexOf('.');
+            if (dot > 0) {
+                MetricGroup.Metric base = group.getMetric(attribute.substring(0, dot));
+                if (base != null && base.getDistribution() != null) {
+                    Distribution distribution = base.getDistribution();
+                    switch (attribute.substring(dot + 1)) {
+                        case "count":
+                            return distribution.getCount();
+                        case "mean":
+                            return distribution.getMean();
+                        case "max":
+                            return distribution.getMax();
+                        case "p50":
+                            return distribution.getPercentile(0.5);
+                        case "p99":
+                            return distribution.getPercentile(0.99);
+                        default:
+                            break;
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // 按JMX约定跳过不存在的属性
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("No operations on metrics MBean");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (MetricGroup.Metric metric : group.getMetrics()) {
+                switch (metric.getType()) {
+                    case COUNTER:
+                        attributes.add(attribute(metric.getName(), "long", metric.getDescription()));
+                        break;
+                    case GAUGE:
+                        attributes.add(attribute(metric.getName(), "double", metric.getDescription()));
+                        break;
+                    default:
+                        for (String suffix : HISTOGRAM_SUFFIXES) {
+                            String type = "mean".equals(suffix) ? "double" : "long";
+                            attributes.add(attribute(metric.getName() + "." + suffix, type,
+                                    metric.getDescription() + " (" + suffix + ")"));
+                        }
+                        break;
+                }
+            }
+            return new MBeanInfo(GroupMBean.class.getName(), "LogX pipeline metrics: " + group.getName(),
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        private static MBeanAttributeInfo attribute(String name, String type, String description) {
+            return new MBeanAttributeInfo(name, type, description, true, false, false);
+        }
+    }
+}
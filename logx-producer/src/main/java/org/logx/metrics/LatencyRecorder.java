@@ -0,0 +1,187 @@
+package org.logx.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 低开销的耗时分布记录器，单位纳秒
+ * <p>
+ * 采用与HdrHistogram相同的对数线性分桶：小于16ns的值精确记录，之后每个2的幂区间再均分为16个子桶，
+ * 相对误差不超过1/16，超过约68秒的值计入最后一个桶。
+ * <p>
+ * 每个记录线程在首次记录时分配自己的计数数组，之后只有该线程写入，
+ * 记录时不加锁也不做CAS，只有一次ThreadLocal查找和两次有序写（lazySet），开销为几纳秒。
+ * 读取方随时汇总各线程数组得到累计快照，不暂停记录；已退出线程的计数在读取时并入保留数组后释放。
+ * <p>
+ * 作为{@link Distribution}导出时，观测次数为累计值，均值、最大值和分位数取自最近一个完整的统计窗口
+ * （默认60秒），反映当前的耗时水平而不是进程启动以来的平均。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LatencyRecorder implements Distribution {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 36;
+    private static final long MAX_TRACKABLE = (1L << MAX_MAGNITUDE) - 1;
+    static final int BUCKETS = indexOf(MAX_TRACKABLE) + 1;
+
+    private static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final ThreadLocal<Shard> localShard = ThreadLocal.withInitial(this::newShard);
+    private final List<Shard> shards = new ArrayList<>();
+    private final long[] retiredCounts = new long[BUCKETS];
+    private long retiredSum;
+
+    private final long windowNanos;
+    private LatencySnapshot windowStart = LatencySnapshot.empty();
+    private long windowStartNanos = System.nanoTime();
+    private LatencySnapshot lastWindow;
+
+    public LatencyRecorder() {
+        this(DEFAULT_WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param window 导出统计窗口长度
+     * @param unit 时间单位
+     */
+    public LatencyRecorder(long window, TimeUnit unit) {
+        this.windowNanos = Math.max(1, unit.toNanos(window));
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），负数按0计
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_TRACKABLE);
+        localShard.get().record(indexOf(value), value);
+    }
+
+    /**
+     * 记录从{@code startNanos}（{@link System#nanoTime()}取得）到现在的耗时
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return 自创建以来的累计快照
+     */
+    public synchronized LatencySnapshot snapshot() {
+        long[] counts = retiredCounts.clone();
+        long sum = retiredSum;
+        Iterator<Shard> it = shards.iterator();
+        while (it.hasNext()) {
+            Shard shard = it.next();
+            boolean retired = shard.isOwnerGone();
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += shard.counts.get(i);
+            }
+            sum += shard.sum.get();
+            if (retired) {
+                // 线程已退出，不会再写入，计数并入保留数组
+                for (int i = 0; i < BUCKETS; i++) {
+                    retiredCounts[i] += shard.counts.get(i);
+                }
+                retiredSum += shard.sum.get();
+                it.remove();
+            }
+        }
+        return new LatencySnapshot(counts, sum);
+    }
+
+    /**
+     * 最近一个完整统计窗口的快照；第一个窗口结束前返回累计快照
+     */
+    public synchronized LatencySnapshot getRecentSnapshot() {
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= windowNanos) {
+            LatencySnapshot current = snapshot();
+            lastWindow = current.since(windowStart);
+            windowStart = current;
+            windowStartNanos = now;
+        }
+        return lastWindow != null ? lastWindow : snapshot();
+    }
+
+    @Override
+    public long getCount() {
+        return snapshot().getCount();
+    }
+
+    @Override
+    public double getMean() {
+        return getRecentSnapshot().getMean();
+    }
+
+    @Override
+    public long getMax() {
+        return getRecentSnapshot().getMax();
+    }
+
+    @Override
+    public long getPercentile(double quantile) {
+        return getRecentSnapshot().getPercentile(quantile);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (magnitude << SUB_BUCKET_BITS) + (int) (value >>> magnitude);
+    }
+
+    /**
+     * @return 落入该桶的最大值
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index >>> SUB_BUCKET_BITS) - 1;
+        long top = index - ((long) magnitude << SUB_BUCKET_BITS);
+        return ((top + 1) << magnitude) - 1;
+    }
+
+    private Shard newShard() {
+        Shard shard = new Shard(Thread.currentThread());
+        synchronized (this) {
+            shards.add(shard);
+        }
+        return shard;
+    }
+
+    /**
+     * 单个线程独占写入的计数数组
+     */
+    private static final class Shard {
+        private final WeakReference<Thread> owner;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong sum = new AtomicLong();
+
+        Shard(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        // 只有所属线程调用，单写者无需CAS，lazySet保证读取方看到的值不会回退
+        void record(int index, long value) {
+            counts.lazySet(index, counts.get(index) + 1);
+            sum.lazySet(sum.get() + value);
+        }
+
+        boolean isOwnerGone() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+}
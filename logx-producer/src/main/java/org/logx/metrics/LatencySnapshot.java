@@ -0,0 +1,96 @@
+package org.logx.metrics;
+
+/**
+ * {@link LatencyRecorder}在某一时刻的不可变快照，单位纳秒
+ * <p>
+ * 两个快照相减（{@link #since}）得到区间内的分布，用于按采集周期输出耗时而不必重置记录器。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LatencySnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    LatencySnapshot(long[] counts, long sum) {
+        this.counts = counts;
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.count = total;
+        this.sum = sum;
+    }
+
+    static LatencySnapshot empty() {
+        return new LatencySnapshot(new long[LatencyRecorder.BUCKETS], 0);
+    }
+
+    /**
+     * 计算本快照相对于更早快照的区间分布
+     *
+     * @param earlier 同一记录器更早取得的快照
+     * @return 区间快照
+     */
+    public LatencySnapshot since(LatencySnapshot earlier) {
+        long[] delta = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+        }
+        return new LatencySnapshot(delta, Math.max(0, sum - earlier.sum));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return 耗时总和（纳秒）
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    /**
+     * @return 最大耗时所在桶的上界
+     */
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LatencyRecorder.highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param quantile 0到1之间的分位
+     * @return 分位数所在桶的上界，相对误差不超过1/16；无数据时为0
+     */
+    public long getPercentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.max(0.0, Math.min(1.0, quantile)) * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyRecorder.highestEquivalentValue(i);
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencySnapshot{count=%d, meanNs=%.0f, p50Ns=%d, p99Ns=%d, maxNs=%d}",
+                count, getMean(), getPercentile(0.5), getPercentile(0.99), getMax());
+    }
+}
@@ -0,0 +1,169 @@
+package org.logx.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 一组属于同一组件的指标，通常对应一个引擎，也可以是进程级的全局组
+ * <p>
+ * 指标名使用点分小写（如{@code queue.dropped}），在组内唯一。
+ * 组件可以直接创建{@link Counter}/{@link Histogram}/{@link LatencyRecorder}在热路径上更新，
+ * 也可以把已有的AtomicLong等计数以函数形式登记，导出时再读取，热路径上不增加任何开销。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class MetricGroup {
+
+    private final String name;
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    MetricGroup(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 创建并登记计数器，同名指标已存在时返回已有的计数器
+     */
+    public synchronized Counter counter(String metricName, String description) {
+        Metric existing = metrics.get(metricName);
+        if (existing != null && existing.counter != null) {
+            return existing.counter;
+        }
+        Counter counter = new Counter();
+        put(new Metric(metricName, description, MetricType.COUNTER, counter::get, null, counter, null));
+        return counter;
+    }
+
+    /**
+     * 以函数形式登记累计值
+     */
+    public synchronized void counter(String metricName, String description, LongSupplier supplier) {
+        Objects.requireNonNull(supplier, "supplier cannot be null");
+        put(new Metric(metricName, description, MetricType.COUNTER, supplier, null, null, null));
+    }
+
+    /**
+     * 以函数形式登记瞬时值
+     */
+    public synchronized void gauge(String metricName, String description, DoubleSupplier supplier) {
+        Objects.requireNonNull(supplier, "supplier cannot be null");
+        put(new Metric(metricName, description, MetricType.GAUGE, null, supplier, null, null));
+    }
+
+    /**
+     * 创建并登记分布统计，同名指标已存在时返回已有的分布统计
+     */
+    public synchronized Histogram histogram(String metricName, String description) {
+        Metric existing = metrics.get(metricName);
+        if (existing != null && existing.distribution instanceof Histogram) {
+            return (Histogram) existing.distribution;
+        }
+        Histogram histogram = new Histogram();
+        register(metricName, description, histogram);
+        return histogram;
+    }
+
+    /**
+     * 登记组件自有的分布统计或耗时记录器
+     */
+    public synchronized void register(String metricName, String description, Distribution distribution) {
+        Objects.requireNonNull(distribution, "distribution cannot be null");
+        put(new Metric(metricName, description, MetricType.HISTOGRAM, null, null, null, distribution));
+    }
+
+    /**
+     * 创建并登记耗时记录器，同名指标已存在时返回已有的记录器
+     */
+    public synchronized LatencyRecorder latency(String metricName, String description) {
+        Metric existing = metrics.get(metricName);
+        if (existing != null && existing.distribution instanceof LatencyRecorder) {
+            return (LatencyRecorder) existing.distribution;
+        }
+        LatencyRecorder recorder = new LatencyRecorder();
+        register(metricName, description, recorder);
+        return recorder;
+    }
+
+    public synchronized List<Metric> getMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(metrics.values()));
+    }
+
+    public synchronized Metric getMetric(String metricName) {
+        return metrics.get(metricName);
+    }
+
+    private void put(Metric metric) {
+        if (metric.name == null || metric.name.trim().isEmpty()) {
+            throw new IllegalArgumentException("metric name cannot be empty");
+        }
+        metrics.put(metric.name, metric);
+    }
+
+    /**
+     * 组内的一个指标
+     */
+    public static final class Metric {
+        private final String name;
+        private final String description;
+        private final MetricType type;
+        private final LongSupplier longValue;
+        private final DoubleSupplier doubleValue;
+        private final Counter counter;
+        private final Distribution distribution;
+
+        private Metric(String name, String description, MetricType type, LongSupplier longValue,
+                       DoubleSupplier doubleValue, Counter counter, Distribution distribution) {
+            this.name = name;
+            this.description = description != null ? description : name;
+            this.type = type;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.counter = counter;
+            this.distribution = distribution;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public MetricType getType() {
+            return type;
+        }
+
+        /**
+         * @return 计数器和瞬时值的当前值；分布统计返回观测次数
+         */
+        public double getValue() {
+            switch (type) {
+                case COUNTER:
+                    return longValue.getAsLong();
+                case GAUGE:
+                    return doubleValue.getAsDouble();
+                default:
+                    return distribution.getCount();
+            }
+        }
+
+        /**
+         * @return 分布统计，非HISTOGRAM类型返回null
+         */
+        public Distribution getDistribution() {
+            return distribution;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.logx.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 日志管道指标注册表
+ * <p>
+ * 各组件把指标登记到自己的{@link MetricGroup}，组件启动完成后发布到注册表，停止时移除。
+ * 导出器（JMX、Micrometer）以{@link Listener}的形式挂在注册表上，感知分组的发布和移除。
+ * <p>
+ * {@link #global()}返回进程级注册表，首次访问时按系统属性安装默认导出器：
+ * <ul>
+ * <li>{@code logx.oss.metrics.jmx.enabled}：是否通过平台MBeanServer导出，默认true</li>
+ * <li>{@code logx.oss.metrics.micrometer.enabled}：classpath中存在Micrometer时是否绑定到
+ * {@code Metrics.globalRegistry}，默认true</li>
+ * </ul>
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class MetricRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricRegistry.class);
+
+    public static final String JMX_ENABLED_PROPERTY = "logx.oss.metrics.jmx.enabled";
+    public static final String MICROMETER_ENABLED_PROPERTY = "logx.oss.metrics.micrometer.enabled";
+
+    private final Map<String, MetricGroup> groups = new LinkedHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public static MetricRegistry global() {
+        return GlobalHolder.INSTANCE;
+    }
+
+    /**
+     * 创建指标分组，名称已被占用时追加序号保证唯一。创建的分组在{@link #publish}之前对导出器不可见。
+     *
+     * @param name 分组名称，通常为引擎名称
+     * @return 新分组
+     */
+    public synchronized MetricGroup createGroup(String name) {
+        String base = name == null || name.trim().isEmpty() ? "default" : name.trim();
+        String unique = base;
+        for (int i = 2; groups.containsKey(unique); i++) {
+            unique = base + "#" + i;
+        }
+        MetricGroup group = new MetricGroup(unique);
+        // 先占位，避免发布前同名分组重复创建
+        groups.put(unique, null);
+        return group;
+    }
+
+    /**
+     * 发布分组，通知所有导出器
+     */
+    public void publish(MetricGroup group) {
+        synchronized (this) {
+            if (groups.get(group.getName()) == group) {
+                return;
+            }
+            groups.put(group.getName(), group);
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onPublished(group);
+            } catch (Exception e) {
+                logger.warn("Metrics exporter failed to export group [{}]: {}", group.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 移除分组，通知所有导出器注销该分组的指标
+     */
+    public void remove(MetricGroup group) {
+        if (group == null) {
+            return;
+        }
+        boolean published;
+        synchronized (this) {
+            if (!groups.containsKey(group.getName())) {
+                return;
+            }
+            published = groups.remove(group.getName()) == group;
+        }
+        if (!published) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onRemoved(group);
+            } catch (Exception e) {
+                logger.warn("Metrics exporter failed to remove group [{}]: {}", group.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return 已发布的分组
+     */
+    public synchronized List<MetricGroup> getGroups() {
+        List<MetricGroup> published = new ArrayList<>();
+        for (MetricGroup group : groups.values()) {
+            if (group != null) {
+                published.add(group);
+            }
+        }
+        return Collections.unmodifiableList(published);
+    }
+
+    public synchronized MetricGroup getGroup(String name) {
+        return groups.get(name);
+    }
+
+    /**
+     * 添加导出器，已发布的分组会立即补发给它
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        for (MetricGroup group : getGroups()) {
+            listener.onPublished(group);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private static boolean isEnabled(String property) {
+        String value = System.getProperty(property);
+        return value == null || !"false".equalsIgnoreCase(value.trim());
+    }
+
+    /**
+     * 分组生命周期监听器，由导出器实现
+     */
+    public interface Listener {
+        void onPublished(MetricGroup group);
+
+        void onRemoved(MetricGroup group);
+    }
+
+    private static final class GlobalHolder {
+        private static final MetricRegistry INSTANCE = createGlobal();
+
+        private static MetricRegistry createGlobal() {
+            MetricRegistry registry = new MetricRegistry();
+            if (isEnabled(JMX_ENABLED_PROPERTY)) {
+                try {
+                    registry.addListener(new JmxMetricsExporter());
+                } catch (Exception | LinkageError e) {
+                    logger.warn("JMX metrics export disabled: {}", e.getMessage());
+                }
+            }
+            if (isEnabled(MICROMETER_ENABLED_PROPERTY) && MicrometerMetricsBinder.isAvailable()) {
+                try {
+                    registry.addListener(MicrometerMetricsBinder.forGlobalRegistry());
+                } catch (Exception | LinkageError e) {
+                    logger.warn("Micrometer metrics binding disabled: {}", e.getMessage());
+                }
+            }
+            return registry;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.logx.metrics;
+
+/**
+ * 指标类型
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public enum MetricType {
+    /**
+     * 单调递增的累计值
+     */
+    COUNTER,
+    /**
+     * 瞬时值，如队列占用率、兜底目录大小
+     */
+    GAUGE,
+    /**
+     * 数值分布，如批次大小、上传耗时
+     */
+    HISTOGRAM
+}
@@ -0,0 +1,158 @@
+package org.logx.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 把指标分组绑定到Micrometer的MeterRegistry
+ * <p>
+ * Micrometer是可选依赖，本类只通过反射访问其API，classpath中没有Micrometer时不会加载任何Micrometer类，
+ * 也不会影响日志组件启动。计数器注册为FunctionCounter，瞬时值注册为Gauge，
+ * 分布统计展开为{@code .count}计数器和{@code .mean/.max/.p50/.p99}四个Gauge。
+ * 所有Meter名称以{@code logx.}开头，并带有{@code pipeline=<分组名>}标签。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class MicrometerMetricsBinder implements MetricRegistry.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MicrometerMetricsBinder.class);
+
+    private static final String METER_REGISTRY_CLASS = "io.micrometer.core.instrument.MeterRegistry";
+    private static final String METRICS_CLASS = "io.micrometer.core.instrument.Metrics";
+    private static final String FUNCTION_COUNTER_CLASS = "io.micrometer.core.instrument.FunctionCounter";
+    private static final String GAUGE_CLASS = "io.micrometer.core.instrument.Gauge";
+    private static final String METER_CLASS = "io.micrometer.core.instrument.Meter";
+    private static final String PREFIX = "logx.";
+    private static final String TAG = "pipeline";
+
+    private final Object meterRegistry;
+    private final Class<?> meterRegistryClass;
+    private final Method counterBuilder;
+    private final Method gaugeBuilder;
+    private final Method removeMethod;
+    private final Map<String, List<Object>> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry Micrometer的MeterRegistry实例，如Spring Boot中注入的MeterRegistry
+     * @throws IllegalArgumentException 参数不是MeterRegistry或classpath中没有Micrometer
+     */
+    public MicrometerMetricsBinder(Object meterRegistry) {
+        try {
+            ClassLoader loader = meterRegistry.getClass().getClassLoader();
+            this.meterRegistryClass = Class.forName(METER_REGISTRY_CLASS, false, loader);
+            if (!meterRegistryClass.isInstance(meterRegistry)) {
+                throw new IllegalArgumentException("Not a Micrometer MeterRegistry: " + meterRegistry.getClass().getName());
+            }
+            this.meterRegistry = meterRegistry;
+            this.counterBuilder = Class.forName(FUNCTION_COUNTER_CLASS, false, loader)
+                    .getMethod("builder", String.class, Object.class, ToDoubleFunction.class);
+            this.gaugeBuilder = Class.forName(GAUGE_CLASS, false, loader)
+                    .getMethod("builder", String.class, Object.class, ToDoubleFunction.class);
+            this.removeMethod = meterRegistryClass.getMethod("remove", Class.forName(METER_CLASS, false, loader));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Micrometer API not available: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return classpath中是否存在Micrometer
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName(METER_REGISTRY_CLASS, false, MicrometerMetricsBinder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 绑定到Micrometer的{@code Metrics.globalRegistry}
+     */
+    public static MicrometerMetricsBinder forGlobalRegistry() throws ReflectiveOperationException {
+        Class<?> metrics = Class.forName(METRICS_CLASS, true, MicrometerMetricsBinder.class.getClassLoader());
+        return new MicrometerMetricsBinder(metrics.getField("globalRegistry").get(null));
+    }
+
+    /**
+     * 把注册表中现有和以后发布的分组绑定到指定的MeterRegistry
+     *
+     * @param registry 指标注册表
+     * @param meterRegistry Micrometer的MeterRegistry实例
+     * @return 绑定器，可通过{@link MetricRegistry#removeListener}解除绑定
+     */
+    public static MicrometerMetricsBinder bindTo(MetricRegistry registry, Object meterRegistry) {
+        MicrometerMetricsBinder binder = new MicrometerMetricsBinder(meterRegistry);
+        registry.addListener(binder);
+        return binder;
+    }
+
+    @Override
+    public void onPublished(MetricGroup group) {
+        List<Object> registered = new ArrayList<>();
+        String[] tags = {TAG, group.getName()};
+        for (MetricGroup.Metric metric : group.getMetrics()) {
+            try {
+                switch (metric.getType()) {
+                    case COUNTER:
+                        registered.add(register(counterBuilder, metric.getName(), metric.getDescription(), tags,
+                                MetricGroup.Metric::getValue, metric));
+                        break;
+                    case GAUGE:
+                        registered.add(register(gaugeBuilder, metric.getName(), metric.getDescription(), tags,
+                                MetricGroup.Metric::getValue, metric));
+                        break;
+                    default:
+                        Distribution h = metric.getDistribution();
+                        registered.add(register(counterBuilder, metric.getName() + ".count", metric.getDescription(),
+                                tags, Distribution::getCount, h));
+                        registered.add(register(gaugeBuilder, metric.getName() + ".mean", metric.getDescription(),
+                                tags, Distribution::getMean, h));
+                        registered.add(register(gaugeBuilder, metric.getName() + ".max", metric.getDescription(),
+                                tags, Distribution::getMax, h));
+                        registered.add(register(gaugeBuilder, metric.getName() + ".p50", metric.getDescription(),
+                                tags, x -> x.getPercentile(0.5), h));
+                        registered.add(register(gaugeBuilder, metric.getName() + ".p99", metric.getDescription(),
+                                tags, x -> x.getPercentile(0.99), h));
+                        break;
+                }
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Failed to bind metric [{}] of [{}] to Micrometer: {}",
+                        metric.getName(), group.getName(), e.getMessage());
+            }
+        }
+        meters.put(group.getName(), registered);
+    }
+
+    @Override
+    public void onRemoved(MetricGroup group) {
+        List<Object> registered = meters.remove(group.getName());
+        if (registered == null) {
+            return;
+        }
+        for (Object meter : registered) {
+            try {
+                removeMethod.invoke(meterRegistry, meter);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Failed to remove Micrometer meter of [{}]: {}", group.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private <T> Object register(Method builderFactory, String name, String description, String[] tags,
+                                ToDoubleFunction<T> function, T source) throws ReflectiveOperationException {
+        Object builder = builderFactory.invoke(null, PREFIX + name, source, function);
+        Class<?> builderClass = builder.getClass();
+        builderClass.getMethod("tags", String[].class).invoke(builder, (Object) tags);
+        builderClass.getMethod("description", String.class).invoke(builder, description);
+        return builderClass.getMethod("register", meterRegistryClass).invoke(builder, meterRegistry);
+    }
+}
@@ -1,5 +1,6 @@
 package org.logx.reliability;
 
+import org.logx.metrics.MetricGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -225,6 +226,19 @@ public class RetryManager {
         return new RetryMetrics(attempts, successes, retries, failures, successRate, retryRate);
     }
 
+    /**
+     * 把重试统计登记到指标分组，指标名以给定前缀开头
+     *
+     * @param group 指标分组
+     * @param prefix 指标名前缀，如{@code retry}
+     */
+    public void bindMetrics(MetricGroup group, String prefix) {
+        group.counter(prefix + ".attempts", "Retryable tasks executed", totalAttempts::get);
+        group.counter(prefix + ".successes", "Tasks that eventually succeeded", totalSuccesses::get);
+        group.counter(prefix + ".retried", "Tasks that succeeded after at least one retry", totalRetries::get);
+        group.counter(prefix + ".failures", "Tasks that failed after all retries", totalFailures::get);
+    }
+
     /**
      * 重试统计指标
      */
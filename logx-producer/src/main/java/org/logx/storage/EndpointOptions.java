@@ -0,0 +1,106 @@
+package org.logx.storage;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 端点URI中的查询参数
+ * <p>
+ * 本地存储没有region、凭证等字段可用，实现特有的选项通过endpoint的查询参数传入，
+ * 如{@code file:///data/logx?fsync=data&shards=16}，这样无需为每种实现扩展{@link StorageConfig}。
+ * 参数名不区分大小写。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class EndpointOptions {
+
+    private final String base;
+    private final Map<String, String> options;
+
+    private EndpointOptions(String base, Map<String, String> options) {
+        this.base = base;
+        this.options = options;
+    }
+
+    /**
+     * 解析端点
+     *
+     * @param endpoint 端点，可为null
+     * @return 解析结果
+     */
+    public static EndpointOptions parse(String endpoint) {
+        if (endpoint == null) {
+            return new EndpointOptions("", Collections.emptyMap());
+        }
+        String trimmed = endpoint.trim();
+        int question = trimmed.indexOf('?');
+        if (question < 0) {
+            return new EndpointOptions(trimmed, Collections.emptyMap());
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String pair : trimmed.substring(question + 1).split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? decode(pair.substring(eq + 1)) : "";
+            options.put(name.trim().toLowerCase(Locale.ENGLISH), value.trim());
+        }
+        return new EndpointOptions(trimmed.substring(0, question), options);
+    }
+
+    /**
+     * 去掉查询参数后的端点
+     */
+    public String getBase() {
+        return base;
+    }
+
+    public String get(String name, String defaultValue) {
+        String value = options.get(name.toLowerCase(Locale.ENGLISH));
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = get(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid endpoint option " + name + "=" + value, e);
+        }
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        String value = get(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid endpoint option " + name + "=" + value, e);
+        }
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = get(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+}
@@ -9,7 +9,7 @@ package org.logx.storage;
  * 与StorageOssType的区别：
  * <ul>
  * <li>StorageOssType: 云服务商类型（如SF_S3、MINIO、AWS_S3），包含个性化配置</li>
- * <li>ProtocolType: 协议类型（如S3、SF_OSS），用于适配器匹配</li>
+ * <li>ProtocolType: 协议类型（如S3、SF_OSS、LOCAL），用于适配器匹配</li>
  * </ul>
  *
  * @author OSS Appender Team
@@ -37,7 +37,21 @@ public enum ProtocolType {
      * <p>
      * 顺丰OSS的专有存储协议，使用SF OSS SDK实现
      */
-    SF_OSS("SF_OSS");
+    SF_OSS("SF_OSS"),
+
+    /**
+     * 本地文件系统
+     * <p>
+     * 对象写入本地目录，适用于由旁路同步进程上传日志的边缘节点，以及不依赖网络的测试
+     */
+    LOCAL("LOCAL"),
+
+    /**
+     * 内存存储
+     * <p>
+     * 对象保存在进程内存中，可注入延迟和失败，用于测试和基准测试中隔离引擎
+     */
+    MEMORY("MEMORY");
 
     private final String value;
 
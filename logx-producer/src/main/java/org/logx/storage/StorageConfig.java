@@ -2,6 +2,11 @@ package org.logx.storage;
 
 import org.logx.config.properties.LogxOssProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class StorageConfig {
 
     private LogxOssProperties properties;
@@ -14,6 +19,8 @@ public class StorageConfig {
     private String accessKeySecret;
     private String bucket;
     private String keyPrefix;
+    private String keyTemplate;
+    private String keyAttributes;
     private boolean pathStyleAccess;
     private long uploadTimeoutMs = 30000L;
 
@@ -34,6 +41,8 @@ public class StorageConfig {
         this.accessKeySecret = properties.getStorage().getAccessKeySecret();
         this.bucket = properties.getStorage().getBucket();
         this.keyPrefix = properties.getStorage().getKeyPrefix();
+        this.keyTemplate = properties.getStorage().getKeyTemplate();
+        this.keyAttributes = properties.getStorage().getKeyAttributes();
         this.pathStyleAccess = properties.getStorage().isPathStyleAccess();
         this.uploadTimeoutMs = properties.getStorage().getUploadTimeoutMs();
     }
@@ -115,6 +124,49 @@ public class StorageConfig {
         }
     }
 
+    public String getKeyTemplate() {
+        return keyTemplate != null ? keyTemplate : properties.getStorage().getKeyTemplate();
+    }
+
+    public void setKeyTemplate(String keyTemplate) {
+        this.keyTemplate = keyTemplate;
+        if (properties != null) {
+            properties.getStorage().setKeyTemplate(keyTemplate);
+        }
+    }
+
+    public String getKeyAttributes() {
+        return keyAttributes != null ? keyAttributes : properties.getStorage().getKeyAttributes();
+    }
+
+    public void setKeyAttributes(String keyAttributes) {
+        this.keyAttributes = keyAttributes;
+        if (properties != null) {
+            properties.getStorage().setKeyAttributes(keyAttributes);
+        }
+    }
+
+    // 解析"k1=v1,k2=v2"格式的对象键属性，忽略格式不正确的条目
+    public Map<String, String> getKeyAttributeMap() {
+        Map<String, String> result = new LinkedHashMap<>();
+        String raw = getKeyAttributes();
+        if (raw == null || raw.trim().isEmpty()) {
+            return result;
+        }
+        for (String pair : raw.split(",")) {
+            int idx = pair.indexOf('=');
+            if (idx <= 0) {
+                continue;
+            }
+            String key = pair.substring(0, idx).trim();
+            String value = pair.substring(idx + 1).trim();
+            if (!key.isEmpty() && !value.isEmpty()) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     public boolean isPathStyleAccess() {
         return pathStyleAccess || properties.getStorage().isPathStyleAccess();
     }
@@ -137,6 +189,114 @@ public class StorageConfig {
         }
     }
 
+    public String getFailoverTargets() {
+        return properties != null ? properties.getStorage().getFailoverTargets() : null;
+    }
+
+    public void setFailoverTargets(String failoverTargets) {
+        if (properties != null) {
+            properties.getStorage().setFailoverTargets(failoverTargets);
+        }
+    }
+
+    /**
+     * 解析备用存储目标，按配置顺序排列
+     * <p>
+     * 格式为{@code bucket=logs-dr;region=us-west-2,endpoint=http://minio:9000;ossType=MINIO}，逗号分隔目标，
+     * 分号分隔字段。可配置ossType、endpoint、region、accessKeyId、accessKeySecret、bucket、pathStyleAccess，
+     * 未配置的字段沿用主存储的配置。对象键与主存储相同，不单独配置前缀。
+     *
+     * @return 备用存储配置，未配置时为空列表
+     * @throws IllegalArgumentException 字段名未知或格式不正确时
+     */
+    public List<StorageConfig> getFailoverConfigs() {
+        return parseTargets(getFailoverTargets(), false);
+    }
+
+    public String getFanoutTargets() {
+        return properties != null ? properties.getStorage().getFanoutTargets() : null;
+    }
+
+    public void setFanoutTargets(String fanoutTargets) {
+        if (properties != null) {
+            properties.getStorage().setFanoutTargets(fanoutTargets);
+        }
+    }
+
+    /**
+     * 解析扇出目标，格式与{@link #getFailoverConfigs()}相同，另外可配置keyPrefix
+     *
+     * @return 扇出目标配置，未配置时为空列表
+     * @throws IllegalArgumentException 字段名未知或格式不正确时
+     */
+    public List<StorageConfig> getFanoutConfigs() {
+        return parseTargets(getFanoutTargets(), true);
+    }
+
+    private List<StorageConfig> parseTargets(String raw, boolean allowKeyPrefix) {
+        List<StorageConfig> result = new ArrayList<>();
+        if (raw == null || raw.trim().isEmpty()) {
+            return result;
+        }
+        for (String target : raw.split(",")) {
+            if (target.trim().isEmpty()) {
+                continue;
+            }
+            LogxOssProperties copy = new LogxOssProperties();
+            LogxOssProperties.Storage storage = copy.getStorage();
+            storage.setOssType(getOssType());
+            storage.setEndpoint(getEndpoint());
+            storage.setRegion(getRegion());
+            storage.setAccessKeyId(getAccessKeyId());
+            storage.setAccessKeySecret(getAccessKeySecret());
+            storage.setBucket(getBucket());
+            storage.setKeyPrefix(getKeyPrefix());
+            storage.setPathStyleAccess(isPathStyleAccess());
+            storage.setUploadTimeoutMs(getUploadTimeoutMs());
+            for (String field : target.split(";")) {
+                int idx = field.indexOf('=');
+                if (idx <= 0) {
+                    throw new IllegalArgumentException("Invalid storage target field: " + field.trim());
+                }
+                String name = field.substring(0, idx).trim();
+                String value = field.substring(idx + 1).trim();
+                switch (name) {
+                    case "ossType":
+                        storage.setOssType(value);
+                        break;
+                    case "endpoint":
+                        storage.setEndpoint(value);
+                        break;
+                    case "region":
+                        storage.setRegion(value);
+                        break;
+                    case "accessKeyId":
+                        storage.setAccessKeyId(value);
+                        break;
+                    case "accessKeySecret":
+                        storage.setAccessKeySecret(value);
+                        break;
+                    case "bucket":
+                        storage.setBucket(value);
+                        break;
+                    case "pathStyleAccess":
+                        storage.setPathStyleAccess(Boolean.parseBoolean(value));
+                        break;
+                    case "keyPrefix":
+                        if (allowKeyPrefix) {
+                            storage.setKeyPrefix(value);
+                            break;
+                        }
+                        throw new IllegalArgumentException("Unknown storage target field: " + name);
+                    default:
+                        throw new IllegalArgumentException("Unknown storage target field: " + name);
+                }
+            }
+            result.add(new StorageConfig(copy));
+        }
+        return result;
+    }
+
     public int getQueueCapacity() {
         return properties.getEngine().getQueue().getCapacity();
     }
@@ -235,11 +395,31 @@ public class StorageConfig {
             return this;
         }
 
+        public Builder keyTemplate(String keyTemplate) {
+            config.setKeyTemplate(keyTemplate);
+            return this;
+        }
+
+        public Builder keyAttributes(String keyAttributes) {
+            config.setKeyAttributes(keyAttributes);
+            return this;
+        }
+
         public Builder pathStyleAccess(boolean pathStyleAccess) {
             config.setPathStyleAccess(pathStyleAccess);
             return this;
         }
 
+        public Builder failoverTargets(String failoverTargets) {
+            config.setFailoverTargets(failoverTargets);
+            return this;
+        }
+
+        public Builder fanoutTargets(String fanoutTargets) {
+            config.setFanoutTargets(fanoutTargets);
+            return this;
+        }
+
         public StorageConfig build() {
             return config;
         }
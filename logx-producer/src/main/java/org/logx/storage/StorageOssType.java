@@ -52,7 +52,17 @@ public enum StorageOssType {
     /**
      * 通用S3兼容存储 适用于其他S3兼容服务
      */
-    GENERIC_S3("Generic S3", "s3", ProtocolType.S3, true);
+    GENERIC_S3("Generic S3", "s3", ProtocolType.S3, true),
+
+    /**
+     * 本地文件系统 endpoint为根目录，bucket为其下的子目录
+     */
+    LOCAL("Local File System", "file", ProtocolType.LOCAL, true),
+
+    /**
+     * 进程内存储 仅用于测试和基准测试
+     */
+    MEMORY("In-Memory", "memory", ProtocolType.MEMORY, true);
 
     private final String displayName;
     private final String urlPrefix;
@@ -132,6 +142,14 @@ public enum StorageOssType {
 
         String lowerEndpoint = endpoint.toLowerCase(java.util.Locale.ENGLISH);
 
+        // 本地存储按URI scheme检测，避免路径中的关键字被误判为云厂商
+        if (lowerEndpoint.startsWith("file:")) {
+            return LOCAL;
+        }
+        if (lowerEndpoint.startsWith("memory:")) {
+            return MEMORY;
+        }
+
         // SF S3检测（sf-express或sfcloud，使用S3协议）
         if (lowerEndpoint.contains("sf-express") || lowerEndpoint.contains("sfcloud")) {
             return SF_S3;
@@ -220,6 +238,13 @@ public enum StorageOssType {
         return this == AWS_S3;
     }
 
+    /**
+     * 检查是否为不经过网络的本地存储，本地存储不需要region和访问凭证
+     */
+    public boolean isLocal() {
+        return protocolType == ProtocolType.LOCAL || protocolType == ProtocolType.MEMORY;
+    }
+
     /**
      * 检查是否为开源/私有化部署
      */
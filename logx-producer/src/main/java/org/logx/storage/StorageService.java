@@ -21,6 +21,21 @@ public interface StorageService extends StorageInterface {
      */
     CompletableFuture<Void> putObject(String key, byte[] data);
 
+    /**
+     * 读取单个对象的完整内容，用于把写入备用存储的对象搬回主存储
+     * <p>
+     * 默认实现返回以{@link UnsupportedOperationException}失败的Future，不支持读取的存储不能作为可搬回的备用目标。
+     *
+     * @param key 对象键
+     * @return CompletableFuture，成功时为对象内容
+     */
+    default CompletableFuture<byte[]> readObject(String key) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        future.completeExceptionally(new UnsupportedOperationException(
+                getClass().getSimpleName() + " does not support reading objects"));
+        return future;
+    }
+
     /**
      * 获取协议类型
      *
@@ -37,7 +37,7 @@ public class StorageServiceFactory {
                 protocol = ProtocolType.fromValue(ossType);
             } catch (IllegalArgumentException e2) {
                 throw new IllegalStateException("Invalid OSS type or protocol: " + ossType +
-                        ". Valid values are: SF_S3, SF_OSS, AWS_S3, ALIYUN_OSS, TENCENT_COS, HUAWEI_OBS, MINIO, GENERIC_S3", e2);
+                        ". Valid values are: SF_S3, SF_OSS, AWS_S3, ALIYUN_OSS, TENCENT_COS, HUAWEI_OBS, MINIO, GENERIC_S3, LOCAL, MEMORY", e2);
             }
         }
 
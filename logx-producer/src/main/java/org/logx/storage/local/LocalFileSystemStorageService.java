@@ -0,0 +1,357 @@
+package org.logx.storage.local;
+
+import org.logx.exception.StorageException;
+import org.logx.storage.EndpointOptions;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地文件系统存储服务
+ * <p>
+ * 把对象写成本地文件，适用于由旁路同步进程（如rclone、ossutil sync）把日志转运到对象存储的边缘节点，
+ * 也用于不依赖网络的测试和基准测试。对象键即相对路径，文件位于{@code <根目录>/<bucket>/[分片/]<key>}。
+ * <p>
+ * 配置方式：ossType为LOCAL，endpoint为根目录，可写成{@code /data/logx}或{@code file:///data/logx}，
+ * 通过查询参数调整行为：
+ * <ul>
+ * <li>{@code fsync}：{@code none}（默认）只写入页缓存；{@code data}在重命名前刷盘文件内容；
+ * {@code full}同时刷盘文件元数据和所在目录，保证掉电后重命名可见</li>
+ * <li>{@code shards}：大于0时按对象键的哈希把文件分散到{@code shards}个十六进制命名的子目录，
+ * 避免单个目录文件过多；默认0不分片</li>
+ * </ul>
+ * 写入先落到同目录下以点开头的临时文件，写完后原子重命名为目标文件，同步进程只要忽略点文件就不会读到半个对象。
+ * 数据通过{@link FileChannel}直接写出：ByteBuffer不再复制到中间数组，直接内存缓冲区由内核直接读取；
+ * InputStream通过{@link FileChannel#transferFrom}写入。
+ * <p>
+ * 与S3适配器一样同步完成写入（调用方已在上传线程中），失败以{@link StorageException}结束返回的Future，
+ * 由核心层重试或转入兜底。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class LocalFileSystemStorageService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileSystemStorageService.class);
+
+    private static final ProtocolType ADAPTER_TYPE = ProtocolType.LOCAL;
+
+    private static final AtomicLong TEMP_SEQUENCE = new AtomicLong();
+
+    /**
+     * 刷盘策略
+     */
+    public enum FsyncMode {
+        /**
+         * 不主动刷盘，由操作系统回写
+         */
+        NONE,
+
+        /**
+         * 重命名前刷盘文件内容
+         */
+        DATA,
+
+        /**
+         * 刷盘文件内容和元数据，重命名后刷盘所在目录
+         */
+        FULL
+    }
+
+    private volatile Path baseDir;
+    private String bucketName;
+    private String keyPrefix;
+    private FsyncMode fsyncMode = FsyncMode.NONE;
+    private int shards;
+
+    /**
+     * 无参构造函数（用于SPI实例化）
+     */
+    public LocalFileSystemStorageService() {
+        // 无参构造函数用于SPI实例化
+    }
+
+    /**
+     * 构造本地文件系统存储服务
+     *
+     * @param config 存储配置
+     */
+    public LocalFileSystemStorageService(StorageConfig config) {
+        initialize(config);
+    }
+
+    /**
+     * 初始化存储服务
+     *
+     * @param config 存储配置
+     */
+    public void initialize(StorageConfig config) {
+        if (this.baseDir != null) {
+            return; // 已经初始化
+        }
+
+        EndpointOptions endpoint = EndpointOptions.parse(config.getEndpoint());
+        if (endpoint.getBase().isEmpty()) {
+            throw StorageException.configurationError("Local storage requires endpoint as root directory");
+        }
+        int shardCount = (int) endpoint.getLong("shards", 0);
+        if (shardCount < 0 || shardCount > 4096) {
+            throw StorageException.configurationError("Local storage shards must be between 0 and 4096: " + shardCount);
+        }
+        FsyncMode mode;
+        try {
+            mode = FsyncMode.valueOf(endpoint.get("fsync", "none").toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw StorageException.configurationError("Invalid local storage fsync mode: " + endpoint.get("fsync", ""));
+        }
+
+        this.bucketName = config.getBucket();
+        this.keyPrefix = config.getKeyPrefix() != null ? config.getKeyPrefix().replaceAll("^/+|/+$", "") : "logx";
+        this.fsyncMode = mode;
+        this.shards = shardCount;
+
+        Path root = toPath(endpoint.getBase());
+        Path dir = bucketName != null && !bucketName.trim().isEmpty() ? root.resolve(bucketName.trim()) : root;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new StorageException("Cannot create local storage directory: " + dir,
+                    StorageException.ErrorType.CONFIGURATION_ERROR, e);
+        }
+        this.baseDir = dir.toAbsolutePath().normalize();
+        logger.info("Local storage initialized: dir={}, fsync={}, shards={}", baseDir, fsyncMode, shards);
+    }
+
+    private static Path toPath(String location) {
+        if (location.regionMatches(true, 0, "file://", 0, 7)) {
+            return Paths.get(URI.create(location));
+        }
+        if (location.regionMatches(true, 0, "file:", 0, 5)) {
+            return Paths.get(location.substring(5));
+        }
+        return Paths.get(location);
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        if (data == null) {
+            return failed(new IllegalArgumentException("Data cannot be null"));
+        }
+        return putObject(key, ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        ensureInitialized();
+        if (buffer == null) {
+            return failed(new IllegalArgumentException("Buffer cannot be null"));
+        }
+        ByteBuffer source = buffer.duplicate();
+        return write(key, channel -> {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, InputStream inputStream, long dataLength) {
+        ensureInitialized();
+        if (inputStream == null) {
+            return failed(new IllegalArgumentException("Input stream cannot be null"));
+        }
+        if (dataLength < 0) {
+            return failed(new IllegalArgumentException("Data length out of range: " + dataLength));
+        }
+        return write(key, channel -> {
+            ReadableByteChannel source = Channels.newChannel(inputStream);
+            long position = 0;
+            while (position < dataLength) {
+                long transferred = channel.transferFrom(source, position, dataLength - position);
+                if (transferred <= 0) {
+                    throw new IllegalArgumentException("Input stream ended before expected length: " + dataLength);
+                }
+                position += transferred;
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<byte[]> readObject(String key) {
+        ensureInitialized();
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        try {
+            future.complete(Files.readAllBytes(resolvePath(key)));
+        } catch (IllegalArgumentException e) {
+            future.completeExceptionally(e);
+        } catch (NoSuchFileException e) {
+            future.completeExceptionally(StorageException.clientError("Object not found: " + key, "NoSuchKey"));
+        } catch (IOException e) {
+            future.completeExceptionally(new StorageException("Failed to read object from local storage: "
+                    + e.getMessage(), StorageException.ErrorType.SERVER_ERROR, e));
+        }
+        return future;
+    }
+
+    private CompletableFuture<Void> write(String key, ContentWriter writer) {
+        Path target;
+        try {
+            target = resolvePath(key);
+        } catch (IllegalArgumentException e) {
+            return failed(e);
+        }
+
+        Path dir = target.getParent();
+        Path temp = dir.resolve("." + target.getFileName() + "." + TEMP_SEQUENCE.incrementAndGet() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writer.writeTo(channel);
+                if (fsyncMode != FsyncMode.NONE) {
+                    channel.force(fsyncMode == FsyncMode.FULL);
+                }
+            }
+            move(temp, target);
+            if (fsyncMode == FsyncMode.FULL) {
+                syncDirectory(dir);
+            }
+            logger.debug("Successfully wrote object: dir={}, key={}", baseDir, key);
+            return CompletableFuture.completedFuture(null);
+        } catch (IllegalArgumentException e) {
+            deleteQuietly(temp);
+            return failed(e);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            logger.error("Failed to write object to local storage. Dir: {}, Key: {}, Error: {}",
+                    baseDir, key, e.getMessage());
+            return failed(new StorageException("Failed to write object to local storage: " + e.getMessage(),
+                    StorageException.ErrorType.SERVER_ERROR, e));
+        }
+    }
+
+    /**
+     * 计算对象键对应的文件路径，拒绝指向存储目录之外的键
+     */
+    Path resolvePath(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Key cannot be null or empty");
+        }
+        String relative = key.replace('\\', '/').replaceAll("^/+", "");
+        Path dir = shards > 0 ? baseDir.resolve(shardOf(relative)) : baseDir;
+        Path target = dir.resolve(relative).normalize();
+        if (!target.startsWith(dir) || target.equals(dir)) {
+            throw new IllegalArgumentException("Key resolves outside of local storage directory: " + key);
+        }
+        return target;
+    }
+
+    private String shardOf(String key) {
+        int width = Integer.toHexString(shards - 1).length();
+        return String.format(Locale.ROOT, "%0" + width + "x", Math.floorMod(key.hashCode(), shards));
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path dir) {
+        // 部分平台（如Windows）不支持打开目录，此时重命名的持久性由文件系统保证
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory sync not supported for {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Failed to delete temp file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 存储目录，已包含bucket子目录
+     */
+    public Path getBaseDirectory() {
+        ensureInitialized();
+        return baseDir;
+    }
+
+    public FsyncMode getFsyncMode() {
+        return fsyncMode;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return ADAPTER_TYPE;
+    }
+
+    @Override
+    public String getBucketName() {
+        ensureInitialized();
+        return bucketName;
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        ensureInitialized();
+        return keyPrefix;
+    }
+
+    private void ensureInitialized() {
+        if (baseDir == null) {
+            throw new IllegalStateException("Storage service not initialized or has been closed. Use StorageServiceFactory instead.");
+        }
+    }
+
+    @Override
+    public void close() {
+        baseDir = null;
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return ADAPTER_TYPE == protocol;
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+}
@@ -0,0 +1,486 @@
+package org.logx.storage.memory;
+
+import org.logx.exception.StorageException;
+import org.logx.storage.EndpointOptions;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 内存存储服务
+ * <p>
+ * 把对象保存在进程内存中，用于测试和基准测试中隔离引擎，不产生网络请求。可注入延迟和失败以模拟慢速或不稳定的存储：
+ * <ul>
+ * <li>{@code latencyMs}：每次上传阻塞的毫秒数，模拟请求耗时（上传线程被占用，与真实适配器一致）</li>
+ * <li>{@code failureRate}：按比例以{@link StorageException}失败，0到1之间</li>
+ * <li>{@code retain}：是否保留对象内容，默认true；基准测试应设为false，只统计数量和字节数</li>
+ * </ul>
+ * 通过SPI创建时以上选项写在endpoint的查询参数中，如{@code memory://?latencyMs=50&failureRate=0.01}，
+ * 运行中也可以用setter调整，或用{@link #failNext(int)}让接下来的若干次上传失败。
+ * <p>
+ * 测试可以逐次控制上传的行为：
+ * <ul>
+ * <li>{@link #failNext(Throwable)}、{@link #delayNext(long...)}：指定接下来各次上传的失败原因和耗时</li>
+ * <li>{@link #setHoldUploads(boolean)}：上传返回未完成的Future，由测试通过{@link #pollHeldUpload()}取出后再完成</li>
+ * <li>{@link #blockUploads()}：上传线程阻塞到{@link #releaseUploads()}，期间不响应中断，模拟忽略中断的客户端</li>
+ * <li>{@link #setUploadHook(Consumer)}：每次上传开始时回调，可推进测试时钟或同步抛出异常</li>
+ * </ul>
+ * 耗时等待被中断的上传以{@link StorageException}失败并计入{@link #getInterruptedUploads()}。
+ * <p>
+ * 通过SPI创建的实例按bucket登记，测试可用{@link #forBucket(String)}取得Appender内部使用的实例检查上传结果。
+ * 实例关闭后仍保留在登记表中，以便引擎停止后检查，需要时调用{@link #clearRegistry()}清理。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+public final class InMemoryStorageService implements StorageService {
+
+    private static final ProtocolType ADAPTER_TYPE = ProtocolType.MEMORY;
+
+    private static final Map<String, InMemoryStorageService> REGISTRY = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final LongAdder objectCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+    private final LongAdder uploadAttempts = new LongAdder();
+    private final List<String> attemptedKeys = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Throwable> scriptedFailures = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> scriptedLatencies = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> heldUploads = new ConcurrentLinkedQueue<>();
+    private final Object interruptLock = new Object();
+    private int interruptedUploads;
+
+    private String bucketName = "memory";
+    private String keyPrefix = "logx";
+    private volatile long latencyMs;
+    private volatile double failureRate;
+    private volatile boolean retainObjects = true;
+    private volatile boolean holdUploads;
+    private volatile boolean readable = true;
+    private volatile CountDownLatch uploadGate;
+    private volatile Consumer<String> uploadHook;
+
+    /**
+     * 无参构造函数（用于SPI实例化），未初始化时也可直接使用
+     */
+    public InMemoryStorageService() {
+        // 无参构造函数用于SPI实例化
+    }
+
+    /**
+     * 初始化存储服务，并按bucket登记当前实例
+     *
+     * @param config 存储配置
+     */
+    public void initialize(StorageConfig config) {
+        EndpointOptions endpoint = EndpointOptions.parse(config.getEndpoint());
+        if (config.getBucket() != null && !config.getBucket().trim().isEmpty()) {
+            this.bucketName = config.getBucket().trim();
+        }
+        if (config.getKeyPrefix() != null) {
+            this.keyPrefix = config.getKeyPrefix().replaceAll("^/+|/+$", "");
+        }
+        setLatencyMs(endpoint.getLong("latencyMs", 0));
+        setFailureRate(endpoint.getDouble("failureRate", 0));
+        setRetainObjects(endpoint.getBoolean("retain", true));
+        REGISTRY.put(bucketName, this);
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] data) {
+        if (data == null) {
+            return failed(new IllegalArgumentException("Data cannot be null"));
+        }
+        return putObject(key, ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, ByteBuffer buffer) {
+        if (key == null || key.trim().isEmpty()) {
+            return failed(new IllegalArgumentException("Key cannot be null or empty"));
+        }
+        if (buffer == null) {
+            return failed(new IllegalArgumentException("Buffer cannot be null"));
+        }
+
+        uploadAttempts.increment();
+        if (retainObjects) {
+            attemptedKeys.add(key);
+        }
+        Consumer<String> hook = uploadHook;
+        if (hook != null) {
+            hook.accept(key);
+        }
+        CountDownLatch gate = uploadGate;
+        if (gate != null) {
+            awaitUninterruptibly(gate);
+        }
+
+        Long scriptedLatency = scriptedLatencies.poll();
+        long latency = scriptedLatency != null ? scriptedLatency : latencyMs;
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordInterrupted();
+                return failed(StorageException.networkError("Interrupted while uploading " + key, e));
+            }
+        }
+        Throwable scriptedFailure = scriptedFailures.poll();
+        if (scriptedFailure != null) {
+            failureCount.increment();
+            return failed(scriptedFailure);
+        }
+        if (shouldFail()) {
+            failureCount.increment();
+            return failed(StorageException.serverError("Injected failure for key: " + key, "InjectedFailure", null));
+        }
+
+        int size = buffer.remaining();
+        byte[] copy = null;
+        if (retainObjects) {
+            copy = new byte[size];
+            buffer.duplicate().get(copy);
+        }
+        if (holdUploads) {
+            CompletableFuture<Void> held = new CompletableFuture<>();
+            heldUploads.add(held);
+            byte[] content = copy;
+            return held.thenRun(() -> store(key, content, size));
+        }
+        store(key, copy, size);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void store(String key, byte[] content, int size) {
+        if (content != null) {
+            objects.put(key, content);
+        }
+        objectCount.increment();
+        byteCount.add(size);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordInterrupted() {
+        synchronized (interruptLock) {
+            interruptedUploads++;
+            interruptLock.notifyAll();
+        }
+    }
+
+    /**
+     * 读取已保存的对象，与上传一样受latencyMs影响，不受注入的失败影响
+     */
+    @Override
+    public CompletableFuture<byte[]> readObject(String key) {
+        if (!readable) {
+            return StorageService.super.readObject(key);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        long latency = latencyMs;
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(StorageException.networkError("Interrupted while reading " + key, e));
+                return future;
+            }
+        }
+        byte[] data = objects.get(key);
+        if (data == null) {
+            future.completeExceptionally(StorageException.clientError("Object not found: " + key, "NoSuchKey"));
+        } else {
+            future.complete(data.clone());
+        }
+        return future;
+    }
+
+    private boolean shouldFail() {
+        if (pendingFailures.get() > 0 && pendingFailures.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            return true;
+        }
+        double rate = failureRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 让接下来的{@code count}次上传失败，不受failureRate影响
+     */
+    public void failNext(int count) {
+        pendingFailures.set(Math.max(0, count));
+    }
+
+    /**
+     * 让下一次上传以指定的异常失败，多次调用按顺序作用于之后的各次上传
+     */
+    public void failNext(Throwable error) {
+        scriptedFailures.add(error);
+    }
+
+    /**
+     * 指定接下来各次上传的耗时（毫秒），按顺序各用一次，用完后恢复为latencyMs
+     */
+    public void delayNext(long... latenciesMs) {
+        for (long latency : latenciesMs) {
+            if (latency < 0) {
+                throw new IllegalArgumentException("latencyMs must be >= 0: " + latency);
+            }
+            scriptedLatencies.add(latency);
+        }
+    }
+
+    /**
+     * 开启后上传返回未完成的Future，对象在测试完成该Future后才保存
+     */
+    public void setHoldUploads(boolean holdUploads) {
+        this.holdUploads = holdUploads;
+    }
+
+    /**
+     * 取出最早一个挂起的上传，以{@code complete(null)}完成时保存对象，以异常完成时上传失败
+     *
+     * @return 挂起上传的Future，没有时返回null
+     */
+    public CompletableFuture<Void> pollHeldUpload() {
+        return heldUploads.poll();
+    }
+
+    /**
+     * 之后的上传线程阻塞到{@link #releaseUploads()}，期间不响应中断，放行后保留中断标记
+     */
+    public void blockUploads() {
+        uploadGate = new CountDownLatch(1);
+    }
+
+    /**
+     * 放行被{@link #blockUploads()}阻塞的上传，之后的上传不再阻塞
+     */
+    public void releaseUploads() {
+        CountDownLatch gate = uploadGate;
+        uploadGate = null;
+        if (gate != null) {
+            gate.countDown();
+        }
+    }
+
+    /**
+     * 每次上传开始时以对象键回调，回调抛出的异常由putObject同步抛出
+     */
+    public void setUploadHook(Consumer<String> uploadHook) {
+        this.uploadHook = uploadHook;
+    }
+
+    /**
+     * 关闭后readObject与不支持读取的存储一样以UnsupportedOperationException失败
+     */
+    public void setReadable(boolean readable) {
+        this.readable = readable;
+    }
+
+    /**
+     * 耗时等待被中断的上传数
+     */
+    public int getInterruptedUploads() {
+        synchronized (interruptLock) {
+            return interruptedUploads;
+        }
+    }
+
+    /**
+     * 等待被中断的上传数达到指定值
+     *
+     * @return 超时前是否达到
+     */
+    public boolean awaitInterruptedUploads(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (interruptLock) {
+            while (interruptedUploads < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(interruptLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 调用putObject的次数，包括失败、挂起和阻塞中的上传
+     */
+    public long getUploadAttempts() {
+        return uploadAttempts.sum();
+    }
+
+    /**
+     * 按调用顺序排列的上传对象键，包括失败的上传；retain=false时不记录
+     */
+    public List<String> getAttemptedKeys() {
+        return new ArrayList<>(attemptedKeys);
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        if (latencyMs < 0) {
+            throw new IllegalArgumentException("latencyMs must be >= 0: " + latencyMs);
+        }
+        this.latencyMs = latencyMs;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1: " + failureRate);
+        }
+        this.failureRate = failureRate;
+    }
+
+    public boolean isRetainObjects() {
+        return retainObjects;
+    }
+
+    public void setRetainObjects(boolean retainObjects) {
+        this.retainObjects = retainObjects;
+    }
+
+    /**
+     * 获取已保存的对象内容，未保留内容或不存在时返回null
+     */
+    public byte[] getObject(String key) {
+        return objects.get(key);
+    }
+
+    /**
+     * 已保存对象的键，按字典序排列
+     */
+    public Set<String> getObjectKeys() {
+        return new TreeSet<>(objects.keySet());
+    }
+
+    /**
+     * 成功上传的对象数，不受retain影响
+     */
+    public long getObjectCount() {
+        return objectCount.sum();
+    }
+
+    /**
+     * 成功上传的字节数，不受retain影响
+     */
+    public long getByteCount() {
+        return byteCount.sum();
+    }
+
+    /**
+     * 注入失败的次数
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * 清空保存的对象和计数，以及尚未用到的逐次失败和耗时
+     */
+    public void clear() {
+        objects.clear();
+        objectCount.reset();
+        byteCount.reset();
+        failureCount.reset();
+        uploadAttempts.reset();
+        attemptedKeys.clear();
+        scriptedFailures.clear();
+        scriptedLatencies.clear();
+        synchronized (interruptLock) {
+            interruptedUploads = 0;
+        }
+    }
+
+    /**
+     * 获取按bucket登记的实例
+     *
+     * @param bucket 存储桶名称
+     * @return 最近一次以该bucket初始化的实例，不存在时返回null
+     */
+    public static InMemoryStorageService forBucket(String bucket) {
+        return bucket == null ? null : REGISTRY.get(bucket);
+    }
+
+    /**
+     * 清空登记表
+     */
+    public static void clearRegistry() {
+        REGISTRY.clear();
+    }
+
+    @Override
+    public ProtocolType getProtocolType() {
+        return ADAPTER_TYPE;
+    }
+
+    @Override
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    @Override
+    public void close() {
+        // 保留对象和登记，便于引擎停止后检查
+    }
+
+    @Override
+    public boolean supportsProtocol(ProtocolType protocol) {
+        return ADAPTER_TYPE == protocol;
+    }
+}
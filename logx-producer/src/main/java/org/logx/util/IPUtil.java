@@ -3,8 +3,12 @@ package org.logx.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.Enumeration;
 
 /**
  * IP工具类
@@ -17,7 +21,9 @@ import java.net.UnknownHostException;
 public class IPUtil {
     
     private static final Logger logger = LoggerFactory.getLogger(IPUtil.class);
-    
+
+    private static volatile String cachedLocalIP;
+
     /**
      * 得到本机Ip
      *
@@ -31,4 +37,50 @@ public class IPUtil {
             return InetAddress.getLoopbackAddress().getHostAddress();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 得到本机Ip（缓存）
+     * <p>
+     * 首次调用时遍历网卡获取第一个非回环的IPv4地址并缓存，不触发DNS解析，适合在热路径上调用。
+     * 没有可用网卡地址时返回回环地址。
+     *
+     * @return 本机Ip
+     */
+    public static String getCachedLocalIP() {
+        String ip = cachedLocalIP;
+        if (ip == null) {
+            ip = resolveFromNetworkInterfaces();
+            cachedLocalIP = ip;
+        }
+        return ip;
+    }
+
+    private static String resolveFromNetworkInterfaces() {
+        String candidate = null;
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (!networkInterface.isUp() || networkInterface.isLoopback() || networkInterface.isVirtual()) {
+                    continue;
+                }
+                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
+                while (addresses.hasMoreElements()) {
+                    InetAddress address = addresses.nextElement();
+                    if (!(address instanceof Inet4Address) || address.isLoopbackAddress() || address.isLinkLocalAddress()) {
+                        continue;
+                    }
+                    if (address.isSiteLocalAddress()) {
+                        return address.getHostAddress();
+                    }
+                    if (candidate == null) {
+                        candidate = address.getHostAddress();
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            logger.warn("Failed to enumerate network interfaces, using loopback address", e);
+        }
+        return candidate != null ? candidate : InetAddress.getLoopbackAddress().getHostAddress();
+    }
+}
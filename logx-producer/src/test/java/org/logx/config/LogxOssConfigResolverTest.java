@@ -12,6 +12,7 @@ class LogxOssConfigResolverTest {
     @AfterEach
     void tearDown() {
         System.clearProperty("logx.oss.engine.payloadMaxBytes");
+        System.clearProperty("logx.oss.engine.multiProducer");
     }
 
     @Test
@@ -24,4 +25,14 @@ class LogxOssConfigResolverTest {
 
         assertThat(properties.getEngine().getPayloadMaxBytes()).isEqualTo(4096);
     }
+
+    @Test
+    @DisplayName("multiProducer默认开启，可通过配置关闭")
+    void shouldDefaultToMultiProducer() {
+        assertThat(new ConfigManager().getLogxOssProperties().getEngine().isMultiProducer()).isTrue();
+
+        System.setProperty("logx.oss.engine.multiProducer", "false");
+
+        assertThat(new ConfigManager().getLogxOssProperties().getEngine().isMultiProducer()).isFalse();
+    }
 }
@@ -0,0 +1,210 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.logx.exception.StorageException;
+import org.logx.storage.memory.InMemoryStorageService;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    // 每次上传推进假时钟的毫秒数，模拟请求耗时
+    private volatile long delayMs;
+
+    @BeforeEach
+    void setUp() {
+        storage.setUploadHook(key -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(delayMs)));
+    }
+
+    @Test
+    @DisplayName("在途上传达到上限时调用线程等待，有上传结束后再发出")
+    void shouldHoldCallsBeyondLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 2, 10000);
+        storage.setHoldUploads(true);
+        limiter.putObject("a", new byte[] {1});
+        limiter.putObject("b", new byte[] {1});
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> limiter.putObject("c", new byte[] {1}));
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        assertEquals(2, storage.getUploadAttempts());
+
+        storage.pollHeldUpload().complete(null);
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(3, storage.getUploadAttempts());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("满并发的上传持续成功时上限逐步增加，不超过上界")
+    void shouldIncreaseWhileSaturated() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 4, 10000);
+        storage.setHoldUploads(true);
+
+        for (int round = 0; round < 20; round++) {
+            int slots = limiter.getLimit();
+            for (int i = 0; i < slots; i++) {
+                limiter.putObject("key", new byte[] {1});
+            }
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            CompletableFuture<Void> next;
+            while ((next = storage.pollHeldUpload()) != null) {
+                next.complete(null);
+            }
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("并发没有用满时不增加上限")
+    void shouldNotIncreaseWhenUnderused() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 32, 10000);
+        delayMs = 100;
+
+        for (int i = 0; i < 100; i++) {
+            limiter.putObject("key", new byte[] {1}).get();
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("可重试的失败按退避比例降低上限，同一个平滑耗时内的多次失败只退避一次")
+    void shouldBackOffOncePerRoundTripOnErrors() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 10, 10000);
+        delayMs = 100;
+        limiter.putObject("key", new byte[] {1}).get();
+        delayMs = 0;
+
+        storage.failNext(StorageException.serverError("SlowDown", "503", null));
+        storage.failNext(StorageException.serverError("SlowDown", "503", null));
+        assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+        assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+        assertEquals(9, limiter.getLimit());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        storage.failNext(StorageException.serverError("SlowDown", "503", null));
+        assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+        assertEquals(8, limiter.getLimit());
+        assertEquals(2, limiter.getDecreases());
+    }
+
+    @Test
+    @DisplayName("耗时超过同量级对象最小耗时的容忍倍数时降低上限，不同大小的对象分别比较")
+    void shouldBackOffOnLatencyAgainstSameSizeClass() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 10, 10000);
+        delayMs = 100;
+        limiter.putObject("small", new byte[1024]).get();
+
+        delayMs = 1000;
+        limiter.putObject("large", new byte[4 * 1024 * 1024]).get();
+        assertEquals(10, limiter.getLimit());
+
+        delayMs = 150;
+        limiter.putObject("small", new byte[1024]).get();
+        assertEquals(10, limiter.getLimit());
+
+        delayMs = 300;
+        limiter.putObject("small", new byte[1024]).get();
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("不可重试的错误只释放名额，不降低上限")
+    void shouldIgnoreNonRetryableErrors() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 4, 10000);
+
+        for (int i = 0; i < 5; i++) {
+            storage.failNext(StorageException.clientError("AccessDenied", "403"));
+            assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("被取消或中断的上传只释放名额，不降低上限")
+    void shouldIgnoreCancelledAndInterruptedUploads() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 4, 10000);
+        delayMs = 100;
+
+        storage.failNext(new CancellationException("hedge lost"));
+        assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        storage.failNext(new RuntimeException("Failed to upload object", new InterruptedException()));
+        assertThrows(ExecutionException.class, () -> limiter.putObject("key", new byte[] {1}).get());
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getDecreases());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("等待名额超过上传超时时返回失败，不调用存储")
+    void shouldFailWhenNoSlotWithinTimeout() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 50);
+        storage.setHoldUploads(true);
+        limiter.putObject("a", new byte[] {1});
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> limiter.putObject("b", new byte[] {1}).get());
+
+        assertInstanceOf(StorageException.class, error.getCause());
+        assertEquals(1, storage.getUploadAttempts());
+        assertEquals(1, limiter.getWaitTimeouts());
+    }
+
+    @Test
+    @DisplayName("共享调度器的工作线程拿不到名额时立即失败，不在限制器上等待")
+    void shouldNotBlockSharedWorkers() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 10000);
+        storage.setHoldUploads(true);
+        limiter.putObject("a", new byte[] {1});
+
+        SharedUploadScheduler scheduler = new SharedUploadScheduler(1, "test-uploader");
+        try {
+            SharedUploadScheduler.Tenant tenant = scheduler.register("tenant", 1, 1);
+            long start = System.nanoTime();
+            CompletableFuture<Void> result = tenant.submit(() -> limiter.putObject("b", new byte[] {1}))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            ExecutionException error = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(StorageException.class, error.getCause());
+            assertEquals(1, storage.getUploadAttempts());
+            assertEquals(1, limiter.getWaitTimeouts());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("对象大小按64KB起每翻一倍分一级")
+    void shouldClassifyObjectSizes() {
+        assertEquals(0, AdaptiveConcurrencyLimiter.sizeClass(1000));
+        assertEquals(1, AdaptiveConcurrencyLimiter.sizeClass(64 * 1024));
+        assertEquals(2, AdaptiveConcurrencyLimiter.sizeClass(128 * 1024));
+        assertEquals(8, AdaptiveConcurrencyLimiter.sizeClass(10 * 1024 * 1024));
+        assertEquals(11, AdaptiveConcurrencyLimiter.sizeClass(1024L * 1024 * 1024));
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, long acquireTimeoutMs) {
+        return new AdaptiveConcurrencyLimiter(storage, initial, min, max, 90, 200, acquireTimeoutMs, clock::get);
+    }
+}
@@ -0,0 +1,39 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.logx.config.properties.LogxOssProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncEngineConfigBuilderTest {
+
+    @Test
+    @DisplayName("应按LogxOssProperties中的各项配置构建引擎配置")
+    void shouldBuildConfigFromProperties() {
+        LogxOssProperties properties = new LogxOssProperties();
+        properties.getEngine().getQueue().setCapacity(4096);
+        properties.getEngine().getQueue().setDropWhenFull(true);
+        properties.getEngine().getBatch().setCount(123);
+        properties.getEngine().setMultiProducer(false);
+        properties.getEngine().getFallback().setMaxFiles(7);
+        properties.getEngine().setUploadHedgeEnabled(true);
+        properties.getEngine().setFanoutMaxInFlight(9);
+        properties.getEngine().setMetricsEnabled(false);
+        properties.getStorage().setUploadTimeoutMs(4321L);
+
+        AsyncEngineConfig config = AsyncEngineConfigBuilder.buildConfig(properties);
+
+        assertEquals(4096, config.getQueueCapacity());
+        assertFalse(config.isBlockOnFull());
+        assertEquals(123, config.getBatchMaxMessages());
+        assertFalse(config.isMultiProducer());
+        assertEquals(7, config.getFallbackMaxFiles());
+        assertTrue(config.isUploadHedgeEnabled());
+        assertEquals(9, config.getFanoutMaxInFlight());
+        assertFalse(config.isMetricsEnabled());
+        assertEquals(4321L, config.getUploadTimeoutMs());
+    }
+}
@@ -0,0 +1,444 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.fallback.FallbackEvictionPolicy;
+import org.logx.fallback.LegacyFallbackMigrator;
+import org.logx.storage.ProtocolType;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncEngineRegistryTest {
+
+    private final AtomicInteger createdClients = new AtomicInteger();
+    private final AtomicInteger closedClients = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final Map<String, Queue<String>> uploadedKeys = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        AsyncEngineRegistry.setStorageFactory(config -> {
+            createdClients.incrementAndGet();
+            return new CountingStorageService(config.getBucket());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        AsyncEngineRegistry.setStorageFactory(null);
+    }
+
+    @Test
+    @DisplayName("相同配置的Appender应共享引擎并按引用计数释放")
+    void shouldShareEngineForIdenticalConfig() {
+        AsyncEngineRegistry.Lease first = AsyncEngineRegistry.acquire(storageConfig("app/"), engineConfig(100));
+        AsyncEngineRegistry.Lease second = AsyncEngineRegistry.acquire(storageConfig("app/"), engineConfig(100));
+        first.start();
+        second.start();
+
+        assertEquals(1, AsyncEngineRegistry.getActiveEngineCount());
+        assertSame(first.getStorageService(), second.getStorageService());
+
+        first.stop(1, TimeUnit.SECONDS);
+        first.stop(1, TimeUnit.SECONDS);
+        assertEquals(1, AsyncEngineRegistry.getActiveEngineCount());
+        assertEquals(0, closedClients.get());
+
+        second.stop(1, TimeUnit.SECONDS);
+        assertEquals(0, AsyncEngineRegistry.getActiveEngineCount());
+        assertEquals(0, AsyncEngineRegistry.getSharedStorageCount());
+        assertEquals(1, closedClients.get());
+    }
+
+    @Test
+    @DisplayName("不同前缀的引擎应相互独立但共享存储客户端")
+    void shouldShareStorageClientAcrossEngines() {
+        AsyncEngineRegistry.Lease app = AsyncEngineRegistry.acquire(storageConfig("app/"), engineConfig(100));
+        AsyncEngineRegistry.Lease audit = AsyncEngineRegistry.acquire(storageConfig("/audit/"), engineConfig(100));
+
+        assertEquals(2, AsyncEngineRegistry.getActiveEngineCount());
+        assertEquals(1, AsyncEngineRegistry.getSharedStorageCount());
+        assertEquals(1, createdClients.get());
+        assertEquals("app", app.getStorageService().getKeyPrefix());
+        assertEquals("audit", audit.getStorageService().getKeyPrefix());
+
+        app.stop(1, TimeUnit.SECONDS);
+        assertEquals(0, closedClients.get());
+        audit.stop(1, TimeUnit.SECONDS);
+        assertEquals(1, closedClients.get());
+    }
+
+    @Test
+    @DisplayName("配置变化后重新获取应创建新引擎，旧引擎释放后停止")
+    void shouldCreateNewEngineOnReconfigure() {
+        AsyncEngineRegistry.Lease before = AsyncEngineRegistry.acquire(storageConfig("app/"), engineConfig(100));
+        before.start();
+        // Log4j2热加载先启动新配置再停止旧配置
+        AsyncEngineRegistry.Lease after = AsyncEngineRegistry.acquire(storageConfig("app/"), engineConfig(200));
+        after.start();
+
+        assertEquals(2, AsyncEngineRegistry.getActiveEngineCount());
+        before.stop(1, TimeUnit.SECONDS);
+        assertEquals(1, AsyncEngineRegistry.getActiveEngineCount());
+        assertEquals(0, closedClients.get());
+
+        after.stop(1, TimeUnit.SECONDS);
+        assertEquals(0, AsyncEngineRegistry.getActiveEngineCount());
+        assertEquals(1, closedClients.get());
+    }
+
+    @Test
+    @DisplayName("备用存储按配置顺序继承主存储的未配置字段，与引擎一起创建和关闭")
+    void shouldCreateFailoverStoragesWithEngine() {
+        StorageConfig config = storageConfig("app/");
+        config.setFailoverTargets("bucket=logs-dr;region=us-west-2, endpoint=http://backup:9000;bucket=logs-backup");
+
+        List<StorageConfig> targets = config.getFailoverConfigs();
+        assertEquals(2, targets.size());
+        assertEquals("logs-dr", targets.get(0).getBucket());
+        assertEquals("us-west-2", targets.get(0).getRegion());
+        assertEquals("http://localhost:9000", targets.get(0).getEndpoint());
+        assertEquals("http://backup:9000", targets.get(1).getEndpoint());
+        assertEquals("us-east-1", targets.get(1).getRegion());
+        assertEquals("app/", targets.get(1).getKeyPrefix());
+
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config, engineConfig(100));
+        assertEquals(3, createdClients.get());
+        lease.stop(1, TimeUnit.SECONDS);
+        assertEquals(3, closedClients.get());
+    }
+
+    @Test
+    @DisplayName("备用存储配置了未知字段时应拒绝")
+    void shouldRejectUnknownFailoverField() {
+        StorageConfig config = storageConfig("app/");
+        config.setFailoverTargets("bucket=logs-dr;prefix=dr/");
+
+        assertThrows(IllegalArgumentException.class, config::getFailoverConfigs);
+    }
+
+    @Test
+    @DisplayName("扇出目标可配置自己的前缀，与引擎一起创建和关闭")
+    void shouldCreateFanOutStoragesWithEngine() {
+        StorageConfig config = storageConfig("app/");
+        config.setFanoutTargets("bucket=compliance;keyPrefix=audit/app");
+
+        List<StorageConfig> targets = config.getFanoutConfigs();
+        assertEquals(1, targets.size());
+        assertEquals("compliance", targets.get(0).getBucket());
+        assertEquals("audit/app", targets.get(0).getKeyPrefix());
+
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config, engineConfig(100));
+        lease.start();
+        assertEquals(2, createdClients.get());
+        lease.stop(1, TimeUnit.SECONDS);
+        assertEquals(2, closedClients.get());
+    }
+
+    @Test
+    @DisplayName("获取引擎不应修改调用方的引擎配置")
+    void shouldNotMutateCallerConfig() {
+        AsyncEngineConfig config = engineConfig(100);
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(storageConfig("app/"), config);
+
+        assertNull(config.getStorageConfig());
+        lease.stop(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("引擎配置按全部字段比较，副本与原配置相等")
+    void shouldCompareEngineConfigByValue() {
+        AsyncEngineConfig config = engineConfig(100);
+        AsyncEngineConfig copy = config.copy();
+
+        assertEquals(config, copy);
+        assertEquals(config.hashCode(), copy.hashCode());
+        assertNotEquals(config, copy.fallbackScanIntervalSeconds(config.getFallbackScanIntervalSeconds() + 1));
+    }
+
+    @Test
+    @DisplayName("不同bucket的引擎使用各自的兜底目录，兜底文件只重传到自己的bucket")
+    void shouldResendFallbackFilesToOwnBucketOnly(@TempDir Path fallbackDir) throws Exception {
+        failing.set(true);
+        AsyncEngineRegistry.Lease app = AsyncEngineRegistry.acquire(storageConfig("logs-app", "app/"),
+                fallbackEngineConfig(fallbackDir));
+        AsyncEngineRegistry.Lease audit = AsyncEngineRegistry.acquire(storageConfig("logs-audit", "audit/"),
+                fallbackEngineConfig(fallbackDir));
+        app.start();
+        audit.start();
+        try {
+            app.put("app line\n".getBytes(StandardCharsets.UTF_8));
+            audit.put("audit line\n".getBytes(StandardCharsets.UTF_8));
+            waitUntil(() -> countFallbackFiles(fallbackDir) >= 2);
+
+            failing.set(false);
+            waitUntil(() -> !keys("logs-app").isEmpty() && !keys("logs-audit").isEmpty());
+            // 再等几轮扫描，确认没有引擎把其他引擎的兜底文件传到自己的bucket
+            Thread.sleep(2500);
+
+            for (String key : keys("logs-app")) {
+                assertTrue(key.startsWith("app/"), key);
+            }
+            for (String key : keys("logs-audit")) {
+                assertTrue(key.startsWith("audit/"), key);
+            }
+            assertEquals(0, countFallbackFiles(fallbackDir));
+        } finally {
+            app.stop(1, TimeUnit.SECONDS);
+            audit.stop(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("直接写入兜底文件的批次也应写入扇出目标的兜底文件，并由目标补传")
+    void shouldFanOutBatchesWrittenStraightToFallback(@TempDir Path fallbackDir) throws Exception {
+        StorageConfig config = storageConfig("logs-app", "app/");
+        config.setFanoutTargets("bucket=compliance;keyPrefix=audit/app");
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config, fallbackEngineConfig(fallbackDir)
+                .payloadMaxBytes(16)
+                .oversizePayloadPolicy(AsyncEngineConfig.OversizePayloadPolicy.FALLBACK_FILE));
+        lease.start();
+        try {
+            lease.put("an oversize line that skips the queue\n".getBytes(StandardCharsets.UTF_8));
+
+            waitUntil(() -> !keys("logs-app").isEmpty() && !keys("compliance").isEmpty());
+            assertTrue(keys("compliance").peek().startsWith("audit/app/"), keys("compliance").peek());
+            waitUntil(() -> countFallbackFiles(fallbackDir) == 0);
+        } finally {
+            lease.stop(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("升级前写在共用兜底目录中的兜底文件和队列快照应迁入引擎目录并补传，不取走其他引擎目录中的文件")
+    void shouldResendLegacyFallbackFilesAfterUpgrade(@TempDir Path fallbackDir) throws Exception {
+        Path legacyFile = fallbackDir.resolve("app/2024/01/02/030405006-applogx-host-a1b2c3000001.log.gz");
+        Files.createDirectories(legacyFile.getParent());
+        Files.write(legacyFile, "legacy line\n".getBytes(StandardCharsets.UTF_8));
+        new QueueSnapshotStore(fallbackDir.toString()).write(Collections.singletonList(
+                new EnhancedDisruptorBatchingQueue.LogEvent("snapshot line\n".getBytes(StandardCharsets.UTF_8),
+                        System.currentTimeMillis())));
+        Path otherEngine = fallbackDir.resolve("logs-other-1234abcd");
+        Path otherFile = otherEngine.resolve("other/2024/01/02/030405006-applogx-host-a1b2c3000002.log.gz");
+        Files.createDirectories(otherFile.getParent());
+        Files.write(otherFile, "other line\n".getBytes(StandardCharsets.UTF_8));
+        LegacyFallbackMigrator.markEngineDirectory(otherEngine.toString());
+
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(storageConfig("logs-app", "app/"),
+                fallbackEngineConfig(fallbackDir));
+        lease.start();
+        try {
+            waitUntil(() -> keys("logs-app").contains("app/2024/01/02/030405006-applogx-host-a1b2c3000001.log.gz"));
+            // 快照中的事件重新进入队列后作为新批次上传
+            waitUntil(() -> keys("logs-app").size() >= 2);
+
+            assertFalse(Files.exists(legacyFile));
+            assertTrue(Files.exists(otherFile));
+            try (Stream<Path> files = Files.list(fallbackDir.resolve(QueueSnapshotStore.SNAPSHOT_DIR))) {
+                assertFalse(files.anyMatch(p -> p.toString().endsWith(".snap")));
+            }
+        } finally {
+            lease.stop(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("磁盘配额用满时，经批次上传失败写入的ERROR批次按高优先级保留，先淘汰普通批次")
+    void shouldKeepErrorBatchWhenFallbackQuotaIsFull(@TempDir Path fallbackDir) throws Exception {
+        failing.set(true);
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(storageConfig("logs-app", "app/"),
+                fallbackEngineConfig(fallbackDir)
+                        .fallbackMaxFiles(3)
+                        .fallbackEvictionPolicy(FallbackEvictionPolicy.LOWEST_SEVERITY_FIRST));
+        lease.start();
+        try {
+            lease.put("2026-10-19 10:00:00 ERROR [main] PaymentService - payment failed\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            waitUntil(() -> countFallbackFiles(fallbackDir) == 1);
+            for (int i = 0; i < 6; i++) {
+                String order = "order " + i;
+                lease.put(("2026-10-19 10:00:01 INFO [main] OrderService - " + order + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                waitUntil(() -> readFallbackFiles(fallbackDir).stream().anyMatch(c -> c.contains(order)));
+            }
+
+            List<String> contents = readFallbackFiles(fallbackDir);
+            assertEquals(3, contents.size());
+            assertTrue(contents.stream().anyMatch(c -> c.contains("payment failed")), contents.toString());
+        } finally {
+            lease.stop(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("上传失败写入兜底文件后，主存储和扇出目标重传的对象键应保留路由前缀和键模板中的分区")
+    void shouldResendFallbackFileUnderIntendedKey(@TempDir Path fallbackDir) throws Exception {
+        failing.set(true);
+        StorageConfig config = storageConfig("logs-app", "app/");
+        config.setKeyTemplate("{prefix}/level={level}/{uid}");
+        config.setFanoutTargets("bucket=compliance;keyPrefix=audit/app");
+        AsyncEngineRegistry.Lease lease = AsyncEngineRegistry.acquire(config, fallbackEngineConfig(fallbackDir)
+                .routeBy("level")
+                .routeRules("ERROR:count=1;maxAgeMs=100;prefix=app/error"));
+        lease.start();
+        try {
+            lease.put("payment failed\n".getBytes(StandardCharsets.UTF_8), "ERROR");
+            waitUntil(() -> countFallbackFiles(fallbackDir) == 2);
+
+            failing.set(false);
+            waitUntil(() -> !keys("logs-app").isEmpty() && !keys("compliance").isEmpty());
+            String key = keys("logs-app").peek();
+            assertTrue(key.matches("app/error/level=ERROR/[0-9a-f]+\\.log\\.gz"), key);
+            assertEquals("audit/" + key, keys("compliance").peek());
+        } finally {
+            lease.stop(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private Queue<String> keys(String bucket) {
+        return uploadedKeys.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>());
+    }
+
+    private static long countFallbackFiles(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(p -> p.toString().endsWith(".log.gz")).count();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static List<String> readFallbackFiles(Path dir) {
+        List<String> contents = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".log.gz"))::iterator) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    for (int n; (n = in.read(buffer)) > 0; ) {
+                        out.write(buffer, 0, n);
+                    }
+                    contents.add(new String(out.toByteArray(), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            // 文件正在写入或已被淘汰，下一次读取再确认
+        }
+        return contents;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertFalse(System.currentTimeMillis() > deadline, "condition not met in time");
+            Thread.sleep(50);
+        }
+    }
+
+    private static AsyncEngineConfig fallbackEngineConfig(Path fallbackDir) {
+        return engineConfig(1)
+                .maxMessageAgeMs(100)
+                .logFilePrefix(fallbackDir.toString())
+                .fallbackScanIntervalSeconds(1)
+                .uploadBreakerEnabled(false)
+                .uploadHedgeEnabled(false);
+    }
+
+    private static StorageConfig storageConfig(String keyPrefix) {
+        return storageConfig("logs", keyPrefix);
+    }
+
+    private static StorageConfig storageConfig(String bucket, String keyPrefix) {
+        return StorageConfig.builder()
+                .ossType("MINIO")
+                .endpoint("http://localhost:9000")
+                .region("us-east-1")
+                .accessKeyId("key")
+                .accessKeySecret("secret")
+                .bucket(bucket)
+                .keyPrefix(keyPrefix)
+                .build();
+    }
+
+    private static AsyncEngineConfig engineConfig(int batchMaxMessages) {
+        return AsyncEngineConfig.defaultConfig()
+                .queueCapacity(1024)
+                .batchMaxMessages(batchMaxMessages)
+                .enableDynamicBatching(false);
+    }
+
+    private final class CountingStorageService implements StorageService {
+        private final String bucket;
+
+        CountingStorageService(String bucket) {
+            this.bucket = bucket;
+        }
+
+        @Override
+        public CompletableFuture<Void> putObject(String key, byte[] data) {
+            if (failing.get()) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("storage unavailable"));
+                return failed;
+            }
+            keys(bucket).add(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public ProtocolType getProtocolType() {
+            return ProtocolType.S3;
+        }
+
+        @Override
+        public String getBucketName() {
+            return bucket;
+        }
+
+        @Override
+        public String getKeyPrefix() {
+            return "logx";
+        }
+
+        @Override
+        public void close() {
+            closedClients.incrementAndGet();
+        }
+
+        @Override
+        public boolean supportsProtocol(ProtocolType protocol) {
+            return protocol == ProtocolType.S3;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchRoutingTest {
+
+    @Test
+    @DisplayName("应解析路由属性和各路由阈值")
+    void shouldParseRoutingRules() {
+        BatchRouting routing = BatchRouting.parse("level", 16,
+                "error:count=200;maxAgeMs=2000;prefix=logx/error/, DEBUG:count=10000");
+
+        assertEquals(BatchRouting.AttributeType.LEVEL, routing.getAttributeType());
+        assertEquals(16, routing.getMaxRoutes());
+        assertEquals(200, routing.getRoute("ERROR").getBatchMaxMessages());
+        assertEquals(2000L, routing.getRoute("ERROR").getMaxMessageAgeMs());
+        assertEquals("logx/error/", routing.keyPrefixFor("ERROR", "logx/"));
+        assertEquals("logx/", routing.keyPrefixFor("DEBUG", "logx/"));
+        assertEquals("ERROR", routing.attributesFor("ERROR").get("level"));
+        assertNull(routing.getRoute("INFO"));
+    }
+
+    @Test
+    @DisplayName("应按Logger名称前N段计算路由键")
+    void shouldComputeLoggerRouteKey() {
+        BatchRouting routing = BatchRouting.parse("logger:2", 8, null);
+
+        assertEquals("com.example", routing.loggerRouteKey("com.example.order.OrderService"));
+        assertEquals("Main", routing.loggerRouteKey("Main"));
+        assertNull(routing.loggerRouteKey(null));
+    }
+
+    @Test
+    @DisplayName("未配置时不启用路由，非法配置应拒绝")
+    void shouldRejectInvalidConfiguration() {
+        assertNull(BatchRouting.parse(" ", 8, null));
+        assertThrows(IllegalArgumentException.class, () -> BatchRouting.parse("thread", 8, null));
+        assertThrows(IllegalArgumentException.class, () -> BatchRouting.parse("mdc", 8, null));
+        assertThrows(IllegalArgumentException.class, () -> BatchRouting.parse("logger:x", 8, null));
+        assertThrows(IllegalArgumentException.class, () -> BatchRouting.parse("level", 8, "ERROR:speed=1"));
+    }
+}
@@ -0,0 +1,227 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredFormatStageTest {
+
+    private final RecordingEngine engine = new RecordingEngine();
+    private DeferredFormatStage<String> stage;
+
+    @AfterEach
+    void tearDown() {
+        if (stage != null) {
+            stage.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("格式化应在工作线程上完成，同一调用线程的事件保持先后顺序")
+    void shouldFormatOnWorkersAndKeepPerThreadOrder() throws Exception {
+        Map<String, String> formattingThreads = new ConcurrentHashMap<>();
+        stage = new DeferredFormatStage<>("test", config(2, 1024), engine, new Renderer() {
+            @Override
+            public LogPayloadSanitizer.SanitizedPayload render(String event) {
+                formattingThreads.put(event, Thread.currentThread().getName());
+                return super.render(event);
+            }
+        });
+        stage.start();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    stage.submit(prefix + i);
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        stage.close(5, TimeUnit.SECONDS);
+
+        assertEquals(2000, engine.lines.size());
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            int expected = 0;
+            for (String line : engine.lines) {
+                if (line.startsWith(prefix)) {
+                    assertEquals(prefix + expected, line);
+                    expected++;
+                }
+            }
+            assertEquals(500, expected);
+        }
+        assertTrue(formattingThreads.values().stream().allMatch(name -> name.startsWith("logx-deferred-format-")));
+        assertEquals(2000, stage.getRenderedEvents());
+    }
+
+    @Test
+    @DisplayName("队列满时调用线程应等待所属工作线程，不越过本线程排队中的事件")
+    void shouldWaitForOwnWorkerWhenQueueIsFull() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        stage = new DeferredFormatStage<>("test", config(1, 64), engine, new Renderer() {
+            @Override
+            public LogPayloadSanitizer.SanitizedPayload render(String event) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.render(event);
+            }
+        });
+        stage.start();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                stage.submit("line-" + i);
+            }
+        });
+        producer.start();
+        producer.join(300);
+        assertTrue(producer.isAlive());
+        assertEquals(0, engine.lines.size());
+
+        gate.countDown();
+        producer.join(5000);
+        stage.close(5, TimeUnit.SECONDS);
+
+        assertEquals(200, engine.lines.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("line-" + i, engine.lines.get(i));
+        }
+        assertEquals(0, stage.getCallerRunsEvents());
+        assertTrue(stage.getFullQueueWaits() > 0);
+    }
+
+    @Test
+    @DisplayName("提交与关闭并发时不应丢失事件")
+    void shouldNotLoseEventsSubmittedDuringClose() throws Exception {
+        stage = new DeferredFormatStage<>("test", config(2, 64), engine, new Renderer());
+        stage.start();
+
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            producers.add(new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 5000; i++) {
+                    stage.submit(prefix + i);
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        started.await();
+        stage.close(5, TimeUnit.SECONDS);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(20000, engine.lines.size());
+        assertEquals(0, stage.getBacklog());
+    }
+
+    @Test
+    @DisplayName("关闭时应排空积压，关闭后提交的事件在调用线程上处理")
+    void shouldDrainOnClose() {
+        stage = new DeferredFormatStage<>("test", config(1, 4096), engine, new Renderer());
+        stage.start();
+        for (int i = 0; i < 1000; i++) {
+            stage.submit("line-" + i);
+        }
+
+        stage.close(5, TimeUnit.SECONDS);
+        stage.submit("after-close");
+
+        assertEquals(1001, engine.lines.size());
+        assertEquals("after-close", engine.lines.get(1000));
+        assertEquals(0, stage.getBacklog());
+    }
+
+    @Test
+    @DisplayName("工作线程上的格式化异常应计数并继续处理后续事件")
+    void shouldSurviveRenderFailure() {
+        stage = new DeferredFormatStage<>("test", config(1, 1024), engine, new Renderer() {
+            @Override
+            public LogPayloadSanitizer.SanitizedPayload render(String event) {
+                if ("bad".equals(event)) {
+                    throw new IllegalStateException("broken layout");
+                }
+                return super.render(event);
+            }
+        });
+        stage.start();
+
+        stage.submit("bad");
+        stage.submit("good");
+        stage.close(5, TimeUnit.SECONDS);
+
+        assertEquals(1, stage.getRenderFailures());
+        assertEquals(1, engine.lines.size());
+        assertEquals("good", engine.lines.get(0));
+        assertNotEquals(0, engine.routeKeys.size());
+    }
+
+    private static AsyncEngineConfig config(int workers, int capacity) {
+        return AsyncEngineConfig.defaultConfig()
+                .deferredFormatEnabled(true)
+                .deferredFormatWorkers(workers)
+                .deferredFormatQueueCapacity(capacity)
+                .metricsEnabled(false);
+    }
+
+    private static class Renderer implements DeferredFormatStage.Renderer<String> {
+        @Override
+        public LogPayloadSanitizer.SanitizedPayload render(String event) {
+            return LogPayloadSanitizer.sanitize(event, 1024);
+        }
+
+        @Override
+        public String routeKey(String event) {
+            return event.substring(0, 1);
+        }
+    }
+
+    private static final class RecordingEngine implements AsyncEngine {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final List<String> routeKeys = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void put(byte[] data) {
+            lines.add(new String(data, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void put(byte[] data, String routeKey) {
+            put(data);
+            routeKeys.add(routeKey);
+        }
+    }
+}
@@ -138,6 +138,440 @@ public class EnhancedDisruptorBatchingQueueTest {
         testQueue.close();
     }
 
+    @Test
+    void testCloseWithSnapshotPersistsPendingBatch() throws Exception {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("queue-close-snapshot");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+        TestBatchConsumer consumer = new TestBatchConsumer();
+
+        EnhancedDisruptorBatchingQueue.Config config = new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(1024)
+                .batchMaxMessages(100)
+                .batchMaxBytes(1024 * 1024)
+                .maxMessageAgeMs(30000)
+                .snapshotStore(store);
+        EnhancedDisruptorBatchingQueue snapshotQueue = new EnhancedDisruptorBatchingQueue(config, consumer, testStorageService);
+        snapshotQueue.start();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(snapshotQueue.submit(("message " + i).getBytes()));
+        }
+        Thread.sleep(200);
+        snapshotQueue.close();
+
+        assertFalse(consumer.isProcessed(), "Snapshot close should not upload pending events");
+        assertFalse(snapshotQueue.submit("late".getBytes()));
+
+        java.util.List<EnhancedDisruptorBatchingQueue.LogEvent> recovered = new java.util.ArrayList<>();
+        assertEquals(5, store.recover(recovered::addAll));
+        assertEquals("message 0", new String(recovered.get(0).payload));
+        assertEquals("message 4", new String(recovered.get(4).payload));
+    }
+
+    @Test
+    void testCloseWithSnapshotCapturesRingWhileConsumerBusy() throws Exception {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("queue-close-snapshot-busy");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch uploading = new CountDownLatch(1);
+
+        EnhancedDisruptorBatchingQueue.Config config = new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(1024)
+                .batchMaxMessages(10)
+                .batchMaxBytes(1024 * 1024)
+                .maxMessageAgeMs(30000)
+                .enableCompression(false)
+                .snapshotStore(store);
+        EnhancedDisruptorBatchingQueue snapshotQueue = new EnhancedDisruptorBatchingQueue(config,
+                (batchData, originalSize, compressed, messageCount) -> {
+                    uploading.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                },
+                testStorageService);
+        snapshotQueue.start();
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(snapshotQueue.submit(("message " + i).getBytes()));
+        }
+        assertTrue(uploading.await(5, TimeUnit.SECONDS));
+        snapshotQueue.close();
+        release.countDown();
+
+        java.util.List<EnhancedDisruptorBatchingQueue.LogEvent> recovered = new java.util.ArrayList<>();
+        assertEquals(15, store.recover(recovered::addAll), "Events behind the in-flight batch should be snapshotted");
+        assertEquals("message 10", new String(recovered.get(0).payload));
+    }
+
+    @Test
+    void testRoutedEventsAreBatchedPerRoute() throws Exception {
+        RecordingRouteConsumer consumer = new RecordingRouteConsumer();
+        EnhancedDisruptorBatchingQueue.Config config = new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(1024)
+                .batchMaxMessages(100)
+                .batchMaxBytes(1024 * 1024)
+                .maxMessageAgeMs(30000)
+                .routing(BatchRouting.parse("level", 8, "error:count=2"));
+        EnhancedDisruptorBatchingQueue routedQueue = new EnhancedDisruptorBatchingQueue(config, consumer, testStorageService);
+        routedQueue.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(routedQueue.submit(("info " + i).getBytes(), "INFO"));
+        }
+        assertTrue(routedQueue.submit("error 0".getBytes(), "ERROR"));
+        assertTrue(routedQueue.submit("error 1".getBytes(), "ERROR"));
+
+        assertTrue(consumer.awaitBatches(1, 5000), "ERROR route should flush on its own count threshold");
+        assertEquals("ERROR:2", consumer.batches.get(0));
+        assertEquals(2, routedQueue.getActiveRouteCount());
+
+        routedQueue.close();
+        assertTrue(consumer.batches.contains("INFO:3"), consumer.batches.toString());
+    }
+
+    @Test
+    void testLeastRecentlyUsedRouteIsFlushedOnEviction() throws Exception {
+        RecordingRouteConsumer consumer = new RecordingRouteConsumer();
+        EnhancedDisruptorBatchingQueue.Config config = new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(1024)
+                .batchMaxMessages(100)
+                .batchMaxBytes(1024 * 1024)
+                .maxMessageAgeMs(30000)
+                .routing(BatchRouting.parse("mdc:tenant", 2, null));
+        EnhancedDisruptorBatchingQueue routedQueue = new EnhancedDisruptorBatchingQueue(config, consumer, testStorageService);
+        routedQueue.start();
+
+        assertTrue(routedQueue.submit("a1".getBytes(), "a"));
+        assertTrue(routedQueue.submit("b1".getBytes(), "b"));
+        assertTrue(routedQueue.submit("a2".getBytes(), "a"));
+        assertTrue(routedQueue.submit("c1".getBytes(), "c"));
+
+        assertTrue(consumer.awaitBatches(1, 5000), "Evicted route should be flushed");
+        assertEquals("b:1", consumer.batches.get(0));
+        assertEquals(1, routedQueue.getRouteEvictionCount());
+        assertEquals(2, routedQueue.getActiveRouteCount());
+        routedQueue.close();
+    }
+
+    static class RecordingRouteConsumer implements EnhancedDisruptorBatchingQueue.BatchConsumer {
+        final java.util.List<String> batches = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount) {
+            return processBatch(batchData, originalSize, compressed, messageCount, null);
+        }
+
+        @Override
+        public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount,
+                                    String routeKey) {
+            batches.add(routeKey + ":" + messageCount);
+            return true;
+        }
+
+        boolean awaitBatches(int count, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (batches.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return batches.size() >= count;
+        }
+    }
+
+    @Test
+    void testOversizedCompressedBatchIsShardedOnMemberBoundaries() throws Exception {
+        ShardRecordingStorageService storage = new ShardRecordingStorageService();
+        TestBatchConsumer consumer = new TestBatchConsumer();
+        EnhancedDisruptorBatchingQueue.Config config = new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(65536)
+                .batchMaxMessages(10000)
+                .batchMaxBytes(64 * 1024 * 1024)
+                .maxMessageAgeMs(30000)
+                .enableCompression(true)
+                .enableSharding(true)
+                .maxUploadSizeMb(1);
+        EnhancedDisruptorBatchingQueue shardingQueue = new EnhancedDisruptorBatchingQueue(config, consumer, storage);
+        shardingQueue.start();
+
+        java.util.Random random = new java.util.Random(42);
+        java.io.ByteArrayOutputStream expected = new java.io.ByteArrayOutputStream();
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder line = new StringBuilder("line ").append(i).append(' ');
+            for (int j = 0; j < 24; j++) {
+                line.append(Long.toHexString(random.nextLong()));
+            }
+            byte[] payload = line.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            assertTrue(shardingQueue.submit(payload));
+            expected.write(payload);
+            expected.write('\n');
+        }
+
+        assertTrue(storage.awaitQuiet(500, 20000), "Shards should be uploaded");
+        shardingQueue.close();
+
+        assertFalse(consumer.isProcessed(), "Oversized batch should bypass the regular consumer");
+        assertTrue(storage.shards.size() >= 2, "shards=" + storage.shards.size());
+        java.util.List<String> shardTexts = new java.util.ArrayList<>();
+        for (byte[] shard : storage.shards) {
+            assertTrue(shard.length <= 1024 * 1024, "Compressed shard should not exceed the target size");
+            String text = new String(gunzip(shard), java.nio.charset.StandardCharsets.UTF_8);
+            assertTrue(text.startsWith("line "), "Shard should start on a record boundary");
+            assertTrue(text.endsWith("\n"), "Shard should end on a record boundary");
+            shardTexts.add(text);
+        }
+        // 分片并发上传，按首行序号恢复原始顺序
+        shardTexts.sort(java.util.Comparator.comparingInt(
+                text -> Integer.parseInt(text.substring(5, text.indexOf(' ', 5)))));
+        java.io.ByteArrayOutputStream restored = new java.io.ByteArrayOutputStream();
+        for (String text : shardTexts) {
+            restored.write(text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        assertArrayEquals(expected.toByteArray(), restored.toByteArray());
+        assertEquals(storage.shards.size(), shardingQueue.getMetrics().getTotalShardsCreated());
+    }
+
+    @Test
+    void testUncompressedShardsEndOnLineBoundaries() {
+        byte[] data = "aaaa\nbbbb\ncccccccccccc\ndd".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        java.util.List<int[]> shards = EnhancedDisruptorBatchingQueue.splitOnLines(data, 10);
+
+        java.util.List<String> texts = new java.util.ArrayList<>();
+        for (int[] shard : shards) {
+            texts.add(new String(data, shard[0], shard[1], java.nio.charset.StandardCharsets.UTF_8));
+        }
+        assertEquals(java.util.Arrays.asList("aaaa\nbbbb\n", "cccccccccc", "cc\ndd"), texts,
+                "Records longer than the shard size are the only ones cut mid-line");
+    }
+
+    @Test
+    void testMembersAreGroupedUpToShardSize() {
+        java.util.List<int[]> shards = EnhancedDisruptorBatchingQueue.groupMembers(new int[] {4, 8, 12, 30, 34}, 10);
+
+        assertEquals(4, shards.size());
+        assertArrayEquals(new int[] {0, 8}, shards.get(0));
+        assertArrayEquals(new int[] {8, 4}, shards.get(1));
+        assertArrayEquals(new int[] {12, 18}, shards.get(2), "Oversized member gets its own shard");
+        assertArrayEquals(new int[] {30, 4}, shards.get(3));
+    }
+
+    @Test
+    void testShardedUploadDoesNotBlockConsumer() throws Exception {
+        GatedStorageService storage = new GatedStorageService();
+        ShardCallbackConsumer consumer = new ShardCallbackConsumer();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        EnhancedDisruptorBatchingQueue shardingQueue = new EnhancedDisruptorBatchingQueue(shardingConfig(executor),
+                consumer, storage);
+        shardingQueue.start();
+        try {
+            submitOversizedBatch(shardingQueue, 'a');
+            assertTrue(storage.awaitStarted(2, 5000), "Both shards should be handed to the uploader");
+            assertTrue(shardingQueue.getShardBytesInFlight() > 0);
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(shardingQueue.submit(("small " + i).getBytes()));
+            }
+            assertTrue(consumer.awaitRegularBatches(1, 5000),
+                    "Consumer should keep building batches while shards are uploading");
+            assertEquals(0, consumer.completed.size());
+
+            storage.release();
+            assertTrue(consumer.awaitCompleted(1, 5000));
+            assertEquals("2/0", consumer.completed.get(0));
+            assertEquals(0, shardingQueue.getShardBytesInFlight());
+        } finally {
+            storage.release();
+            shardingQueue.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShardUploadBudgetHoldsBackNextOversizedBatch() throws Exception {
+        GatedStorageService storage = new GatedStorageService();
+        ShardCallbackConsumer consumer = new ShardCallbackConsumer();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        EnhancedDisruptorBatchingQueue shardingQueue = new EnhancedDisruptorBatchingQueue(
+                shardingConfig(executor).shardUploadMemoryBytes(1), consumer, storage);
+        shardingQueue.start();
+        try {
+            submitOversizedBatch(shardingQueue, 'a');
+            submitOversizedBatch(shardingQueue, 'b');
+            assertTrue(storage.awaitStarted(2, 5000));
+            Thread.sleep(200);
+            assertEquals(2, storage.started.get(), "Second batch should wait for the memory budget");
+
+            storage.release();
+            assertTrue(consumer.awaitCompleted(2, 5000));
+            assertEquals(4, storage.started.get());
+        } finally {
+            storage.release();
+            shardingQueue.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedShardsAreReportedToConsumer() throws Exception {
+        GatedStorageService storage = new GatedStorageService();
+        storage.fail = true;
+        storage.release();
+        ShardCallbackConsumer consumer = new ShardCallbackConsumer();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        EnhancedDisruptorBatchingQueue shardingQueue = new EnhancedDisruptorBatchingQueue(shardingConfig(executor),
+                consumer, storage);
+        shardingQueue.start();
+        try {
+            submitOversizedBatch(shardingQueue, 'a');
+            assertTrue(consumer.awaitCompleted(1, 5000));
+            assertEquals("2/2", consumer.completed.get(0));
+            assertEquals(2, consumer.failedBytes.size());
+            assertEquals(2 * (800 * 1024 + 1), consumer.failedBytes.stream().mapToInt(bytes -> bytes.length).sum());
+        } finally {
+            shardingQueue.close();
+            executor.shutdownNow();
+        }
+    }
+
+    private static EnhancedDisruptorBatchingQueue.Config shardingConfig(java.util.concurrent.ExecutorService executor) {
+        return new EnhancedDisruptorBatchingQueue.Config()
+                .queueCapacity(1024)
+                .batchMaxMessages(10)
+                .batchMaxBytes(1500 * 1024)
+                .maxMessageAgeMs(30000)
+                .enableCompression(false)
+                .enableSharding(true)
+                .maxUploadSizeMb(1)
+                .shardExecutor(executor)
+                .uploadTimeoutMs(10000L);
+    }
+
+    /**
+     * 两条800KB的记录超过1MB分片阈值，按行切为两个分片
+     */
+    private static void submitOversizedBatch(EnhancedDisruptorBatchingQueue queue, char fill) {
+        for (int i = 0; i < 2; i++) {
+            byte[] line = new byte[800 * 1024];
+            java.util.Arrays.fill(line, (byte) fill);
+            assertTrue(queue.submit(line));
+        }
+    }
+
+    static class GatedStorageService extends TestStorageService {
+        final java.util.concurrent.atomic.AtomicInteger started = new java.util.concurrent.atomic.AtomicInteger();
+        private final CountDownLatch gate = new CountDownLatch(1);
+        volatile boolean fail;
+
+        @Override
+        public java.util.concurrent.CompletableFuture<Void> putObject(String key, java.nio.ByteBuffer buffer) {
+            started.incrementAndGet();
+            return java.util.concurrent.CompletableFuture.runAsync(() -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (fail) {
+                    throw new IllegalStateException("storage unavailable");
+                }
+            }, runnable -> new Thread(runnable).start());
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        boolean awaitStarted(int count, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (started.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return started.get() >= count;
+        }
+    }
+
+    static class ShardCallbackConsumer implements EnhancedDisruptorBatchingQueue.BatchConsumer {
+        final java.util.List<String> completed = new java.util.concurrent.CopyOnWriteArrayList<>();
+        final java.util.List<byte[]> failedBytes = new java.util.concurrent.CopyOnWriteArrayList<>();
+        private final java.util.concurrent.atomic.AtomicInteger regularBatches = new java.util.concurrent.atomic.AtomicInteger();
+
+        @Override
+        public boolean processBatch(byte[] batchData, int originalSize, boolean compressed, int messageCount) {
+            regularBatches.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void onShardFailed(java.nio.ByteBuffer shard, Throwable cause) {
+            byte[] bytes = new byte[shard.remaining()];
+            shard.duplicate().get(bytes);
+            failedBytes.add(bytes);
+        }
+
+        @Override
+        public void onShardedBatchComplete(int originalSize, int messageCount, int shardCount, int failedShards) {
+            completed.add(shardCount + "/" + failedShards);
+        }
+
+        boolean awaitRegularBatches(int count, long timeoutMs) throws InterruptedException {
+            return await(() -> regularBatches.get() >= count, timeoutMs);
+        }
+
+        boolean awaitCompleted(int count, long timeoutMs) throws InterruptedException {
+            return await(() -> completed.size() >= count, timeoutMs);
+        }
+
+        private static boolean await(java.util.function.BooleanSupplier condition, long timeoutMs)
+                throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return condition.getAsBoolean();
+        }
+    }
+
+    private static byte[] gunzip(byte[] data) throws java.io.IOException {
+        try (java.util.zip.GZIPInputStream in = new java.util.zip.GZIPInputStream(
+                new java.io.ByteArrayInputStream(data))) {
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    static class ShardRecordingStorageService extends TestStorageService {
+        final java.util.List<byte[]> shards = new java.util.concurrent.CopyOnWriteArrayList<>();
+        private volatile long lastUploadMs;
+
+        @Override
+        public java.util.concurrent.CompletableFuture<Void> putObject(String key, java.nio.ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            shards.add(bytes);
+            lastUploadMs = System.currentTimeMillis();
+            return java.util.concurrent.CompletableFuture.completedFuture(null);
+        }
+
+        boolean awaitQuiet(long quietMs, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (System.currentTimeMillis() < deadline) {
+                if (!shards.isEmpty() && System.currentTimeMillis() - lastUploadMs >= quietMs) {
+                    return true;
+                }
+                Thread.sleep(20);
+            }
+            return false;
+        }
+    }
+
     @Test
     void testQueueClose() {
         queue.start();
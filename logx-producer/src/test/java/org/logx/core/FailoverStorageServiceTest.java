@@ -0,0 +1,78 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.fallback.FailoverJournal;
+import org.logx.storage.memory.InMemoryStorageService;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FailoverStorageServiceTest {
+
+    @TempDir
+    Path fallbackDir;
+
+    private final InMemoryStorageService primary = new InMemoryStorageService();
+    private final InMemoryStorageService secondary = new InMemoryStorageService();
+    private final InMemoryStorageService tertiary = new InMemoryStorageService();
+
+    @Test
+    @DisplayName("主存储可用时只写主存储，不记录")
+    void shouldUsePrimaryWhenAvailable() throws Exception {
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        FailoverStorageService failover = failover(journal);
+
+        failover.putObject("logx/a.log.gz", new byte[] {1, 2}).get();
+
+        assertArrayEquals(new byte[] {1, 2}, primary.getObject("logx/a.log.gz"));
+        assertEquals(0, secondary.getObjectCount());
+        assertEquals(0, journal.size());
+        assertEquals(0, failover.getFailoverSucceeded());
+    }
+
+    @Test
+    @DisplayName("主存储失败时按顺序写入下一个可用目标，使用相同对象键并记录目标")
+    void shouldFailOverInOrderAndJournal() throws Exception {
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        FailoverStorageService failover = failover(journal);
+        primary.failNext(1);
+        secondary.failNext(1);
+
+        failover.putObject("logx/a.log.gz", ByteBuffer.wrap(new byte[] {1, 2})).get();
+
+        assertNull(primary.getObject("logx/a.log.gz"));
+        assertNull(secondary.getObject("logx/a.log.gz"));
+        assertArrayEquals(new byte[] {1, 2}, tertiary.getObject("logx/a.log.gz"));
+        List<FailoverJournal.Entry> pending = journal.pending(10);
+        assertEquals(Arrays.asList(new FailoverJournal.Entry("dr-2", "logx/a.log.gz")), pending);
+        assertEquals(1, failover.getFailoverSucceeded());
+    }
+
+    @Test
+    @DisplayName("所有目标都失败时返回最后一个错误，由引擎写入本地兜底")
+    void shouldFailWhenAllTargetsFail() {
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        FailoverStorageService failover = failover(journal);
+        primary.failNext(1);
+        secondary.failNext(1);
+        tertiary.failNext(1);
+
+        assertThrows(ExecutionException.class, () -> failover.putObject("logx/a.log.gz", new byte[] {1}).get());
+        assertEquals(0, journal.size());
+    }
+
+    private FailoverStorageService failover(FailoverJournal journal) {
+        return new FailoverStorageService(Arrays.asList(primary, secondary, tertiary),
+                Arrays.asList("primary", "dr-1", "dr-2"), journal);
+    }
+}
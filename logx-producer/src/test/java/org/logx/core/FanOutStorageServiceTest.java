@@ -0,0 +1,173 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.fallback.FallbackManager;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+import org.logx.storage.memory.InMemoryStorageService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutStorageServiceTest {
+
+    @TempDir
+    Path fallbackDir;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final InMemoryStorageService primary = new InMemoryStorageService();
+    private final InMemoryStorageService compliance = new InMemoryStorageService();
+    private FanOutStorageService.Destination destination;
+
+    @AfterEach
+    void tearDown() {
+        compliance.releaseUploads();
+        if (destination != null) {
+            FanOutStorageService fanOut = new FanOutStorageService(primary, Collections.singletonList(destination));
+            fanOut.shutdown(1000);
+        }
+        InMemoryStorageService.clearRegistry();
+    }
+
+    @Test
+    @DisplayName("同一批次上传到主存储和扇出目标，目标对象键使用自己的前缀")
+    void shouldUploadToEveryTargetWithOwnPrefix() throws Exception {
+        FanOutStorageService fanOut = fanOut(compliance, 60000);
+
+        fanOut.putObject("logx/2026/10/19/a.log.gz", new byte[] {1, 2}).get();
+        fanOut.putObject("logx/2026/10/19/b.log.gz", ByteBuffer.wrap(new byte[] {3})).get();
+
+        assertArrayEquals(new byte[] {1, 2}, primary.getObject("logx/2026/10/19/a.log.gz"));
+        awaitTrue(() -> destination.getUploaded() == 2);
+        assertArrayEquals(new byte[] {1, 2}, compliance.getObject("audit/2026/10/19/a.log.gz"));
+        assertArrayEquals(new byte[] {3}, compliance.getObject("audit/2026/10/19/b.log.gz"));
+    }
+
+    @Test
+    @DisplayName("扇出目标上传失败时写入该目标自己的兜底目录，不影响主存储的结果")
+    void shouldWriteFailedUploadToTargetFallback() throws Exception {
+        FanOutStorageService fanOut = fanOut(compliance, 60000);
+        compliance.failNext(1);
+
+        fanOut.putObject("logx/a.log.gz", new byte[] {1}).get();
+
+        assertEquals(1, primary.getObjectCount());
+        awaitTrue(() -> destination.getFailed() == 1);
+        assertEquals(1, countFallbackFiles());
+    }
+
+    @Test
+    @DisplayName("扇出目标落后超过预算时新批次直接写入该目标的兜底目录，不再排队")
+    void shouldSpillWhenLagExceedsBudget() throws Exception {
+        compliance.blockUploads();
+        FanOutStorageService fanOut = fanOut(compliance, 1000);
+
+        fanOut.putObject("logx/a.log.gz", new byte[] {1}).get();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        fanOut.putObject("logx/b.log.gz", new byte[] {2}).get();
+        assertEquals(0, destination.getSpilled());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        fanOut.putObject("logx/c.log.gz", new byte[] {3}).get();
+
+        assertEquals(3, primary.getObjectCount());
+        assertEquals(1, destination.getSpilled());
+        assertEquals(1100, TimeUnit.NANOSECONDS.toMillis(destination.getLagNanos()));
+        assertEquals(1, countFallbackFiles());
+
+        compliance.releaseUploads();
+        awaitTrue(() -> destination.getUploaded() == 2);
+        assertEquals(0, destination.getLagNanos());
+    }
+
+    @Test
+    @DisplayName("对象键中的主存储前缀替换为目标前缀，找不到前缀时加在键前")
+    void shouldRewriteKeyPrefix() {
+        assertEquals("audit/2026/a.log.gz", FanOutStorageService.rewriteKey("logx/2026/a.log.gz", "logx", "audit"));
+        assertEquals("3f/audit/dt=2026/a.log.gz",
+                FanOutStorageService.rewriteKey("3f/logx/dt=2026/a.log.gz", "logx", "audit"));
+        assertEquals("audit/other/a.log.gz", FanOutStorageService.rewriteKey("other/a.log.gz", "logx", "audit"));
+        assertEquals("logx/a.log.gz", FanOutStorageService.rewriteKey("logx/a.log.gz", "logx", "logx"));
+    }
+
+    @Test
+    @DisplayName("扇出目标通过共享上传调度器的租户上传，关闭扇出时租户随之终止")
+    void shouldUploadThroughSharedSchedulerTenant() throws Exception {
+        SharedUploadScheduler scheduler = new SharedUploadScheduler(1, "test-uploader");
+        try {
+            FanOutStorageService fanOut = fanOut(compliance, 60000, null);
+            SharedUploadScheduler.Tenant tenant = scheduler.register("engine/fanout-compliance", 1, 2);
+            destination.start(tenant);
+
+            fanOut.putObject("logx/a.log.gz", new byte[] {1}).get();
+            awaitTrue(() -> destination.getUploaded() == 1);
+            assertEquals(1, tenant.getCompletedTasks());
+
+            fanOut.shutdown(1000);
+            destination = null;
+            assertTrue(tenant.isTerminated());
+            assertEquals(0, scheduler.getTenantCount());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("启动前提交的批次直接写入扇出目标的兜底目录")
+    void shouldSpillBeforeStart() throws Exception {
+        FanOutStorageService fanOut = fanOut(compliance, 60000, null);
+
+        fanOut.putObject("logx/a.log.gz", new byte[] {1}).get();
+
+        assertEquals(1, primary.getObjectCount());
+        assertEquals(1, destination.getSpilled());
+        assertEquals(1, countFallbackFiles());
+    }
+
+    private FanOutStorageService fanOut(StorageService target, long lagBudgetMs) {
+        return fanOut(target, lagBudgetMs, Executors.newFixedThreadPool(2));
+    }
+
+    private FanOutStorageService fanOut(StorageService target, long lagBudgetMs, ExecutorService executor) {
+        compliance.initialize(StorageConfig.builder().bucket("compliance").keyPrefix("audit").build());
+        FallbackManager fallback = new FallbackManager(fallbackDir.toString(), target.getKeyPrefix());
+        destination = new FanOutStorageService.Destination("compliance", target, "logx", fallback,
+                lagBudgetMs, 5000, clock::get);
+        if (executor != null) {
+            destination.start(executor);
+        }
+        return new FanOutStorageService(primary, Collections.singletonList(destination));
+    }
+
+    private long countFallbackFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(fallbackDir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(".log.gz"))
+                    .count();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,180 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.logx.exception.StorageException;
+import org.logx.storage.memory.InMemoryStorageService;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingStorageServiceTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+
+    @AfterEach
+    void tearDown() {
+        storage.releaseUploads();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("样本不足时不对冲，慢请求按原样等待完成")
+    void shouldNotHedgeWithoutEnoughSamples() throws Exception {
+        HedgingStorageService hedging = hedging(true, 2, 0);
+        storage.delayNext(300);
+
+        hedging.putObject("key", new byte[] {1}).get();
+
+        assertEquals(1, storage.getUploadAttempts());
+        assertEquals(0, hedging.getHedgedAttempts());
+    }
+
+    @Test
+    @DisplayName("慢请求超过对冲延迟后应以相同对象键发起对冲，取最先成功的结果并取消原请求")
+    void shouldHedgeSlowUploadWithSameKey() throws Exception {
+        HedgingStorageService hedging = hedging(true, 2, 0);
+        warmUp(hedging);
+        storage.delayNext(5000, 0);
+
+        long start = System.nanoTime();
+        hedging.putObject("logx/slow.log.gz", new byte[] {1}).get();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 2000, "hedged upload took " + elapsedMs + "ms");
+        assertEquals(1, hedging.getHedgedAttempts());
+        assertEquals(1, hedging.getHedgeWins());
+        assertEquals(2, storage.getAttemptedKeys().stream().filter("logx/slow.log.gz"::equals).count());
+        assertTrue(storage.awaitInterruptedUploads(1, 2, TimeUnit.SECONDS), "slow attempt should be cancelled");
+    }
+
+    @Test
+    @DisplayName("ByteBuffer上传的每次尝试应读取完整内容，不改变调用方的缓冲区")
+    void shouldGiveEachAttemptItsOwnBufferView() throws Exception {
+        HedgingStorageService hedging = hedging(true, 2, 0);
+        warmUp(hedging);
+        storage.delayNext(5000, 0);
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 2, 3});
+
+        hedging.putObject("key", buffer).get();
+
+        assertEquals(3, buffer.remaining());
+        assertEquals(3, storage.getObject("key").length);
+    }
+
+    @Test
+    @DisplayName("单次尝试超过截止时间应被取消并换一次")
+    void shouldReplaceAttemptAtDeadline() throws Exception {
+        HedgingStorageService hedging = hedging(false, 2, 2);
+        warmUp(hedging);
+        storage.delayNext(5000, 0);
+
+        long start = System.nanoTime();
+        hedging.putObject("key", new byte[] {1}).get();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, hedging.getAttemptTimeouts());
+        assertEquals(1, hedging.getReplacedAttempts());
+        assertEquals(0, hedging.getHedgedAttempts());
+    }
+
+    @Test
+    @DisplayName("所有尝试都超过截止时间时应提前失败，不等待总超时")
+    void shouldFailWhenAllAttemptsTimeOut() throws Exception {
+        HedgingStorageService hedging = hedging(false, 1, 2);
+        warmUp(hedging);
+        storage.delayNext(5000);
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = hedging.putObject("key", new byte[] {1});
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    @DisplayName("可重试的失败应立即换一次，不可重试的失败直接返回")
+    void shouldReplaceOnlyRetryableFailures() throws Exception {
+        HedgingStorageService hedging = hedging(false, 2, 2);
+        storage.failNext(StorageException.serverError("slow down", "SlowDown", null));
+        hedging.putObject("retryable", new byte[] {1}).get();
+        assertEquals(1, hedging.getReplacedAttempts());
+
+        storage.failNext(StorageException.clientError("bad request", "InvalidArgument"));
+        CompletableFuture<Void> future = hedging.putObject("fatal", new byte[] {1});
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(StorageException.class, error.getCause());
+        assertEquals(1, hedging.getReplacedAttempts());
+    }
+
+    @Test
+    @DisplayName("在途尝试达到上限时不再对冲，慢请求按原样等待完成")
+    void shouldNotHedgeBeyondAttemptCap() throws Exception {
+        HedgingStorageService hedging = hedging(true, 2, 0, 1);
+        warmUp(hedging);
+        storage.delayNext(400);
+
+        hedging.putObject("key", new byte[] {1}).get();
+
+        assertEquals(1, storage.getUploadAttempts());
+        assertEquals(0, hedging.getHedgedAttempts());
+        assertEquals(0, hedging.getAttemptsInFlight());
+    }
+
+    @Test
+    @DisplayName("被放弃但线程未退出的尝试仍占用在途名额，名额用尽时以可重试的错误失败")
+    void shouldCountAbandonedAttemptsTowardCap() throws Exception {
+        HedgingStorageService hedging = hedging(false, 1, 2, 1);
+        warmUp(hedging);
+        storage.blockUploads();
+
+        ExecutionException timeout = assertThrows(ExecutionException.class,
+                () -> hedging.putObject("stuck", new byte[] {1}).get());
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+        assertEquals(1, hedging.getAttemptsInFlight());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> hedging.putObject("next", new byte[] {1}).get());
+        assertInstanceOf(StorageException.class, rejected.getCause());
+        assertTrue(((StorageException) rejected.getCause()).isRetryable());
+        assertEquals(1, storage.getUploadAttempts());
+
+        storage.releaseUploads();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedging.getAttemptsInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        hedging.putObject("next", new byte[] {1}).get();
+        assertEquals(0, hedging.getAttemptsInFlight());
+    }
+
+    private HedgingStorageService hedging(boolean hedge, int maxAttempts, int deadlineMultiplier) {
+        return hedging(hedge, maxAttempts, deadlineMultiplier, 16);
+    }
+
+    private HedgingStorageService hedging(boolean hedge, int maxAttempts, int deadlineMultiplier,
+                                          int maxAttemptsInFlight) {
+        return new HedgingStorageService(storage, executor, 10000, hedge, 95, 50, maxAttempts,
+                deadlineMultiplier, 100, maxAttemptsInFlight);
+    }
+
+    private void warmUp(HedgingStorageService hedging) throws Exception {
+        for (int i = 0; i < HedgingStorageService.MIN_SAMPLES; i++) {
+            hedging.putObject("warmup-" + i, new byte[] {1}).get();
+        }
+        storage.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogPayloadSanitizerTest {
+
+    @Test
+    @DisplayName("无需清洗的字节应原样返回且不复制")
+    void shouldReturnCleanBytesWithoutCopy() {
+        byte[] input = "2024-01-01 INFO 订单创建\tok\n".getBytes(StandardCharsets.UTF_8);
+
+        LogPayloadSanitizer.SanitizedPayload result = LogPayloadSanitizer.sanitize(input, 1024);
+
+        assertSame(input, result.bytes);
+        assertFalse(result.sanitized);
+        assertFalse(result.truncated);
+    }
+
+    @Test
+    @DisplayName("字节清洗应与字符串清洗结果一致")
+    void shouldMatchStringSanitizer() {
+        String line = "a\u0000b\rc\u0085d\u007Fe\t中\n";
+
+        LogPayloadSanitizer.SanitizedPayload fromBytes =
+                LogPayloadSanitizer.sanitize(line.getBytes(StandardCharsets.UTF_8), 1024);
+        LogPayloadSanitizer.SanitizedPayload fromString = LogPayloadSanitizer.sanitize(line, 1024);
+
+        assertTrue(fromBytes.sanitized);
+        assertArrayEquals(fromString.bytes, fromBytes.bytes);
+        assertEquals("abcde\t中\n", new String(fromBytes.bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("截断不应拆分多字节字符")
+    void shouldTruncateOnCharacterBoundary() {
+        byte[] input = "中文日志".getBytes(StandardCharsets.UTF_8);
+
+        LogPayloadSanitizer.SanitizedPayload result = LogPayloadSanitizer.sanitize(input, 7);
+
+        assertTrue(result.truncated);
+        assertEquals("中文", new String(result.bytes, StandardCharsets.UTF_8));
+        assertEquals(12, result.originalBytes);
+    }
+
+    @Test
+    @DisplayName("从可复用缓冲区清洗时应返回独立副本")
+    void shouldCopyFromReusableBuffer() {
+        byte[] buffer = "xxhello\nyy".getBytes(StandardCharsets.UTF_8);
+
+        LogPayloadSanitizer.SanitizedPayload result = LogPayloadSanitizer.sanitize(buffer, 2, 6, 1024);
+
+        assertNotSame(buffer, result.bytes);
+        assertEquals("hello\n", new String(result.bytes, StandardCharsets.UTF_8));
+    }
+}
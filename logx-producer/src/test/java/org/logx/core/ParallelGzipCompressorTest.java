@@ -0,0 +1,163 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelGzipCompressorTest {
+
+    private ParallelGzipCompressor compressor;
+
+    @AfterEach
+    void tearDown() {
+        if (compressor != null) {
+            compressor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("大批次应并行压缩为多成员GZIP，标准GZIPInputStream可还原全部内容")
+    void shouldProduceReadableMultiMemberGzip() throws Exception {
+        compressor = new ParallelGzipCompressor(4, ParallelGzipCompressor.MIN_BLOCK_SIZE, false);
+        byte[] data = lines(20000);
+
+        byte[] compressed = compressor.compress(data);
+
+        assertArrayEquals(data, gunzip(compressed));
+        assertTrue(countMembers(compressed) > 1);
+    }
+
+    @Test
+    @DisplayName("块索引应记录每个成员的原始偏移、长度和成员字节数，单独解压任一成员得到完整的行")
+    void shouldWriteBlockIndex() throws Exception {
+        compressor = new ParallelGzipCompressor(4, ParallelGzipCompressor.MIN_BLOCK_SIZE, true);
+        byte[] data = lines(20000);
+
+        byte[] compressed = compressor.compress(data);
+
+        assertArrayEquals(data, gunzip(compressed));
+        int position = 0;
+        long expectedOffset = 0;
+        while (position < compressed.length) {
+            assertEquals(0x04, compressed[position + 3] & 0x04, "FEXTRA flag");
+            assertEquals(ParallelGzipCompressor.INDEX_SI1, compressed[position + 12]);
+            assertEquals(ParallelGzipCompressor.INDEX_SI2, compressed[position + 13]);
+            long offset = readLong(compressed, position + 16);
+            int length = readInt(compressed, position + 24);
+            int memberLength = readInt(compressed, position + 28);
+
+            byte[] member = new byte[memberLength];
+            System.arraycopy(compressed, position, member, 0, memberLength);
+            byte[] block = gunzip(member);
+            assertEquals(expectedOffset, offset);
+            assertEquals(length, block.length);
+            assertEquals('\n', block[block.length - 1]);
+            assertArrayEquals(slice(data, (int) offset, length), block);
+
+            expectedOffset += length;
+            position += memberLength;
+        }
+        assertEquals(data.length, expectedOffset);
+    }
+
+    @Test
+    @DisplayName("不超过一个块的数据只产生一个成员")
+    void shouldUseSingleMemberForSmallData() throws Exception {
+        compressor = new ParallelGzipCompressor(4, ParallelGzipCompressor.DEFAULT_BLOCK_SIZE, false);
+        byte[] data = lines(100);
+
+        byte[] compressed = compressor.compress(data);
+
+        assertEquals(1, countMembers(compressed));
+        assertArrayEquals(data, gunzip(compressed));
+        assertArrayEquals(new byte[0], gunzip(compressor.compress(new byte[0])));
+    }
+
+    @Test
+    @DisplayName("切块应在行边界结束，超长行延伸到下一个换行，末尾不完整的行单独成块")
+    void shouldSplitOnLineBoundaries() {
+        byte[] data = "aaaa\nbbbbbbbbbbbb\ncc\ndd".getBytes(StandardCharsets.UTF_8);
+
+        List<int[]> blocks = ParallelGzipCompressor.split(data, 0, data.length, 8);
+
+        assertEquals(3, blocks.size());
+        assertEquals("aaaa\n", text(data, blocks.get(0)));
+        assertEquals("bbbbbbbbbbbb\n", text(data, blocks.get(1)));
+        assertEquals("cc\ndd", text(data, blocks.get(2)));
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("2024-01-01 12:00:00.000 INFO [worker-").append(i % 7).append("] request ").append(i)
+                    .append(" handled in ").append(i * 31 % 997).append("ms\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 逐个成员解析：跳过10字节头部后用原始Inflater解压，剩余字节减去8字节尾部即为下一个成员的起点
+     */
+    private static int countMembers(byte[] compressed) throws DataFormatException {
+        int members = 0;
+        int position = 0;
+        byte[] sink = new byte[64 * 1024];
+        while (position < compressed.length) {
+            assertEquals(0, compressed[position + 3], "test members carry no optional header fields");
+            Inflater inflater = new Inflater(true);
+            inflater.setInput(compressed, position + 10, compressed.length - position - 10);
+            while (!inflater.finished()) {
+                inflater.inflate(sink);
+            }
+            position = compressed.length - inflater.getRemaining() + 8;
+            inflater.end();
+            members++;
+        }
+        return members;
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] slice(byte[] data, int offset, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        return copy;
+    }
+
+    private static String text(byte[] data, int[] block) {
+        return new String(data, block[0], block[1], StandardCharsets.UTF_8);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16
+                | (data[offset + 3] & 0xff) << 24;
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return (readInt(data, offset) & 0xffffffffL) | (long) readInt(data, offset + 4) << 32;
+    }
+}
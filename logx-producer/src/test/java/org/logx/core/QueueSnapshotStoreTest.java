@@ -0,0 +1,101 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueSnapshotStoreTest {
+
+    @Test
+    @DisplayName("快照写入后应能完整恢复并删除")
+    void shouldRoundTripSnapshot() throws IOException {
+        Path dir = Files.createTempDirectory("queue-snapshot");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+
+        Path snapshot = store.write(Arrays.asList(
+                new EnhancedDisruptorBatchingQueue.LogEvent("first".getBytes(StandardCharsets.UTF_8), 1L),
+                new EnhancedDisruptorBatchingQueue.LogEvent(new byte[0], 2L),
+                new EnhancedDisruptorBatchingQueue.LogEvent("third\n".getBytes(StandardCharsets.UTF_8), 3L, "ERROR")));
+        assertNotNull(snapshot);
+
+        List<EnhancedDisruptorBatchingQueue.LogEvent> recovered = new ArrayList<>();
+        int count = store.recover(events -> recovered.addAll(events));
+
+        assertEquals(3, count);
+        assertArrayEquals("first".getBytes(StandardCharsets.UTF_8), recovered.get(0).payload);
+        assertEquals(0, recovered.get(1).payload.length);
+        assertEquals(3L, recovered.get(2).timestampMs);
+        assertNull(recovered.get(0).routeKey);
+        assertEquals("ERROR", recovered.get(2).routeKey);
+        assertFalse(Files.exists(snapshot));
+        assertEquals(0, store.recover(events -> true));
+    }
+
+    @Test
+    @DisplayName("处理失败时快照应保留到下次恢复")
+    void shouldKeepSnapshotWhenHandlerRejects() throws IOException {
+        Path dir = Files.createTempDirectory("queue-snapshot-reject");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+        Path snapshot = store.write(Arrays.asList(
+                new EnhancedDisruptorBatchingQueue.LogEvent("a".getBytes(StandardCharsets.UTF_8), 1L)));
+
+        assertEquals(0, store.recover(events -> false));
+        assertTrue(Files.exists(snapshot));
+        assertEquals(1, store.recover(events -> true));
+    }
+
+    @Test
+    @DisplayName("损坏的快照不应被注入且应保留现场")
+    void shouldQuarantineCorruptSnapshot() throws IOException {
+        Path dir = Files.createTempDirectory("queue-snapshot-corrupt");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+        Path snapshot = store.write(Arrays.asList(
+                new EnhancedDisruptorBatchingQueue.LogEvent("payload".getBytes(StandardCharsets.UTF_8), 1L)));
+
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 12] ^= 0x01;
+        Files.write(snapshot, bytes);
+
+        assertEquals(0, store.recover(events -> {
+            throw new AssertionError("corrupt snapshot must not be delivered");
+        }));
+        assertTrue(Files.exists(snapshot.resolveSibling(snapshot.getFileName() + ".corrupt")));
+    }
+
+    @Test
+    @DisplayName("认领后中途崩溃留下的快照超时后应重新恢复，未超时的认领不应被抢占")
+    void shouldRecoverStaleClaimedSnapshot() throws IOException {
+        Path dir = Files.createTempDirectory("queue-snapshot-claimed");
+        QueueSnapshotStore store = new QueueSnapshotStore(dir.toString());
+        Path snapshot = store.write(Arrays.asList(
+                new EnhancedDisruptorBatchingQueue.LogEvent("orphan".getBytes(StandardCharsets.UTF_8), 1L)));
+        Path claimed = snapshot.resolveSibling(snapshot.getFileName() + ".claimed");
+        Files.move(snapshot, claimed);
+
+        assertEquals(0, store.recover(events -> true));
+        assertTrue(Files.exists(claimed));
+
+        Files.setLastModifiedTime(claimed,
+                FileTime.fromMillis(System.currentTimeMillis() - QueueSnapshotStore.STALE_CLAIM_MS - 1000L));
+        List<EnhancedDisruptorBatchingQueue.LogEvent> recovered = new ArrayList<>();
+        assertEquals(1, store.recover(recovered::addAll));
+        assertArrayEquals("orphan".getBytes(StandardCharsets.UTF_8), recovered.get(0).payload);
+        assertFalse(Files.exists(claimed));
+        assertFalse(Files.exists(snapshot));
+    }
+}
@@ -0,0 +1,170 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedUploadSchedulerTest {
+
+    private SharedUploadScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("积压时应按权重比例分配上传机会")
+    void shouldShareThroughputByWeight() throws Exception {
+        scheduler = new SharedUploadScheduler(1, "test-uploader");
+        SharedUploadScheduler.Tenant heavy = scheduler.register("heavy", 3, 1);
+        SharedUploadScheduler.Tenant light = scheduler.register("light", 1, 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(800);
+
+        // 先占住唯一的工作线程，保证两个租户的队列都积压后再开始调度
+        light.execute(() -> awaitQuietly(gate));
+        for (int i = 0; i < 400; i++) {
+            heavy.execute(() -> {
+                order.add("heavy");
+                done.countDown();
+            });
+            light.execute(() -> {
+                order.add("light");
+                done.countDown();
+            });
+        }
+        gate.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        long heavyInFirst200 = order.subList(0, 200).stream().filter("heavy"::equals).count();
+        assertTrue(heavyInFirst200 >= 140 && heavyInFirst200 <= 160, "heavy=" + heavyInFirst200);
+    }
+
+    @Test
+    @DisplayName("租户的并发上传不应超过在途上限")
+    void shouldCapInFlightPerTenant() throws Exception {
+        scheduler = new SharedUploadScheduler(4, "test-uploader");
+        SharedUploadScheduler.Tenant tenant = scheduler.register("capped", 1, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            tenant.execute(() -> {
+                int now = running.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                sleepQuietly(5);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        tenant.shutdown();
+        assertTrue(tenant.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get());
+        assertEquals(20, tenant.getCompletedTasks());
+    }
+
+    @Test
+    @DisplayName("租户的在途上限应随外部上限变化，达到上限时工作线程转给其他租户")
+    void shouldFollowDynamicInFlightLimit() throws Exception {
+        scheduler = new SharedUploadScheduler(4, "test-uploader");
+        AtomicInteger limit = new AtomicInteger(1);
+        SharedUploadScheduler.Tenant limited = scheduler.register("limited", 1, 8, limit::get);
+        SharedUploadScheduler.Tenant other = scheduler.register("other", 1, 8);
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            limited.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                awaitQuietly(gate);
+                running.decrementAndGet();
+            });
+        }
+        CountDownLatch otherDone = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            other.execute(otherDone::countDown);
+        }
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limited.getInFlight());
+        assertEquals(3, limited.getQueuedTasks());
+
+        limit.set(3);
+        other.execute(() -> { });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limited.getInFlight() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, limited.getInFlight());
+
+        gate.countDown();
+        limited.shutdown();
+        assertTrue(limited.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, peak.get());
+    }
+
+    @Test
+    @DisplayName("关闭租户应取回未执行任务且不影响其他租户")
+    void shouldShutdownTenantIndependently() throws Exception {
+        scheduler = new SharedUploadScheduler(1, "test-uploader");
+        SharedUploadScheduler.Tenant closing = scheduler.register("closing", 1, 1);
+        SharedUploadScheduler.Tenant other = scheduler.register("other", 1, 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        closing.execute(() -> {
+            running.countDown();
+            awaitQuietly(gate);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        closing.execute(() -> { });
+        closing.execute(() -> { });
+
+        List<Runnable> pending = closing.shutdownNow();
+        assertEquals(2, pending.size());
+        assertThrows(RejectedExecutionException.class, () -> closing.execute(() -> { }));
+        assertTrue(closing.awaitTermination(5, TimeUnit.SECONDS));
+
+        CountDownLatch otherDone = new CountDownLatch(1);
+        other.execute(otherDone::countDown);
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        assertFalse(other.isShutdown());
+        assertEquals(1, scheduler.getTenantCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.logx.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.exception.StorageException;
+import org.logx.fallback.FallbackUploaderTask;
+import org.logx.storage.memory.InMemoryStorageService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageCircuitBreakerTest {
+
+    private static final long OPEN_MS = 1000;
+    private static final long SLOW_MS = 500;
+
+    private final FakeClock clock = new FakeClock();
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    // 每次上传推进假时钟的毫秒数，模拟慢调用
+    private volatile long delayMs;
+    private volatile boolean throwSynchronously;
+
+    @BeforeEach
+    void setUp() {
+        storage.setUploadHook(key -> {
+            if (throwSynchronously) {
+                throw new IllegalStateException("client closed");
+            }
+            clock.advance(delayMs);
+        });
+    }
+
+    @Test
+    @DisplayName("样本数达到窗口一半且失败率达到阈值时应打开，打开后不调用存储直接快速失败")
+    void shouldOpenOnFailureRateAndRejectFast() throws Exception {
+        StorageCircuitBreaker breaker = breaker(10, 50, 100, 2);
+        List<StorageCircuitBreaker.State> transitions = new ArrayList<>();
+        breaker.setListener((from, to) -> transitions.add(to));
+
+        for (int i = 0; i < 4; i++) {
+            failNextUpload();
+            assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+        }
+        assertEquals(StorageCircuitBreaker.State.CLOSED, breaker.getState(), "below minimum calls");
+
+        failNextUpload();
+        assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isClosed());
+
+        long callsBefore = storage.getUploadAttempts();
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> breaker.putObject("key", new byte[] {1}).get());
+        assertInstanceOf(StorageCircuitBreaker.CircuitOpenException.class, rejected.getCause());
+        assertEquals(callsBefore, storage.getUploadAttempts());
+        assertEquals(1, breaker.getRejectedCalls());
+        assertEquals(1, breaker.getOpenTransitions());
+        assertEquals(1, transitions.size());
+    }
+
+    @Test
+    @DisplayName("成功调用占多数时失败率低于阈值，熔断器保持关闭")
+    void shouldStayClosedBelowFailureRate() throws Exception {
+        StorageCircuitBreaker breaker = breaker(10, 50, 100, 2);
+
+        for (int i = 0; i < 20; i++) {
+            if (i % 3 == 0) {
+                failNextUpload();
+                assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+            } else {
+                breaker.putObject("key", new byte[] {1}).get();
+            }
+        }
+
+        assertTrue(breaker.isClosed());
+        assertEquals(0, breaker.getOpenTransitions());
+    }
+
+    @Test
+    @DisplayName("打开周期结束后转为半开，只放行配置数量的探测，全部成功后关闭")
+    void shouldCloseAfterSuccessfulProbes() throws Exception {
+        StorageCircuitBreaker breaker = openedBreaker(2);
+        List<StorageCircuitBreaker.State> transitions = new ArrayList<>();
+        breaker.setListener((from, to) -> transitions.add(to));
+        clock.advance(OPEN_MS);
+
+        storage.setHoldUploads(true);
+        CompletableFuture<Void> probe1 = breaker.putObject("key", new byte[] {1});
+        CompletableFuture<Void> probe2 = breaker.putObject("key", new byte[] {1});
+        CompletableFuture<Void> first = storage.pollHeldUpload();
+        CompletableFuture<Void> second = storage.pollHeldUpload();
+        storage.setHoldUploads(false);
+        assertEquals(StorageCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> breaker.putObject("key", new byte[] {1}).get());
+        assertInstanceOf(StorageCircuitBreaker.CircuitOpenException.class, rejected.getCause());
+
+        first.complete(null);
+        probe1.get();
+        assertEquals(StorageCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        second.complete(null);
+        probe2.get();
+
+        assertTrue(breaker.isClosed());
+        assertEquals(2, transitions.size());
+        assertEquals(StorageCircuitBreaker.State.CLOSED, transitions.get(1));
+        breaker.putObject("key", new byte[] {1}).get();
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    @DisplayName("探测失败应重新打开并开始新的打开周期")
+    void shouldReopenWhenProbeFails() throws Exception {
+        StorageCircuitBreaker breaker = openedBreaker(2);
+        clock.advance(OPEN_MS);
+
+        failNextUpload();
+        assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenTransitions());
+        clock.advance(OPEN_MS - 1);
+        long callsBefore = storage.getUploadAttempts();
+        assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+        assertEquals(callsBefore, storage.getUploadAttempts());
+    }
+
+    @Test
+    @DisplayName("探测在一个打开周期内没有返回时应重新打开")
+    void shouldReopenWhenProbesHang() throws Exception {
+        StorageCircuitBreaker breaker = openedBreaker(1);
+        clock.advance(OPEN_MS);
+        storage.setHoldUploads(true);
+        CompletableFuture<Void> probe = breaker.putObject("key", new byte[] {1});
+        assertEquals(StorageCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        clock.advance(OPEN_MS);
+        assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(probe.isDone());
+    }
+
+    @Test
+    @DisplayName("没有新上传时兜底重传应在打开期满后完成半开探测并关闭熔断器")
+    void shouldProbeFromFallbackResendOnQuietEngine(@TempDir Path fallbackDir) throws Exception {
+        StorageCircuitBreaker breaker = openedBreaker(2);
+        for (int i = 0; i < 3; i++) {
+            Files.write(fallbackDir.resolve("app-" + i + ".log.gz"), ("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        FallbackUploaderTask task = new FallbackUploaderTask(breaker, fallbackDir.toString(), 7, 1024, 10, 1024);
+        task.setUploadGate(breaker::permitsCalls);
+
+        assertFalse(breaker.permitsCalls());
+        long callsBefore = storage.getUploadAttempts();
+        task.run();
+        assertEquals(callsBefore, storage.getUploadAttempts());
+
+        clock.advance(OPEN_MS);
+        assertTrue(breaker.permitsCalls());
+        task.run();
+
+        assertTrue(breaker.isClosed());
+        assertEquals(3, task.getResentFileCount());
+        assertEquals(0, task.getResendFailureCount());
+    }
+
+    @Test
+    @DisplayName("探测失败后兜底重传应在本轮停止，等待下一个打开周期")
+    void shouldStopResendRoundWhenProbeFails(@TempDir Path fallbackDir) throws Exception {
+        StorageCircuitBreaker breaker = openedBreaker(1);
+        for (int i = 0; i < 3; i++) {
+            Files.write(fallbackDir.resolve("app-" + i + ".log.gz"), ("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        FallbackUploaderTask task = new FallbackUploaderTask(breaker, fallbackDir.toString(), 7, 1024, 10, 1024);
+        task.setUploadGate(breaker::permitsCalls);
+        clock.advance(OPEN_MS);
+
+        failNextUpload();
+        long callsBefore = storage.getUploadAttempts();
+        task.run();
+
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(callsBefore + 1, storage.getUploadAttempts());
+        assertEquals(1, task.getResendFailureCount());
+        assertFalse(breaker.permitsCalls());
+    }
+
+    @Test
+    @DisplayName("慢调用比例达到阈值时应打开，即使调用本身成功")
+    void shouldOpenOnSlowCallRate() throws Exception {
+        StorageCircuitBreaker breaker = breaker(4, 50, 100, 1);
+
+        delayMs = SLOW_MS;
+        breaker.putObject("key", new byte[] {1}).get();
+        assertTrue(breaker.isClosed());
+        breaker.putObject("key", new byte[] {1}).get();
+
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("不可重试的客户端错误说明存储可用，不计入失败率")
+    void shouldIgnoreNonRetryableErrors() throws Exception {
+        StorageCircuitBreaker breaker = breaker(4, 50, 100, 1);
+
+        for (int i = 0; i < 10; i++) {
+            storage.failNext(StorageException.clientError("bad key", "400"));
+            assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+        }
+
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    @DisplayName("存储同步抛出的异常同样计入失败")
+    void shouldCountSynchronousFailures() {
+        StorageCircuitBreaker breaker = breaker(2, 50, 100, 1);
+
+        throwSynchronously = true;
+        assertThrows(IllegalStateException.class, () -> breaker.putObject("key", new byte[] {1}));
+
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private StorageCircuitBreaker breaker(int windowSize, int failureRatePercent, int slowCallRatePercent, int probes) {
+        return new StorageCircuitBreaker(storage, windowSize, failureRatePercent, SLOW_MS, slowCallRatePercent,
+                OPEN_MS, probes, clock::nanos);
+    }
+
+    private StorageCircuitBreaker openedBreaker(int probes) throws Exception {
+        StorageCircuitBreaker breaker = breaker(2, 50, 100, probes);
+        failNextUpload();
+        assertThrows(ExecutionException.class, () -> breaker.putObject("key", new byte[] {1}).get());
+        assertEquals(StorageCircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private void failNextUpload() {
+        storage.failNext(StorageException.networkError("connection reset", null));
+    }
+
+    private static final class FakeClock {
+        private long nanos;
+
+        long nanos() {
+            return nanos;
+        }
+
+        void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.logx.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultObjectNameStrategyTest {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile(
+            "logs/app/\\d{4}/\\d{2}/\\d{2}/\\d{9}-applogx-10\\.0\\.0\\.1-[0-9a-f]{12,}\\.log\\.gz");
+
+    @Test
+    @DisplayName("生成的对象名应保持原有格式")
+    void shouldKeepObjectNameLayout() {
+        DefaultObjectNameStrategy strategy = new DefaultObjectNameStrategy(null, "10.0.0.1", ZoneId.of("UTC"));
+
+        String name = strategy.generateObjectName("/logs/app/");
+
+        assertTrue(NAME_PATTERN.matcher(name).matches(), name);
+    }
+
+    @Test
+    @DisplayName("同一进程内生成的对象名不应重复")
+    void shouldGenerateUniqueNames() {
+        DefaultObjectNameStrategy strategy = new DefaultObjectNameStrategy(null, "10.0.0.1", ZoneId.of("UTC"));
+        Set<String> names = new HashSet<>();
+
+        for (int i = 0; i < 100000; i++) {
+            names.add(strategy.generateObjectName("logs/app"));
+        }
+
+        assertEquals(100000, names.size());
+    }
+
+    @Test
+    @DisplayName("日期路径应按秒缓存并使用指定时区")
+    void shouldCacheDatePathPerSecond() {
+        DefaultObjectNameStrategy strategy = new DefaultObjectNameStrategy("svc", "10.0.0.1", ZoneId.of("UTC"));
+        long epochMs = 1760452370123L;
+
+        String first = strategy.datePath("logx", epochMs);
+        String second = strategy.datePath("logx", epochMs + 500);
+
+        assertEquals("logx/2025/10/14/143250", first);
+        assertSame(first, second);
+        assertEquals("logx/2025/10/14/143251", strategy.datePath("logx", epochMs + 1000));
+    }
+
+    @Test
+    @DisplayName("前缀规范化应去除首尾斜杠并处理空值")
+    void shouldNormalizePrefix() {
+        DefaultObjectNameStrategy strategy = new DefaultObjectNameStrategy(null, "10.0.0.1", ZoneId.of("UTC"));
+
+        assertEquals("a/b", strategy.normalizePrefix("//a/b//"));
+        assertEquals("logx", strategy.normalizePrefix(null));
+        assertEquals("logx", strategy.normalizePrefix("  "));
+    }
+}
@@ -0,0 +1,197 @@
+package org.logx.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FallbackDiskQuotaTest {
+
+    @Test
+    @DisplayName("超出配额时应淘汰最早写入的文件")
+    void shouldEvictOldestFileWhenQuotaExceeded() throws IOException {
+        Path dir = Files.createTempDirectory("fallback-quota-oldest");
+        FallbackDiskQuota quota = new FallbackDiskQuota(dir, FallbackDiskQuota.Config.defaultConfig()
+                .maxTotalBytes(30)
+                .evictionPolicy(FallbackEvictionPolicy.OLDEST_FIRST));
+
+        Path first = write(quota, dir.resolve("a.log.gz"), 10, FallbackPriority.HIGH);
+        Path second = write(quota, dir.resolve("b.log.gz"), 10, FallbackPriority.LOW);
+        Path third = write(quota, dir.resolve("c.log.gz"), 10, FallbackPriority.NORMAL);
+        Path fourth = write(quota, dir.resolve("d.log.gz"), 10, FallbackPriority.LOW);
+
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+        assertTrue(Files.exists(third));
+        assertTrue(Files.exists(fourth));
+        assertEquals(30, quota.getUsedBytes());
+        assertEquals(3, quota.getFileCount());
+        assertEquals(1, quota.getEvictedFiles());
+    }
+
+    @Test
+    @DisplayName("按严重级别淘汰时应先删除低优先级文件且不为低优先级数据淘汰高优先级文件")
+    void shouldEvictLowestSeverityFirst() throws IOException {
+        Path dir = Files.createTempDirectory("fallback-quota-severity");
+        FallbackDiskQuota quota = new FallbackDiskQuota(dir, FallbackDiskQuota.Config.defaultConfig()
+                .maxTotalBytes(20)
+                .evictionPolicy(FallbackEvictionPolicy.LOWEST_SEVERITY_FIRST));
+
+        Path error = write(quota, dir.resolve("error.log.gz"), 10, FallbackPriority.HIGH);
+        Path debug = write(quota, dir.resolve("debug.log.gz"), 10, FallbackPriority.LOW);
+
+        Path warn = write(quota, dir.resolve("warn.log.gz"), 10, FallbackPriority.HIGH);
+        assertFalse(Files.exists(debug));
+        assertTrue(Files.exists(error));
+        assertTrue(Files.exists(warn));
+
+        assertFalse(quota.tryAcquire(10, FallbackPriority.NORMAL));
+        assertEquals(1, quota.getRejectedWrites());
+        assertEquals(20, quota.getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("应按文件数上限淘汰")
+    void shouldEnforceMaxFiles() throws IOException {
+        Path dir = Files.createTempDirectory("fallback-quota-files");
+        FallbackDiskQuota quota = new FallbackDiskQuota(dir, FallbackDiskQuota.Config.defaultConfig()
+                .maxFiles(2)
+                .evictionPolicy(FallbackEvictionPolicy.SAMPLED));
+
+        write(quota, dir.resolve("a.log.gz"), 1, FallbackPriority.LOW);
+        write(quota, dir.resolve("b.log.gz"), 1, FallbackPriority.LOW);
+        write(quota, dir.resolve("c.log.gz"), 1, FallbackPriority.LOW);
+
+        assertEquals(2, quota.getFileCount());
+        assertEquals(2, countFiles(dir));
+    }
+
+    @Test
+    @DisplayName("重新扫描应以磁盘状态重建计数并淘汰至配额以内")
+    void shouldRescanAndTrimExistingFiles() throws IOException {
+        Path dir = Files.createTempDirectory("fallback-quota-rescan");
+        Path old = dir.resolve("2024-01-01/old.log.gz");
+        Path recent = dir.resolve("2024-01-02/recent.log.gz");
+        Files.createDirectories(old.getParent());
+        Files.createDirectories(recent.getParent());
+        Files.write(old, new byte[10]);
+        Files.write(recent, new byte[10]);
+        Files.setLastModifiedTime(old, FileTime.fromMillis(System.currentTimeMillis() - 60000L));
+
+        FallbackDiskQuota quota = new FallbackDiskQuota(dir, FallbackDiskQuota.Config.defaultConfig().maxTotalBytes(15));
+        quota.rescan();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+        assertEquals(10, quota.getUsedBytes());
+        assertEquals(1, quota.getFileCount());
+
+        quota.release(recent);
+        assertEquals(0, quota.getUsedBytes());
+        assertEquals(0, quota.getFileCount());
+    }
+
+    @Test
+    @DisplayName("并发写入期间重新扫描不应丢失其他线程的预留")
+    void shouldKeepConcurrentReservationsAcrossRescan() throws Exception {
+        Path dir = Files.createTempDirectory("fallback-quota-concurrent");
+        FallbackDiskQuota quota = new FallbackDiskQuota(dir, FallbackDiskQuota.Config.defaultConfig()
+                .maxTotalBytes(1024L * 1024)
+                .maxFiles(100000));
+        int writers = 4;
+        int perWriter = 20000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        assertTrue(quota.tryAcquire(10, FallbackPriority.NORMAL));
+                        if (i % 100 != 0) {
+                            quota.cancel(10);
+                            continue;
+                        }
+                        Path file = dir.resolve(writer + "-" + i + ".log.gz");
+                        Files.write(file, new byte[10]);
+                        quota.commit(file, 10, FallbackPriority.NORMAL);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> rescanner = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    quota.rescan();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            rescanner.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long files = countFiles(dir);
+        assertEquals(writers * perWriter / 100, files);
+        assertEquals(files * 10, quota.getUsedBytes());
+        assertEquals(files, quota.getFileCount());
+    }
+
+    @Test
+    @DisplayName("兜底管理器在配额不足时应放弃写入")
+    void shouldRejectWriteLargerThanQuotaInManager() throws IOException {
+        Path dir = Files.createTempDirectory("fallback-quota-manager");
+        FallbackManager manager = new FallbackManager(dir.toString(), "logx/",
+                FallbackDiskQuota.Config.defaultConfig().maxTotalBytes(8));
+
+        assertFalse(manager.writeFallbackFile(new byte[16]));
+        assertTrue(manager.writeFallbackFile(new byte[8], FallbackPriority.HIGH));
+        assertEquals(8, manager.getDiskQuota().getUsedBytes());
+        assertEquals(1, countFiles(dir));
+    }
+
+    @Test
+    @DisplayName("应从日志载荷探测优先级")
+    void shouldDetectPriorityFromPayload() {
+        assertEquals(FallbackPriority.HIGH, FallbackPriority.detect("2024-01-01 [main] ERROR Foo - boom".getBytes()));
+        assertEquals(FallbackPriority.LOW, FallbackPriority.detect("2024-01-01 DEBUG Foo - x".getBytes()));
+        assertEquals(FallbackPriority.NORMAL, FallbackPriority.detect("ERRORS are not levels".getBytes()));
+        assertEquals(FallbackPriority.HIGH, FallbackPriority.fromLevel("warn"));
+    }
+
+    private Path write(FallbackDiskQuota quota, Path file, int size, FallbackPriority priority) throws IOException {
+        assertTrue(quota.tryAcquire(size, priority));
+        Files.write(file, new byte[size]);
+        quota.commit(file, size, priority);
+        return file;
+    }
+
+    private long countFiles(Path dir) throws IOException {
+        try (java.util.stream.Stream<Path> stream = Files.walk(dir)) {
+            return stream.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -2,17 +2,18 @@ package org.logx.fallback;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.logx.storage.ProtocolType;
 import org.logx.storage.StorageService;
+import org.logx.storage.memory.InMemoryStorageService;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -26,7 +27,7 @@ class FallbackUploaderTaskTest {
         Path oversizedFile = fallbackDir.resolve("oversized.log.gz");
         Files.write(oversizedFile, "0123456789".getBytes(StandardCharsets.UTF_8));
 
-        RecordingStorageService storageService = new RecordingStorageService();
+        InMemoryStorageService storageService = new InMemoryStorageService();
         FallbackUploaderTask task = new FallbackUploaderTask(
             storageService,
             fallbackDir.toString(),
@@ -39,7 +40,7 @@ class FallbackUploaderTaskTest {
 
         task.run();
 
-        assertEquals(0, storageService.getUploadedKeys().size());
+        assertEquals(0, storageService.getObjectCount());
         assertFalse(Files.exists(oversizedFile));
         assertTrue(Files.exists(fallbackDir.resolve("quarantine")));
     }
@@ -52,7 +53,7 @@ class FallbackUploaderTaskTest {
         createFallbackFile(fallbackDir.resolve("b.log.gz"), "line-b");
         createFallbackFile(fallbackDir.resolve("c.log.gz"), "line-c");
 
-        RecordingStorageService storageService = new RecordingStorageService();
+        InMemoryStorageService storageService = new InMemoryStorageService();
         FallbackUploaderTask task = new FallbackUploaderTask(
             storageService,
             fallbackDir.toString(),
@@ -65,7 +66,7 @@ class FallbackUploaderTaskTest {
 
         task.run();
 
-        assertEquals(2, storageService.getUploadedKeys().size());
+        assertEquals(2, storageService.getObjectCount());
         long remainingCount;
         try (java.util.stream.Stream<Path> stream = Files.list(fallbackDir)) {
             remainingCount = stream
@@ -76,45 +77,143 @@ class FallbackUploaderTaskTest {
         assertEquals(1, remainingCount);
     }
 
-    private void createFallbackFile(Path file, String content) throws IOException {
-        Files.write(file, (content + "\n\n").getBytes(StandardCharsets.UTF_8));
+    @Test
+    @DisplayName("重传开关关闭时应保留兜底文件，打开后再重传")
+    void shouldSkipRetryWhileUploadGateIsClosed() throws IOException {
+        Path fallbackDir = Files.createTempDirectory("fallback-uploader-test-gate");
+        createFallbackFile(fallbackDir.resolve("a.log.gz"), "line-a");
+
+        InMemoryStorageService storageService = new InMemoryStorageService();
+        FallbackUploaderTask task = new FallbackUploaderTask(
+            storageService,
+            fallbackDir.toString(),
+            "applogx",
+            7,
+            1024,
+            10,
+            1024
+        );
+        boolean[] open = {false};
+        task.setUploadGate(() -> open[0]);
+
+        task.run();
+
+        assertEquals(0, storageService.getObjectCount());
+        assertTrue(Files.exists(fallbackDir.resolve("a.log.gz")));
+
+        open[0] = true;
+        task.run();
+
+        assertEquals(1, storageService.getObjectCount());
+        assertFalse(Files.exists(fallbackDir.resolve("a.log.gz")));
     }
 
-    private static class RecordingStorageService implements StorageService {
-        private final List<String> uploadedKeys = new ArrayList<>();
+    @Test
+    @DisplayName("主存储恢复后应把备用存储中的对象以相同对象键写回，失败的记录留到下一轮")
+    void shouldRestoreFailoverObjectsToPrimary() throws Exception {
+        Path fallbackDir = Files.createTempDirectory("fallback-uploader-test-failover");
+        InMemoryStorageService primary = new InMemoryStorageService();
+        InMemoryStorageService secondary = new InMemoryStorageService();
+        secondary.putObject("logx/a.log.gz", new byte[] {1}).get();
+        secondary.putObject("logx/b.log.gz", new byte[] {2}).get();
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        journal.append("dr", "logx/a.log.gz");
+        journal.append("dr", "logx/b.log.gz");
 
-        @Override
-        public CompletableFuture<Void> putObject(String key, byte[] data) {
-            uploadedKeys.add(key);
-            return CompletableFuture.completedFuture(null);
-        }
+        FallbackUploaderTask task = new FallbackUploaderTask(
+            primary,
+            fallbackDir.toString(),
+            "applogx",
+            7,
+            1024,
+            10,
+            1024
+        );
+        task.setFailoverRestore(journal, Collections.<String, StorageService>singletonMap("dr", secondary));
+        primary.failNext(1);
 
-        @Override
-        public ProtocolType getProtocolType() {
-            return ProtocolType.S3;
-        }
+        task.run();
 
-        @Override
-        public String getBucketName() {
-            return "test-bucket";
-        }
+        assertEquals(0, primary.getObjectCount());
+        assertEquals(2, journal.size());
+        assertEquals(1, task.getRestoreFailureCount());
 
-        @Override
-        public String getKeyPrefix() {
-            return "test-prefix";
-        }
+        task.run();
 
-        @Override
-        public void close() {
-        }
+        assertArrayEquals(new byte[] {1}, primary.getObject("logx/a.log.gz"));
+        assertArrayEquals(new byte[] {2}, primary.getObject("logx/b.log.gz"));
+        assertEquals(0, journal.size());
+        assertEquals(2, task.getRestoredObjectCount());
+    }
 
-        @Override
-        public boolean supportsProtocol(ProtocolType protocol) {
-            return protocol == ProtocolType.S3;
-        }
+    @Test
+    @DisplayName("备用存储中已不存在的对象和未知目标的记录应被丢弃，不阻塞后续记录")
+    void shouldDropUnrestorableFailoverRecords() throws Exception {
+        Path fallbackDir = Files.createTempDirectory("fallback-uploader-test-failover-drop");
+        InMemoryStorageService primary = new InMemoryStorageService();
+        InMemoryStorageService secondary = new InMemoryStorageService();
+        secondary.putObject("logx/c.log.gz", new byte[] {3}).get();
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        journal.append("dr", "logx/missing.log.gz");
+        journal.append("gone", "logx/b.log.gz");
+        journal.append("dr", "logx/c.log.gz");
 
-        public List<String> getUploadedKeys() {
-            return uploadedKeys;
-        }
+        FallbackUploaderTask task = new FallbackUploaderTask(
+            primary,
+            fallbackDir.toString(),
+            "applogx",
+            7,
+            1024,
+            10,
+            1024
+        );
+        task.setFailoverRestore(journal, Collections.<String, StorageService>singletonMap("dr", secondary));
+
+        task.run();
+
+        assertEquals(1, primary.getObjectCount());
+        assertArrayEquals(new byte[] {3}, primary.getObject("logx/c.log.gz"));
+        assertEquals(0, journal.size());
+        assertFalse(Files.exists(journal.getJournalFile()));
+    }
+
+    @Test
+    @DisplayName("备用存储不支持读回时应丢弃记录，不阻塞后续写回")
+    void shouldDropRecordsWhenFailoverTargetCannotBeRead() throws Exception {
+        Path fallbackDir = Files.createTempDirectory("fallback-uploader-test-failover-unreadable");
+        InMemoryStorageService primary = new InMemoryStorageService();
+        InMemoryStorageService readable = new InMemoryStorageService();
+        readable.putObject("logx/c.log.gz", new byte[] {3}).get();
+        FailoverJournal journal = new FailoverJournal(fallbackDir.toString(), "test");
+        journal.append("write-only", "logx/a.log.gz");
+        journal.append("write-only", "logx/b.log.gz");
+        journal.append("dr", "logx/c.log.gz");
+
+        FallbackUploaderTask task = new FallbackUploaderTask(
+            primary,
+            fallbackDir.toString(),
+            "applogx",
+            7,
+            1024,
+            10,
+            1024
+        );
+        Map<String, StorageService> sources = new HashMap<>();
+        InMemoryStorageService writeOnly = new InMemoryStorageService();
+        writeOnly.setReadable(false);
+        sources.put("write-only", writeOnly);
+        sources.put("dr", readable);
+        task.setFailoverRestore(journal, sources);
+
+        task.run();
+
+        assertEquals(0, journal.size());
+        assertEquals(0, task.getRestoreFailureCount());
+        assertEquals(1, primary.getObjectCount());
+        assertArrayEquals(new byte[] {3}, primary.getObject("logx/c.log.gz"));
+    }
+
+    private void createFallbackFile(Path file, String content) throws IOException {
+        Files.write(file, (content + "\n\n").getBytes(StandardCharsets.UTF_8));
     }
 }
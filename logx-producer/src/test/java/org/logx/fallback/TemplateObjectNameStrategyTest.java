@@ -0,0 +1,92 @@
+package org.logx.fallback;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateObjectNameStrategyTest {
+
+    @Test
+    @DisplayName("应按模板生成Hive风格分区的对象名")
+    void shouldRenderPartitionedLayout() {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("service", "order api");
+        TemplateObjectNameStrategy strategy = new TemplateObjectNameStrategy(
+                "{hash:2}/{prefix}/dt={dt}/hour={hour}/service={attr:service}/env={attr:env}/{HH}{mm}{ss}{SSS}-{fileName}-{host}-{uid}",
+                "orders", attributes, "10.0.0.1", ZoneId.of("UTC"));
+
+        String name = strategy.generateObjectName("/logs/");
+
+        Pattern pattern = Pattern.compile("[0-9a-f]{2}/logs/dt=\\d{4}-\\d{2}-\\d{2}/hour=\\d{2}/service=order_api/"
+                + "env=unknown/\\d{9}-orders-10\\.0\\.0\\.1-[0-9a-f]{12,}\\.log\\.gz");
+        assertTrue(pattern.matcher(name).matches(), name);
+    }
+
+    @Test
+    @DisplayName("动态属性应覆盖静态属性且斜杠被替换")
+    void shouldPreferDynamicAttributes() {
+        TemplateObjectNameStrategy strategy = new TemplateObjectNameStrategy("{prefix}/{level}/{attr:service}/{uid}",
+                null, Collections.singletonMap("service", "billing"), "10.0.0.1", ZoneId.of("UTC"));
+
+        Map<String, String> dynamic = new HashMap<>();
+        dynamic.put("level", "ERROR");
+        dynamic.put("service", "a/b");
+
+        assertTrue(strategy.generateObjectName("logx", dynamic).startsWith("logx/ERROR/a_b/"));
+        assertTrue(strategy.generateObjectName("logx").startsWith("logx/unknown/billing/"));
+    }
+
+    @Test
+    @DisplayName("散列前缀应分布均匀且对象名不重复")
+    void shouldSpreadHashPrefixes() {
+        TemplateObjectNameStrategy strategy = new TemplateObjectNameStrategy("{hash:1}/{prefix}/{uid}",
+                null, null, "10.0.0.1", ZoneId.of("UTC"));
+        Set<String> names = new HashSet<>();
+        Set<Character> buckets = new HashSet<>();
+
+        for (int i = 0; i < 10000; i++) {
+            String name = strategy.generateObjectName("logx");
+            names.add(name);
+            buckets.add(name.charAt(0));
+        }
+
+        assertEquals(10000, names.size());
+        assertEquals(16, buckets.size());
+    }
+
+    @Test
+    @DisplayName("非法模板应在构造时拒绝")
+    void shouldRejectInvalidTemplates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TemplateObjectNameStrategy("{prefix}/{dt}", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TemplateObjectNameStrategy("{prefix}/{unknown}/{uid}", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TemplateObjectNameStrategy("{prefix}/{hash:0}/{uid}", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TemplateObjectNameStrategy("{prefix/{uid}", null, null));
+    }
+
+    @Test
+    @DisplayName("工厂方法应根据模板和文件名选择策略")
+    void shouldCreateStrategyFromConfig() {
+        assertInstanceOf(TemplateObjectNameStrategy.class,
+                ObjectNameGenerator.createStrategy("{prefix}/{uid}", null, null));
+        ObjectNameStrategy named = ObjectNameGenerator.createStrategy(null, "billing", null);
+        assertTrue(named.generateObjectName("logx").contains("-billing-"));
+        assertEquals(ObjectNameGenerator.getDefaultStrategy(),
+                ObjectNameGenerator.createStrategy(" ", DefaultObjectNameStrategy.DEFAULT_FILE_NAME, null));
+    }
+}
@@ -0,0 +1,88 @@
+package org.logx.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRecorderTest {
+
+    @Test
+    @DisplayName("分位数的相对误差应不超过1/16")
+    void shouldKeepRelativeErrorWithinSubBucket() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long v = 1; v <= 100_000; v++) {
+            recorder.record(v * 1000);
+        }
+
+        LatencySnapshot snapshot = recorder.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(5_000_050_000_000L, snapshot.getSum());
+        assertWithin(50_000_000L, snapshot.getPercentile(0.5));
+        assertWithin(99_000_000L, snapshot.getPercentile(0.99));
+        assertWithin(100_000_000L, snapshot.getMax());
+        assertEquals(0, new LatencyRecorder().snapshot().getPercentile(0.5));
+    }
+
+    @Test
+    @DisplayName("多线程记录不应丢失计数，退出线程的计数应保留")
+    void shouldAggregateAcrossThreads() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    recorder.record(100);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals((long) threads * perThread, recorder.snapshot().getCount());
+        // 再次读取时已退出线程的分片已并入保留计数
+        assertEquals((long) threads * perThread, recorder.snapshot().getCount());
+        assertEquals(100L * threads * perThread, recorder.snapshot().getSum());
+    }
+
+    @Test
+    @DisplayName("两次快照相减应得到区间内的分布")
+    void shouldComputeIntervalSnapshot() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 0; i < 100; i++) {
+            recorder.record(1_000_000);
+        }
+        LatencySnapshot first = recorder.snapshot();
+        for (int i = 0; i < 10; i++) {
+            recorder.record(5_000);
+        }
+
+        LatencySnapshot interval = recorder.snapshot().since(first);
+        assertEquals(10, interval.getCount());
+        assertWithin(5_000, interval.getPercentile(0.99));
+        assertEquals(110, recorder.getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,124 @@
+package org.logx.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricRegistryTest {
+
+    @Test
+    @DisplayName("发布的分组应导出为JMX属性，移除后注销MBean")
+    void shouldExportGroupOverJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        MetricRegistry registry = new MetricRegistry();
+        registry.addListener(new JmxMetricsExporter(server));
+
+        AtomicLong dropped = new AtomicLong(3);
+        MetricGroup group = registry.createGroup("logs/app:test");
+        group.counter("queue.dropped", "dropped", dropped::get);
+        group.gauge("queue.occupancy", "occupancy", () -> 0.25);
+        Counter uploads = group.counter("upload.succeeded", "uploads");
+        Histogram latency = group.histogram("upload.latency.ms", "latency");
+        uploads.add(2);
+        latency.record(10);
+        latency.record(30);
+        registry.publish(group);
+
+        ObjectName name = JmxMetricsExporter.objectNameOf("logs/app:test");
+        assertTrue(server.isRegistered(name));
+        dropped.incrementAndGet();
+        assertEquals(4L, server.getAttribute(name, "queue.dropped"));
+        assertEquals(0.25, (Double) server.getAttribute(name, "queue.occupancy"), 1e-9);
+        assertEquals(2L, server.getAttribute(name, "upload.succeeded"));
+        assertEquals(2L, server.getAttribute(name, "upload.latency.ms.count"));
+        assertEquals(30L, server.getAttribute(name, "upload.latency.ms.max"));
+        assertEquals(8, server.getMBeanInfo(name).getAttributes().length);
+
+        registry.remove(group);
+        assertFalse(server.isRegistered(name));
+        assertTrue(registry.getGroups().isEmpty());
+    }
+
+    @Test
+    @DisplayName("同名分组应自动追加序号")
+    void shouldMakeGroupNamesUnique() {
+        MetricRegistry registry = new MetricRegistry();
+        MetricGroup first = registry.createGroup("engine");
+        MetricGroup second = registry.createGroup("engine");
+        registry.publish(first);
+        registry.publish(second);
+
+        assertEquals("engine", first.getName());
+        assertEquals("engine#2", second.getName());
+        assertEquals(2, registry.getGroups().size());
+    }
+
+    @Test
+    @DisplayName("分布统计的分位数估计误差应在一个分桶以内")
+    void shouldEstimatePercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        long p50 = histogram.getPercentile(0.5);
+        assertTrue(p50 >= 500 && p50 <= 1023, "p50=" + p50);
+        assertEquals(1000, histogram.getPercentile(0.99));
+        assertEquals(0, new Histogram().getPercentile(0.5));
+    }
+
+    @Test
+    @DisplayName("绑定器应拒绝非MeterRegistry对象")
+    void shouldRejectNonMicrometerRegistry() {
+        assertTrue(MicrometerMetricsBinder.isAvailable());
+        assertThrows(IllegalArgumentException.class, () -> new MicrometerMetricsBinder(new Object()));
+    }
+
+    @Test
+    @DisplayName("发布的分组应通过反射注册为带pipeline标签的Micrometer计数器和Gauge，移除后注销")
+    void shouldBindGroupToMicrometer() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MetricRegistry registry = new MetricRegistry();
+        MicrometerMetricsBinder.bindTo(registry, meterRegistry);
+
+        AtomicLong dropped = new AtomicLong(3);
+        MetricGroup group = registry.createGroup("logs/app:test");
+        group.counter("queue.dropped", "dropped", dropped::get);
+        group.gauge("queue.occupancy", "occupancy", () -> 0.25);
+        Histogram latency = group.histogram("upload.latency.ms", "latency");
+        latency.record(10);
+        latency.record(30);
+        registry.publish(group);
+
+        FunctionCounter counter = meterRegistry.get("logx.queue.dropped").tag("pipeline", "logs/app:test")
+                .functionCounter();
+        dropped.incrementAndGet();
+        assertEquals(4.0, counter.count(), 1e-9);
+        assertEquals("dropped", counter.getId().getDescription());
+        assertEquals(0.25, meterRegistry.get("logx.queue.occupancy").gauge().value(), 1e-9);
+        assertEquals(2.0, meterRegistry.get("logx.upload.latency.ms.count").functionCounter().count(), 1e-9);
+        assertEquals(20.0, meterRegistry.get("logx.upload.latency.ms.mean").gauge().value(), 1e-9);
+        assertEquals(30.0, meterRegistry.get("logx.upload.latency.ms.max").gauge().value(), 1e-9);
+        Gauge p99 = meterRegistry.get("logx.upload.latency.ms.p99").gauge();
+        assertEquals(latency.getPercentile(0.99), p99.value(), 1e-9);
+        assertEquals(latency.getPercentile(0.5), meterRegistry.get("logx.upload.latency.ms.p50").gauge().value(), 1e-9);
+        assertEquals(7, meterRegistry.getMeters().size());
+
+        registry.remove(group);
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+}
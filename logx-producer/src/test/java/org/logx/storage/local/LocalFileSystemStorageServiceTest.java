@@ -0,0 +1,153 @@
+package org.logx.storage.local;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.exception.StorageException;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+import org.logx.storage.StorageServiceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalFileSystemStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("对象应写入bucket目录下以对象键为相对路径的文件，且不留下临时文件")
+    void shouldWriteObjectUnderBucketDirectory() throws Exception {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(config(root.toString()));
+        byte[] data = "hello".getBytes(StandardCharsets.UTF_8);
+
+        storage.putObject("logx/2025/10/14/app.log.gz", data).get();
+
+        Path file = root.resolve("logs/logx/2025/10/14/app.log.gz");
+        assertArrayEquals(data, Files.readAllBytes(file));
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("ByteBuffer和InputStream写入应保留完整内容且不改变缓冲区位置")
+    void shouldWriteBufferAndStream() throws Exception {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(
+                config("file://" + root.toUri().getPath() + "?fsync=full"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+        buffer.put(new byte[] {1, 2, 3}).flip();
+
+        storage.putObject("a/buffer", buffer).get();
+        storage.putObject("a/stream", new ByteArrayInputStream(new byte[] {4, 5, 6, 7}), 4).get();
+
+        assertEquals(3, buffer.remaining());
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(root.resolve("logs/a/buffer")));
+        assertArrayEquals(new byte[] {4, 5, 6, 7}, Files.readAllBytes(root.resolve("logs/a/stream")));
+        assertEquals(LocalFileSystemStorageService.FsyncMode.FULL, storage.getFsyncMode());
+    }
+
+    @Test
+    @DisplayName("读取应返回写入的内容，对象不存在时以NoSuchKey失败")
+    void shouldReadObjectBack() throws Exception {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(config(root.toString()));
+        byte[] data = "hello".getBytes(StandardCharsets.UTF_8);
+        storage.putObject("logx/app.log.gz", data).get();
+
+        assertArrayEquals(data, storage.readObject("logx/app.log.gz").get());
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> storage.readObject("logx/missing.log.gz").get());
+        assertEquals("NoSuchKey", ((StorageException) error.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("InputStream长度不足时应失败且不留下文件")
+    void shouldFailOnShortStream() throws Exception {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(config(root.toString()));
+
+        CompletableFuture<Void> future = storage.putObject("short", new ByteArrayInputStream(new byte[2]), 4);
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        try (Stream<Path> files = Files.list(root.resolve("logs"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("开启分片后文件应分散到十六进制命名的子目录")
+    void shouldShardDirectories() throws Exception {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(config(root + "?shards=16"));
+
+        for (int i = 0; i < 64; i++) {
+            storage.putObject("logx/file-" + i, new byte[] {(byte) i}).get();
+        }
+
+        try (Stream<Path> dirs = Files.list(root.resolve("logs"))) {
+            List<String> names = dirs.map(p -> p.getFileName().toString()).collect(Collectors.toList());
+            assertTrue(names.size() > 1 && names.size() <= 16, names.toString());
+            assertTrue(names.stream().allMatch(name -> name.matches("[0-9a-f]")), names.toString());
+        }
+        Path resolved = storage.resolvePath("logx/file-7");
+        assertTrue(Files.exists(resolved));
+        assertEquals(resolved, storage.resolvePath("logx/file-7"));
+    }
+
+    @Test
+    @DisplayName("指向存储目录之外的对象键应被拒绝")
+    void shouldRejectKeysOutsideDirectory() {
+        LocalFileSystemStorageService storage = new LocalFileSystemStorageService(config(root.toString()));
+
+        CompletableFuture<Void> future = storage.putObject("../escape", new byte[] {1});
+
+        assertThrows(ExecutionException.class, future::get);
+        assertFalse(Files.exists(root.resolve("escape")));
+    }
+
+    @Test
+    @DisplayName("无效的fsync配置应以配置错误失败")
+    void shouldRejectInvalidFsyncMode() {
+        StorageException error = assertThrows(StorageException.class,
+                () -> new LocalFileSystemStorageService(config(root + "?fsync=sometimes")));
+
+        assertEquals(StorageException.ErrorType.CONFIGURATION_ERROR, error.getErrorType());
+    }
+
+    @Test
+    @DisplayName("ossType为LOCAL时工厂应通过SPI创建本地文件系统存储")
+    void shouldBeDiscoveredThroughFactory() throws Exception {
+        StorageService service = StorageServiceFactory.createStorageService(config(root.toString()));
+        try {
+            assertInstanceOf(LocalFileSystemStorageService.class, service);
+            service.putObject("spi", new byte[] {9}).get();
+            assertArrayEquals(new byte[] {9}, Files.readAllBytes(root.resolve("logs/spi")));
+        } finally {
+            service.close();
+        }
+    }
+
+    private static StorageConfig config(String endpoint) {
+        return StorageConfig.builder()
+                .ossType("LOCAL")
+                .endpoint(endpoint)
+                .bucket("logs")
+                .keyPrefix("logx")
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package org.logx.storage.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logx.core.AsyncEngine;
+import org.logx.core.AsyncEngineConfig;
+import org.logx.core.AsyncEngineRegistry;
+import org.logx.exception.StorageException;
+import org.logx.storage.StorageConfig;
+import org.logx.storage.StorageService;
+import org.logx.storage.StorageServiceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStorageServiceTest {
+
+    @TempDir
+    Path fallbackDir;
+
+    @AfterEach
+    void tearDown() {
+        InMemoryStorageService.clearRegistry();
+    }
+
+    @Test
+    @DisplayName("上传的对象应被保存并计数，且不改变缓冲区位置")
+    void shouldRetainObjects() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 2, 3});
+
+        storage.putObject("b", buffer).get();
+        storage.putObject("a", new ByteArrayInputStream(new byte[] {4}), 1).get();
+
+        assertEquals(3, buffer.remaining());
+        assertArrayEquals(new byte[] {1, 2, 3}, storage.getObject("b"));
+        assertEquals("[a, b]", storage.getObjectKeys().toString());
+        assertEquals(2, storage.getObjectCount());
+        assertEquals(4, storage.getByteCount());
+    }
+
+    @Test
+    @DisplayName("retain=false时只计数不保存内容")
+    void shouldOnlyCountWhenNotRetaining() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.initialize(config("memory://?retain=false", "counting"));
+
+        storage.putObject("key", new byte[10]).get();
+
+        assertNull(storage.getObject("key"));
+        assertEquals(1, storage.getObjectCount());
+        assertEquals(10, storage.getByteCount());
+    }
+
+    @Test
+    @DisplayName("failNext应让接下来的上传以可重试的服务端错误失败")
+    void shouldInjectFailures() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.failNext(2);
+
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<Void> future = storage.putObject("key-" + i, new byte[] {1});
+            ExecutionException error = assertThrows(ExecutionException.class, future::get);
+            StorageException cause = assertInstanceOf(StorageException.class, error.getCause());
+            assertEquals(StorageException.ErrorType.SERVER_ERROR, cause.getErrorType());
+        }
+        storage.putObject("key-2", new byte[] {1}).get();
+
+        assertEquals(2, storage.getFailureCount());
+        assertEquals(1, storage.getObjectCount());
+    }
+
+    @Test
+    @DisplayName("逐次指定的失败和耗时应按顺序作用于接下来的上传")
+    void shouldApplyScriptedFailuresAndLatencies() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.failNext(StorageException.clientError("bad request", "InvalidArgument"));
+        storage.delayNext(50, 0);
+
+        long start = System.nanoTime();
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> storage.putObject("a", new byte[] {1}).get());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(StorageException.ErrorType.CLIENT_ERROR,
+                assertInstanceOf(StorageException.class, error.getCause()).getErrorType());
+        storage.putObject("b", new byte[] {2}).get();
+
+        assertEquals(2, storage.getUploadAttempts());
+        assertEquals("[a, b]", storage.getAttemptedKeys().toString());
+        assertEquals("[b]", storage.getObjectKeys().toString());
+    }
+
+    @Test
+    @DisplayName("挂起的上传应在测试完成其Future后才保存对象")
+    void shouldHoldUploadsUntilCompleted() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.setHoldUploads(true);
+
+        CompletableFuture<Void> upload = storage.putObject("key", new byte[] {1});
+        assertFalse(upload.isDone());
+        assertEquals(0, storage.getObjectCount());
+
+        storage.pollHeldUpload().complete(null);
+        upload.get(5, TimeUnit.SECONDS);
+        assertArrayEquals(new byte[] {1}, storage.getObject("key"));
+        assertNull(storage.pollHeldUpload());
+    }
+
+    @Test
+    @DisplayName("阻塞的上传应忽略中断直到放行，耗时等待被中断时应计数并失败")
+    void shouldBlockUploadsAndObserveInterrupts() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            storage.blockUploads();
+            Future<?> blocked = executor.submit(() -> storage.putObject("blocked", new byte[] {1}).join());
+            Thread.sleep(100);
+            blocked.cancel(true);
+            Thread.sleep(100);
+            assertNull(storage.getObject("blocked"));
+            storage.releaseUploads();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (storage.getObject("blocked") == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertArrayEquals(new byte[] {1}, storage.getObject("blocked"));
+
+            storage.delayNext(5000);
+            Future<?> slow = executor.submit(() -> storage.putObject("slow", new byte[] {1}));
+            Thread.sleep(100);
+            slow.cancel(true);
+            assertTrue(storage.awaitInterruptedUploads(1, 5, TimeUnit.SECONDS));
+            assertNull(storage.getObject("slow"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("关闭读取后readObject应与不支持读取的存储一样失败")
+    void shouldRejectReadsWhenNotReadable() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.putObject("key", new byte[] {1}).get();
+        storage.setReadable(false);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> storage.readObject("key").get());
+        assertInstanceOf(UnsupportedOperationException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("endpoint查询参数应配置延迟和失败率")
+    void shouldReadOptionsFromEndpoint() throws Exception {
+        InMemoryStorageService storage = new InMemoryStorageService();
+        storage.initialize(config("memory://?latencyMs=20&failureRate=1", "options"));
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = storage.putObject("key", new byte[] {1});
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertThrows(ExecutionException.class, future::get);
+        assertEquals(20, storage.getLatencyMs());
+        assertEquals(1.0, storage.getFailureRate());
+    }
+
+    @Test
+    @DisplayName("ossType为MEMORY时工厂应通过SPI创建内存存储并按bucket登记")
+    void shouldBeDiscoveredThroughFactory() {
+        StorageService service = StorageServiceFactory.createStorageService(config(null, "spi"));
+
+        assertInstanceOf(InMemoryStorageService.class, service);
+        assertSame(service, InMemoryStorageService.forBucket("spi"));
+    }
+
+    @Test
+    @DisplayName("引擎应能以内存存储运行，停止后可检查上传的日志")
+    void shouldRunEngineAgainstMemoryStorage() throws Exception {
+        AsyncEngineConfig engineConfig = AsyncEngineConfig.defaultConfig()
+                .queueCapacity(1024)
+                .batchMaxMessages(10)
+                .enableDynamicBatching(false)
+                .metricsEnabled(false)
+                .logFilePrefix(fallbackDir.toString());
+        AsyncEngine engine = AsyncEngineRegistry.acquire(config(null, "engine"), engineConfig);
+        engine.start();
+        for (int i = 0; i < 25; i++) {
+            engine.put(("line-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        engine.stop(5, TimeUnit.SECONDS);
+
+        InMemoryStorageService storage = InMemoryStorageService.forBucket("engine");
+        assertNotNull(storage);
+        StringBuilder content = new StringBuilder();
+        for (String key : storage.getObjectKeys()) {
+            content.append(decode(storage.getObject(key)));
+        }
+        for (int i = 0; i < 25; i++) {
+            assertTrue(content.indexOf("line-" + i + "\n") >= 0, "missing line-" + i);
+        }
+    }
+
+    private static String decode(byte[] data) throws Exception {
+        if (data.length < 2 || data[0] != (byte) 0x1f || data[1] != (byte) 0x8b) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static StorageConfig config(String endpoint, String bucket) {
+        return StorageConfig.builder()
+                .ossType("MEMORY")
+                .endpoint(endpoint)
+                .bucket(bucket)
+                .keyPrefix("logx")
+                .build();
+    }
+}
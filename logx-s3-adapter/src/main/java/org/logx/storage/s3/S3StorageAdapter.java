@@ -47,6 +47,7 @@ public final class S3StorageAdapter implements StorageInterface, AutoCloseable {
     private final S3Client s3Client;
     private final String bucketName;
     private final String keyPrefix;
+    private volatile boolean closed;
 
     /**
      * 构造S3存储适配器
@@ -67,7 +68,9 @@ public final class S3StorageAdapter implements StorageInterface, AutoCloseable {
         this.s3Client = S3Client.builder()
                 .credentialsProvider(
                         StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
-                .region(awsRegion).build();
+                .region(awsRegion)
+                .httpClient(SharedHttpClient.acquire())
+                .build();
     }
 
     private Region resolveRegion(String regionValue) {
@@ -179,9 +182,11 @@ public final class S3StorageAdapter implements StorageInterface, AutoCloseable {
     }
 
     @Override
-    public void close() {
-        if (s3Client != null) {
+    public synchronized void close() {
+        if (s3Client != null && !closed) {
+            closed = true;
             s3Client.close();
+            SharedHttpClient.release();
         }
     }
 }
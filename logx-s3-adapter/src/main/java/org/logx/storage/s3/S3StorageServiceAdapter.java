@@ -1,5 +1,6 @@
 package org.logx.storage.s3;
 
+import org.logx.exception.StorageException;
 import org.logx.storage.ProtocolType;
 import org.logx.storage.StorageConfig;
 import org.logx.storage.StorageService;
@@ -7,19 +8,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.AbortedException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -94,7 +100,8 @@ public final class S3StorageServiceAdapter implements StorageService, AutoClosea
         S3ClientBuilder clientBuilder = S3Client.builder()
                 .credentialsProvider(
                         StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
-                .region(Region.of(region != null ? region : "US"));
+                .region(Region.of(region != null ? region : "US"))
+                .httpClient(SharedHttpClient.acquire());
 
         // 设置自定义endpoint（MinIO、SF OSS等）
         if (endpoint != null && !endpoint.trim().isEmpty()) {
@@ -222,6 +229,16 @@ public final class S3StorageServiceAdapter implements StorageService, AutoClosea
             }
             return future;
         } catch (Exception e) {
+            if (isInterrupted(e)) {
+                // 对冲放弃的尝试或关闭时被中断的上传，不是存储故障，以取消结束
+                Thread.currentThread().interrupt();
+                logger.debug("Upload aborted by interrupt. Bucket: {}, Key: {}", bucketName, key);
+                CancellationException cancelled = new CancellationException("Upload of " + key + " aborted by interrupt");
+                cancelled.initCause(e);
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                future.completeExceptionally(cancelled);
+                return future;
+            }
             // 记录详细的错误信息用于排查
             logger.error("Failed to upload object to S3. Endpoint: {}, Bucket: {}, Key: {}, Size: {} bytes, Error: {}",
                 endpoint, bucketName, key, size, e.getMessage());
@@ -233,6 +250,39 @@ public final class S3StorageServiceAdapter implements StorageService, AutoClosea
         }
     }
 
+    private static boolean isInterrupted(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AbortedException || cause instanceof InterruptedException
+                    || cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> readObject(String key) {
+        ensureInitialized();
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+            future.complete(s3Client.getObjectAsBytes(request).asByteArray());
+        } catch (NoSuchKeyException e) {
+            future.completeExceptionally(StorageException.clientError("Object not found: " + key, "NoSuchKey"));
+        } catch (Exception e) {
+            logger.error("Failed to read object from S3. Endpoint: {}, Bucket: {}, Key: {}, Error: {}",
+                endpoint, bucketName, key, e.getMessage());
+            future.completeExceptionally(new RuntimeException("Failed to read object from S3: " + e.getMessage(), e));
+        }
+        return future;
+    }
+
     private boolean isGzipContent(ByteBuffer buffer) {
         if (buffer == null || buffer.remaining() < 2) {
             return false;
@@ -272,6 +322,7 @@ public final class S3StorageServiceAdapter implements StorageService, AutoClosea
         if (s3Client != null) {
             s3Client.close();
             s3Client = null; // 设置为null，以便后续检查
+            SharedHttpClient.release();
         }
     }
 
@@ -0,0 +1,50 @@
+package org.logx.storage.s3;
+
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+
+import java.time.Duration;
+
+/**
+ * 进程级共享HTTP连接池
+ * <p>
+ * 所有S3客户端复用同一个Apache HTTP连接池，新增日志管道不会额外创建连接池和后台清理线程。
+ * 通过{@code S3ClientBuilder.httpClient}传入的连接池不会随S3客户端关闭，
+ * 由引用计数在最后一个客户端释放时关闭。
+ *
+ * @author OSS Appender Team
+ * @since 1.0.0
+ */
+final class SharedHttpClient {
+
+    // 上传在共享上传线程上同步执行，连接数只需覆盖上传线程数上限
+    private static final int MAX_CONNECTIONS = 64;
+    private static final Duration CONNECTION_MAX_IDLE_TIME = Duration.ofSeconds(60);
+
+    private static SdkHttpClient httpClient;
+    private static int references;
+
+    private SharedHttpClient() {
+    }
+
+    static synchronized SdkHttpClient acquire() {
+        if (httpClient == null) {
+            httpClient = ApacheHttpClient.builder()
+                    .maxConnections(MAX_CONNECTIONS)
+                    .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                    .build();
+        }
+        references++;
+        return httpClient;
+    }
+
+    static synchronized void release() {
+        if (references == 0) {
+            return;
+        }
+        if (--references == 0) {
+            httpClient.close();
+            httpClient = null;
+        }
+    }
+}
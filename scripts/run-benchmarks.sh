@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+
+# 用法: bash scripts/run-benchmarks.sh [结果名称] [JMH参数...]
+# 例如: bash scripts/run-benchmarks.sh baseline
+#       bash scripts/run-benchmarks.sh after-change 'BatchEncode.*' -p codec=GZIP
+
+NAME="${1:-$(date +%Y%m%d-%H%M%S)}"
+shift || true
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+RESULT_DIR="$ROOT_DIR/logx-benchmarks/results"
+RESULT_FILE="$RESULT_DIR/$NAME.json"
+BENCHMARK_JAR="$ROOT_DIR/logx-benchmarks/target/benchmarks.jar"
+
+mkdir -p "$RESULT_DIR"
+
+echo "构建基准测试模块..."
+(cd "$ROOT_DIR" && mvn -B -q -Pbenchmarks -DskipTests -pl logx-benchmarks -am package)
+
+echo "运行基准测试，结果写入 $RESULT_FILE"
+# -prof gc 输出每次操作的分配字节数（gc.alloc.rate.norm）和GC次数
+java -jar "$BENCHMARK_JAR" -prof gc -rf json -rff "$RESULT_FILE" "$@"
+
+if [[ -f "$RESULT_DIR/baseline.json" && "$NAME" != "baseline" ]]; then
+    echo "可与基线对比: $RESULT_DIR/baseline.json <-> $RESULT_FILE"
+fi
@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+
+# 用法: bash scripts/run-loadtest.sh [压测参数...]
+# 例如: bash scripts/run-loadtest.sh --frameworks=all --rate=300000 --duration=1800 --s3-latency-p99-ms=2000
+# 参数说明见 logx-loadtest/README.md
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+MODULE_DIR="$ROOT_DIR/logx-loadtest"
+TIMESTAMP="$(date +%Y%m%d-%H%M%S)"
+WORK_DIR="$MODULE_DIR/target/loadtest-$TIMESTAMP"
+CLASSPATH_FILE="$MODULE_DIR/target/loadtest.classpath"
+JAVA_OPTS="${JAVA_OPTS:--Xms2g -Xmx2g}"
+
+echo "构建压测模块..."
+(cd "$ROOT_DIR" && mvn -B -q -DskipTests -pl logx-loadtest -am install)
+(cd "$MODULE_DIR" && mvn -B -q dependency:build-classpath -Dmdep.outputFile="$CLASSPATH_FILE")
+
+# 在独立的工作目录中运行，兜底文件和报告都写在这里
+mkdir -p "$WORK_DIR"
+cd "$WORK_DIR"
+echo "工作目录: $WORK_DIR"
+# shellcheck disable=SC2086
+java $JAVA_OPTS -cp "$MODULE_DIR/target/classes:$(cat "$CLASSPATH_FILE")" \
+    org.logx.loadtest.LoadTestMain --report-dir="$WORK_DIR" "$@"